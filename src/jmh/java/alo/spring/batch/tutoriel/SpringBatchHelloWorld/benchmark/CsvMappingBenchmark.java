@@ -0,0 +1,84 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CsvRecordMapper;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CustomerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines mapped per second to a CustomerRecord, the third column being left out:
+ * <ul>
+ *     <li>fieldSet: DelimitedLineTokenizer and BeanWrapperFieldSetMapper</li>
+ *     <li>csv: CsvRecordMapper</li>
+ * </ul>
+ * Run with -prof gc to compare the allocations per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvMappingBenchmark {
+
+    @Param({"fieldSet", "csv"})
+    public String mapperType;
+
+    @Param({"1000"})
+    public int lineCount;
+
+    private List<String> lines;
+
+    private LineMapper<CustomerRecord> mapper;
+
+    @Setup
+    public void start() throws Exception {
+        lines = SyntheticInput.lines(lineCount);
+
+        if ("csv".equals(mapperType)) {
+            mapper = CsvRecordMapper.of(CustomerRecord.class, "id,customer,,amount");
+        }
+        else {
+            DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+            tokenizer.setIncludedFields(0, 1, 3);
+            tokenizer.setNames("id", "customer", "amount");
+
+            BeanWrapperFieldSetMapper<CustomerRecord> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
+            fieldSetMapper.setTargetType(CustomerRecord.class);
+            fieldSetMapper.afterPropertiesSet();
+
+            DefaultLineMapper<CustomerRecord> lineMapper = new DefaultLineMapper<>();
+            lineMapper.setLineTokenizer(tokenizer);
+            lineMapper.setFieldSetMapper(fieldSetMapper);
+            mapper = lineMapper;
+        }
+    }
+
+    @Benchmark
+    public int mapLines(Blackhole blackhole) throws Exception {
+        int lineNumber = 0;
+
+        for (String line : lines) {
+            blackhole.consume(mapper.mapLine(line, ++lineNumber));
+        }
+
+        return lineNumber;
+    }
+}
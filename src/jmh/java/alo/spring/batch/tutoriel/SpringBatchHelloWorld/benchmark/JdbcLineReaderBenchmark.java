@@ -0,0 +1,113 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.JdbcBatchLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.KeysetLineItemReader;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read a whole table of embedded H2 by pages of pageSize lines:
+ * <ul>
+ *     <li>offset: "ORDER BY LINE_NUMBER LIMIT ? OFFSET ?", each page reads again the rows before it</li>
+ *     <li>keyset: KeysetLineItemReader, each page seeks to the key following the previous page</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcLineReaderBenchmark {
+
+    private static String TABLE = "LINES";
+
+    @Param({"offset", "keyset"})
+    public String readerType;
+
+    @Param({"100000", "400000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int pageSize;
+
+    private HikariDataSource database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        database = new HikariDataSource();
+        database.setJdbcUrl("jdbc:h2:mem:jmh-reader-" + readerType + "-" + rows + ";DB_CLOSE_DELAY=-1");
+
+        jdbcTemplate = new JdbcTemplate(database);
+
+        JdbcBatchLineItemWriter<String> writer = new JdbcBatchLineItemWriter<>(database, TABLE);
+        writer.setLineLength(200);
+        writer.open(new ExecutionContext());
+
+        List<String> chunk = SyntheticInput.lines(10000);
+        for (int written = 0; written < rows; written += chunk.size()) {
+            writer.write(chunk);
+        }
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        database.close();
+    }
+
+    @Benchmark
+    public long readTable() throws Exception {
+        long length = 0;
+
+        if ("offset".equals(readerType)) {
+            String query = "SELECT LINE_NUMBER, LINE FROM " + TABLE + " ORDER BY LINE_NUMBER LIMIT ? OFFSET ?";
+
+            for (int offset = 0; ; offset += pageSize) {
+                List<String> page = jdbcTemplate.query(query, (resultSet, row) -> resultSet.getString(2), pageSize, offset);
+
+                for (String line : page) {
+                    length += line.length();
+                }
+                if (page.size() < pageSize) {
+                    return length;
+                }
+            }
+        }
+
+        KeysetLineItemReader reader = new KeysetLineItemReader(database, TABLE);
+        reader.setPageSize(pageSize);
+        reader.open(new ExecutionContext());
+
+        String line;
+        while ((line = reader.read()) != null) {
+            length += line.length();
+        }
+        reader.close();
+
+        return length;
+    }
+}
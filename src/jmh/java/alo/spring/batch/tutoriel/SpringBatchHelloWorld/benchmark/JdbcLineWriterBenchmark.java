@@ -0,0 +1,145 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.JdbcBatchLineItemWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines inserted per second into a table of embedded H2, one transaction per chunk as in the step:
+ * <ul>
+ *     <li>row: one INSERT executed per line</li>
+ *     <li>batch: JdbcBatchItemWriter, a JDBC batch of single-row INSERT</li>
+ *     <li>multiRow: JdbcBatchLineItemWriter, a JDBC batch of rowsPerStatement rows INSERT</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcLineWriterBenchmark {
+
+    private static String TABLE = "LINES";
+
+    @Param({"row", "batch", "multiRow"})
+    public String writerType;
+
+    @Param({"100"})
+    public int rowsPerStatement;
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    private HikariDataSource database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaction;
+
+    private ItemWriter<String> writer;
+
+    private ExecutionContext executionContext;
+
+    private List<String> chunk;
+
+    private long lineNumber;
+
+    @Setup(Level.Trial)
+    public void start() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        database = new HikariDataSource();
+        database.setJdbcUrl("jdbc:h2:mem:jmh-jdbc-" + writerType + ";DB_CLOSE_DELAY=-1");
+
+        jdbcTemplate = new JdbcTemplate(database);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(database));
+        chunk = SyntheticInput.lines(chunkSize);
+
+        if ("multiRow".equals(writerType)) {
+            JdbcBatchLineItemWriter<String> lineWriter = new JdbcBatchLineItemWriter<>(database, TABLE);
+            lineWriter.setRowsPerStatement(rowsPerStatement);
+            lineWriter.setLineLength(200);
+            lineWriter.open(executionContext = new ExecutionContext());
+            writer = lineWriter;
+        }
+        else {
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LINE_NUMBER BIGINT NOT NULL PRIMARY KEY, LINE VARCHAR(200))");
+
+            String insert = "INSERT INTO " + TABLE + " (LINE_NUMBER, LINE) VALUES (?, ?)";
+
+            if ("batch".equals(writerType)) {
+                writer = new JdbcBatchItemWriterBuilder<String>()
+                        .dataSource(database)
+                        .sql(insert)
+                        .itemPreparedStatementSetter((line, statement) -> {
+                            statement.setLong(1, ++lineNumber);
+                            statement.setString(2, line);
+                        })
+                        .assertUpdates(false)
+                        .build();
+            }
+            else {
+                writer = lines -> {
+                    for (String line : lines) {
+                        jdbcTemplate.update(insert, ++lineNumber, line);
+                    }
+                };
+            }
+        }
+    }
+
+    /**
+     * Keep the table small, the throughput would otherwise depend on the number of iterations
+     */
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        jdbcTemplate.update("DELETE FROM " + TABLE);
+        lineNumber = 0;
+        if (writer instanceof JdbcBatchLineItemWriter) {
+            ((JdbcBatchLineItemWriter<String>) writer).open(executionContext = new ExecutionContext());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        database.close();
+    }
+
+    @Benchmark
+    public int writeChunk() {
+        transaction.executeWithoutResult(status -> {
+            try {
+                writer.write(chunk);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        return chunk.size();
+    }
+}
@@ -0,0 +1,102 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.SpringBatchHelloWorldApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Complete runs of jobReadFile on an in-memory H2 job repository, with a fixed commit interval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JobReadFileBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int chunkSize;
+
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private Path input;
+
+    private Path output;
+
+    private ConfigurableApplicationContext context;
+
+    private JobLauncher jobLauncher;
+
+    private Job job;
+
+    private final AtomicLong run = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        input = SyntheticInput.file(lines);
+        output = Files.createTempFile("jmh-output-", ".csv");
+
+        context = new SpringApplicationBuilder(SpringBatchHelloWorldApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.batch.job.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "batch.chunk.min-size=" + chunkSize,
+                        "batch.chunk.max-size=" + chunkSize,
+                        "logging.level.root=WARN",
+                        "logging.level.alo.spring.batch.tutoriel=WARN")
+                .run();
+
+        jobLauncher = context.getBean(JobLauncher.class);
+        job = context.getBean("jobReadFile", Job.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        context.close();
+
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public JobExecution runJob() throws Exception {
+        JobExecution execution = jobLauncher.run(job, new JobParametersBuilder()
+                .addString("inputFile", input.toUri().toString())
+                .addString("outputFile", output.toUri().toString())
+                .addLong("run.time", run.incrementAndGet())
+                .toJobParameters());
+
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("jobReadFile ended with " + execution.getStatus());
+        }
+
+        return execution;
+    }
+}
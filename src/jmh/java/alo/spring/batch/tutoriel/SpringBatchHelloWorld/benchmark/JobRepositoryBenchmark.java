@@ -0,0 +1,177 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.BatchingJobRepositoryFactoryBean;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.InMemoryJobRepositoryFactoryBean;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.JobSnapshotWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run of a step whose work is negligible, so that its duration is the one of the metadata
+ * written at each commit, with the default and the batching job repository on embedded H2,
+ * and with the in-memory repository writing the ended executions behind to the same database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JobRepositoryBenchmark {
+
+    @Param({"default", "batched", "memory"})
+    public String repository;
+
+    @Param({"1", "10", "100"})
+    public int chunkSize;
+
+    @Param({"20000"})
+    public int items;
+
+    @Param({"10"})
+    public int checkpointChunks;
+
+    private HikariDataSource database;
+
+    private JobSnapshotWriter snapshotWriter;
+
+    private SimpleJobLauncher jobLauncher;
+
+    private Job job;
+
+    private final AtomicLong run = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        // No Spring Boot here to apply logback-spring.xml, the debug logs would be measured as well
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        // Pooled like the datasource of the application, the chunk transactions do not open a connection each
+        database = new HikariDataSource();
+        database.setJdbcUrl("jdbc:h2:mem:jmh-" + repository + "-" + chunkSize + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("org/springframework/batch/core/schema-h2.sql"))
+                .execute(database);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+
+        JobRepository jobRepository;
+        if ("memory".equals(repository)) {
+            snapshotWriter = new JobSnapshotWriter(database, null, null, 1000);
+
+            InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+            factory.setSnapshotWriter(snapshotWriter);
+            jobRepository = factory.getObject();
+        }
+        else {
+            JobRepositoryFactoryBean factory;
+            if ("batched".equals(repository)) {
+                BatchingJobRepositoryFactoryBean batching = new BatchingJobRepositoryFactoryBean();
+                batching.setCheckpointChunks(checkpointChunks);
+                factory = batching;
+            }
+            else {
+                factory = new JobRepositoryFactoryBean();
+            }
+            factory.setDataSource(database);
+            factory.setTransactionManager(transactionManager);
+            factory.afterPropertiesSet();
+
+            jobRepository = factory.getObject();
+        }
+
+        jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+
+        job = new JobBuilderFactory(jobRepository)
+                .get("job")
+                .start(new StepBuilderFactory(jobRepository, transactionManager)
+                        .get("step")
+                        .<Integer, Integer>chunk(chunkSize)
+                        .reader(new CountingReader(items))
+                        .writer(list -> { })
+                        .build())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (snapshotWriter != null) {
+            snapshotWriter.close();
+        }
+        database.close();
+    }
+
+    @Benchmark
+    public JobExecution runJob() throws Exception {
+        JobExecution execution = jobLauncher.run(job, new JobParametersBuilder()
+                .addLong("run.time", run.incrementAndGet())
+                .toJobParameters());
+
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("job ended with " + execution.getStatus());
+        }
+
+        return execution;
+    }
+
+    /**
+     * Reader of consecutive integers, saving its position at every commit
+     */
+    private static class CountingReader extends AbstractItemCountingItemStreamItemReader<Integer> {
+
+        private final int items;
+
+        private int next;
+
+        private CountingReader(int items) {
+            this.items = items;
+
+            setName("reader");
+        }
+
+        @Override
+        protected Integer doRead() {
+            return next < items ? next++ : null;
+        }
+
+        @Override
+        protected void doOpen() {
+            next = 0;
+        }
+
+        @Override
+        protected void doClose() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.MappedLineItemReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines read per second by the readers of itemReader, the file is read again from the start once exhausted
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineReaderBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int lines;
+
+    @Param({"flat", "mapped"})
+    public String readerType;
+
+    private Path input;
+
+    private ItemStreamReader<String> reader;
+
+    @Setup(Level.Trial)
+    public void createInput() throws Exception {
+        input = SyntheticInput.file(lines);
+        reader = open();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() throws Exception {
+        reader.close();
+        Files.deleteIfExists(input);
+    }
+
+    @Benchmark
+    public String readLine() throws Exception {
+        String line = reader.read();
+
+        if (line == null) {
+            reader.close();
+            reader = open();
+            line = reader.read();
+        }
+
+        return line;
+    }
+
+    private ItemStreamReader<String> open() {
+        ItemStreamReader<String> opened;
+
+        if ("mapped".equals(readerType)) {
+            opened = new MappedLineItemReader(new FileSystemResource(input));
+        }
+        else {
+            opened = new FlatFileItemReaderBuilder<String>()
+                    .name("benchmarkReader")
+                    .resource(new FileSystemResource(input))
+                    .lineMapper(new PassThroughLineMapper())
+                    .build();
+        }
+
+        opened.open(new ExecutionContext());
+
+        return opened;
+    }
+}
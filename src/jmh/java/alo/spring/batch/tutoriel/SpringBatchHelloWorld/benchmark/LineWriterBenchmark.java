@@ -0,0 +1,107 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.ChannelLineItemWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
+import org.springframework.batch.item.file.transform.PassThroughLineAggregator;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunks written per second by the writers of itemWriter, each chunk being written then committed
+ * as a step would do. Lines per second are the score multiplied by chunkSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineWriterBenchmark {
+
+    @Param({"10", "1000"})
+    public int chunkSize;
+
+    @Param({"flat", "channel"})
+    public String writerType;
+
+    private List<String> chunk;
+
+    private Path output;
+
+    private ItemStreamWriter<String> writer;
+
+    private ExecutionContext executionContext;
+
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new ResourcelessTransactionManager());
+
+    @Setup(Level.Trial)
+    public void createChunk() throws Exception {
+        chunk = SyntheticInput.lines(chunkSize);
+        output = Files.createTempFile("jmh-output-", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() throws Exception {
+        Files.deleteIfExists(output);
+    }
+
+    /**
+     * Start each iteration with an empty file
+     */
+    @Setup(Level.Iteration)
+    public void open() {
+        if ("channel".equals(writerType)) {
+            writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        }
+        else {
+            writer = new FlatFileItemWriterBuilder<String>()
+                    .name("benchmarkWriter")
+                    .resource(new FileSystemResource(output))
+                    .lineAggregator(new PassThroughLineAggregator<>())
+                    .build();
+        }
+
+        executionContext = new ExecutionContext();
+        writer.open(executionContext);
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        writer.close();
+    }
+
+    @Benchmark
+    public void writeChunk() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(chunk);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            writer.update(executionContext);
+        });
+    }
+}
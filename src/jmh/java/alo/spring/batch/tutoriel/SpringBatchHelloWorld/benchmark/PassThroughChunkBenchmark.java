@@ -0,0 +1,116 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.ChannelLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSliceItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.ByteRangeLineItemReader;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunks copied per second from a file to another, read, written then checkpointed as stepProcessingFile
+ * and stepProcessingFileSliced would do, with either String items or off-heap line slices.
+ * <p>
+ * Run with -prof gc: gc.alloc.rate.norm is the number of bytes allocated per chunk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassThroughChunkBenchmark {
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    @Param({"string", "slice"})
+    public String itemType;
+
+    private Path input;
+
+    private Path output;
+
+    private ItemStreamReader<Object> reader;
+
+    private ItemStreamWriter<Object> writer;
+
+    private ExecutionContext executionContext;
+
+    @Setup
+    public void createInput() throws Exception {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+
+        input = SyntheticInput.file(1_000_000);
+        output = Files.createTempFile("jmh-output-", ".csv");
+        open();
+    }
+
+    @TearDown
+    public void deleteFiles() throws Exception {
+        reader.close();
+        writer.close();
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public int copyChunk() throws Exception {
+        // As the step does, a new list per chunk
+        List<Object> chunk = new ArrayList<>(chunkSize);
+
+        for (Object item; chunk.size() < chunkSize; ) {
+            if ((item = reader.read()) == null) {
+                reader.close();
+                writer.close();
+                open();
+                continue;
+            }
+            chunk.add(item);
+        }
+
+        writer.write(chunk);
+        writer.update(executionContext);
+        reader.update(executionContext);
+
+        return chunk.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void open() {
+        if ("slice".equals(itemType)) {
+            reader = (ItemStreamReader<Object>) (ItemStreamReader<?>) new LineSliceItemReader(new FileSystemResource(input));
+        }
+        else {
+            reader = (ItemStreamReader<Object>) (ItemStreamReader<?>) new ByteRangeLineItemReader(new FileSystemResource(input));
+        }
+        writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+
+        executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        writer.open(executionContext);
+    }
+}
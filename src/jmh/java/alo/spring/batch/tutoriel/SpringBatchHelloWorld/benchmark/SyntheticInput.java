@@ -0,0 +1,68 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic csv lines used as benchmark input, always the same for a given number of lines
+ */
+final class SyntheticInput {
+
+    private static long SEED = 42L;
+
+    private SyntheticInput() {
+    }
+
+    /**
+     * @param count number of lines
+     * @return lines of 30 to 90 characters
+     */
+    static List<String> lines(int count) {
+        Random random = new Random(SEED);
+        List<String> lines = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            lines.add(line(random, i));
+        }
+
+        return lines;
+    }
+
+    /**
+     * Write a temporary input file
+     *
+     * @param count number of lines
+     * @return path of the file, to be deleted by the caller
+     * @throws IOException if the file cannot be written
+     */
+    static Path file(int count) throws IOException {
+        Path file = Files.createTempFile("jmh-input-", ".csv");
+        Random random = new Random(SEED);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(line(random, i));
+                writer.newLine();
+            }
+        }
+
+        return file;
+    }
+
+    private static String line(Random random, int index) {
+        StringBuilder line = new StringBuilder(96)
+                .append(index).append(",customer-").append(random.nextInt(100_000)).append(',');
+
+        for (int i = 10 + random.nextInt(50); i > 0; i--) {
+            line.append((char) ('a' + random.nextInt(26)));
+        }
+
+        return line.append(',').append(random.nextInt(1_000_000)).toString();
+    }
+}
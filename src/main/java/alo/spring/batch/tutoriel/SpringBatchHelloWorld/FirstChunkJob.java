@@ -1,50 +1,306 @@
 package alo.spring.batch.tutoriel.SpringBatchHelloWorld;
 
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.chunk.AdaptiveCompletionPolicy;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CsvItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CsvRecordMapper;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CsvTokenizer;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.ChannelLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressedLineItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressedLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressionCodec;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSlice;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSliceItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.MappedLineItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.JdbcBatchLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.KeysetLineItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.StagingTableMerger;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.ByteRangeLineItemReader;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.KeyRangePartitioner;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.LineAlignedFilePartitioner;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.MultiFilePartitioner;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.PartitionOutputAggregator;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.ProcessingModeDecider;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor.AsyncItemProcessor;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor.AsyncItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor.ReferenceEnrichingItemProcessor;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.ChunkHandler;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.ChunkTransport;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.InMemoryChunkTransport;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.RemoteChunkItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.SocketChunkTransport;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort.ExternalSortTasklet;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort.SortKey;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.CompositeJobParametersValidator;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.tasklet.Tasklet;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamWriter;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
 import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
 import org.springframework.batch.item.file.transform.PassThroughLineAggregator;
+import org.springframework.batch.item.support.PassThroughItemProcessor;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
 
 @Configuration
 public class FirstChunkJob {
     private static final Logger logger = LoggerFactory.getLogger(SpringBatchHelloWorldApplication.class);
 
+    private static final String MAPPED_READER = "mapped";
+
+    private static final String FLAT_READER = "flat";
+
+    private static final String CHANNEL_WRITER = "channel";
+
+    private static final String SOCKET_TRANSPORT = "socket";
+
     @Autowired
     private JobBuilderFactory jobBuilderFactory;
 
     @Autowired
     private StepBuilderFactory stepBuilderFactory;
 
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${batch.partition.pool-size:4}")
+    private int partitionPoolSize;
+
+    @Value("${batch.partition.grid-size:4}")
+    private int partitionGridSize;
+
+    @Value("${batch.chunk.min-size:10}")
+    private int chunkMinSize;
+
+    @Value("${batch.chunk.max-size:10000}")
+    private int chunkMaxSize;
+
+    @Value("${batch.chunk.target-latency:500}")
+    private long chunkTargetLatency;
+
+    @Value("${batch.processor.concurrency:1}")
+    private int processorConcurrency;
+
+    @Value("${batch.processor.max-in-flight:0}")
+    private int processorMaxInFlight;
+
+    @Value("${batch.enrich.enabled:false}")
+    private boolean enrichEnabled;
+
+    @Value("${batch.enrich.table:REFERENCE}")
+    private String enrichTable;
+
+    @Value("${batch.enrich.key-column:ID}")
+    private String enrichKeyColumn;
+
+    @Value("${batch.enrich.value-column:NAME}")
+    private String enrichValueColumn;
+
+    @Value("${batch.enrich.key-field:0}")
+    private int enrichKeyField;
+
+    @Value("${batch.enrich.delimiter:,}")
+    private char enrichDelimiter;
+
+    @Value("${batch.enrich.cache-size:10000}")
+    private int enrichCacheSize;
+
+    @Value("${batch.enrich.cache-ttl:600000}")
+    private long enrichCacheTtl;
+
+    @Value("${batch.enrich.max-keys-per-query:1000}")
+    private int enrichMaxKeysPerQuery;
+
+    @Value("${batch.enrich.preload:false}")
+    private boolean enrichPreload;
+
+    @Value("${batch.reader.line-index-interval:0}")
+    private int readerLineIndexInterval;
+
+    @Value("${batch.writer.sync-bytes:67108864}")
+    private long writerSyncBytes;
+
+    @Value("${batch.writer.sync-interval:1000}")
+    private long writerSyncInterval;
+
+    @Value("${batch.jdbc.rows-per-statement:100}")
+    private int jdbcRowsPerStatement;
+
+    @Value("${batch.jdbc.staging:false}")
+    private boolean jdbcStaging;
+
+    @Value("${batch.jdbc.line-length:4000}")
+    private int jdbcLineLength;
+
+    @Value("${batch.db.reader.page-size:1000}")
+    private int dbReaderPageSize;
+
+    @Value("${batch.db.reader.fetch-size:-1}")
+    private int dbReaderFetchSize;
+
+    @Value("${batch.db.reader.streaming:false}")
+    private boolean dbReaderStreaming;
+
+    @Value("${batch.csv.record-type:alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv.CustomerRecord}")
+    private String csvRecordType;
+
+    @Value("${batch.csv.columns:id,customer,,amount}")
+    private String csvColumns;
+
+    @Value("${batch.csv.delimiter:,}")
+    private char csvDelimiter;
+
+    @Value("${batch.csv.lines-to-skip:0}")
+    private int csvLinesToSkip;
+
+    @Value("${batch.compression.buffer-size:1048576}")
+    private int compressionBufferSize;
+
+    @Value("${batch.compression.blocks:4}")
+    private int compressionBlocks;
+
+    @Value("${batch.compression.level:-1}")
+    private int compressionLevel;
+
+    @Value("${batch.remote.transport:local}")
+    private String remoteTransport;
+
+    @Value("${batch.remote.workers:localhost:9501}")
+    private String remoteWorkers;
+
+    @Value("${batch.remote.local-workers:2}")
+    private int remoteLocalWorkers;
+
+    @Value("${batch.remote.max-in-flight:4}")
+    private int remoteMaxInFlight;
+
+    @Value("${batch.remote.ack-timeout:30000}")
+    private long remoteAckTimeout;
+
+    @Value("${batch.remote.max-retries:3}")
+    private int remoteMaxRetries;
+
+    @Value("${batch.sort.memory-budget:67108864}")
+    private long sortMemoryBudget;
+
+    @Value("${batch.sort.merge-fan-in:64}")
+    private int sortMergeFanIn;
+
+    @Value("${batch.sort.threads:0}")
+    private int sortThreads;
+
+    @Value("${batch.sort.temp-dir:}")
+    private String sortTempDir;
+
+    @Value("${batch.sort.delimiter:,}")
+    private char sortDelimiter;
+
     /* ***********************************************************************************************************
        PARAMETERS VALIDATION
      * ***********************************************************************************************************/
 
     /**
-     * Parameters validation
+     * Parameters validation, the input is either a single inputFile or the inputFiles directory or pattern,
+     * the output is an outputFile, or an outputTable with writerType "jdbc"
+     *
+     * @return Validator
+     */
+    public JobParametersValidator parameterValidator() {
+        DefaultJobParametersValidator keysValidator = new DefaultJobParametersValidator(
+                new String[]{},
+                new String[]{"inputFile", "inputFiles", "outputFile", "outputTable", "outputMode",
+                        "run.time", "fileName", "executionDate", "processingMode", "partitions", "readerType", "writerType",
+                        "inputCompression", "outputCompression", "sortKey", "sortType"});
+
+        JobParametersValidator inputValidator = parameters -> {
+            if ((parameters.getString("inputFile") == null) == (parameters.getString("inputFiles") == null)) {
+                throw new JobParametersInvalidException("Exactly one of inputFile and inputFiles is required");
+            }
+        };
+
+        JobParametersValidator outputValidator = parameters -> {
+            if (!ProcessingModeDecider.JDBC_WRITER.equalsIgnoreCase(parameters.getString("writerType"))) {
+                if (parameters.getString("outputFile") == null) {
+                    throw new JobParametersInvalidException("outputFile is required");
+                }
+            }
+            else if (parameters.getString("outputTable") == null || parameters.getString("inputFile") == null) {
+                throw new JobParametersInvalidException("writerType jdbc requires an inputFile and an outputTable");
+            }
+        };
+
+        JobParametersValidator sortValidator = parameters -> {
+            if (parameters.getString("sortKey") == null) {
+                return;
+            }
+            try {
+                SortKey.of(parameters.getString("sortKey"), parameters.getString("sortType"), sortDelimiter);
+            }
+            catch (IllegalArgumentException e) {
+                throw new JobParametersInvalidException(e.getMessage());
+            }
+            if (ProcessingModeDecider.JDBC_WRITER.equalsIgnoreCase(parameters.getString("writerType"))
+                    || MultiFilePartitioner.OUTPUT_PER_FILE.equalsIgnoreCase(parameters.getString("outputMode"))
+                    || CompressionCodec.forWriting(parameters.getString("outputCompression"),
+                            new FileSystemResource(parameters.getString("outputFile"))) != CompressionCodec.NONE) {
+                throw new JobParametersInvalidException("sortKey requires a single uncompressed outputFile");
+            }
+        };
+
+        CompositeJobParametersValidator validator = new CompositeJobParametersValidator();
+        validator.setValidators(Arrays.asList(keysValidator, inputValidator, outputValidator, sortValidator));
+
+        return validator;
+    }
+
+    /**
+     * Parameters validation of the job reading a table
      *
      * @return Validator
      */
-    public DefaultJobParametersValidator parameterValidator() {
+    public JobParametersValidator tableParameterValidator() {
         return new DefaultJobParametersValidator(
-                new String[]{"inputFile", "outputFile"},
-                new String[]{"run.time", "fileName", "executionDate"});
+                new String[]{"inputTable", "outputFile"},
+                new String[]{"run.time", "partitions", "writerType", "outputCompression"});
     }
 
     /* ***********************************************************************************************************
@@ -95,35 +351,96 @@ public class FirstChunkJob {
 
     /**
      * Item Reader
+     * <p>
+     * Unless readerType is "flat", the reader saves the byte offset of the next line and a restart seeks
+     * straight to it. With batch.reader.line-index-interval, the offset of every n-th line is also kept in
+     * inputFile.lineidx, so that a context saved by the "flat" reader is resumed without reading the file again.
+     * <p>
+     * A gzip or zstd file is decompressed on the fly, whatever the readerType.
      *
-     * @param inputFile file to be read
+     * @param inputFile        file to be read
+     * @param readerType       "mapped" to read the file through a memory mapped reader,
+     *                         "flat" for the FlatFileItemReader restarting by reading again the lines processed
+     *                         ("slice" selects stepProcessingFileSliced instead, "csv" stepProcessingCsv)
+     * @param inputCompression "none", "gzip" or "zstd", detected from the first bytes of the file when missing
      *
      * @return ItemReader
      */
     @Bean
     @StepScope
-    public FlatFileItemReader<String> itemReader(@Value("#{jobParameters['inputFile']}") Resource inputFile) {
+    public ItemStreamReader<String> itemReader(
+            @Value("#{jobParameters['inputFile']}") Resource inputFile,
+            @Value("#{jobParameters['readerType']}") String readerType,
+            @Value("#{jobParameters['inputCompression']}") String inputCompression) {
+
         logger.info("inputFile: " + inputFile.getFilename());
 
-        return new FlatFileItemReaderBuilder<String>()
-                .name("itemReader")
-                .resource(inputFile)
-                .lineMapper(new PassThroughLineMapper())
-                .build();
+        CompressionCodec codec = CompressionCodec.forReading(inputCompression, inputFile);
+
+        if (codec != CompressionCodec.NONE) {
+            CompressedLineItemReader reader = new CompressedLineItemReader(inputFile, codec);
+            reader.setName("itemReader");
+            reader.setBuffers(compressionBufferSize, compressionBlocks);
+
+            return reader;
+        }
+
+        if (MAPPED_READER.equalsIgnoreCase(readerType)) {
+            MappedLineItemReader reader = new MappedLineItemReader(inputFile);
+            reader.setName("itemReader");
+
+            return reader;
+        }
+
+        if (FLAT_READER.equalsIgnoreCase(readerType)) {
+            return new FlatFileItemReaderBuilder<String>()
+                    .name("itemReader")
+                    .resource(inputFile)
+                    .lineMapper(new PassThroughLineMapper())
+                    .build();
+        }
+
+        ByteRangeLineItemReader reader = new ByteRangeLineItemReader(inputFile);
+        reader.setName("itemReader");
+
+        if (readerLineIndexInterval > 0) {
+            reader.setLineIndex(new File(LineAlignedFilePartitioner.outputPath(inputFile) + ".lineidx"),
+                    readerLineIndexInterval);
+        }
+
+        return reader;
     }
 
     /**
      * Item Writer
+     * <p>
+     * A gzip or zstd file is compressed on the fly, whatever the writerType.
      *
-     * @param outputFile file to be created
+     * @param outputFile        file to be created
+     * @param writerType        "channel" to write the file through buffered gathering writes
+     * @param outputCompression "none", "gzip" or "zstd", detected from the extension of the file when missing
      *
      * @return ItemWriter
      */
     @Bean
     @StepScope
-    public FlatFileItemWriter<String> itemWriter(@Value("#{jobParameters['outputFile']}") Resource outputFile) {
+    public ItemStreamWriter<String> itemWriter(
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['writerType']}") String writerType,
+            @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+
         logger.info("outputFile: " + outputFile.getFilename());
 
+        CompressionCodec codec = CompressionCodec.forWriting(outputCompression, outputFile);
+
+        if (codec != CompressionCodec.NONE) {
+            return compressedItemWriter(outputFile, codec, "itemWriter");
+        }
+
+        if (CHANNEL_WRITER.equalsIgnoreCase(writerType)) {
+            return channelItemWriter(outputFile, "itemWriter");
+        }
+
         return new FlatFileItemWriterBuilder<String>()
                 .name("itemWriter")
                 .resource(outputFile)
@@ -131,44 +448,1012 @@ public class FirstChunkJob {
                 .build();
     }
 
+    /**
+     * Writer with grouped fsync, thresholds are set by batch.writer.sync-bytes and batch.writer.sync-interval
+     *
+     * @param outputFile file to be created
+     * @param name       name used for the restart data
+     *
+     * @return ItemWriter
+     */
+    private <T> ChannelLineItemWriter<T> channelItemWriter(Resource outputFile, String name) {
+        ChannelLineItemWriter<T> writer = new ChannelLineItemWriter<>(outputFile);
+
+        writer.setName(name);
+        writer.setSyncBytes(writerSyncBytes);
+        writer.setSyncInterval(writerSyncInterval);
+
+        return writer;
+    }
+
+    /**
+     * Writer compressing in its own thread, settings are set by batch.compression.*
+     *
+     * @param outputFile file to be created
+     * @param codec      compression of the file
+     * @param name       name used for the restart data
+     *
+     * @return ItemWriter
+     */
+    private <T> CompressedLineItemWriter<T> compressedItemWriter(Resource outputFile, CompressionCodec codec, String name) {
+        CompressedLineItemWriter<T> writer = new CompressedLineItemWriter<>(outputFile, codec);
+
+        writer.setName(name);
+        writer.setBuffers(compressionBufferSize, compressionBlocks);
+        writer.setLevel(compressionLevel);
+        writer.setSyncBytes(writerSyncBytes);
+        writer.setSyncInterval(writerSyncInterval);
+
+        return writer;
+    }
+
+    /**
+     * Completion policy adapting the commit interval of a step execution to the chunk latency,
+     * within batch.chunk.min-size and batch.chunk.max-size and aiming at batch.chunk.target-latency
+     *
+     * @return CompletionPolicy
+     */
+    @Bean
+    @StepScope
+    public AdaptiveCompletionPolicy chunkCompletionPolicy() {
+        return new AdaptiveCompletionPolicy(chunkMinSize, chunkMaxSize, chunkTargetLatency);
+    }
+
+    /**
+     * Item Processor, the place where each line is transformed or enriched: with batch.enrich.enabled,
+     * the value of its key in the reference table batch.enrich.table is appended to each line
+     *
+     * @return ItemProcessor
+     */
+    @Bean
+    public ItemProcessor<String, String> lineProcessor() {
+        if (!enrichEnabled) {
+            return new PassThroughItemProcessor<>();
+        }
+
+        ReferenceEnrichingItemProcessor processor = new ReferenceEnrichingItemProcessor(dataSource, enrichTable,
+                enrichKeyColumn, enrichValueColumn);
+        processor.setKeyField(enrichKeyField);
+        processor.setDelimiter(enrichDelimiter);
+        processor.setCache(enrichCacheSize, enrichCacheTtl);
+        processor.setMaxKeysPerQuery(enrichMaxKeysPerQuery);
+        processor.setPreload(enrichPreload);
+        processor.bindTo(Metrics.globalRegistry);
+
+        return processor;
+    }
+
+    /**
+     * Task executor of the item processing, its size is set by batch.processor.concurrency
+     *
+     * @return TaskExecutor
+     */
+    @Bean
+    public AsyncTaskExecutor processorTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+
+        taskExecutor.setCorePoolSize(processorConcurrency);
+        taskExecutor.setMaxPoolSize(processorConcurrency);
+        taskExecutor.setThreadNamePrefix("processor-");
+        taskExecutor.setDaemon(true);
+
+        return taskExecutor;
+    }
+
+    /**
+     * Item Processor running lineProcessor on processorTaskExecutor, the items of a chunk are processed
+     * concurrently and at most batch.processor.max-in-flight of them are waiting for their processing
+     *
+     * @return ItemProcessor
+     */
+    @Bean
+    public AsyncItemProcessor<String, String> asyncItemProcessor() {
+        int maxInFlight = processorMaxInFlight > 0 ? processorMaxInFlight : 4 * processorConcurrency;
+
+        return new AsyncItemProcessor<>(lineProcessor(), processorTaskExecutor(), processorConcurrency, maxInFlight);
+    }
+
     /**
      * Step for processing a file
      *
      * @return Step
      */
+    @Bean
     public Step stepProcessingFile() {
         return stepBuilderFactory
                 .get("Step read file")
-                .<String, String>chunk(10)
-                .reader(itemReader(null))
-                .writer(itemWriter(null))
+                .<String, Future<String>>chunk(chunkCompletionPolicy())
+                .reader(itemReader(null, null, null))
+                .processor(asyncItemProcessor())
+                .writer(new AsyncItemWriter<>(itemWriter(null, null, null)))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
                 .build();
     }
 
     /* ***********************************************************************************************************
-       JOB FOR PROCESSING A FILE
+       STEP THAT LOADS A FILE INTO A TABLE
      * ***********************************************************************************************************/
 
     /**
-     * Job for processing File
+     * Item Writer inserting the lines into a table with batches of multi-row statements,
+     * settings are set by batch.jdbc.*
      *
-     * @return Job
+     * @param outputTable table receiving the lines, through its staging table with batch.jdbc.staging
+     *
+     * @return ItemWriter
      */
     @Bean
-    public Job jobReadFile() {
-        return jobBuilderFactory
-                .get("Job Processing file")
-                .validator(parameterValidator())
-                .incrementer(new ParameterAddRunTime())
+    @StepScope
+    public JdbcBatchLineItemWriter<String> tableItemWriter(@Value("#{jobParameters['outputTable']}") String outputTable) {
+        logger.info("outputTable: " + outputTable);
 
-                // Pre-processing
-                .start(stepPreProcessingFile())
-                .on("FAILED").to(stepOnFailure())
+        JdbcBatchLineItemWriter<String> writer = new JdbcBatchLineItemWriter<>(dataSource, outputTable);
+        writer.setName("tableItemWriter");
+        writer.setRowsPerStatement(jdbcRowsPerStatement);
+        writer.setStaging(jdbcStaging);
+        writer.setLineLength(jdbcLineLength);
 
-                // Processing
-                .from(stepPreProcessingFile())
-                .on("*")
-                .to(stepProcessingFile())
+        return writer;
+    }
+
+    /**
+     * Step loading a file into a table, with writerType "jdbc"
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFileToTable() {
+        return stepBuilderFactory
+                .get("Step load table")
+                .<String, Future<String>>chunk(chunkCompletionPolicy())
+                .reader(itemReader(null, null, null))
+                .processor(asyncItemProcessor())
+                .writer(new AsyncItemWriter<>(tableItemWriter(null)))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .build();
+    }
+
+    /**
+     * Tasklet merging the staging table into the output table
+     *
+     * @param outputTable table receiving the lines
+     *
+     * @return Tasklet
+     */
+    @Bean
+    @StepScope
+    public Tasklet taskletMergeStaging(@Value("#{jobParameters['outputTable']}") String outputTable) {
+        if (!jdbcStaging) {
+            return (contribution, chunkContext) -> RepeatStatus.FINISHED;
+        }
+
+        return new StagingTableMerger(dataSource, outputTable);
+    }
+
+    /**
+     * Step merging the staging table, when batch.jdbc.staging is set
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepMergeStaging() {
+        return stepBuilderFactory
+                .get("Merge staging table Step")
+                .tasklet(taskletMergeStaging(null))
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       STEP THAT COPIES A FILE THROUGH OFF-HEAP LINE SLICES
+     * ***********************************************************************************************************/
+
+    /**
+     * Item Reader of off-heap line slices, recycled once their chunk is written
+     *
+     * @param inputFile file to be read
+     *
+     * @return ItemReader
+     */
+    @Bean
+    @StepScope
+    public LineSliceItemReader sliceItemReader(@Value("#{jobParameters['inputFile']}") Resource inputFile) {
+        logger.info("inputFile: " + inputFile.getFilename());
+
+        LineSliceItemReader reader = new LineSliceItemReader(inputFile);
+        reader.setName("sliceItemReader");
+
+        return reader;
+    }
+
+    /**
+     * Item Writer of the line slices, copying their bytes unless the output is compressed
+     *
+     * @param outputFile        file to be created
+     * @param outputCompression "none", "gzip" or "zstd", detected from the extension of the file when missing
+     *
+     * @return ItemWriter
+     */
+    @Bean
+    @StepScope
+    public ItemStreamWriter<LineSlice> sliceItemWriter(
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+
+        logger.info("outputFile: " + outputFile.getFilename());
+
+        CompressionCodec codec = CompressionCodec.forWriting(outputCompression, outputFile);
+
+        if (codec != CompressionCodec.NONE) {
+            return compressedItemWriter(outputFile, codec, "sliceItemWriter");
+        }
+
+        return channelItemWriter(outputFile, "sliceItemWriter");
+    }
+
+    /**
+     * Step copying a file line by line without turning the lines into Strings, with readerType "slice".
+     * There is no processing stage: the lines are written as they are read.
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFileSliced() {
+        return stepBuilderFactory
+                .get("Step read file sliced")
+                .<LineSlice, LineSlice>chunk(chunkCompletionPolicy())
+                .reader(sliceItemReader(null))
+                .writer(sliceItemWriter(null, null))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       STEP THAT MAPS A CSV FILE TO RECORDS
+     * ***********************************************************************************************************/
+
+    /**
+     * Item Reader of csv records, the type and the columns of the records are set by batch.csv.*
+     * <p>
+     * The lines of an uncompressed file are tokenized in the off-heap segments of a LineSliceItemReader,
+     * only the String columns mapped are copied.
+     *
+     * @param inputFile        file to be read
+     * @param inputCompression "none", "gzip" or "zstd", detected from the first bytes of the file when missing
+     *
+     * @return ItemReader
+     */
+    @Bean
+    @StepScope
+    @SuppressWarnings("unchecked")
+    public CsvItemReader<Object> csvItemReader(
+            @Value("#{jobParameters['inputFile']}") Resource inputFile,
+            @Value("#{jobParameters['inputCompression']}") String inputCompression) {
+
+        logger.info("inputFile: " + inputFile.getFilename());
+
+        CompressionCodec codec = CompressionCodec.forReading(inputCompression, inputFile);
+        ItemStreamReader<? extends CharSequence> lineReader;
+
+        if (codec != CompressionCodec.NONE) {
+            CompressedLineItemReader reader = new CompressedLineItemReader(inputFile, codec);
+            reader.setName("itemReader");
+            reader.setBuffers(compressionBufferSize, compressionBlocks);
+            lineReader = reader;
+        }
+        else {
+            LineSliceItemReader reader = new LineSliceItemReader(inputFile);
+            reader.setName("sliceItemReader");
+            lineReader = reader;
+        }
+
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        tokenizer.setDelimiter(csvDelimiter);
+
+        Class<Object> recordType = (Class<Object>) ClassUtils.resolveClassName(csvRecordType, getClass().getClassLoader());
+        CsvRecordMapper<Object> mapper = new CsvRecordMapper<>(recordType,
+                Arrays.asList(StringUtils.delimitedListToStringArray(csvColumns, ",")), tokenizer);
+
+        CsvItemReader<Object> reader = new CsvItemReader<>(lineReader, mapper);
+        reader.setName("csvItemReader");
+        reader.setLinesToSkip(csvLinesToSkip);
+
+        return reader;
+    }
+
+    /**
+     * Item Processor of the csv records, the place where each record is transformed or enriched
+     *
+     * @return ItemProcessor writing the record back as a line
+     */
+    @Bean
+    public ItemProcessor<Object, String> recordProcessor() {
+        return String::valueOf;
+    }
+
+    /**
+     * Step mapping the lines of a csv file to records, with readerType "csv"
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingCsv() {
+        return stepBuilderFactory
+                .get("Step read csv")
+                .<Object, String>chunk(chunkCompletionPolicy())
+                .reader(csvItemReader(null, null))
+                .processor(recordProcessor())
+                .writer(itemWriter(null, null, null))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       PARTITIONED STEP THAT PROCESS A FILE
+     * ***********************************************************************************************************/
+
+    /**
+     * Task executor running the partitions, its size is set by batch.partition.pool-size
+     *
+     * @return TaskExecutor
+     */
+    @Bean
+    public TaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+
+        taskExecutor.setCorePoolSize(partitionPoolSize);
+        taskExecutor.setMaxPoolSize(partitionPoolSize);
+        taskExecutor.setThreadNamePrefix("partition-");
+        // The partition step waits for its partitions, idle workers must not keep the JVM alive
+        taskExecutor.setDaemon(true);
+
+        return taskExecutor;
+    }
+
+    /**
+     * Partitioner splitting the input file into line aligned byte ranges
+     *
+     * @param inputFile  file to be read
+     * @param outputFile file to be created
+     * @param partitions number of partitions, the grid size is used when missing
+     *
+     * @return Partitioner
+     */
+    @Bean
+    @StepScope
+    public LineAlignedFilePartitioner filePartitioner(
+            @Value("#{jobParameters['inputFile']}") Resource inputFile,
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['partitions']}") Long partitions) {
+
+        LineAlignedFilePartitioner partitioner = new LineAlignedFilePartitioner(inputFile, outputFile);
+
+        if (partitions != null) {
+            partitioner.setPartitions(partitions.intValue());
+        }
+
+        return partitioner;
+    }
+
+    /**
+     * Partitioner giving one partition per file matching inputFiles
+     *
+     * @param inputFiles        directory or pattern of the files to be read
+     * @param outputFile        file to be created, or directory with outputMode "perFile"
+     * @param outputMode        "perFile" for one output per input file, merged output otherwise
+     * @param outputCompression "none", "gzip" or "zstd" for the outputs per file
+     * @param stepExecution     execution of the partition step, recording the files for a restart
+     *
+     * @return Partitioner
+     */
+    @Bean
+    @StepScope
+    public MultiFilePartitioner multiFilePartitioner(
+            @Value("#{jobParameters['inputFiles']}") String inputFiles,
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['outputMode']}") String outputMode,
+            @Value("#{jobParameters['outputCompression']}") String outputCompression,
+            @Value("#{stepExecution}") StepExecution stepExecution) {
+
+        MultiFilePartitioner partitioner = new MultiFilePartitioner(inputFiles, outputFile);
+
+        partitioner.setStepExecution(stepExecution);
+        partitioner.setJobRepository(jobRepository);
+
+        partitioner.setOutputPerFile(MultiFilePartitioner.OUTPUT_PER_FILE.equalsIgnoreCase(outputMode));
+        partitioner.setOutputCodec(CompressionCodec.forWriting(outputCompression, outputFile));
+
+        return partitioner;
+    }
+
+    /**
+     * Item Reader of a single partition
+     * <p>
+     * The partitions of inputFiles read a whole file of their own, decompressed on the fly when it is compressed.
+     *
+     * @param inputFile          file to be read
+     * @param readerType         "mapped" to read the partition through a memory mapped reader
+     * @param inputCompression   "none", "gzip" or "zstd", detected from the first bytes of the file when missing
+     * @param partitionInputFile file of the partition, when reading inputFiles
+     * @param start              first byte of the partition
+     * @param end                byte following the partition
+     *
+     * @return ItemReader
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<String> partitionItemReader(
+            @Value("#{jobParameters['inputFile']}") Resource inputFile,
+            @Value("#{jobParameters['readerType']}") String readerType,
+            @Value("#{jobParameters['inputCompression']}") String inputCompression,
+            @Value("#{stepExecutionContext['partition.inputFile']}") String partitionInputFile,
+            @Value("#{stepExecutionContext['partition.start']}") Long start,
+            @Value("#{stepExecutionContext['partition.end']}") Long end) {
+
+        if (partitionInputFile != null) {
+            inputFile = new FileSystemResource(partitionInputFile);
+
+            CompressionCodec codec = CompressionCodec.forReading(inputCompression, inputFile);
+
+            if (codec != CompressionCodec.NONE) {
+                CompressedLineItemReader reader = new CompressedLineItemReader(inputFile, codec);
+                reader.setName("partitionItemReader");
+                reader.setBuffers(compressionBufferSize, compressionBlocks);
+
+                return reader;
+            }
+        }
+
+        if (MAPPED_READER.equalsIgnoreCase(readerType)) {
+            MappedLineItemReader reader = new MappedLineItemReader(inputFile);
+            reader.setName("partitionItemReader");
+            reader.setRange(start, end);
+
+            return reader;
+        }
+
+        ByteRangeLineItemReader reader = new ByteRangeLineItemReader(inputFile, start, end);
+        reader.setName("partitionItemReader");
+
+        return reader;
+    }
+
+    /**
+     * Item Writer of a single partition
+     * <p>
+     * The partition output is compressed with the codec of the final output: the compressed partition outputs
+     * are joined as concatenated gzip members or zstd frames.
+     *
+     * @param outputFile        file to be created by the partition
+     * @param writerType        "channel" to write the partition through buffered gathering writes
+     * @param finalOutputFile   final output, whose extension gives the compression when none is set
+     * @param outputCompression "none", "gzip" or "zstd"
+     *
+     * @return ItemWriter
+     */
+    @Bean
+    @StepScope
+    public ItemStreamWriter<String> partitionItemWriter(
+            @Value("#{stepExecutionContext['partition.outputFile']}") String outputFile,
+            @Value("#{jobParameters['writerType']}") String writerType,
+            @Value("#{jobParameters['outputFile']}") Resource finalOutputFile,
+            @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+
+        CompressionCodec codec = CompressionCodec.forWriting(outputCompression, finalOutputFile);
+
+        if (codec != CompressionCodec.NONE) {
+            return compressedItemWriter(new FileSystemResource(outputFile), codec, "partitionItemWriter");
+        }
+
+        if (CHANNEL_WRITER.equalsIgnoreCase(writerType)) {
+            return channelItemWriter(new FileSystemResource(outputFile), "partitionItemWriter");
+        }
+
+        return new FlatFileItemWriterBuilder<String>()
+                .name("partitionItemWriter")
+                .resource(new FileSystemResource(outputFile))
+                .lineAggregator(new PassThroughLineAggregator<>())
+                .build();
+    }
+
+    /**
+     * Step processing a single partition
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFilePartition() {
+        return stepBuilderFactory
+                .get("Step read file partition")
+                .<String, Future<String>>chunk(chunkCompletionPolicy())
+                .reader(partitionItemReader(null, null, null, null, null, null))
+                .processor(asyncItemProcessor())
+                .writer(new AsyncItemWriter<>(partitionItemWriter(null, null, null, null)))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .build();
+    }
+
+    /**
+     * Step dispatching the partitions on the partition task executor,
+     * the default number of partitions is set by batch.partition.grid-size
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFilePartitioned() {
+        return stepBuilderFactory
+                .get("Step read file partitioned")
+                .partitioner("Step read file partition", filePartitioner(null, null, null))
+                .step(stepProcessingFilePartition())
+                .gridSize(partitionGridSize)
+                .taskExecutor(partitionTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Step dispatching one partition per file of inputFiles on the partition task executor,
+     * so that at most batch.partition.pool-size files are read at the same time
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFiles() {
+        return stepBuilderFactory
+                .get("Step read files")
+                .partitioner("Step read file partition", multiFilePartitioner(null, null, null, null, null))
+                .step(stepProcessingFilePartition())
+                .taskExecutor(partitionTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Tasklet joining the partition outputs
+     *
+     * @param outputFile file to be created
+     * @param outputMode "perFile" when the partitions write outputs of their own, nothing to join then
+     *
+     * @return Tasklet
+     */
+    @Bean
+    @StepScope
+    public Tasklet taskletAggregatePartitions(
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['outputMode']}") String outputMode) {
+
+        if (MultiFilePartitioner.OUTPUT_PER_FILE.equalsIgnoreCase(outputMode)) {
+            return (contribution, chunkContext) -> RepeatStatus.FINISHED;
+        }
+
+        return new PartitionOutputAggregator(outputFile);
+    }
+
+    /**
+     * Step joining the partition outputs into the output file
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepAggregatePartitions() {
+        return stepBuilderFactory
+                .get("Aggregate partitions Step")
+                .tasklet(taskletAggregatePartitions(null, null))
+                .build();
+    }
+
+    /**
+     * Decider choosing the single-threaded, the partitioned, the remote or the multi-file processing
+     *
+     * @return Decider
+     */
+    @Bean
+    public JobExecutionDecider processingModeDecider() {
+        return new ProcessingModeDecider();
+    }
+
+    /* ***********************************************************************************************************
+       PARTITIONED STEP THAT READS A TABLE
+     * ***********************************************************************************************************/
+
+    /**
+     * Partitioner splitting the keys of the input table into ranges
+     *
+     * @param inputTable table to be read
+     * @param outputFile file to be created
+     * @param partitions number of partitions, the grid size is used when missing
+     *
+     * @return Partitioner
+     */
+    @Bean
+    @StepScope
+    public KeyRangePartitioner tablePartitioner(
+            @Value("#{jobParameters['inputTable']}") String inputTable,
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['partitions']}") Long partitions) {
+
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, inputTable, outputFile);
+
+        if (partitions != null) {
+            partitioner.setPartitions(partitions.intValue());
+        }
+
+        return partitioner;
+    }
+
+    /**
+     * Item Reader of a key range of the input table, reading it by keyset pages,
+     * settings are set by batch.db.reader.*
+     *
+     * @param inputTable table to be read
+     * @param fromKey    key preceding the range
+     * @param toKey      last key of the range
+     *
+     * @return ItemReader
+     */
+    @Bean
+    @StepScope
+    public KeysetLineItemReader tableItemReader(
+            @Value("#{jobParameters['inputTable']}") String inputTable,
+            @Value("#{stepExecutionContext['partition.fromKey']}") Long fromKey,
+            @Value("#{stepExecutionContext['partition.toKey']}") Long toKey) {
+
+        KeysetLineItemReader reader = new KeysetLineItemReader(dataSource, inputTable, fromKey, toKey);
+        reader.setName("tableItemReader");
+        reader.setPageSize(dbReaderPageSize);
+        reader.setFetchSize(dbReaderFetchSize);
+        reader.setStreaming(dbReaderStreaming);
+
+        return reader;
+    }
+
+    /**
+     * Step processing a key range of the input table
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepReadTablePartition() {
+        return stepBuilderFactory
+                .get("Step read table partition")
+                .<String, Future<String>>chunk(chunkCompletionPolicy())
+                .reader(tableItemReader(null, null, null))
+                .processor(asyncItemProcessor())
+                .writer(new AsyncItemWriter<>(partitionItemWriter(null, null, null, null)))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .build();
+    }
+
+    /**
+     * Step dispatching the key ranges on the partition task executor,
+     * the default number of partitions is set by batch.partition.grid-size
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepReadTablePartitioned() {
+        return stepBuilderFactory
+                .get("Step read table partitioned")
+                .partitioner("Step read table partition", tablePartitioner(null, null, null))
+                .step(stepReadTablePartition())
+                .gridSize(partitionGridSize)
+                .taskExecutor(partitionTaskExecutor())
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       REMOTE CHUNKING STEP THAT PROCESS A FILE
+     * ***********************************************************************************************************/
+
+    /**
+     * Item Writer sending the chunks to the workers.
+     * <p>
+     * With batch.remote.transport=socket the workers are the JVMs listed in batch.remote.workers
+     * (see RemoteChunkWorkerConfiguration), otherwise batch.remote.local-workers threads of this JVM.
+     * Each of them writes its own outputFile.workerNNNN, remote workers through a shared file system
+     *
+     * @param outputFile file to be created
+     *
+     * @return ItemWriter
+     */
+    @Bean
+    @StepScope
+    public RemoteChunkItemWriter<String> remoteChunkItemWriter(
+            @Value("#{jobParameters['outputFile']}") Resource outputFile) {
+
+        ChunkTransport<String> transport;
+
+        if (SOCKET_TRANSPORT.equalsIgnoreCase(remoteTransport)) {
+            List<InetSocketAddress> workers = SocketChunkTransport.parseAddresses(remoteWorkers);
+            List<String> workerOutputs = new ArrayList<>();
+
+            for (int i = 0; i < workers.size(); i++) {
+                workerOutputs.add(workerOutputPath(outputFile, i).getPath());
+            }
+
+            SocketChunkTransport<String> socketTransport = new SocketChunkTransport<>(workers);
+            socketTransport.setWorkerOutputs(workerOutputs);
+            transport = socketTransport;
+        }
+        else {
+            List<ChunkHandler<String, ?>> handlers = new ArrayList<>();
+
+            for (int i = 0; i < remoteLocalWorkers; i++) {
+                Resource workerOutput = new FileSystemResource(workerOutputPath(outputFile, i));
+                handlers.add(new ChunkHandler<>(lineProcessor(), channelItemWriter(workerOutput, "worker" + i)));
+            }
+            transport = new InMemoryChunkTransport<>(handlers);
+        }
+
+        RemoteChunkItemWriter<String> writer = new RemoteChunkItemWriter<>(transport, itemReader(null, null, null));
+        writer.setMaxInFlight(remoteMaxInFlight);
+        writer.setAckTimeout(remoteAckTimeout);
+        writer.setMaxRetries(remoteMaxRetries);
+
+        return writer;
+    }
+
+    private static File workerOutputPath(Resource outputFile, int index) {
+        try {
+            return new File(outputFile.getFile().getAbsolutePath() + String.format(".worker%04d", index));
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(outputFile.getDescription() + " is not a file", e);
+        }
+    }
+
+    /**
+     * Step reading a file and sending its chunks to the workers
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepProcessingFileRemote() {
+        return stepBuilderFactory
+                .get("Step read file remote")
+                .<String, String>chunk(chunkCompletionPolicy())
+                .reader(itemReader(null, null, null))
+                .writer(remoteChunkItemWriter(null))
+                .listener((StepExecutionListener) chunkCompletionPolicy())
+                .listener((StepExecutionListener) remoteChunkItemWriter(null))
+                .build();
+    }
+
+    /**
+     * Tasklet joining the worker outputs, one after the other: the lines of a worker keep their input
+     * order, not the lines of different workers
+     *
+     * @param outputFile file to be created
+     *
+     * @return Tasklet
+     */
+    @Bean
+    @StepScope
+    public Tasklet taskletAggregateWorkers(@Value("#{jobParameters['outputFile']}") Resource outputFile) {
+        PartitionOutputAggregator aggregator = new PartitionOutputAggregator(outputFile);
+        aggregator.setPartSuffix(".worker");
+
+        return aggregator;
+    }
+
+    /**
+     * Step joining the worker outputs into the output file
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepAggregateWorkers() {
+        return stepBuilderFactory
+                .get("Aggregate workers Step")
+                .tasklet(taskletAggregateWorkers(null))
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       STEP THAT SORTS THE OUTPUT FILE
+     * ***********************************************************************************************************/
+
+    /**
+     * Task executor sorting the runs of the external sort, its size is set by batch.sort.threads
+     *
+     * @return TaskExecutor
+     */
+    @Bean
+    public AsyncTaskExecutor sortTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+
+        taskExecutor.setCorePoolSize(sortParallelism());
+        taskExecutor.setMaxPoolSize(sortParallelism());
+        taskExecutor.setThreadNamePrefix("sort-");
+        taskExecutor.setDaemon(true);
+
+        return taskExecutor;
+    }
+
+    private int sortParallelism() {
+        return sortThreads > 0 ? sortThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Tasklet sorting the output file by sortKey, with settings set by batch.sort.*
+     *
+     * @param outputFile file to be sorted
+     * @param sortKey    index of the field from 0, or "line", nothing to sort when missing
+     * @param sortType   "numeric" or "text"
+     *
+     * @return Tasklet
+     */
+    @Bean
+    @StepScope
+    public Tasklet taskletSortOutput(
+            @Value("#{jobParameters['outputFile']}") Resource outputFile,
+            @Value("#{jobParameters['sortKey']}") String sortKey,
+            @Value("#{jobParameters['sortType']}") String sortType) {
+
+        if (sortKey == null) {
+            return (contribution, chunkContext) -> RepeatStatus.FINISHED;
+        }
+
+        ExternalSortTasklet tasklet = new ExternalSortTasklet(outputFile, SortKey.of(sortKey, sortType, sortDelimiter));
+        tasklet.setMemoryBudget(sortMemoryBudget);
+        tasklet.setMergeFanIn(sortMergeFanIn);
+        tasklet.setTaskExecutor(sortTaskExecutor(), sortParallelism());
+        if (!sortTempDir.isEmpty()) {
+            tasklet.setTempDirectory(new File(sortTempDir));
+        }
+
+        return tasklet;
+    }
+
+    /**
+     * Step sorting the output file, each merge of runs being committed so that a restart resumes from it
+     *
+     * @return Step
+     */
+    @Bean
+    public Step stepSortOutput() {
+        return stepBuilderFactory
+                .get("Sort output Step")
+                .tasklet(taskletSortOutput(null, null, null))
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       JOB FOR PROCESSING A FILE
+     * ***********************************************************************************************************/
+
+    /**
+     * Job for processing File
+     * <p>
+     * The file is processed by a single thread, unless the job parameter processingMode is "partitioned"
+     * or "remote". With readerType "slice", the single thread copies it through off-heap line slices.
+     * The files given by inputFiles are processed concurrently, one partition per file, into
+     * a merged outputFile or, with outputMode "perFile", into one output per file in the outputFile directory.
+     * With writerType "jdbc", the lines are inserted into outputTable.
+     * With readerType "csv", the lines are mapped to the records set by batch.csv.record-type.
+     * With sortKey, the outputFile is then sorted by that field.
+     * The bean is also named after the job, for spring.batch.job.names
+     *
+     * @return Job
+     */
+    @Bean({"jobReadFile", "Job Processing file"})
+    public Job jobReadFile() {
+        return jobBuilderFactory
+                .get("Job Processing file")
+                .validator(parameterValidator())
+                .incrementer(new ParameterAddRunTime())
+
+                // Pre-processing
+                .start(stepPreProcessingFile())
+                .on("FAILED").to(stepOnFailure())
+
+                // Processing
+                .from(stepPreProcessingFile())
+                .on("*")
+                .to(processingModeDecider())
+
+                // Partitioned processing
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.PARTITIONED)
+                .to(stepProcessingFilePartitioned())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFilePartitioned())
+                .on("*")
+                .to(stepAggregatePartitions())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepAggregatePartitions())
+                .on("*")
+                .to(stepSortOutput())
+                .on("FAILED").to(stepOnFailure())
+
+                // Multiple files
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.MULTI_FILE)
+                .to(stepProcessingFiles())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFiles())
+                .on("*")
+                .to(stepAggregatePartitions())
+
+                // Output table
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.TABLE)
+                .to(stepProcessingFileToTable())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFileToTable())
+                .on("*")
+                .to(stepMergeStaging())
+                .on("FAILED").to(stepOnFailure())
+
+                // Csv records
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.CSV)
+                .to(stepProcessingCsv())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingCsv())
+                .on("*")
+                .to(stepSortOutput())
+
+                // Off-heap line slices
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.SLICED)
+                .to(stepProcessingFileSliced())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFileSliced())
+                .on("*")
+                .to(stepSortOutput())
+
+                // Remote chunking
+                .from(processingModeDecider())
+                .on(ProcessingModeDecider.REMOTE)
+                .to(stepProcessingFileRemote())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFileRemote())
+                .on("*")
+                .to(stepAggregateWorkers())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepAggregateWorkers())
+                .on("*")
+                .to(stepSortOutput())
+
+                // Single-threaded processing
+                .from(processingModeDecider())
+                .on("*")
+                .to(stepProcessingFile())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepProcessingFile())
+                .on("*")
+                .to(stepSortOutput())
+
+                .end()
+                .build();
+    }
+
+    /* ***********************************************************************************************************
+       JOB FOR READING A TABLE
+     * ***********************************************************************************************************/
+
+    /**
+     * Job exporting the lines of the table inputTable (LINE_NUMBER, LINE), as loaded by writerType "jdbc",
+     * into outputFile
+     * <p>
+     * The table is read by key ranges processed concurrently, each of them by keyset pages, the outputs of
+     * the ranges are then joined in key order.
+     * Registered with batch.db.reader.enabled=true only, not to be run with the other jobs when
+     * spring.batch.job.names is unset; the job is named "Job Processing table", the bean is also named after it
+     *
+     * @return Job
+     */
+    @Bean({"jobReadTable", "Job Processing table"})
+    @ConditionalOnProperty(name = "batch.db.reader.enabled", havingValue = "true")
+    public Job jobReadTable() {
+        return jobBuilderFactory
+                .get("Job Processing table")
+                .validator(tableParameterValidator())
+                .incrementer(new ParameterAddRunTime())
+
+                .start(stepReadTablePartitioned())
+                .on("FAILED").to(stepOnFailure())
+                .from(stepReadTablePartitioned())
+                .on("*")
+                .to(stepAggregatePartitions())
                 .on("FAILED").to(stepOnFailure())
 
                 .end()
@@ -9,17 +9,17 @@ public class JobLoggerListener implements JobExecutionListener {
 
     private static Logger logger = LoggerFactory.getLogger(JobLoggerListener.class);
 
-    private static String START_MESSAGE ="%s est lancé!";
-    private static String END_MESSAGE = "%s est terminé!";
+    private static String START_MESSAGE ="{} est lancé!";
+    private static String END_MESSAGE = "{} est terminé!";
 
     @Override
     public void beforeJob(JobExecution jobExecution) {
-        logger.info(String.format(START_MESSAGE, jobExecution.getJobInstance().getJobName()));
+        logger.info(START_MESSAGE, jobExecution.getJobInstance().getJobName());
 
     }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
-        logger.info(String.format(END_MESSAGE, jobExecution.getJobInstance().getJobName()));
+        logger.info(END_MESSAGE, jobExecution.getJobInstance().getJobName());
     }
 }
@@ -1,5 +1,8 @@
 package alo.spring.batch.tutoriel.SpringBatchHelloWorld;
 
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.command.CommandExecutors;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.command.ProcessTasklet;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.flow.ParallelFlowBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.*;
@@ -9,24 +12,27 @@ import org.springframework.batch.core.configuration.annotation.StepBuilderFactor
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.CompositeJobParametersValidator;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.listener.JobListenerFactoryBean;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.CallableTaskletAdapter;
-import org.springframework.batch.core.step.tasklet.SimpleSystemProcessExitCodeMapper;
-import org.springframework.batch.core.step.tasklet.SystemCommandTasklet;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.Arrays;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 @EnableBatchProcessing
 @SpringBootApplication
@@ -40,6 +46,12 @@ public class SpringBatchHelloWorldApplication {
 	@Autowired
 	private StepBuilderFactory stepBuilderFactory;
 
+	@Value("${batch.command.max-tasks:64}")
+	private int commandMaxTasks;
+
+	@Value("${batch.flow.pool-size:4}")
+	private int flowPoolSize;
+
 	/* ********************************************
 	   PARAMETERS
 	   ******************************************** */
@@ -200,6 +212,16 @@ public class SpringBatchHelloWorldApplication {
 				.build();
 	}
 
+	/**
+	 * Executor shared by the system commands, at most batch.command.max-tasks tasks at the same time
+	 *
+	 * @return executor
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService commandExecutor() {
+		return CommandExecutors.bounded(commandMaxTasks, "command-");
+	}
+
 	/**
 	 * Tasklet running a simple system script and checking its returned code
 	 *
@@ -209,14 +231,12 @@ public class SpringBatchHelloWorldApplication {
 	public Tasklet systemCommandTasklet() {
 		logger.info("Entering system tasklet...");
 
-		SystemCommandTasklet systemCommandTasklet = new SystemCommandTasklet();
+		ProcessTasklet systemCommandTasklet = new ProcessTasklet();
 
 //		systemCommandTasklet.setWorkingDirectory("/home/papa/Env/Dev/tmp");
 		systemCommandTasklet.setCommand("/home/papa/Env/Dev/tmp/test.bash");
 		systemCommandTasklet.setTimeout(10000);
-		systemCommandTasklet.setInterruptOnCancel(true);
-		systemCommandTasklet.setTerminationCheckInterval(5000);
-		systemCommandTasklet.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		systemCommandTasklet.setExecutor(commandExecutor());
 
 		systemCommandTasklet.setSystemProcessExitCodeMapper((exitCode) -> {
 			logger.info("Returned code: " + String.valueOf(exitCode));
@@ -244,6 +264,27 @@ public class SpringBatchHelloWorldApplication {
 				.build();
 	}
 
+	/* ********************************************
+	   PARALLEL FLOWS
+	   ******************************************** */
+
+	/**
+	 * Executor shared by the split flows, its size is set by batch.flow.pool-size
+	 *
+	 * @return TaskExecutor
+	 */
+	@Bean
+	public TaskExecutor flowTaskExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+
+		taskExecutor.setCorePoolSize(flowPoolSize);
+		taskExecutor.setMaxPoolSize(flowPoolSize);
+		taskExecutor.setThreadNamePrefix("flow-");
+		taskExecutor.setDaemon(true);
+
+		return taskExecutor;
+	}
+
 	/* ********************************************
 	   JOBS
 	   ******************************************** */
@@ -346,6 +387,35 @@ public class SpringBatchHelloWorldApplication {
 				.build();
 	}
 
+	/**
+	 * Job running the independent tasklet steps at the same time, any of them failing leads to the failure step
+	 * <p>
+	 * Registered with batch.flow.parallel-job.enabled=true only, not to be run with the other jobs when
+	 * spring.batch.job.names is unset
+	 *
+	 * @param stepOnFailure step run when the flow is FAILED
+	 * @return Job
+	 */
+	@Bean({"jobWithParallelSteps", "Job with parallel steps"})
+	@ConditionalOnProperty(name = "batch.flow.parallel-job.enabled", havingValue = "true")
+	public Job jobWithParallelSteps(@Qualifier("stepOnFailure") Step stepOnFailure) {
+		Flow parallelSteps = new ParallelFlowBuilder("Parallel steps", flowTaskExecutor())
+				.group(callableStep())
+				.group(stepWithContextModification())
+				.group(stepSystem())
+				.build();
+
+		return jobBuilderFactory
+				.get("Job with parallel steps")
+				.incrementer(new ParameterAddRunTime())
+				.start(parallelSteps)
+				.on("FAILED").to(stepOnFailure)
+				.from(parallelSteps)
+				.on("*").end()
+				.end()
+				.build();
+	}
+
 	/**
 	 * Job running system command script and checking its returned code
 	 *
@@ -0,0 +1,163 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.chunk;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completion policy changing the commit interval while the step runs, aiming at a target chunk latency.
+ * <p>
+ * The latency of a chunk is measured from its start to the start of the next one, so it includes
+ * reading, writing and the commit. After each full chunk the size is scaled by target / latency,
+ * limited to a factor of 2 in either direction and kept within [minSize, maxSize].
+ * <p>
+ * The current size is published as the gauge "spring.batch.chunk.size" and saved in the step
+ * ExecutionContext, so a restart resumes with the learned size. It must be registered as a listener of the step.
+ */
+public class AdaptiveCompletionPolicy extends SimpleCompletionPolicy implements StepExecutionListener {
+
+    private static Logger logger = LoggerFactory.getLogger(AdaptiveCompletionPolicy.class);
+
+    public static final String SIZE_KEY = "adaptiveCompletionPolicy.size";
+
+    private static String SIZE_METRIC = "spring.batch.chunk.size";
+    private static String RESIZE_METRIC = "spring.batch.chunk.resize";
+
+    private static double MAX_FACTOR = 2.0;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetLatency;
+
+    private final AtomicInteger size;
+
+    private StepExecution stepExecution;
+
+    private Gauge gauge;
+
+    private Tags tags = Tags.empty();
+
+    private long chunkStart;
+
+    private int chunkCount;
+
+    /**
+     * @param minSize       smallest commit interval
+     * @param maxSize       largest commit interval
+     * @param targetLatency wanted duration of a chunk in milliseconds
+     */
+    public AdaptiveCompletionPolicy(int minSize, int maxSize, long targetLatency) {
+        super(minSize);
+
+        Assert.isTrue(minSize > 0 && minSize <= maxSize, "invalid bounds [" + minSize + ", " + maxSize + "]");
+        Assert.isTrue(targetLatency > 0, "targetLatency must be positive");
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatency = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+        this.size = new AtomicInteger(minSize);
+    }
+
+    /**
+     * @return current commit interval
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+
+        if (stepExecution.getExecutionContext().containsKey(SIZE_KEY)) {
+            size.set(bound(stepExecution.getExecutionContext().getInt(SIZE_KEY)));
+
+            logger.info("Resuming with a commit interval of {}", size.get());
+        }
+
+        tags = Tags.of("job.name", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                "step.name", stepExecution.getStepName());
+
+        gauge = Gauge.builder(SIZE_METRIC, size, AtomicInteger::get)
+                .description("Commit interval chosen by the adaptive completion policy")
+                .tags(tags)
+                .register(Metrics.globalRegistry);
+
+        chunkStart = 0;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (gauge != null) {
+            Metrics.globalRegistry.remove(gauge);
+            gauge = null;
+        }
+        this.stepExecution = null;
+
+        return null;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext context) {
+        long now = System.nanoTime();
+
+        // Only full chunks are representative of the current size
+        if (chunkStart > 0 && chunkCount >= size.get()) {
+            adjust(now - chunkStart);
+        }
+
+        chunkStart = now;
+        chunkCount = 0;
+
+        setChunkSize(size.get());
+
+        return super.start(context);
+    }
+
+    @Override
+    public void update(RepeatContext context) {
+        super.update(context);
+
+        chunkCount++;
+    }
+
+    private void adjust(long latency) {
+        double factor = (double) targetLatency / Math.max(1, latency);
+        factor = Math.max(1 / MAX_FACTOR, Math.min(MAX_FACTOR, factor));
+
+        int current = size.get();
+        int next = bound((int) Math.round(current * factor));
+
+        if (next == current) {
+            return;
+        }
+
+        size.set(next);
+
+        if (stepExecution != null) {
+            stepExecution.getExecutionContext().putInt(SIZE_KEY, next);
+        }
+
+        Metrics.counter(RESIZE_METRIC, tags.and("direction", next > current ? "grow" : "shrink")).increment();
+
+        logger.debug("Chunk of {} items took {}ms, commit interval set to {}",
+                current, TimeUnit.NANOSECONDS.toMillis(latency), next);
+    }
+
+    private int bound(int value) {
+        return Math.max(minSize, Math.min(maxSize, value));
+    }
+}
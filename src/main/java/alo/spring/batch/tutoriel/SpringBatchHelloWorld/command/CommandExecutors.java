@@ -0,0 +1,175 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.command;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors shared by the system commands
+ */
+public final class CommandExecutors {
+
+    private static Logger logger = LoggerFactory.getLogger(CommandExecutors.class);
+
+    private CommandExecutors() {
+    }
+
+    /**
+     * Executor running at most maxTasks tasks at the same time, the others wait in a queue.
+     * <p>
+     * Tasks run on virtual threads when the JDK provides them (21+), on daemon platform threads otherwise.
+     *
+     * @param maxTasks   maximum number of tasks running at the same time
+     * @param namePrefix prefix of the platform thread names
+     * @return ExecutorService
+     */
+    public static ExecutorService bounded(int maxTasks, String namePrefix) {
+        Assert.isTrue(maxTasks > 0, "maxTasks must be positive");
+
+        ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+
+        if (virtualThreads != null) {
+            logger.info("System commands run on virtual threads, {} at most", maxTasks);
+
+            return new BoundedExecutorService(virtualThreads, maxTasks);
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(namePrefix);
+        threadFactory.setDaemon(true);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxTasks, maxTasks,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Limit the number of tasks given at the same time to an unbounded executor.
+     * <p>
+     * Once shut down, the tasks still waiting are dispatched as permits are released, the delegate being shut
+     * down after the last of them.
+     */
+    static class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private final int maxTasks;
+
+        private final Semaphore permits;
+
+        private final LinkedBlockingQueue<Runnable> waiting = new LinkedBlockingQueue<>();
+
+        private volatile boolean shutdown;
+
+        BoundedExecutorService(ExecutorService delegate, int maxTasks) {
+            this.delegate = delegate;
+            this.maxTasks = maxTasks;
+            this.permits = new Semaphore(maxTasks);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+
+            waiting.add(command);
+            dispatch();
+        }
+
+        private void dispatch() {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+
+                if (next == null) {
+                    permits.release();
+                    break;
+                }
+
+                try {
+                    delegate.execute(() -> {
+                        try {
+                            next.run();
+                        }
+                        finally {
+                            permits.release();
+                            dispatch();
+                        }
+                    });
+                }
+                catch (RejectedExecutionException e) {
+                    // Queued while the delegate was being shut down
+                    permits.release();
+                    reject(next);
+                }
+            }
+
+            if (shutdown && waiting.isEmpty() && permits.availablePermits() == maxTasks) {
+                delegate.shutdown();
+            }
+        }
+
+        private static void reject(Runnable task) {
+            logger.warn("Task {} rejected, the executor has been shut down", task);
+
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            dispatch();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+
+            List<Runnable> notStarted = new ArrayList<>();
+            waiting.drainTo(notStarted);
+            notStarted.addAll(delegate.shutdownNow());
+
+            return notStarted;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.command;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.SimpleSystemProcessExitCodeMapper;
+import org.springframework.batch.core.step.tasklet.StoppableTasklet;
+import org.springframework.batch.core.step.tasklet.SystemCommandException;
+import org.springframework.batch.core.step.tasklet.SystemProcessExitCodeMapper;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tasklet running a system command, a lighter replacement of SystemCommandTasklet:
+ * <ul>
+ *     <li>the end of the process is awaited through Process.onExit(), without polling</li>
+ *     <li>stderr is merged into stdout, copied line by line to the log by a single task of a shared executor:
+ *     a running task drains the whole output of its process, so no process blocks on a full pipe while its
+ *     other output waits in the queue of the executor</li>
+ *     <li>no thread is created per command, see {@link CommandExecutors}</li>
+ * </ul>
+ * The process is destroyed when the timeout expires or when the step is stopped. Its output is closed when it is
+ * still held by a child process outputTimeout after the end of the process.
+ */
+public class ProcessTasklet implements StoppableTasklet, InitializingBean {
+
+    private static Logger logger = LoggerFactory.getLogger(ProcessTasklet.class);
+
+    private String[] command;
+
+    private File workingDirectory;
+
+    private Map<String, String> environment;
+
+    private long timeout = 0;
+
+    private long outputTimeout = 10000;
+
+    private Executor executor;
+
+    private SystemProcessExitCodeMapper systemProcessExitCodeMapper = new SimpleSystemProcessExitCodeMapper();
+
+    private final Set<Process> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param command command line, split on white spaces
+     */
+    public void setCommand(String command) {
+        this.command = StringUtils.tokenizeToStringArray(command, " \t");
+    }
+
+    /**
+     * @param command program and its arguments
+     */
+    public void setCommand(String... command) {
+        this.command = command;
+    }
+
+    public void setWorkingDirectory(String workingDirectory) {
+        this.workingDirectory = workingDirectory == null ? null : new File(workingDirectory);
+    }
+
+    /**
+     * @param environment variables added to the environment of the process
+     */
+    public void setEnvironment(Map<String, String> environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * @param timeout milliseconds given to the process before it is destroyed, 0 to wait forever
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param outputTimeout milliseconds given to the output to be drained once the process has ended, left to a
+     *                      child process still holding it afterwards
+     */
+    public void setOutputTimeout(long outputTimeout) {
+        Assert.isTrue(outputTimeout > 0, "outputTimeout must be positive");
+
+        this.outputTimeout = outputTimeout;
+    }
+
+    /**
+     * @param executor executor copying the outputs of the process to the log
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setSystemProcessExitCodeMapper(SystemProcessExitCodeMapper systemProcessExitCodeMapper) {
+        this.systemProcessExitCodeMapper = systemProcessExitCodeMapper;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notEmpty(command, "command is required");
+        Assert.notNull(executor, "executor is required");
+        Assert.isTrue(workingDirectory == null || workingDirectory.isDirectory(),
+                "workingDirectory must be an existing directory");
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(command).directory(workingDirectory).redirectErrorStream(true);
+        if (environment != null) {
+            builder.environment().putAll(environment);
+        }
+
+        Process process = builder.start();
+        running.add(process);
+
+        String name = new File(command[0]).getName();
+        CompletableFuture<Void> output = pump(process.getInputStream(), name);
+
+        try {
+            CompletableFuture<Process> exit = process.onExit();
+
+            if (timeout > 0) {
+                exit.get(timeout, TimeUnit.MILLISECONDS);
+            }
+            else {
+                exit.get();
+            }
+
+            // The output ends with the process, unless a child process inherited it
+            try {
+                output.get(outputTimeout, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e) {
+                logger.warn("Output of {} still open {} ms after its end, closed", name, outputTimeout);
+                closeOutput(process, output);
+            }
+        }
+        catch (TimeoutException e) {
+            process.destroyForcibly();
+            throw new SystemCommandException("Execution of system command did not finish within the timeout");
+        }
+        catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new SystemCommandException("Interrupted while waiting for the system command", e);
+        }
+        catch (ExecutionException e) {
+            throw new SystemCommandException("Execution of system command failed", e.getCause());
+        }
+        finally {
+            running.remove(process);
+        }
+
+        if (chunkContext.getStepContext().getStepExecution().isTerminateOnly()) {
+            contribution.setExitStatus(ExitStatus.STOPPED);
+        }
+        else {
+            ExitStatus exitStatus = systemProcessExitCodeMapper.getExitStatus(process.exitValue());
+            contribution.setExitStatus(exitStatus);
+        }
+
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * Destroy the running processes, their tasklet then end with STOPPED
+     */
+    @Override
+    public void stop() {
+        for (Process process : running) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Close the output held by a child process, so that the task copying it ends and frees its slot of the executor
+     */
+    private static void closeOutput(Process process, CompletableFuture<Void> output) {
+        output.cancel(true);
+
+        try {
+            process.getInputStream().close();
+        }
+        catch (IOException e) {
+            logger.debug("Unable to close the output of the process {}: {}", process.pid(), e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> pump(InputStream stream, String name) {
+        return CompletableFuture.runAsync(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    logger.info("[{}] {}", name, line);
+                }
+            }
+            catch (IOException e) {
+                logger.debug("Output of {} closed: {}", name, e.getMessage());
+            }
+        }, executor);
+    }
+}
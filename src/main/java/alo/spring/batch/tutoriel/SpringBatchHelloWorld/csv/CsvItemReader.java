@@ -0,0 +1,99 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Read csv records, mapping the lines of a line reader with a {@link CsvRecordMapper}.
+ * <p>
+ * The lines are mapped as soon as they are read: the line reader may reuse its lines once the chunk is written,
+ * as LineSliceItemReader does. The restart is left to the line reader; the number of lines read is saved so that
+ * the header lines are only skipped at the beginning of the file.
+ */
+public class CsvItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String LINE_COUNT_KEY = "line.count";
+
+    private final ItemStreamReader<? extends CharSequence> lineReader;
+
+    private final CsvRecordMapper<T> mapper;
+
+    private int linesToSkip;
+
+    private boolean saveState = true;
+
+    private int lineCount;
+
+    /**
+     * @param lineReader reader of the lines, opened, updated and closed by this reader
+     * @param mapper     mapper of the lines to records
+     */
+    public CsvItemReader(ItemStreamReader<? extends CharSequence> lineReader, CsvRecordMapper<T> mapper) {
+        Assert.notNull(lineReader, "lineReader is required");
+        Assert.notNull(mapper, "mapper is required");
+
+        this.lineReader = lineReader;
+        this.mapper = mapper;
+
+        setName(ClassUtils.getShortName(CsvItemReader.class));
+    }
+
+    /**
+     * @param linesToSkip header lines at the beginning of the file
+     */
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        lineCount = saveState ? executionContext.getInt(getExecutionContextKey(LINE_COUNT_KEY), 0) : 0;
+
+        lineReader.open(executionContext);
+    }
+
+    @Override
+    public T read() throws Exception {
+        CharSequence line;
+
+        do {
+            line = lineReader.read();
+
+            if (line == null) {
+                return null;
+            }
+            lineCount++;
+        }
+        while (lineCount <= linesToSkip);
+
+        return mapper.map(line, lineCount);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        lineReader.update(executionContext);
+
+        if (saveState) {
+            executionContext.putInt(getExecutionContextKey(LINE_COUNT_KEY), lineCount);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        lineReader.close();
+    }
+}
@@ -0,0 +1,319 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Map the columns of a csv line to the properties of a record, a bean with a public no-argument constructor
+ * and a public setter per column.
+ * <p>
+ * The constructor and the setters are turned once per record type into functional interfaces generated by
+ * {@link LambdaMetafactory}: mapping a line calls them directly, without reflection nor property lookup.
+ * The long and int columns are parsed in the line, the columns without property are neither copied nor parsed,
+ * and the line is not read past the last column mapped.
+ * <p>
+ * Supported property types: long, int, double, boolean and their wrappers, String and BigDecimal.
+ * An empty column leaves a primitive property unchanged and sets the others to null.
+ */
+public class CsvRecordMapper<T> implements LineMapper<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(CsvRecordMapper.class);
+
+    private static final ClassValue<Map<String, ColumnSetter>> SETTERS = new ClassValue<Map<String, ColumnSetter>>() {
+        @Override
+        protected Map<String, ColumnSetter> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Supplier<?>> CONSTRUCTORS = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return constructor(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final Supplier<?> constructor;
+
+    private final int[] indexes;
+
+    private final ColumnSetter[] setters;
+
+    private final int maxFields;
+
+    private final CsvTokenizer tokenizer;
+
+    /**
+     * @param type    record type
+     * @param columns property of each column, in the order of the columns, empty for the columns not mapped
+     */
+    public CsvRecordMapper(Class<T> type, List<String> columns) {
+        this(type, columns, new CsvTokenizer());
+    }
+
+    /**
+     * @param type      record type
+     * @param columns   property of each column, in the order of the columns, empty for the columns not mapped
+     * @param tokenizer tokenizer of the lines, with their delimiter and quote character
+     */
+    public CsvRecordMapper(Class<T> type, List<String> columns, CsvTokenizer tokenizer) {
+        Assert.notNull(type, "type is required");
+        Assert.notNull(tokenizer, "tokenizer is required");
+
+        List<Integer> mappedIndexes = new ArrayList<>();
+        List<ColumnSetter> mappedSetters = new ArrayList<>();
+
+        for (int index = 0; index < columns.size(); index++) {
+            String property = columns.get(index) == null ? "" : columns.get(index).trim();
+
+            if (!property.isEmpty()) {
+                mappedIndexes.add(index);
+                mappedSetters.add(SETTERS.get(type).computeIfAbsent(property, name -> setter(type, name)));
+            }
+        }
+        Assert.isTrue(!mappedSetters.isEmpty(), "at least one column must be mapped to a property of " + type.getName());
+
+        this.type = type;
+        this.constructor = CONSTRUCTORS.get(type);
+        this.indexes = mappedIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.setters = mappedSetters.toArray(new ColumnSetter[0]);
+        this.maxFields = indexes[indexes.length - 1] + 1;
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * @param type    record type
+     * @param columns comma-separated properties of the columns, such as "id,name,,amount"
+     */
+    public static <T> CsvRecordMapper<T> of(Class<T> type, String columns) {
+        List<String> properties = new ArrayList<>();
+
+        for (String column : StringUtils.delimitedListToStringArray(columns, ",")) {
+            properties.add(column);
+        }
+
+        return new CsvRecordMapper<>(type, properties);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public T mapLine(String line, int lineNumber) throws Exception {
+        return map(line, lineNumber);
+    }
+
+    /**
+     * @param line       line to be mapped, a String or a {@link alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSlice}
+     * @param lineNumber number of the line, for the error messages
+     * @return record holding the columns mapped
+     */
+    @SuppressWarnings("unchecked")
+    public T map(CharSequence line, int lineNumber) {
+        try {
+            tokenizer.tokenize(line, maxFields);
+
+            Object record = constructor.get();
+
+            for (int i = 0; i < setters.length; i++) {
+                setters[i].set(record, tokenizer, indexes[i]);
+            }
+
+            return (T) record;
+        }
+        catch (RuntimeException e) {
+            String input = line.toString();
+
+            throw new FlatFileParseException("Parsing error at line " + lineNumber + ": " + input, e, input, lineNumber);
+        }
+    }
+
+    /**
+     * Setter of a property taking a column of the tokenized line
+     */
+    @FunctionalInterface
+    interface ColumnSetter {
+        void set(Object record, CsvTokenizer fields, int index);
+    }
+
+    private static Supplier<?> constructor(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+
+            return (Supplier<?>) LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type)).getTarget().invoke();
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " has no public no-argument constructor", e);
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException("Unable to generate the constructor of " + type.getName(), e);
+        }
+    }
+
+    private static ColumnSetter setter(Class<?> type, String property) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+        Method method = descriptor == null ? null : descriptor.getWriteMethod();
+
+        if (method == null) {
+            throw new IllegalArgumentException(type.getName() + " has no public setter for " + property);
+        }
+
+        Class<?> parameter = method.getParameterTypes()[0];
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(method);
+
+            if (parameter == long.class) {
+                ObjLongConsumer<Object> setter = generate(lookup, ObjLongConsumer.class, handle, type, long.class);
+                return (record, fields, index) -> {
+                    if (!fields.isEmpty(index)) {
+                        setter.accept(record, fields.getLong(index));
+                    }
+                };
+            }
+            if (parameter == int.class) {
+                ObjIntConsumer<Object> setter = generate(lookup, ObjIntConsumer.class, handle, type, int.class);
+                return (record, fields, index) -> {
+                    if (!fields.isEmpty(index)) {
+                        setter.accept(record, fields.getInt(index));
+                    }
+                };
+            }
+            if (parameter == double.class) {
+                ObjDoubleConsumer<Object> setter = generate(lookup, ObjDoubleConsumer.class, handle, type, double.class);
+                return (record, fields, index) -> {
+                    if (!fields.isEmpty(index)) {
+                        setter.accept(record, fields.getDouble(index));
+                    }
+                };
+            }
+
+            BiConsumer<Object, Object> setter = generate(lookup, BiConsumer.class, handle, type,
+                    parameter.isPrimitive() ? Boolean.class : parameter);
+
+            if (parameter == boolean.class) {
+                return (record, fields, index) -> {
+                    if (!fields.isEmpty(index)) {
+                        setter.accept(record, fields.getBoolean(index));
+                    }
+                };
+            }
+
+            ColumnParser parser = parser(parameter);
+
+            if (parser == null) {
+                throw new IllegalArgumentException("Unsupported type " + parameter.getName() + " of " + type.getName()
+                        + "." + property);
+            }
+
+            return (record, fields, index) -> setter.accept(record, fields.isEmpty(index) ? null : parser.parse(fields, index));
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Setter of " + type.getName() + "." + property + " is not accessible", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnParser {
+        Object parse(CsvTokenizer fields, int index);
+    }
+
+    private static ColumnParser parser(Class<?> parameter) {
+        if (parameter == String.class) {
+            return CsvTokenizer::getString;
+        }
+        if (parameter == Long.class) {
+            return CsvTokenizer::getLong;
+        }
+        if (parameter == Integer.class) {
+            return CsvTokenizer::getInt;
+        }
+        if (parameter == Double.class) {
+            return CsvTokenizer::getDouble;
+        }
+        if (parameter == Boolean.class) {
+            return CsvTokenizer::getBoolean;
+        }
+        if (parameter == BigDecimal.class) {
+            return CsvTokenizer::getBigDecimal;
+        }
+        return null;
+    }
+
+    /**
+     * Generate an implementation of a functional interface (record, value) calling the setter,
+     * falling back to the method handle when the record type is not visible from this class
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> F generate(MethodHandles.Lookup lookup, Class<?> functionalInterface, MethodHandle setter,
+                                  Class<?> type, Class<?> parameter) {
+        Class<?> erased = parameter.isPrimitive() ? parameter : Object.class;
+
+        try {
+            return (F) LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(functionalInterface),
+                    MethodType.methodType(void.class, Object.class, erased),
+                    setter,
+                    MethodType.methodType(void.class, type, parameter)).getTarget().invoke();
+        }
+        catch (Throwable e) {
+            logger.debug("Setter {} called through its method handle: {}", setter, e.toString());
+
+            MethodHandle generic = setter.asType(MethodType.methodType(void.class, Object.class, erased));
+
+            if (parameter == long.class) {
+                return (F) (ObjLongConsumer<Object>) (record, value) -> invoke(generic, record, value);
+            }
+            if (parameter == int.class) {
+                return (F) (ObjIntConsumer<Object>) (record, value) -> invoke(generic, record, value);
+            }
+            if (parameter == double.class) {
+                return (F) (ObjDoubleConsumer<Object>) (record, value) -> invoke(generic, record, value);
+            }
+            return (F) (BiConsumer<Object, Object>) (record, value) -> invoke(generic, record, value);
+        }
+    }
+
+    private static void invoke(MethodHandle setter, Object record, Object value) {
+        try {
+            setter.invoke(record, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
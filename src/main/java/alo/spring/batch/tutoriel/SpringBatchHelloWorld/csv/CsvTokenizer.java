@@ -0,0 +1,230 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSlice;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Split a csv line into fields without copying it: the fields are kept as ranges of the line, and a field is only
+ * turned into a String or a number when it is asked for.
+ * <p>
+ * A field may be quoted, a quote inside a quoted field being written twice (RFC 4180). A quoted field cannot
+ * span several lines: the line readers have already split the input on line feeds.
+ * <p>
+ * The line may be a {@link LineSlice}: the fields are then read straight from the off-heap segment of the reader,
+ * and the String fields decoded with the charset of the file.
+ * <p>
+ * Not thread-safe, the fields are those of the last line tokenized.
+ */
+public class CsvTokenizer {
+
+    private static int INITIAL_FIELDS = 16;
+
+    private char delimiter = ',';
+
+    private char quoteCharacter = '"';
+
+    private CharSequence line;
+
+    private int fieldCount;
+
+    private int[] starts = new int[INITIAL_FIELDS];
+
+    private int[] ends = new int[INITIAL_FIELDS];
+
+    /**
+     * Fields holding doubled quotes, to be unescaped when read as a String
+     */
+    private boolean[] escaped = new boolean[INITIAL_FIELDS];
+
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public void setQuoteCharacter(char quoteCharacter) {
+        this.quoteCharacter = quoteCharacter;
+    }
+
+    /**
+     * @param line      line to be split
+     * @param maxFields fields needed, the rest of the line is not read; 0 for all the fields
+     * @return number of fields found, at most maxFields
+     */
+    public int tokenize(CharSequence line, int maxFields) {
+        this.line = line;
+        fieldCount = 0;
+
+        int length = line.length();
+        int position = 0;
+
+        while (maxFields <= 0 || fieldCount < maxFields) {
+            ensureCapacity(fieldCount + 1);
+
+            if (position < length && line.charAt(position) == quoteCharacter) {
+                position = quotedField(line, position + 1, length);
+            }
+            else {
+                int start = position;
+
+                while (position < length && line.charAt(position) != delimiter) {
+                    position++;
+                }
+                setField(start, position, false);
+            }
+
+            if (position >= length) {
+                break;
+            }
+            if (line.charAt(position) != delimiter) {
+                throw new IllegalArgumentException("Delimiter expected after the quoted field " + (fieldCount - 1)
+                        + " at position " + position + ": " + line);
+            }
+            position++;
+
+            if (position == length) {
+                // Trailing delimiter: last field is empty
+                if (maxFields <= 0 || fieldCount < maxFields) {
+                    ensureCapacity(fieldCount + 1);
+                    setField(length, length, false);
+                }
+                break;
+            }
+        }
+
+        return fieldCount;
+    }
+
+    /**
+     * @return position following the closing quote
+     */
+    private int quotedField(CharSequence line, int start, int length) {
+        boolean doubled = false;
+        int position = start;
+
+        while (true) {
+            if (position >= length) {
+                throw new IllegalArgumentException("Unterminated quoted field " + fieldCount + ": " + line);
+            }
+            if (line.charAt(position) == quoteCharacter) {
+                if (position + 1 < length && line.charAt(position + 1) == quoteCharacter) {
+                    doubled = true;
+                    position += 2;
+                    continue;
+                }
+                setField(start, position, doubled);
+
+                return position + 1;
+            }
+            position++;
+        }
+    }
+
+    private void setField(int start, int end, boolean doubled) {
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = doubled;
+        fieldCount++;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > starts.length) {
+            int capacity = Math.max(count, 2 * starts.length);
+
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+    }
+
+    /**
+     * @return number of fields of the last line tokenized
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+
+        return starts[index] == ends[index];
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+
+        int start = starts[index];
+        int end = ends[index];
+
+        String value = line instanceof LineSlice
+                ? ((LineSlice) line).toString(start, end)
+                : line.subSequence(start, end).toString();
+
+        if (escaped[index]) {
+            String quote = String.valueOf(quoteCharacter);
+            value = value.replace(quote + quote, quote);
+        }
+
+        return value;
+    }
+
+    /**
+     * Parse the field where it is, without creating a String
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+
+        return Long.parseLong(line, starts[index], ends[index], 10);
+    }
+
+    /**
+     * Parse the field where it is, without creating a String
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+
+        return Integer.parseInt(line, starts[index], ends[index], 10);
+    }
+
+    public double getDouble(int index) {
+        return Double.parseDouble(getString(index));
+    }
+
+    public BigDecimal getBigDecimal(int index) {
+        return new BigDecimal(getString(index));
+    }
+
+    /**
+     * @return true for "true", "1", "y" or "yes", whatever the case
+     */
+    public boolean getBoolean(int index) {
+        checkIndex(index);
+
+        int start = starts[index];
+        int length = ends[index] - start;
+
+        return (length == 1 && (line.charAt(start) == '1' || Character.toLowerCase(line.charAt(start)) == 'y'))
+                || regionMatches(start, length, "yes")
+                || regionMatches(start, length, "true");
+    }
+
+    private boolean regionMatches(int start, int length, String value) {
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IncorrectTokenCountException("Field " + index + " is missing", index + 1, fieldCount,
+                    line == null ? null : line.toString());
+        }
+    }
+}
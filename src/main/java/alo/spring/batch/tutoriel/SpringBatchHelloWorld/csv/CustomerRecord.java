@@ -0,0 +1,44 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+/**
+ * Record of the csv inputs "id,customer,comment,amount", the comment being left out.
+ * <p>
+ * Written back as "id,customer,amount".
+ */
+public class CustomerRecord {
+
+    private long id;
+
+    private String customer;
+
+    private long amount;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return id + "," + customer + "," + amount;
+    }
+}
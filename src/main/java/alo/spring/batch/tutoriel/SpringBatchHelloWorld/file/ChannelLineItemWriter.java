@@ -0,0 +1,398 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line writer encoding the items into a set of reusable direct buffers written with a single
+ * gathering write.
+ * <p>
+ * The buffers are written when they are all full and when the chunk is about to be committed
+ * (see {@link #update(ExecutionContext)}), so that the offset saved for a restart always matches
+ * what has been given to the file system. The fsync is grouped: it happens only once syncBytes
+ * have been written or syncInterval has elapsed since the previous one, and when the writer is closed.
+ * <p>
+ * On restart the file is truncated to the saved offset, discarding what was written by the chunk that failed.
+ * Otherwise it is truncated, unless appendAllowed is set: the lines are then written after its content.
+ * <p>
+ * {@link LineSlice} items are copied as they are from their off-heap segment, without going through a String:
+ * the file is expected to be written with the charset it was read with.
+ */
+public class ChannelLineItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(ChannelLineItemWriter.class);
+
+    private static final String OFFSET_KEY = "offset";
+
+    private static int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static int DEFAULT_BUFFER_COUNT = 4;
+    private static int INITIAL_LINE_CAPACITY = 1024;
+
+    private final Resource resource;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private String lineSeparator = System.lineSeparator();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private int bufferCount = DEFAULT_BUFFER_COUNT;
+
+    private long syncBytes = 0;
+
+    private long syncInterval = 0;
+
+    private boolean saveState = true;
+
+    private boolean appendAllowed = false;
+
+    private FileChannel channel;
+
+    private CharsetEncoder encoder;
+
+    private ByteBuffer separatorBytes;
+
+    /**
+     * Chars of the item being encoded, reused from one item to the next
+     */
+    private CharBuffer line;
+
+    private ByteBuffer[] buffers;
+
+    private int current;
+
+    private long position;
+
+    private long unsyncedBytes;
+
+    private long lastSync;
+
+    private long writeCount;
+
+    private long syncCount;
+
+    /**
+     * @param resource file to be created
+     */
+    public ChannelLineItemWriter(Resource resource) {
+        Assert.notNull(resource, "resource is required");
+
+        this.resource = resource;
+
+        setName(ClassUtils.getShortName(ChannelLineItemWriter.class));
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator;
+    }
+
+    /**
+     * @param bufferSize  size of each direct buffer
+     * @param bufferCount number of buffers written together
+     */
+    public void setBuffers(int bufferSize, int bufferCount) {
+        Assert.isTrue(bufferSize > 0 && bufferCount > 0, "buffer size and count must be positive");
+
+        this.bufferSize = bufferSize;
+        this.bufferCount = bufferCount;
+    }
+
+    /**
+     * @param syncBytes bytes written before a fsync, 0 to sync only when closing
+     */
+    public void setSyncBytes(long syncBytes) {
+        this.syncBytes = syncBytes;
+    }
+
+    /**
+     * @param syncInterval milliseconds between two fsync, 0 to sync only when closing
+     */
+    public void setSyncInterval(long syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /**
+     * @param appendAllowed true to keep the content of an existing file when there is no offset to restart from
+     */
+    public void setAppendAllowed(boolean appendAllowed) {
+        this.appendAllowed = appendAllowed;
+    }
+
+    /**
+     * @return number of write system calls
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return number of fsync
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+        boolean restart = saveState && executionContext.containsKey(offsetKey);
+
+        try {
+            File file = resource.getFile();
+
+            if (restart) {
+                position = executionContext.getLong(offsetKey);
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+
+                if (channel.size() < position) {
+                    throw new ItemStreamException("Unable to restart, " + resource.getDescription()
+                            + " is shorter than the saved offset " + position);
+                }
+                channel.truncate(position);
+            }
+            else if (appendAllowed) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                position = channel.size();
+            }
+            else {
+                position = 0;
+                channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            channel.position(position);
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to open " + resource.getDescription(), e);
+        }
+
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        try {
+            separatorBytes = encoder.encode(CharBuffer.wrap(lineSeparator));
+            encoder.reset();
+        }
+        catch (CharacterCodingException e) {
+            throw new ItemStreamException("Unable to encode the line separator", e);
+        }
+
+        buffers = new ByteBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+        }
+        current = 0;
+        line = CharBuffer.allocate(INITIAL_LINE_CAPACITY);
+
+        unsyncedBytes = 0;
+        lastSync = System.nanoTime();
+        writeCount = 0;
+        syncCount = 0;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        for (T item : items) {
+            if (item instanceof LineSlice) {
+                copy((LineSlice) item);
+                continue;
+            }
+            encode(String.valueOf(item));
+            separator();
+        }
+    }
+
+    /**
+     * Write the pending lines before the commit and sync if a threshold has been reached
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        try {
+            flush();
+
+            if (syncRequired()) {
+                sync();
+            }
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to write " + resource.getDescription(), e);
+        }
+
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        }
+    }
+
+    /**
+     * Sync what has been written and close the file.
+     * <p>
+     * Pending lines are dropped: they belong to a chunk that has not been committed.
+     */
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            sync();
+            channel.close();
+
+            logger.debug("{}: {} bytes, {} write(s), {} sync(s)", resource.getFilename(), position, writeCount, syncCount);
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to close " + resource.getDescription(), e);
+        }
+        finally {
+            channel = null;
+            buffers = null;
+            separatorBytes = null;
+            line = null;
+        }
+    }
+
+    private void encode(String value) throws IOException {
+        if (line.capacity() < value.length()) {
+            line = CharBuffer.allocate(Math.max(value.length(), 2 * line.capacity()));
+        }
+        line.clear();
+        line.put(value).flip();
+
+        while (true) {
+            CoderResult result = encoder.encode(line, buffers[current], true);
+
+            if (result.isUnderflow()) {
+                encoder.reset();
+                return;
+            }
+            if (result.isError()) {
+                try {
+                    result.throwException();
+                }
+                catch (CharacterCodingException e) {
+                    throw new IOException("Unable to encode item for " + resource.getDescription(), e);
+                }
+            }
+
+            // Overflow: move on to the next buffer, or write them all
+            nextBuffer();
+        }
+    }
+
+    private void copy(LineSlice slice) throws IOException {
+        int copied = 0;
+
+        while (true) {
+            copied += slice.copyTo(buffers[current], copied);
+
+            if (copied == slice.length()) {
+                break;
+            }
+            nextBuffer();
+        }
+        separator();
+    }
+
+    /**
+     * Copy the line separator, encoded once when opening
+     */
+    private void separator() throws IOException {
+        if (buffers[current].remaining() < separatorBytes.limit()) {
+            nextBuffer();
+        }
+        buffers[current].put(separatorBytes);
+        separatorBytes.rewind();
+    }
+
+    /**
+     * Move on to the next buffer, or write them all
+     */
+    private void nextBuffer() throws IOException {
+        if (current < bufferCount - 1) {
+            current++;
+        }
+        else {
+            flush();
+        }
+    }
+
+    /**
+     * Gathering write of the filled buffers
+     */
+    private void flush() throws IOException {
+        for (int i = 0; i <= current; i++) {
+            buffers[i].flip();
+        }
+
+        long remaining = 0;
+        for (int i = 0; i <= current; i++) {
+            remaining += buffers[i].remaining();
+        }
+
+        while (remaining > 0) {
+            long written = channel.write(buffers, 0, current + 1);
+            writeCount++;
+
+            remaining -= written;
+            position += written;
+            unsyncedBytes += written;
+        }
+
+        for (int i = 0; i <= current; i++) {
+            buffers[i].clear();
+        }
+        current = 0;
+    }
+
+    private boolean syncRequired() {
+        return (syncBytes > 0 && unsyncedBytes >= syncBytes)
+                || (syncInterval > 0 && unsyncedBytes > 0
+                    && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSync) >= syncInterval);
+    }
+
+    private void sync() throws IOException {
+        if (unsyncedBytes > 0) {
+            channel.force(false);
+            syncCount++;
+
+            unsyncedBytes = 0;
+        }
+        lastSync = System.nanoTime();
+    }
+}
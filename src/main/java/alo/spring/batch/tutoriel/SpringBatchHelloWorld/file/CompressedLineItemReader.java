@@ -0,0 +1,285 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Read the lines of a compressed file, decompressed on the fly.
+ * <p>
+ * Decompression runs in its own thread, filling up to readAhead blocks ahead of the lines being read,
+ * so that it overlaps with the processing of the items.
+ * <p>
+ * A compressed stream cannot be entered in the middle: the offset saved in the ExecutionContext is the offset
+ * in the decompressed bytes, along with the codec. A restart decompresses again up to that offset, but skips
+ * the bytes without splitting them into lines.
+ */
+public class CompressedLineItemReader extends AbstractItemCountingItemStreamItemReader<String> {
+
+    private static final String OFFSET_KEY = "offset";
+    private static final String CODEC_KEY = "codec";
+
+    private static int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static int DEFAULT_READ_AHEAD = 4;
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final Resource resource;
+
+    private final CompressionCodec codec;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private int readAhead = DEFAULT_READ_AHEAD;
+
+    private BlockingQueue<ByteBuffer> free;
+
+    private BlockingQueue<ByteBuffer> filled;
+
+    private Thread decompressor;
+
+    private volatile boolean stopped;
+
+    private volatile IOException failure;
+
+    private ByteBuffer block;
+
+    private long position;
+
+    private long restartOffset = -1;
+
+    private byte[] line = new byte[256];
+
+    /**
+     * @param resource file to be read
+     * @param codec    compression of the file
+     */
+    public CompressedLineItemReader(Resource resource, CompressionCodec codec) {
+        Assert.notNull(resource, "resource is required");
+        Assert.notNull(codec, "codec is required");
+
+        this.resource = resource;
+        this.codec = codec;
+
+        setName(ClassUtils.getShortName(CompressedLineItemReader.class));
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @param bufferSize size of the blocks of decompressed bytes
+     * @param readAhead  number of blocks decompressed ahead
+     */
+    public void setBuffers(int bufferSize, int readAhead) {
+        Assert.isTrue(bufferSize > 0 && readAhead > 0, "buffer size and read ahead must be positive");
+
+        this.bufferSize = bufferSize;
+        this.readAhead = readAhead;
+    }
+
+    /**
+     * @return offset of the next line in the decompressed bytes
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+        String codecKey = getExecutionContextKey(CODEC_KEY);
+
+        restartOffset = -1;
+
+        if (isSaveState() && executionContext.containsKey(offsetKey)) {
+            String savedCodec = executionContext.getString(codecKey, codec.name());
+
+            if (!codec.name().equals(savedCodec)) {
+                throw new ItemStreamException("Unable to restart, " + resource.getDescription() + " was read as "
+                        + savedCodec + " and is now read as " + codec);
+            }
+            restartOffset = executionContext.getLong(offsetKey);
+        }
+
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+            executionContext.putString(getExecutionContextKey(CODEC_KEY), codec.name());
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        free = new ArrayBlockingQueue<>(readAhead);
+        filled = new ArrayBlockingQueue<>(readAhead + 1);
+
+        for (int i = 0; i < readAhead; i++) {
+            free.add(ByteBuffer.allocate(bufferSize));
+        }
+
+        stopped = false;
+        failure = null;
+        block = null;
+        position = 0;
+
+        InputStream in = codec.decompress(resource.getInputStream(), bufferSize);
+
+        decompressor = new Thread(() -> decompress(in), getExecutionContextKey("decompressor"));
+        decompressor.setDaemon(true);
+        decompressor.start();
+    }
+
+    /**
+     * Skip the decompressed bytes up to the saved offset
+     */
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (restartOffset < 0) {
+            super.jumpToItem(itemIndex);
+            return;
+        }
+
+        while (position < restartOffset) {
+            if (!nextBlock()) {
+                throw new ItemStreamException("Unable to restart, " + resource.getDescription()
+                        + " is shorter than the saved offset " + restartOffset);
+            }
+
+            int skipped = (int) Math.min(block.remaining(), restartOffset - position);
+            block.position(block.position() + skipped);
+            position += skipped;
+        }
+    }
+
+    @Override
+    protected String doRead() throws Exception {
+        int length = 0;
+        boolean found = false;
+
+        while (!found) {
+            if (!nextBlock()) {
+                if (length == 0) {
+                    return null;
+                }
+                break;
+            }
+
+            byte[] bytes = block.array();
+            int from = block.position();
+            int to = block.limit();
+            int i = from;
+
+            while (i < to && bytes[i] != '\n') {
+                i++;
+            }
+            found = i < to;
+
+            int count = i - from;
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            System.arraycopy(bytes, from, line, length, count);
+            length += count;
+
+            int consumed = found ? count + 1 : count;
+            block.position(from + consumed);
+            position += consumed;
+        }
+
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        return new String(line, 0, length, charset);
+    }
+
+    /**
+     * Make block the current block with remaining bytes, recycling the one consumed
+     *
+     * @return false at the end of the file
+     */
+    private boolean nextBlock() throws IOException, InterruptedException {
+        while (block == null || !block.hasRemaining()) {
+            if (block == END) {
+                return false;
+            }
+            if (block != null) {
+                free.put(block);
+            }
+
+            block = filled.take();
+
+            if (block == END && failure != null) {
+                throw new IOException("Unable to decompress " + resource.getDescription(), failure);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decompression thread
+     */
+    private void decompress(InputStream in) {
+        try (InputStream input = in) {
+            while (!stopped) {
+                ByteBuffer buffer = free.take();
+                byte[] bytes = buffer.array();
+                int length = 0;
+
+                for (int read; length < bytes.length && (read = input.read(bytes, length, bytes.length - length)) > 0; ) {
+                    length += read;
+                }
+
+                if (length == 0) {
+                    break;
+                }
+                buffer.clear().limit(length);
+                filled.put(buffer);
+            }
+        }
+        catch (IOException e) {
+            failure = e;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        filled.offer(END);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (decompressor != null) {
+            stopped = true;
+            decompressor.interrupt();
+            decompressor.join();
+            decompressor = null;
+        }
+        block = null;
+        free = null;
+        filled = null;
+    }
+}
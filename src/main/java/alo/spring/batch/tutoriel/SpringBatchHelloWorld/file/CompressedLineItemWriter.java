@@ -0,0 +1,403 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line writer compressing the items on the fly.
+ * <p>
+ * The lines are encoded into blocks handed to a compression thread, so that compressing a block overlaps with
+ * encoding the next ones. At most maxPendingBlocks blocks wait for the compression thread.
+ * <p>
+ * When the chunk is about to be committed (see {@link #update(ExecutionContext)}), the gzip member or zstd frame
+ * is ended and the offset of the compressed file is saved, along with the codec. On restart the file is truncated
+ * to that offset and a new member is appended: both codecs read concatenated members as a single stream.
+ * The fsync is grouped as for {@link ChannelLineItemWriter}.
+ */
+public class CompressedLineItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(CompressedLineItemWriter.class);
+
+    private static final String OFFSET_KEY = "offset";
+    private static final String CODEC_KEY = "codec";
+
+    private static int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static int DEFAULT_MAX_PENDING_BLOCKS = 4;
+
+    private final Resource resource;
+
+    private final CompressionCodec codec;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private int maxPendingBlocks = DEFAULT_MAX_PENDING_BLOCKS;
+
+    private int level = -1;
+
+    private long syncBytes = 0;
+
+    private long syncInterval = 0;
+
+    private boolean saveState = true;
+
+    private FileChannel channel;
+
+    private ExecutorService compressor;
+
+    private final Deque<Future<?>> pending = new ArrayDeque<>();
+
+    private final ConcurrentLinkedQueue<byte[]> freeBlocks = new ConcurrentLinkedQueue<>();
+
+    private byte[] block;
+
+    private int blockLength;
+
+    /**
+     * Compressed stream of the current member, only used by the compression thread
+     */
+    private OutputStream member;
+
+    private long position;
+
+    private long unsyncedBytes;
+
+    private long lastSync;
+
+    private long memberCount;
+
+    /**
+     * @param resource file to be created
+     * @param codec    compression of the file
+     */
+    public CompressedLineItemWriter(Resource resource, CompressionCodec codec) {
+        Assert.notNull(resource, "resource is required");
+        Assert.notNull(codec, "codec is required");
+
+        this.resource = resource;
+        this.codec = codec;
+
+        setName(ClassUtils.getShortName(CompressedLineItemWriter.class));
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param bufferSize       size of the blocks handed to the compression thread
+     * @param maxPendingBlocks number of blocks waiting for the compression thread before write blocks
+     */
+    public void setBuffers(int bufferSize, int maxPendingBlocks) {
+        Assert.isTrue(bufferSize > 0 && maxPendingBlocks > 0, "buffer size and pending blocks must be positive");
+
+        this.bufferSize = bufferSize;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    /**
+     * @param level compression level, negative for the codec default
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @param syncBytes compressed bytes written before a fsync, 0 to sync only when closing
+     */
+    public void setSyncBytes(long syncBytes) {
+        this.syncBytes = syncBytes;
+    }
+
+    /**
+     * @param syncInterval milliseconds between two fsync, 0 to sync only when closing
+     */
+    public void setSyncInterval(long syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /**
+     * @return number of members or frames written, one per commit
+     */
+    public long getMemberCount() {
+        return memberCount;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+        boolean restart = saveState && executionContext.containsKey(offsetKey);
+
+        try {
+            File file = resource.getFile();
+
+            if (restart) {
+                String savedCodec = executionContext.getString(getExecutionContextKey(CODEC_KEY), codec.name());
+
+                if (!codec.name().equals(savedCodec)) {
+                    throw new ItemStreamException("Unable to restart, " + resource.getDescription() + " was written as "
+                            + savedCodec + " and is now written as " + codec);
+                }
+
+                position = executionContext.getLong(offsetKey);
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+
+                if (channel.size() < position) {
+                    throw new ItemStreamException("Unable to restart, " + resource.getDescription()
+                            + " is shorter than the saved offset " + position);
+                }
+                channel.truncate(position);
+            }
+            else {
+                position = 0;
+                channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            channel.position(position);
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to open " + resource.getDescription(), e);
+        }
+
+        String threadName = getExecutionContextKey("compressor");
+        compressor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        block = new byte[bufferSize];
+        blockLength = 0;
+
+        unsyncedBytes = 0;
+        lastSync = System.nanoTime();
+        memberCount = 0;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        for (T item : items) {
+            append(String.valueOf(item).getBytes(charset));
+            append(lineSeparator);
+        }
+    }
+
+    /**
+     * End the member before the commit and sync if a threshold has been reached
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        try {
+            submitBlock();
+            submit(this::endMember);
+            awaitPending(0);
+
+            long written = channel.position() - position;
+            position += written;
+            unsyncedBytes += written;
+
+            if (syncRequired()) {
+                sync();
+            }
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to write " + resource.getDescription(), e);
+        }
+
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+            executionContext.putString(getExecutionContextKey(CODEC_KEY), codec.name());
+        }
+    }
+
+    /**
+     * Sync what has been committed and close the file.
+     * <p>
+     * Pending lines are dropped and the file is truncated to the last commit: the bytes after it belong to
+     * a chunk that has not been committed.
+     */
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            compressor.shutdown();
+            compressor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+            if (member != null) {
+                try {
+                    member.close();
+                }
+                catch (IOException e) {
+                    logger.debug("Uncommitted member of {} not ended: {}", resource.getFilename(), e.getMessage());
+                }
+            }
+            channel.truncate(position);
+            sync();
+            channel.close();
+
+            logger.debug("{}: {} compressed bytes, {} {} member(s)", resource.getFilename(), position, memberCount, codec);
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to close " + resource.getDescription(), e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ItemStreamException("Interrupted while closing " + resource.getDescription(), e);
+        }
+        finally {
+            channel = null;
+            compressor = null;
+            member = null;
+            block = null;
+            pending.clear();
+            freeBlocks.clear();
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        int offset = 0;
+
+        while (offset < bytes.length) {
+            int count = Math.min(bytes.length - offset, block.length - blockLength);
+
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+
+            if (blockLength == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Hand the current block to the compression thread
+     */
+    private void submitBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+
+        byte[] bytes = block;
+        int length = blockLength;
+
+        submit(() -> {
+            memberStream().write(bytes, 0, length);
+            freeBlocks.offer(bytes);
+        });
+
+        byte[] next = freeBlocks.poll();
+        block = next != null ? next : new byte[bufferSize];
+        blockLength = 0;
+    }
+
+    private void submit(CompressionTask task) throws IOException {
+        awaitPending(maxPendingBlocks - 1);
+
+        pending.add(compressor.submit(() -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Wait until at most count tasks are pending, reporting the failure of the compression thread
+     */
+    private void awaitPending(int count) throws IOException {
+        while (pending.size() > count) {
+            try {
+                pending.poll().get();
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause
+                        : new IOException("Unable to compress " + resource.getDescription(), cause);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing " + resource.getDescription(), e);
+            }
+        }
+    }
+
+    private OutputStream memberStream() throws IOException {
+        if (member == null) {
+            member = codec.compress(StreamUtils.nonClosing(Channels.newOutputStream(channel)), bufferSize, level);
+        }
+        return member;
+    }
+
+    private void endMember() throws IOException {
+        if (member != null) {
+            member.close();
+            member = null;
+            memberCount++;
+        }
+    }
+
+    private boolean syncRequired() {
+        return (syncBytes > 0 && unsyncedBytes >= syncBytes)
+                || (syncInterval > 0 && unsyncedBytes > 0
+                    && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSync) >= syncInterval);
+    }
+
+    private void sync() throws IOException {
+        if (unsyncedBytes > 0) {
+            channel.force(false);
+
+            unsyncedBytes = 0;
+        }
+        lastSync = System.nanoTime();
+    }
+
+    @FunctionalInterface
+    private interface CompressionTask {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,215 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of the files read and written line by line.
+ * <p>
+ * Both codecs accept concatenated members (gzip) or frames (zstd), which is what lets a writer
+ * end the compressed stream at every commit and append to it after a restart.
+ */
+public enum CompressionCodec {
+
+    NONE(null) {
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize) {
+            return in;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize, int level) {
+            return out;
+        }
+    },
+
+    GZIP(".gz", 0x1f, 0x8b) {
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize) throws IOException {
+            return new GZIPInputStream(in, bufferSize);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize, int level) throws IOException {
+            return new GZIPOutputStream(out, bufferSize) {
+                {
+                    if (level >= 0) {
+                        def.setLevel(level);
+                    }
+                }
+            };
+        }
+    },
+
+    ZSTD(".zst", 0x28, 0xb5, 0x2f, 0xfd) {
+        @Override
+        public InputStream decompress(InputStream in, int bufferSize) throws IOException {
+            return new ZstdInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out, int bufferSize, int level) throws IOException {
+            ZstdOutputStream zstd = new ZstdOutputStream(out);
+
+            if (level >= 0) {
+                zstd.setLevel(level);
+            }
+            return zstd;
+        }
+    };
+
+    /**
+     * Name given to detect the codec of the file
+     */
+    public static final String AUTO = "auto";
+
+    private final String extension;
+
+    private final int[] magic;
+
+    CompressionCodec(String extension, int... magic) {
+        this.extension = extension;
+        this.magic = magic;
+    }
+
+    /**
+     * @param in         compressed stream
+     * @param bufferSize size of the buffer holding the compressed bytes
+     * @return stream of the decompressed bytes
+     */
+    public abstract InputStream decompress(InputStream in, int bufferSize) throws IOException;
+
+    /**
+     * Closing the returned stream ends the member or frame and closes out
+     *
+     * @param out        stream receiving the compressed bytes
+     * @param bufferSize size of the buffer holding the compressed bytes
+     * @param level      compression level, negative for the codec default
+     * @return stream to be given the bytes to compress
+     */
+    public abstract OutputStream compress(OutputStream out, int bufferSize, int level) throws IOException;
+
+    /**
+     * @param name     "none", "gzip", "zstd", or "auto"/null to detect the codec from the first bytes of the file
+     * @param resource file to be read
+     * @return codec of the resource
+     */
+    public static CompressionCodec forReading(String name, Resource resource) {
+        if (name == null || AUTO.equalsIgnoreCase(name)) {
+            CompressionCodec codec = fromMagic(resource);
+
+            return codec != null ? codec : fromExtension(resource);
+        }
+        return forName(name);
+    }
+
+    /**
+     * @param name     "none", "gzip", "zstd", or "auto"/null to detect the codec from the extension of the file
+     * @param resource file to be written
+     * @return codec of the resource
+     */
+    public static CompressionCodec forWriting(String name, Resource resource) {
+        if (name == null || AUTO.equalsIgnoreCase(name)) {
+            return fromExtension(resource);
+        }
+        return forName(name);
+    }
+
+    /**
+     * @param fileName name of an uncompressed file
+     * @return the name followed by the extension of the codec
+     */
+    public String withExtension(String fileName) {
+        return extension != null ? fileName + extension : fileName;
+    }
+
+    /**
+     * @param fileName name of a file
+     * @return the name without the extension of a codec
+     */
+    public static String withoutExtension(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+
+        for (CompressionCodec codec : values()) {
+            if (codec.extension != null && lowerCase.endsWith(codec.extension)) {
+                return fileName.substring(0, fileName.length() - codec.extension.length());
+            }
+        }
+        return fileName;
+    }
+
+    private static CompressionCodec forName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown compression " + name + ", expected one of "
+                    + Arrays.toString(values()) + " or " + AUTO, e);
+        }
+    }
+
+    /**
+     * @return codec whose magic bytes start the file, NONE for a file starting otherwise, null for a missing or empty file
+     */
+    private static CompressionCodec fromMagic(Resource resource) {
+        if (!resource.exists()) {
+            return null;
+        }
+
+        byte[] header = new byte[4];
+        int length = 0;
+
+        try (InputStream in = resource.getInputStream()) {
+            for (int read; length < header.length && (read = in.read(header, length, header.length - length)) > 0; ) {
+                length += read;
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read " + resource.getDescription(), e);
+        }
+
+        for (CompressionCodec codec : values()) {
+            if (codec.matches(header, length)) {
+                return codec;
+            }
+        }
+        return length > 0 ? NONE : null;
+    }
+
+    private static CompressionCodec fromExtension(Resource resource) {
+        String fileName = resource.getFilename();
+
+        if (fileName != null) {
+            fileName = fileName.toLowerCase(Locale.ROOT);
+
+            for (CompressionCodec codec : values()) {
+                if (codec.extension != null && fileName.endsWith(codec.extension)) {
+                    return codec;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private boolean matches(byte[] header, int length) {
+        if (magic.length == 0 || length < magic.length) {
+            return false;
+        }
+
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xff) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
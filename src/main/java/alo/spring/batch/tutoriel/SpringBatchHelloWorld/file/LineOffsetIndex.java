@@ -0,0 +1,148 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index of the byte offset of every interval-th line of a file, kept in a file of its own.
+ * <p>
+ * It is filled while the file is read, and lets a reader restarting from a line number (a context saved
+ * without offset, by FlatFileItemReader for instance) seek close to that line instead of reading the lines
+ * before it. The index is discarded when the length or the modification date of the indexed file changed.
+ */
+public class LineOffsetIndex {
+
+    private static Logger logger = LoggerFactory.getLogger(LineOffsetIndex.class);
+
+    private static final int MAGIC = 0x4C494458;
+
+    private final File indexFile;
+
+    private final File source;
+
+    private final int interval;
+
+    private long[] offsets = new long[64];
+
+    private int size;
+
+    private int saved;
+
+    /**
+     * @param indexFile file holding the index
+     * @param source    file indexed
+     * @param interval  number of lines between two entries
+     */
+    public LineOffsetIndex(File indexFile, File source, int interval) {
+        Assert.notNull(indexFile, "indexFile is required");
+        Assert.notNull(source, "source is required");
+        Assert.isTrue(interval > 0, "interval must be positive");
+
+        this.indexFile = indexFile;
+        this.source = source;
+        this.interval = interval;
+
+        // Line 0 always starts at offset 0
+        offsets[size++] = 0;
+    }
+
+    /**
+     * Read the entries saved by a previous run, if they still match the indexed file
+     */
+    public void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != interval
+                    || in.readLong() != source.length() || in.readLong() != source.lastModified()) {
+                logger.info("Discarding outdated line index {}", indexFile);
+                return;
+            }
+
+            int count = in.readInt();
+            offsets = new long[Math.max(64, count)];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = in.readLong();
+            }
+            size = count;
+            saved = count;
+        }
+        catch (IOException e) {
+            logger.warn("Unable to read line index {}: {}", indexFile, e.toString());
+        }
+    }
+
+    /**
+     * @param line   number of the line, starting from 0
+     * @param offset byte offset of its first byte
+     */
+    public void record(long line, long offset) {
+        if (line % interval != 0 || line / interval != size) {
+            return;
+        }
+
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size++] = offset;
+    }
+
+    /**
+     * @param line number of the line looked for
+     * @return number of the closest indexed line before or at line
+     */
+    public long floorLine(long line) {
+        return Math.min(line / interval, size - 1) * interval;
+    }
+
+    /**
+     * @param line number of the line looked for
+     * @return byte offset of {@link #floorLine(long)}
+     */
+    public long floorOffset(long line) {
+        return offsets[(int) Math.min(line / interval, size - 1)];
+    }
+
+    /**
+     * Write the index if entries were added since it was read or last saved
+     */
+    public void save() {
+        if (size == saved) {
+            return;
+        }
+
+        File temp = new File(indexFile.getPath() + ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(interval);
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(offsets[i]);
+                }
+            }
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            saved = size;
+        }
+        catch (IOException e) {
+            logger.warn("Unable to write line index {}: {}", indexFile, e.toString());
+        }
+    }
+}
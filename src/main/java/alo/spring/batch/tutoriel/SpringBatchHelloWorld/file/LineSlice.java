@@ -0,0 +1,99 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line item holding the bytes of the line as read, in an off-heap segment of {@link OffHeapSegmentPool}.
+ * <p>
+ * A slice is only valid until the chunk it belongs to has been committed: the segment and the slice itself
+ * are then reused for the next chunk. {@link ChannelLineItemWriter} copies the bytes as they are, without
+ * decoding them into a String and encoding them again.
+ * <p>
+ * As a CharSequence, each byte is a char (ISO-8859-1), which is exact for ASCII lines.
+ * {@link #toString()} decodes the line with its charset and allocates a String.
+ */
+public final class LineSlice implements CharSequence {
+
+    private OffHeapSegmentPool.Segment segment;
+
+    private int offset;
+
+    private int length;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    void set(OffHeapSegmentPool.Segment segment, int offset, int length, Charset charset) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " out of [0, " + length + ")");
+        }
+        return segment.buffer.get(offset + index);
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (byteAt(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        byte[] bytes = new byte[end - start];
+
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = byteAt(i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Copy as many bytes as target can hold, only from the thread writing the chunk
+     *
+     * @param target buffer receiving the bytes
+     * @param from   index of the first byte to copy
+     * @return number of bytes copied
+     */
+    public int copyTo(ByteBuffer target, int from) {
+        int count = Math.min(length - from, target.remaining());
+
+        target.put(segment.range(offset + from, offset + from + count));
+
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+
+    /**
+     * @param start index of the first byte
+     * @param end   index following the last byte
+     * @return bytes [start, end) of the line decoded with its charset
+     */
+    public String toString(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end + ") out of [0, " + length + ")");
+        }
+
+        byte[] bytes = new byte[end - start];
+
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = segment.buffer.get(offset + i);
+        }
+
+        return new String(bytes, charset);
+    }
+}
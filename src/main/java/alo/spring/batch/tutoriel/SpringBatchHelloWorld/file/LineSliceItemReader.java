@@ -0,0 +1,314 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Read the lines of a file as {@link LineSlice} items over pooled off-heap segments, without decoding them.
+ * <p>
+ * The file is read into the segments, the lines are slices of them. The segments and the slices of a chunk are
+ * recycled by {@link #update(ExecutionContext)}, called once the chunk has been written: past the first chunks,
+ * reading allocates nothing.
+ * <p>
+ * The byte offset of the next line is saved in the ExecutionContext, a restart seeks straight to it.
+ */
+public class LineSliceItemReader extends AbstractItemCountingItemStreamItemReader<LineSlice> {
+
+    private static final String OFFSET_KEY = "offset";
+
+    private static int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    private final Resource resource;
+
+    private final long start;
+
+    private final long rangeEnd;
+
+    private long end;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    private OffHeapSegmentPool pool;
+
+    private FileChannel channel;
+
+    /**
+     * Segments holding slices of the current chunk, the last one being read
+     */
+    private final Deque<OffHeapSegmentPool.Segment> segments = new ArrayDeque<>();
+
+    private OffHeapSegmentPool.Segment segment;
+
+    /**
+     * Bytes of the segment read from the file
+     */
+    private int filled;
+
+    /**
+     * Start of the next line in the segment
+     */
+    private int lineStart;
+
+    /**
+     * Bytes of the segment already searched for a line feed
+     */
+    private int scanned;
+
+    /**
+     * File offset of the byte following the filled ones
+     */
+    private long readPosition;
+
+    private final List<LineSlice> slices = new ArrayList<>();
+
+    private int usedSlices;
+
+    private long restartOffset = -1;
+
+    /**
+     * @param resource file to be read entirely
+     */
+    public LineSliceItemReader(Resource resource) {
+        this(resource, 0, -1);
+    }
+
+    /**
+     * @param resource file to be read
+     * @param start    offset of the first byte of the range, on a line boundary
+     * @param end      offset following the last byte of the range, -1 for the end of the file
+     */
+    public LineSliceItemReader(Resource resource, long start, long end) {
+        Assert.notNull(resource, "resource is required");
+        Assert.isTrue(start >= 0 && (end < 0 || start <= end), "invalid range [" + start + ", " + end + ")");
+
+        this.resource = resource;
+        this.start = start;
+        this.rangeEnd = end;
+
+        setName(ClassUtils.getShortName(LineSliceItemReader.class));
+    }
+
+    /**
+     * @param charset charset of the file, used when a slice is turned into a String
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @param segmentSize size of the pooled off-heap segments
+     */
+    public void setSegmentSize(int segmentSize) {
+        Assert.isTrue(segmentSize > 0, "segment size must be positive");
+
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return byte offset of the next line to be read
+     */
+    public long getPosition() {
+        return readPosition - (filled - lineStart);
+    }
+
+    /**
+     * @return number of segments allocated, stable once the largest chunk has been read
+     */
+    public int getAllocatedSegments() {
+        return pool == null ? 0 : pool.getAllocatedCount();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+
+        restartOffset = (isSaveState() && executionContext.containsKey(offsetKey))
+                ? executionContext.getLong(offsetKey)
+                : -1;
+
+        super.open(executionContext);
+    }
+
+    /**
+     * Save the offset of the next line and recycle the segments and the slices of the chunk written
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (channel == null) {
+            return;
+        }
+
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), getPosition());
+        }
+
+        while (segments.size() > 1) {
+            pool.release(segments.pollFirst());
+        }
+        usedSlices = 0;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+        end = rangeEnd < 0 ? channel.size() : rangeEnd;
+
+        pool = new OffHeapSegmentPool(segmentSize);
+        segment = pool.acquire(segmentSize);
+        segments.add(segment);
+
+        seek(start);
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (restartOffset < 0) {
+            super.jumpToItem(itemIndex);
+            usedSlices = 0;
+            return;
+        }
+
+        if (restartOffset < start || restartOffset > end) {
+            throw new ItemStreamException("Unable to restart, offset " + restartOffset + " is out of ["
+                    + start + ", " + end + ") in " + resource.getDescription());
+        }
+        seek(restartOffset);
+    }
+
+    @Override
+    protected LineSlice doRead() throws Exception {
+        ByteBuffer bytes = segment.buffer;
+
+        while (true) {
+            for (int i = scanned; i < filled; i++) {
+                if (bytes.get(i) == '\n') {
+                    int length = i - lineStart;
+                    if (length > 0 && bytes.get(i - 1) == '\r') {
+                        length--;
+                    }
+
+                    LineSlice slice = slice(lineStart, length);
+                    lineStart = i + 1;
+                    scanned = lineStart;
+
+                    return slice;
+                }
+            }
+            scanned = filled;
+
+            if (!fill()) {
+                if (lineStart == filled) {
+                    return null;
+                }
+
+                // Last line without line feed
+                LineSlice slice = slice(lineStart, filled - lineStart);
+                lineStart = filled;
+
+                return slice;
+            }
+            bytes = segment.buffer;
+        }
+    }
+
+    private LineSlice slice(int offset, int length) {
+        LineSlice slice;
+
+        if (usedSlices < slices.size()) {
+            slice = slices.get(usedSlices);
+        }
+        else {
+            slice = new LineSlice();
+            slices.add(slice);
+        }
+        usedSlices++;
+
+        slice.set(segment, offset, length, charset);
+
+        return slice;
+    }
+
+    /**
+     * Read the next bytes of the range, moving the current line to a new segment when the segment is full
+     *
+     * @return false at the end of the range
+     */
+    private boolean fill() throws IOException {
+        if (readPosition >= end) {
+            return false;
+        }
+
+        if (filled == segment.capacity()) {
+            int carried = filled - lineStart;
+            OffHeapSegmentPool.Segment next = pool.acquire(carried < segmentSize ? segmentSize : carried * 2);
+
+            ByteBuffer target = next.range(0, next.capacity());
+            target.put(segment.range(lineStart, filled));
+
+            segments.add(next);
+            segment = next;
+            filled = carried;
+            scanned = carried;
+            lineStart = 0;
+        }
+
+        ByteBuffer target = segment.range(filled, (int) Math.min(segment.capacity(), filled + (end - readPosition)));
+        int read = channel.read(target, readPosition);
+
+        if (read <= 0) {
+            // File shorter than expected
+            end = readPosition;
+            return false;
+        }
+
+        filled += read;
+        readPosition += read;
+
+        return true;
+    }
+
+    private void seek(long offset) {
+        while (segments.size() > 1) {
+            pool.release(segments.pollFirst());
+        }
+        segment = segments.peekFirst();
+
+        filled = 0;
+        lineStart = 0;
+        scanned = 0;
+        readPosition = offset;
+        usedSlices = 0;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        segments.clear();
+        slices.clear();
+        segment = null;
+        pool = null;
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
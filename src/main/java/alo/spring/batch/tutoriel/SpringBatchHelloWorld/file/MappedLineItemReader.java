@@ -0,0 +1,222 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Line reader working directly on a memory mapped view of the file.
+ * <p>
+ * Line feeds are searched in the mapped region and only the bytes of the line are decoded,
+ * without going through a BufferedReader. The file is mapped by regions so files larger
+ * than 2GB can be read.
+ * <p>
+ * The position saved in the ExecutionContext is the byte offset of the next line,
+ * a restart seeks straight to it instead of reading again the lines already processed.
+ */
+public class MappedLineItemReader extends ItemStreamSupport implements ItemStreamReader<String> {
+
+    private static final String OFFSET_KEY = "offset";
+
+    private static int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final Resource resource;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private int regionSize = DEFAULT_REGION_SIZE;
+
+    private long start = 0;
+
+    private long end = Long.MAX_VALUE;
+
+    private boolean saveState = true;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer region;
+
+    private ByteBuffer regionView;
+
+    private long regionStart;
+
+    private long limit;
+
+    private long position;
+
+    private byte[] scratch = new byte[256];
+
+    /**
+     * @param resource file to be read
+     */
+    public MappedLineItemReader(Resource resource) {
+        Assert.notNull(resource, "resource is required");
+
+        this.resource = resource;
+
+        setName(ClassUtils.getShortName(MappedLineItemReader.class));
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @param regionSize size of the mapped regions; a longer line is mapped again from its start, doubling the size
+     *                   until it fits
+     */
+    public void setRegionSize(int regionSize) {
+        Assert.isTrue(regionSize > 0, "regionSize must be positive");
+
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Restrict the reading to a byte range aligned on line boundaries
+     *
+     * @param start offset of the first byte to read
+     * @param end   offset following the last byte to read
+     */
+    public void setRange(long start, long end) {
+        Assert.isTrue(start >= 0 && start <= end, "invalid range [" + start + ", " + end + ")");
+
+        this.start = start;
+        this.end = end;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /**
+     * @return byte offset of the next line to be read
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        try {
+            channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            limit = Math.min(end, channel.size());
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to open " + resource.getDescription(), e);
+        }
+
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+
+        position = (saveState && executionContext.containsKey(offsetKey))
+                ? executionContext.getLong(offsetKey)
+                : start;
+
+        region = null;
+    }
+
+    @Override
+    public String read() throws Exception {
+        if (position >= limit) {
+            return null;
+        }
+
+        int mappedSize = regionSize;
+
+        while (true) {
+            if (region == null || position < regionStart || position >= regionStart + region.limit()) {
+                map(position, mappedSize);
+            }
+
+            long regionEnd = regionStart + region.limit();
+            int from = (int) (position - regionStart);
+            int to = region.limit();
+
+            for (int i = from; i < to; i++) {
+                if (region.get(i) == '\n') {
+                    return line(from, i, 1);
+                }
+            }
+
+            if (regionEnd >= limit) {
+                // Last line without line feed
+                return line(from, to, 0);
+            }
+
+            // The line goes over the region, map again from its beginning
+            if (position == regionStart) {
+                mappedSize = Math.max(mappedSize, region.limit()) * 2;
+            }
+            region = null;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        region = null;
+        regionView = null;
+
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                throw new ItemStreamException("Unable to close " + resource.getDescription(), e);
+            }
+            finally {
+                channel = null;
+            }
+        }
+    }
+
+    private void map(long from, int size) throws IOException {
+        regionStart = from;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(size, limit - from));
+        regionView = region.duplicate();
+    }
+
+    /**
+     * Decode the line [from, to) of the current region and move after its terminator
+     */
+    private String line(int from, int to, int terminatorLength) {
+        position = regionStart + to + terminatorLength;
+
+        int length = to - from;
+        if (length > 0 && region.get(to - 1) == '\r') {
+            length--;
+        }
+
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        regionView.position(from);
+        regionView.get(scratch, 0, length);
+
+        return new String(scratch, 0, length, charset);
+    }
+}
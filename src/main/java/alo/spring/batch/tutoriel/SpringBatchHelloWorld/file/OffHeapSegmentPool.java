@@ -0,0 +1,95 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of direct buffers holding the bytes of {@link LineSlice} items.
+ * <p>
+ * Not thread-safe: a pool belongs to a single reader, its segments are acquired while reading a chunk
+ * and released once the chunk has been written.
+ */
+public class OffHeapSegmentPool {
+
+    private final int segmentSize;
+
+    private final Deque<Segment> free = new ArrayDeque<>();
+
+    private int allocatedCount;
+
+    /**
+     * @param segmentSize size of the pooled segments
+     */
+    public OffHeapSegmentPool(int segmentSize) {
+        Assert.isTrue(segmentSize > 0, "segment size must be positive");
+
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @param minCapacity bytes needed, a segment larger than the pooled ones is allocated for them if needed
+     * @return an empty segment
+     */
+    public Segment acquire(int minCapacity) {
+        if (minCapacity <= segmentSize) {
+            Segment segment = free.poll();
+
+            if (segment != null) {
+                return segment;
+            }
+            minCapacity = segmentSize;
+        }
+
+        allocatedCount++;
+
+        return new Segment(ByteBuffer.allocateDirect(minCapacity));
+    }
+
+    /**
+     * Give back a segment whose slices are no longer used, larger segments are left to the garbage collector
+     */
+    public void release(Segment segment) {
+        if (segment.capacity() == segmentSize) {
+            free.push(segment);
+        }
+    }
+
+    /**
+     * @return number of segments allocated since the pool was created
+     */
+    public int getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    /**
+     * Direct buffer, read by absolute gets, and its view used to copy ranges of it without allocating
+     */
+    public static final class Segment {
+
+        final ByteBuffer buffer;
+
+        final ByteBuffer view;
+
+        Segment(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.view = buffer.duplicate();
+        }
+
+        public int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * @return view positioned on [from, to)
+         */
+        ByteBuffer range(int from, int to) {
+            view.clear();
+            view.position(from).limit(to);
+
+            return view;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.flow;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Build a flow running groups of steps in parallel, the steps of a group running one after the other.
+ * <p>
+ * The status of the flow is the worst status of the groups, so a single failed step makes the whole flow
+ * FAILED and an on("FAILED") transition placed after it applies:
+ * <pre>
+ * Flow flow = new ParallelFlowBuilder("Checks", taskExecutor)
+ *         .group(stepA)
+ *         .group(stepB, stepC)
+ *         .build();
+ *
+ * jobBuilder.start(flow).on("FAILED").to(stepOnFailure())...
+ * </pre>
+ */
+public class ParallelFlowBuilder {
+
+    private final String name;
+
+    private final TaskExecutor taskExecutor;
+
+    private final List<List<Step>> groups = new ArrayList<>();
+
+    /**
+     * @param name         name of the flow
+     * @param taskExecutor executor running the groups
+     */
+    public ParallelFlowBuilder(String name, TaskExecutor taskExecutor) {
+        Assert.hasText(name, "name is required");
+        Assert.notNull(taskExecutor, "taskExecutor is required");
+
+        this.name = name;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Add a group of steps, independent of the other groups
+     *
+     * @param steps steps run one after the other
+     * @return this builder
+     */
+    public ParallelFlowBuilder group(Step... steps) {
+        Assert.notEmpty(steps, "a group needs at least one step");
+
+        groups.add(Arrays.asList(steps));
+
+        return this;
+    }
+
+    /**
+     * @return flow splitting the groups on the task executor
+     */
+    public Flow build() {
+        Assert.state(!groups.isEmpty(), "no group of steps");
+
+        Flow[] flows = new Flow[groups.size()];
+
+        for (int i = 0; i < flows.length; i++) {
+            List<Step> steps = groups.get(i);
+            FlowBuilder<Flow> group = new FlowBuilder<Flow>(name + "." + i).start(steps.get(0));
+
+            for (Step step : steps.subList(1, steps.size())) {
+                group.next(step);
+            }
+
+            flows[i] = group.build();
+        }
+
+        return new FlowBuilder<Flow>(name)
+                .split(taskExecutor)
+                .add(flows)
+                .build();
+    }
+}
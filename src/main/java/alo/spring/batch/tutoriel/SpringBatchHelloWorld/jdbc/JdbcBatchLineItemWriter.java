@@ -0,0 +1,247 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.CheckpointingJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writer inserting the lines into a table (LINE_NUMBER, LINE) with JDBC batches of multi-row statements.
+ * <p>
+ * The lines are inserted by groups of rowsPerStatement rows, "INSERT ... VALUES (?, ?), (?, ?)...", the remaining
+ * lines of the chunk one row per statement. Both statements are added to a batch executed once per chunk and
+ * their SQL does not change from a chunk to the next: the statement caches of the driver prepare them once
+ * (cachePrepStmts and useServerPrepStmts on MySQL, where rewriteBatchedStatements merges the single-row tail too).
+ * <p>
+ * The rows are written with the connection of the chunk transaction: they are committed with the execution
+ * context, which holds the number of the last line. A restart deletes the rows after it and goes on from there,
+ * a new execution empties the table.
+ * The context must then be written at every commit, the writer asks a {@link CheckpointingJobRepository} for it.
+ * <p>
+ * With staging, the lines are written to TABLE_STAGE, merged into the table at the end of the step by
+ * {@link StagingTableMerger}: the table only changes once the whole file has been loaded.
+ */
+public class JdbcBatchLineItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(JdbcBatchLineItemWriter.class);
+
+    private static final String LINE_NUMBER_KEY = "line.number";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    private static String STAGE_SUFFIX = "_STAGE";
+
+    private static int DEFAULT_ROWS_PER_STATEMENT = 100;
+
+    private static int DEFAULT_LINE_LENGTH = 4000;
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private int rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+
+    private int lineLength = DEFAULT_LINE_LENGTH;
+
+    private boolean staging;
+
+    private boolean createTable = true;
+
+    private boolean saveState = true;
+
+    private String targetTable;
+
+    private String singleRowInsert;
+
+    private String multiRowInsert;
+
+    private long lineNumber;
+
+    /**
+     * @param dataSource database of the table, the one of the step transactions
+     * @param table      name of the table
+     */
+    public JdbcBatchLineItemWriter(DataSource dataSource, String table) {
+        Assert.notNull(dataSource, "dataSource is required");
+        checkTableName(table);
+
+        this.dataSource = dataSource;
+        this.table = table;
+
+        setName(ClassUtils.getShortName(JdbcBatchLineItemWriter.class));
+    }
+
+    /**
+     * @param rowsPerStatement rows inserted by each multi-row statement, 1 for single-row statements only
+     */
+    public void setRowsPerStatement(int rowsPerStatement) {
+        Assert.isTrue(rowsPerStatement > 0, "rows per statement must be positive");
+
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    /**
+     * @param lineLength length of the LINE column of the tables created
+     */
+    public void setLineLength(int lineLength) {
+        this.lineLength = lineLength;
+    }
+
+    /**
+     * @param staging true to write to the staging table, merged into the table by {@link StagingTableMerger}
+     */
+    public void setStaging(boolean staging) {
+        this.staging = staging;
+    }
+
+    /**
+     * @param createTable true to create the table, and the staging table, when they do not exist
+     */
+    public void setCreateTable(boolean createTable) {
+        this.createTable = createTable;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /**
+     * @return number of the last line written
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return staging table of a table
+     */
+    public static String stagingTable(String table) {
+        return table + STAGE_SUFFIX;
+    }
+
+    /**
+     * The table name comes from the job parameters and is part of the SQL, it must be a plain identifier
+     */
+    public static void checkTableName(String table) {
+        Assert.isTrue(table != null && TABLE_NAME.matcher(table).matches(), "invalid table name: " + table);
+    }
+
+    /**
+     * @return statement creating a table of lines
+     */
+    static String createTableStatement(String table, int lineLength) {
+        return "CREATE TABLE IF NOT EXISTS " + table
+                + " (LINE_NUMBER BIGINT NOT NULL PRIMARY KEY, LINE VARCHAR(" + lineLength + "))";
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        String lineNumberKey = getExecutionContextKey(LINE_NUMBER_KEY);
+        boolean restart = saveState && executionContext.containsKey(lineNumberKey);
+
+        executionContext.putString(CheckpointingJobRepository.EVERY_COMMIT_KEY, "true");
+
+        targetTable = staging ? stagingTable(table) : table;
+        singleRowInsert = insertStatement(1);
+        multiRowInsert = insertStatement(rowsPerStatement);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        if (createTable) {
+            jdbcTemplate.execute(createTableStatement(table, lineLength));
+            if (staging) {
+                jdbcTemplate.execute(createTableStatement(targetTable, lineLength));
+            }
+        }
+
+        if (restart) {
+            lineNumber = executionContext.getLong(lineNumberKey);
+            // Rows committed after the saved context, by a job repository writing it late
+            int deleted = jdbcTemplate.update("DELETE FROM " + targetTable + " WHERE LINE_NUMBER > ?", lineNumber);
+            logger.info("Restart after line {} of {}, {} row(s) after it deleted", lineNumber, targetTable, deleted);
+        }
+        else {
+            lineNumber = 0;
+            int deleted = jdbcTemplate.update("DELETE FROM " + targetTable);
+            logger.debug("{} row(s) of {} deleted", deleted, targetTable);
+        }
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+
+        try {
+            int groups = rowsPerStatement > 1 ? items.size() / rowsPerStatement : 0;
+            int index = 0;
+
+            if (groups > 0) {
+                try (PreparedStatement statement = connection.prepareStatement(multiRowInsert)) {
+                    for (int group = 0; group < groups; group++) {
+                        for (int row = 0; row < rowsPerStatement; row++) {
+                            statement.setLong(2 * row + 1, ++lineNumber);
+                            statement.setString(2 * row + 2, String.valueOf(items.get(index++)));
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+
+            if (index < items.size()) {
+                try (PreparedStatement statement = connection.prepareStatement(singleRowInsert)) {
+                    while (index < items.size()) {
+                        statement.setLong(1, ++lineNumber);
+                        statement.setString(2, String.valueOf(items.get(index++)));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        }
+        catch (SQLException e) {
+            throw new ItemStreamException("Unable to insert into " + targetTable + " after line " + lineNumber, e);
+        }
+        finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Save the number of the last line, committed with the rows of the chunk
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(LINE_NUMBER_KEY), lineNumber);
+        }
+    }
+
+    private String insertStatement(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(targetTable).append(" (LINE_NUMBER, LINE) VALUES ");
+
+        for (int row = 0; row < rows; row++) {
+            sql.append(row == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+
+        return sql.toString();
+    }
+}
@@ -0,0 +1,251 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Read the lines of a table (LINE_NUMBER, LINE) by pages of pageSize rows, in the order of LINE_NUMBER.
+ * <p>
+ * Each page seeks to the rows following the last line read, "WHERE LINE_NUMBER &gt; ? ORDER BY LINE_NUMBER LIMIT ?",
+ * rather than skipping the rows already read with OFFSET: the primary key index gives every page in the same time,
+ * where OFFSET reads again all the previous pages.
+ * <p>
+ * The reader may be restricted to a key range (fromKey, toKey], the range of a partition. The key of the last line
+ * read is saved in the ExecutionContext, a restart seeks straight to it.
+ * <p>
+ * On MySQL, with streaming the rows of a page are streamed by the server one at a time instead of being loaded
+ * all at once by the driver (useCursorFetch=true in the URL with a fetchSize is the server-side cursor alternative).
+ */
+public class KeysetLineItemReader extends AbstractItemCountingItemStreamItemReader<String> {
+
+    private static Logger logger = LoggerFactory.getLogger(KeysetLineItemReader.class);
+
+    private static final String LAST_KEY = "last.key";
+
+    private static int DEFAULT_PAGE_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private final long fromKey;
+
+    private final long toKey;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int fetchSize = -1;
+
+    private boolean streaming;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private String pageQuery;
+
+    private long[] keys;
+
+    private String[] lines;
+
+    private int pageLength;
+
+    private int pageIndex;
+
+    /**
+     * Key of the last line returned
+     */
+    private long lastKey;
+
+    private long restartKey;
+
+    private boolean restart;
+
+    private long pageCount;
+
+    /**
+     * @param dataSource database of the table
+     * @param table      name of the table
+     */
+    public KeysetLineItemReader(DataSource dataSource, String table) {
+        this(dataSource, table, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param dataSource database of the table
+     * @param table      name of the table
+     * @param fromKey    key preceding the first line of the range
+     * @param toKey      key of the last line of the range
+     */
+    public KeysetLineItemReader(DataSource dataSource, String table, long fromKey, long toKey) {
+        Assert.notNull(dataSource, "dataSource is required");
+        JdbcBatchLineItemWriter.checkTableName(table);
+        Assert.isTrue(fromKey <= toKey, "invalid range (" + fromKey + ", " + toKey + "]");
+
+        this.dataSource = dataSource;
+        this.table = table;
+        this.fromKey = fromKey;
+        this.toKey = toKey;
+
+        setName(ClassUtils.getShortName(KeysetLineItemReader.class));
+    }
+
+    /**
+     * @param pageSize rows read by each query
+     */
+    public void setPageSize(int pageSize) {
+        Assert.isTrue(pageSize > 0, "page size must be positive");
+
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param fetchSize rows fetched by each round trip to the database, -1 for the driver default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param streaming true to stream the rows of a page one at a time on MySQL, ignored by other databases
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * @return key of the last line read
+     */
+    public long getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * @return number of queries run
+     */
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String lastKeyKey = getExecutionContextKey(LAST_KEY);
+
+        restart = isSaveState() && executionContext.containsKey(lastKeyKey);
+        restartKey = restart ? executionContext.getLong(lastKeyKey) : fromKey;
+
+        super.open(executionContext);
+    }
+
+    /**
+     * Save the key of the last line read
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (isSaveState() && jdbcTemplate != null) {
+            executionContext.putLong(getExecutionContextKey(LAST_KEY), lastKey);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        if (streaming && isMySql()) {
+            // Connector/J streams the result set when the fetch size is Integer.MIN_VALUE
+            jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        }
+        else {
+            jdbcTemplate.setFetchSize(fetchSize);
+        }
+
+        pageQuery = "SELECT LINE_NUMBER, LINE FROM " + table
+                + " WHERE LINE_NUMBER > ? AND LINE_NUMBER <= ? ORDER BY LINE_NUMBER LIMIT ?";
+
+        keys = new long[pageSize];
+        lines = new String[pageSize];
+        pageLength = 0;
+        pageIndex = 0;
+        pageCount = 0;
+        lastKey = fromKey;
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (!restart) {
+            super.jumpToItem(itemIndex);
+            return;
+        }
+
+        if (restartKey < fromKey || restartKey > toKey) {
+            throw new ItemStreamException("Unable to restart, key " + restartKey + " is out of ("
+                    + fromKey + ", " + toKey + "] in " + table);
+        }
+        lastKey = restartKey;
+
+        logger.info("Restart after line {} of {}", lastKey, table);
+    }
+
+    @Override
+    protected String doRead() throws Exception {
+        if (pageIndex == pageLength) {
+            if (pageLength > 0 && pageLength < pageSize) {
+                // The last page was not full: there is nothing after it
+                return null;
+            }
+            readPage();
+
+            if (pageLength == 0) {
+                return null;
+            }
+        }
+
+        lastKey = keys[pageIndex];
+
+        return lines[pageIndex++];
+    }
+
+    /**
+     * Read the rows following the last line read, within the range
+     */
+    private void readPage() {
+        pageLength = 0;
+        pageIndex = 0;
+
+        jdbcTemplate.query(pageQuery, statement -> {
+            statement.setLong(1, lastKey);
+            statement.setLong(2, toKey);
+            statement.setInt(3, pageSize);
+        }, resultSet -> {
+            keys[pageLength] = resultSet.getLong(1);
+            lines[pageLength++] = resultSet.getString(2);
+        });
+
+        pageCount++;
+    }
+
+    private boolean isMySql() throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+
+        return "MySQL".equalsIgnoreCase(product) || "MariaDB".equalsIgnoreCase(product);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        jdbcTemplate = null;
+        keys = null;
+        lines = null;
+        pageLength = 0;
+        pageIndex = 0;
+    }
+}
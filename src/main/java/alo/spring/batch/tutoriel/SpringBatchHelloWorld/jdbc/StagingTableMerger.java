@@ -0,0 +1,80 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Merge the staging table filled by {@link JdbcBatchLineItemWriter} into its table with a single statement,
+ * then empty the staging table.
+ * <p>
+ * The lines already in the table are replaced, the others inserted: MERGE on most databases,
+ * INSERT ... ON DUPLICATE KEY UPDATE on MySQL. The rows after the last staged line are deleted, so that the table
+ * holds the file just loaded, as without staging. The statements run in the transaction of the step,
+ * a failure leaves the table and the staging table unchanged.
+ */
+public class StagingTableMerger implements Tasklet {
+
+    private static Logger logger = LoggerFactory.getLogger(StagingTableMerger.class);
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private final String stagingTable;
+
+    /**
+     * @param dataSource database of the tables
+     * @param table      table receiving the staging table
+     */
+    public StagingTableMerger(DataSource dataSource, String table) {
+        Assert.notNull(dataSource, "dataSource is required");
+        JdbcBatchLineItemWriter.checkTableName(table);
+
+        this.dataSource = dataSource;
+        this.table = table;
+        this.stagingTable = JdbcBatchLineItemWriter.stagingTable(table);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        int merged = jdbcTemplate.update(mergeStatement(databaseProductName()));
+        int surplus = jdbcTemplate.update("DELETE FROM " + table + " WHERE LINE_NUMBER >"
+                + " (SELECT COALESCE(MAX(LINE_NUMBER), 0) FROM " + stagingTable + ")");
+        int deleted = jdbcTemplate.update("DELETE FROM " + stagingTable);
+
+        contribution.incrementWriteCount(deleted);
+
+        logger.info("{} line(s) of {} merged into {}, {} line(s) after them deleted", deleted, stagingTable, table,
+                surplus);
+        logger.debug("{} row(s) affected by the merge", merged);
+
+        return RepeatStatus.FINISHED;
+    }
+
+    String mergeStatement(String databaseProductName) {
+        if ("MySQL".equalsIgnoreCase(databaseProductName) || "MariaDB".equalsIgnoreCase(databaseProductName)) {
+            return "INSERT INTO " + table + " (LINE_NUMBER, LINE) SELECT LINE_NUMBER, LINE FROM " + stagingTable
+                    + " ON DUPLICATE KEY UPDATE LINE = VALUES(LINE)";
+        }
+
+        return "MERGE INTO " + table + " T USING " + stagingTable + " S ON (T.LINE_NUMBER = S.LINE_NUMBER)"
+                + " WHEN MATCHED THEN UPDATE SET LINE = S.LINE"
+                + " WHEN NOT MATCHED THEN INSERT (LINE_NUMBER, LINE) VALUES (S.LINE_NUMBER, S.LINE)";
+    }
+
+    private String databaseProductName() throws Exception {
+        return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    }
+}
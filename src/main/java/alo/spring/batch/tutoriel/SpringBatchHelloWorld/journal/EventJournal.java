@@ -0,0 +1,400 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal of fixed-size binary events, written by the threads of the jobs without allocating nor blocking,
+ * and appended to a file by a background thread.
+ * <p>
+ * The events are written into a ring of {@link #RECORD_SIZE} bytes slots allocated once. A thread claims a slot
+ * with a compare-and-set, writes the event in it and publishes it; the background thread copies the published
+ * slots to the file in order. When the ring is full, the event is dropped and counted rather than waiting:
+ * the number of events dropped is journaled as soon as there is room again.
+ * <p>
+ * The names (jobs, steps, threads) are journaled once as NAME events and referred to by their number afterwards.
+ * The file is read back as text by {@link EventJournalReader}.
+ * <p>
+ * Record layout, big-endian:
+ * <pre>
+ *  0  long  time (epoch milliseconds)
+ *  8  short type
+ * 10  short status
+ * 12  int   name number
+ * 16  long  job execution id
+ * 24  long  step execution id
+ * 32  long  thread id
+ * 40  long  value 1
+ * 48  long  value 2
+ * 56  long  value 3
+ * </pre>
+ * A NAME event holds the name number and up to 48 bytes of UTF-8 name from offset 16.
+ */
+public class EventJournal implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(EventJournal.class);
+
+    public static final int RECORD_SIZE = 64;
+
+    static final int MAGIC = 0x424a524e;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+
+    static final int NAME_OFFSET = 16;
+    static final int NAME_LENGTH = RECORD_SIZE - NAME_OFFSET;
+
+    public static final short NAME = 0;
+    public static final short JOB_START = 1;
+    public static final short JOB_END = 2;
+    public static final short STEP_START = 3;
+    public static final short STEP_END = 4;
+    public static final short CHUNK = 5;
+    public static final short CHUNK_ERROR = 6;
+    public static final short DROPPED = 7;
+
+    private static int DEFAULT_CAPACITY = 8192;
+    private static int DEFAULT_WRITE_BUFFER = 64 * 1024;
+    private static long DEFAULT_DRAIN_INTERVAL = 100;
+
+    private final File file;
+
+    private final int mask;
+
+    private final ByteBuffer ring;
+
+    /**
+     * Sequence of the event written in each slot, once published
+     */
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+
+    private volatile long drained;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Map<String, Integer> names = new ConcurrentHashMap<>();
+
+    private int nameCount;
+
+    private final ThreadLocal<Thread> namedThread = new ThreadLocal<>();
+
+    private final long drainIntervalNanos;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(DEFAULT_WRITE_BUFFER);
+
+    private final FileChannel channel;
+
+    private final Thread drainer;
+
+    private volatile boolean closed;
+
+    private long droppedReported;
+
+    /**
+     * @param file file the events are appended to, created with its directory if needed
+     */
+    public EventJournal(File file) {
+        this(file, DEFAULT_CAPACITY, DEFAULT_DRAIN_INTERVAL);
+    }
+
+    /**
+     * @param file          file the events are appended to, created with its directory if needed
+     * @param capacity      events held by the ring, a power of 2
+     * @param drainInterval milliseconds the background thread waits when there is nothing to write
+     */
+    public EventJournal(File file, int capacity, long drainInterval) {
+        Assert.notNull(file, "file is required");
+        Assert.isTrue(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a power of 2");
+        Assert.isTrue(drainInterval > 0, "drain interval must be positive");
+
+        this.file = file;
+        this.mask = capacity - 1;
+        this.ring = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        this.published = new AtomicLongArray(capacity);
+        this.drainIntervalNanos = TimeUnit.MILLISECONDS.toNanos(drainInterval);
+
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        try {
+            File directory = file.getAbsoluteFile().getParentFile();
+            if (directory != null) {
+                Files.createDirectories(directory.toPath());
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE);
+                header.flip();
+                channel.write(header);
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Unable to open the event journal " + file, e);
+        }
+
+        drainer = new Thread(this::drainLoop, "event-journal");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of events dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Journal an event of the current thread
+     *
+     * @param type             event type
+     * @param status           status, BatchStatus ordinal for the job and step events
+     * @param name             job or step name
+     * @param jobExecutionId   job execution id
+     * @param stepExecutionId  step execution id, 0 for the job events
+     * @param value1           first value of the event
+     * @param value2           second value of the event
+     * @param value3           third value of the event
+     * @return false when the event has been dropped
+     */
+    public boolean append(short type, int status, String name, long jobExecutionId, long stepExecutionId,
+                          long value1, long value2, long value3) {
+        if (closed) {
+            return false;
+        }
+
+        Thread thread = Thread.currentThread();
+        if (namedThread.get() != thread) {
+            if (!appendName(-thread.getId(), thread.getName())) {
+                return false;
+            }
+            namedThread.set(thread);
+        }
+
+        int nameNumber = nameNumber(name);
+        if (nameNumber < 0) {
+            return false;
+        }
+
+        long sequence = claim();
+        if (sequence < 0) {
+            return false;
+        }
+
+        int offset = slotOffset(sequence);
+
+        ring.putLong(offset, System.currentTimeMillis());
+        ring.putShort(offset + 8, type);
+        ring.putShort(offset + 10, (short) status);
+        ring.putInt(offset + 12, nameNumber);
+        ring.putLong(offset + 16, jobExecutionId);
+        ring.putLong(offset + 24, stepExecutionId);
+        ring.putLong(offset + 32, thread.getId());
+        ring.putLong(offset + 40, value1);
+        ring.putLong(offset + 48, value2);
+        ring.putLong(offset + 56, value3);
+
+        published.set((int) (sequence & mask), sequence);
+
+        return true;
+    }
+
+    /**
+     * @return number of a name, journaled the first time it is seen, -1 when the name could not be journaled
+     */
+    private int nameNumber(String name) {
+        if (name == null) {
+            return 0;
+        }
+
+        Integer number = names.get(name);
+
+        if (number == null) {
+            synchronized (names) {
+                number = names.get(name);
+
+                if (number == null) {
+                    number = nameCount + 1;
+                    if (!appendName(number, name)) {
+                        return -1;
+                    }
+                    nameCount = number;
+                    names.put(name, number);
+                }
+            }
+        }
+
+        return number;
+    }
+
+    /**
+     * Journal a name, thread names being numbered by the opposite of the thread id
+     *
+     * @return false when the ring is full, the name is journaled again with the next event
+     */
+    private boolean appendName(long number, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+
+        long sequence = claim();
+        if (sequence < 0) {
+            return false;
+        }
+
+        int offset = slotOffset(sequence);
+        int length = Math.min(bytes.length, NAME_LENGTH);
+
+        ring.putLong(offset, System.currentTimeMillis());
+        ring.putShort(offset + 8, NAME);
+        ring.putShort(offset + 10, (short) length);
+        ring.putInt(offset + 12, (int) number);
+        for (int i = 0; i < NAME_LENGTH; i++) {
+            ring.put(offset + NAME_OFFSET + i, i < length ? bytes[i] : 0);
+        }
+
+        published.set((int) (sequence & mask), sequence);
+
+        return true;
+    }
+
+    /**
+     * @return sequence of the slot claimed, -1 when the ring is full
+     */
+    private long claim() {
+        while (true) {
+            long sequence = claimed.get();
+
+            if (sequence - drained > mask) {
+                dropped.increment();
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private int slotOffset(long sequence) {
+        return (int) (sequence & mask) * RECORD_SIZE;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean stopping = closed;
+
+            try {
+                if (drain() == 0) {
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, drainIntervalNanos);
+                }
+            }
+            catch (IOException e) {
+                logger.error("Unable to write the event journal {}, events are no longer journaled", file, e);
+                closed = true;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Write the events published, in order, and report the events dropped
+     *
+     * @return number of events written
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        long sequence = drained;
+
+        while (published.get((int) (sequence & mask)) == sequence) {
+            if (writeBuffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+
+            int offset = slotOffset(sequence);
+            ByteBuffer slot = ring.duplicate();
+            slot.limit(offset + RECORD_SIZE).position(offset);
+            writeBuffer.put(slot);
+
+            sequence++;
+            drained = sequence;
+            count++;
+        }
+
+        long droppedCount = dropped.sum();
+        if (droppedCount > droppedReported && claimed.get() - drained <= mask) {
+            if (writeBuffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            writeBuffer.putLong(System.currentTimeMillis()).putShort(DROPPED).putShort((short) 0).putInt(0)
+                    .putLong(0).putLong(0).putLong(Thread.currentThread().getId())
+                    .putLong(droppedCount - droppedReported).putLong(droppedCount).putLong(0);
+            droppedReported = droppedCount;
+            count++;
+        }
+
+        flush();
+
+        return count;
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Write the events left and close the file
+     */
+    @Override
+    public void close() {
+        if (closed && !drainer.isAlive()) {
+            return;
+        }
+        closed = true;
+
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+            channel.force(false);
+            channel.close();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e) {
+            logger.warn("Unable to close the event journal {}", file, e);
+        }
+
+        if (dropped.sum() > 0) {
+            logger.warn("{} event(s) dropped from the event journal {}", dropped.sum(), file);
+        }
+    }
+}
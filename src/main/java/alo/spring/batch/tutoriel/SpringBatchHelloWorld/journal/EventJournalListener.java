@@ -0,0 +1,109 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.util.Assert;
+
+/**
+ * Journal the job, step and chunk events in an EventJournal:
+ * <ul>
+ *     <li>JOB_START, JOB_END: status</li>
+ *     <li>STEP_START, STEP_END: status, items read, written and skipped</li>
+ *     <li>CHUNK, CHUNK_ERROR: items read and written by the step so far, chunk duration in nanoseconds</li>
+ * </ul>
+ * Nothing is allocated once the names are known, so the listener may be shared by every job and step,
+ * including partitions running in parallel.
+ */
+public class EventJournalListener implements JobExecutionListener, StepExecutionListener, ChunkListener {
+
+    private final EventJournal journal;
+
+    /**
+     * Start of the chunk running on each thread
+     */
+    private final ThreadLocal<long[]> chunkStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * @param journal journal receiving the events
+     */
+    public EventJournalListener(EventJournal journal) {
+        Assert.notNull(journal, "journal is required");
+
+        this.journal = journal;
+    }
+
+    /* ********************************************
+       JOB
+       ******************************************** */
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        journal.append(EventJournal.JOB_START, jobExecution.getStatus().ordinal(),
+                jobExecution.getJobInstance().getJobName(), id(jobExecution.getId()), 0, 0, 0, 0);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        journal.append(EventJournal.JOB_END, jobExecution.getStatus().ordinal(),
+                jobExecution.getJobInstance().getJobName(), id(jobExecution.getId()), 0, 0, 0, 0);
+    }
+
+    /* ********************************************
+       STEP
+       ******************************************** */
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        journal.append(EventJournal.STEP_START, stepExecution.getStatus().ordinal(), stepExecution.getStepName(),
+                id(stepExecution.getJobExecutionId()), id(stepExecution.getId()), 0, 0, 0);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        journal.append(EventJournal.STEP_END, stepExecution.getStatus().ordinal(), stepExecution.getStepName(),
+                id(stepExecution.getJobExecutionId()), id(stepExecution.getId()),
+                stepExecution.getReadCount(), stepExecution.getWriteCount(), stepExecution.getSkipCount());
+
+        return null;
+    }
+
+    /* ********************************************
+       CHUNK
+       ******************************************** */
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        journalChunk(EventJournal.CHUNK, context);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        journalChunk(EventJournal.CHUNK_ERROR, context);
+    }
+
+    private void journalChunk(short type, ChunkContext context) {
+        long[] start = chunkStart.get();
+        long duration = start[0] == 0 ? 0 : System.nanoTime() - start[0];
+        start[0] = 0;
+
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+
+        journal.append(type, stepExecution.getStatus().ordinal(), stepExecution.getStepName(),
+                id(stepExecution.getJobExecutionId()), id(stepExecution.getId()),
+                stepExecution.getReadCount(), stepExecution.getWriteCount(), duration);
+    }
+
+    private static long id(Long id) {
+        return id == null ? 0 : id;
+    }
+}
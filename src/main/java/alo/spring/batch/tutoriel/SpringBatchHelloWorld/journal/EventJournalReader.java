@@ -0,0 +1,145 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal;
+
+import org.springframework.batch.core.BatchStatus;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Render an EventJournal file as text, one line per event:
+ * <pre>
+ * 2026-10-17T09:12:03.120Z [main] JOB_START Job Processing file job=1 status=STARTING
+ * 2026-10-17T09:12:03.450Z [task-1] CHUNK Step read file:partition0001 job=1 step=3 read=1000 write=1000 duration=12.4ms
+ * </pre>
+ * Usage: {@code java -cp <classpath> alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal.EventJournalReader <file>}
+ */
+public class EventJournalReader {
+
+    private static final String[] TYPES = {
+            "NAME", "JOB_START", "JOB_END", "STEP_START", "STEP_END", "CHUNK", "CHUNK_ERROR", "DROPPED"};
+
+    private final Map<Integer, String> names = new HashMap<>();
+
+    private final Map<Long, String> threads = new HashMap<>();
+
+    private final StringBuilder line = new StringBuilder();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: EventJournalReader <journal file>");
+            System.exit(1);
+        }
+
+        long count = new EventJournalReader().render(new File(args[0]), System.out);
+
+        System.err.println(count + " event(s)");
+    }
+
+    /**
+     * Write the events of the journal, the NAME events being used rather than written
+     *
+     * @param file journal file
+     * @param out  output of the text lines
+     * @return number of events written
+     */
+    public long render(File file, PrintStream out) throws IOException {
+        long count = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            readHeader(in, file);
+
+            byte[] name = new byte[EventJournal.NAME_LENGTH];
+
+            while (true) {
+                long time;
+                try {
+                    time = in.readLong();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                short type = in.readShort();
+                short status = in.readShort();
+                int nameNumber = in.readInt();
+
+                if (type == EventJournal.NAME) {
+                    in.readFully(name);
+                    String value = new String(name, 0, status, StandardCharsets.UTF_8);
+
+                    if (nameNumber < 0) {
+                        threads.put((long) -nameNumber, value);
+                    }
+                    else {
+                        names.put(nameNumber, value);
+                    }
+                    continue;
+                }
+
+                long jobExecutionId = in.readLong();
+                long stepExecutionId = in.readLong();
+                long threadId = in.readLong();
+                long value1 = in.readLong();
+                long value2 = in.readLong();
+                long value3 = in.readLong();
+
+                line.setLength(0);
+                line.append(Instant.ofEpochMilli(time)).append(" [")
+                        .append(threads.getOrDefault(threadId, String.valueOf(threadId))).append("] ")
+                        .append(type >= 0 && type < TYPES.length ? TYPES[type] : String.valueOf(type));
+
+                if (type == EventJournal.DROPPED) {
+                    line.append(" dropped=").append(value1).append(" total=").append(value2);
+                }
+                else {
+                    line.append(' ').append(names.getOrDefault(nameNumber, "#" + nameNumber))
+                            .append(" job=").append(jobExecutionId);
+                    if (stepExecutionId != 0) {
+                        line.append(" step=").append(stepExecutionId);
+                    }
+                    line.append(" status=").append(status(status));
+                    appendValues(type, value1, value2, value3);
+                }
+
+                out.println(line);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private void appendValues(short type, long value1, long value2, long value3) {
+        if (type == EventJournal.STEP_END) {
+            line.append(" read=").append(value1).append(" write=").append(value2).append(" skip=").append(value3);
+        }
+        else if (type == EventJournal.CHUNK || type == EventJournal.CHUNK_ERROR) {
+            line.append(" read=").append(value1).append(" write=").append(value2)
+                    .append(" duration=").append(value3 / 100_000 / 10.0).append("ms");
+        }
+    }
+
+    private static String status(short ordinal) {
+        BatchStatus[] statuses = BatchStatus.values();
+
+        return ordinal >= 0 && ordinal < statuses.length ? statuses[ordinal].name() : String.valueOf(ordinal);
+    }
+
+    private static void readHeader(DataInputStream in, File file) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        int recordSize = in.readInt();
+
+        if (magic != EventJournal.MAGIC || version != EventJournal.VERSION || recordSize != EventJournal.RECORD_SIZE) {
+            throw new IOException(file + " is not an event journal of version " + EventJournal.VERSION);
+        }
+    }
+}
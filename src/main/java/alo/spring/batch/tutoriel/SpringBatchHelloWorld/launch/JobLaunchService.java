@@ -0,0 +1,272 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersIncrementer;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Launch the jobs of a running context from an in-process queue, so that each launch only pays for the job itself.
+ * <p>
+ * The parameters of a request are completed by the incrementer of the job and checked by its validator when
+ * the request is submitted. The requests are started by priority, then in submission order, as long as fewer than
+ * poolSize jobs are running and fewer than the limit of the job name: a request whose job is at its limit lets the
+ * next ones go first.
+ * <p>
+ * The queue wait and the run time of each request are logged and recorded by the timers
+ * batch.launcher.queue.wait and batch.launcher.run, tagged by job.
+ */
+public class JobLaunchService {
+
+    private static Logger logger = LoggerFactory.getLogger(JobLaunchService.class);
+
+    private static final Comparator<JobRequest> ORDER = Comparator
+            .comparingInt(JobRequest::getPriority).reversed()
+            .thenComparingLong(JobRequest::getId);
+
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    private final JobLauncher jobLauncher;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int poolSize;
+
+    private final ExecutorService executor;
+
+    private int defaultJobLimit = 1;
+
+    private final Map<String, Integer> jobLimits = new HashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Set<JobRequest> queue = new TreeSet<>(ORDER);
+
+    private final Map<String, Integer> running = new HashMap<>();
+
+    private int runningCount;
+
+    private boolean shutdown;
+
+    /**
+     * @param jobs          jobs that can be launched, by name
+     * @param jobLauncher   launcher running the job in the calling thread
+     * @param meterRegistry registry of the queue wait and run time timers
+     * @param poolSize      maximum number of jobs running at the same time
+     */
+    public JobLaunchService(Collection<Job> jobs, JobLauncher jobLauncher, MeterRegistry meterRegistry, int poolSize) {
+        Assert.notNull(jobLauncher, "jobLauncher is required");
+        Assert.notNull(meterRegistry, "meterRegistry is required");
+        Assert.isTrue(poolSize > 0, "pool size must be positive");
+
+        for (Job job : jobs) {
+            this.jobs.put(job.getName(), job);
+        }
+        this.jobLauncher = jobLauncher;
+        this.meterRegistry = meterRegistry;
+        this.poolSize = poolSize;
+        this.executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("job-launcher-"));
+
+        meterRegistry.gauge("batch.launcher.queue.size", this, JobLaunchService::queueSize);
+    }
+
+    /**
+     * @param defaultJobLimit maximum number of executions of a job running at the same time
+     */
+    public void setDefaultJobLimit(int defaultJobLimit) {
+        Assert.isTrue(defaultJobLimit > 0, "job limit must be positive");
+
+        this.defaultJobLimit = defaultJobLimit;
+    }
+
+    /**
+     * @param jobLimits limit by job name, overriding the default one
+     */
+    public void setJobLimits(Map<String, Integer> jobLimits) {
+        jobLimits.forEach((jobName, limit) -> Assert.isTrue(limit > 0, "limit of " + jobName + " must be positive"));
+
+        this.jobLimits.putAll(jobLimits);
+    }
+
+    /**
+     * @return names of the jobs that can be launched
+     */
+    public Set<String> getJobNames() {
+        return jobs.keySet();
+    }
+
+    /**
+     * Queue a launch of a job
+     *
+     * @param jobName    name of the job
+     * @param parameters parameters given by the requester
+     * @param priority   priority of the request, the higher first
+     * @return request, whose execution completes once the job has ended
+     * @throws NoSuchJobException            if no job has this name
+     * @throws JobParametersInvalidException if the validator of the job rejects the parameters
+     */
+    public JobRequest submit(String jobName, JobParameters parameters, int priority)
+            throws NoSuchJobException, JobParametersInvalidException {
+
+        Job job = jobs.get(jobName);
+
+        if (job == null) {
+            throw new NoSuchJobException("No job named " + jobName + ", known jobs: " + jobs.keySet());
+        }
+
+        JobParametersIncrementer incrementer = job.getJobParametersIncrementer();
+        JobParameters next = incrementer != null ? incrementer.getNext(parameters) : parameters;
+
+        JobParametersValidator validator = job.getJobParametersValidator();
+        if (validator != null) {
+            validator.validate(next);
+        }
+
+        JobRequest request = new JobRequest(sequence.incrementAndGet(), jobName, next, priority);
+
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Job launch service is shut down");
+            }
+            queue.add(request);
+
+            logger.info("Request #{} queued: {} {} priority {}, {} request(s) waiting",
+                    request.getId(), jobName, next, priority, queue.size());
+
+            dispatch();
+        }
+
+        return request;
+    }
+
+    /**
+     * @return number of requests waiting
+     */
+    public synchronized int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of executions of the job running
+     */
+    public synchronized int runningCount(String jobName) {
+        return running.getOrDefault(jobName, 0);
+    }
+
+    /**
+     * Stop accepting requests, drop the waiting ones and wait for the running jobs to end
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (this) {
+            shutdown = true;
+
+            for (JobRequest request : queue) {
+                request.getExecution().completeExceptionally(
+                        new RejectedExecutionException("Job launch service shut down before request #" + request.getId()));
+            }
+            if (!queue.isEmpty()) {
+                logger.warn("{} waiting request(s) dropped", queue.size());
+            }
+            queue.clear();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Start the first waiting requests whose job is under its limit, while the pool has room
+     */
+    private void dispatch() {
+        Iterator<JobRequest> waiting = queue.iterator();
+
+        while (runningCount < poolSize && waiting.hasNext()) {
+            JobRequest request = waiting.next();
+            String jobName = request.getJobName();
+            int count = running.getOrDefault(jobName, 0);
+
+            if (count < jobLimits.getOrDefault(jobName, defaultJobLimit)) {
+                waiting.remove();
+                running.put(jobName, count + 1);
+                runningCount++;
+
+                executor.execute(() -> run(request));
+            }
+        }
+    }
+
+    private void run(JobRequest request) {
+        request.started();
+
+        JobExecution execution = null;
+        Exception failure = null;
+
+        try {
+            execution = jobLauncher.run(jobs.get(request.getJobName()), request.getParameters());
+        }
+        catch (Exception e) {
+            failure = e;
+        }
+        finally {
+            request.ended();
+
+            synchronized (this) {
+                running.merge(request.getJobName(), -1, Integer::sum);
+                runningCount--;
+
+                if (!shutdown) {
+                    dispatch();
+                }
+            }
+        }
+
+        String status = execution != null ? execution.getStatus().name() : "NOT_LAUNCHED";
+
+        Timer.builder("batch.launcher.queue.wait")
+                .tag("job", request.getJobName())
+                .register(meterRegistry)
+                .record(request.getQueueWait());
+        Timer.builder("batch.launcher.run")
+                .tag("job", request.getJobName())
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(request.getRunTime());
+
+        if (failure != null) {
+            logger.error("Request #{} {}: not launched after waiting {} ms: {}", request.getId(), request.getJobName(),
+                    request.getQueueWait().toMillis(), failure.toString());
+
+            request.getExecution().completeExceptionally(failure);
+        }
+        else {
+            logger.info("Request #{} {}: {} after waiting {} ms and running {} ms", request.getId(),
+                    request.getJobName(), status, request.getQueueWait().toMillis(), request.getRunTime().toMillis());
+
+            request.getExecution().complete(execution);
+        }
+    }
+}
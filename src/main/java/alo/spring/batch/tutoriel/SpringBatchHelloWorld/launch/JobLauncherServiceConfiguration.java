@@ -0,0 +1,66 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keep the application running as a job launcher when batch.launcher.port is set.
+ * <p>
+ * The context is started once, the job requests received on batch.launcher.port are queued and run by
+ * the {@link JobLaunchService}. It is meant to be started with spring.batch.job.enabled=false:
+ * <pre>
+ * java -jar SpringBatchHelloWorld.jar --spring.batch.job.enabled=false \
+ *      --batch.launcher.port=9600 --batch.launcher.pool-size=4
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty("batch.launcher.port")
+public class JobLauncherServiceConfiguration {
+
+    @Value("${batch.launcher.port}")
+    private int launcherPort;
+
+    @Value("${batch.launcher.pool-size:4}")
+    private int poolSize;
+
+    @Value("${batch.launcher.job-limit:1}")
+    private int defaultJobLimit;
+
+    @Value("#{${batch.launcher.job-limits:{:}}}")
+    private Map<String, Integer> jobLimits;
+
+    /**
+     * Queue of the job requests
+     *
+     * @param jobs        jobs of the context
+     * @param jobLauncher launcher of the context, running the job in the calling thread
+     * @return JobLaunchService
+     */
+    @Bean(destroyMethod = "shutdown")
+    public JobLaunchService jobLaunchService(List<Job> jobs, JobLauncher jobLauncher) {
+        JobLaunchService service = new JobLaunchService(jobs, jobLauncher, Metrics.globalRegistry, poolSize);
+        service.setDefaultJobLimit(defaultJobLimit);
+        service.setJobLimits(jobLimits);
+
+        return service;
+    }
+
+    /**
+     * Server listening for job requests on batch.launcher.port
+     *
+     * @param jobLaunchService queue of the job requests
+     * @return JobRequestServer
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public JobRequestServer jobRequestServer(JobLaunchService jobLaunchService) {
+        return new JobRequestServer(launcherPort, jobLaunchService);
+    }
+}
@@ -0,0 +1,95 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Job launch queued by a {@link JobLaunchService}, with its queue wait and its run time
+ */
+public class JobRequest {
+
+    private final long id;
+
+    private final String jobName;
+
+    private final JobParameters parameters;
+
+    private final int priority;
+
+    private final long submitTime = System.nanoTime();
+
+    private volatile long startTime;
+
+    private volatile long endTime;
+
+    private final CompletableFuture<JobExecution> execution = new CompletableFuture<>();
+
+    JobRequest(long id, String jobName, JobParameters parameters, int priority) {
+        this.id = id;
+        this.jobName = jobName;
+        this.parameters = parameters;
+        this.priority = priority;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @return parameters of the launch, incrementer applied
+     */
+    public JobParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return priority, the higher first
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return time spent in the queue, up to now while the job has not started
+     */
+    public Duration getQueueWait() {
+        long start = startTime;
+
+        return Duration.ofNanos((start != 0 ? start : System.nanoTime()) - submitTime);
+    }
+
+    /**
+     * @return run time of the job, up to now while it is running
+     */
+    public Duration getRunTime() {
+        long start = startTime;
+        long end = endTime;
+
+        if (start == 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((end != 0 ? end : System.nanoTime()) - start);
+    }
+
+    /**
+     * @return execution of the job, completed once the job has ended, exceptionally if it could not be launched
+     */
+    public CompletableFuture<JobExecution> getExecution() {
+        return execution;
+    }
+
+    void started() {
+        startTime = System.nanoTime();
+    }
+
+    void ended() {
+        endTime = System.nanoTime();
+    }
+}
@@ -0,0 +1,194 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.batch.core.converter.JobParametersConverter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Line protocol submitting job requests to a {@link JobLaunchService}, on the loopback address by default.
+ * <p>
+ * Each line is a request, its fields separated by tabulations: the job name, the priority, then the parameters
+ * in the command line syntax (key=value, key(long)=value...):
+ * <pre>
+ * printf 'Job Processing file\t5\tinputFile=file:/data/in.csv\toutputFile=file:/data/out.csv\n' | nc -q -1 localhost 9600
+ * </pre>
+ * The server answers QUEUED with the id of the request, or REJECTED with the reason, then DONE with the status,
+ * the queue wait and the run time once the job has ended, if the connection is still open. Closing the connection
+ * does not cancel the requests.
+ */
+public class JobRequestServer {
+
+    private static Logger logger = LoggerFactory.getLogger(JobRequestServer.class);
+
+    private final int port;
+
+    private final JobLaunchService launchService;
+
+    private final JobParametersConverter parametersConverter = new DefaultJobParametersConverter();
+
+    private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket server;
+
+    /**
+     * @param port          port to listen to, 0 for any free port
+     * @param launchService service running the requests
+     */
+    public JobRequestServer(int port, JobLaunchService launchService) {
+        Assert.notNull(launchService, "launchService is required");
+
+        this.port = port;
+        this.launchService = launchService;
+    }
+
+    public void setBindAddress(InetAddress bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    /**
+     * @return port listened to, once started
+     */
+    public int getPort() {
+        return server != null ? server.getLocalPort() : port;
+    }
+
+    public synchronized void start() throws IOException {
+        server = new ServerSocket(port, 50, bindAddress);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("job-requests-" + getPort() + "-");
+        threadFactory.newThread(this::accept).start();
+
+        logger.info("Job launcher listening on {}:{} for {}", bindAddress.getHostAddress(), getPort(),
+                launchService.getJobNames());
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        try {
+            server.close();
+        }
+        catch (IOException e) {
+            logger.debug("Unable to close server socket", e);
+        }
+        for (Socket client : clients) {
+            try {
+                client.close();
+            }
+            catch (IOException e) {
+                logger.debug("Unable to close client socket", e);
+            }
+        }
+        server = null;
+    }
+
+    private void accept() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("job-requests-client-");
+        threadFactory.setDaemon(true);
+
+        ServerSocket listening = server;
+
+        while (!listening.isClosed()) {
+            try {
+                Socket client = listening.accept();
+                clients.add(client);
+                threadFactory.newThread(() -> serve(client)).start();
+            }
+            catch (IOException e) {
+                if (!listening.isClosed()) {
+                    logger.warn("Unable to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    handle(line, out);
+                }
+            }
+        }
+        catch (IOException e) {
+            if (!client.isClosed()) {
+                logger.warn("Connection with {} lost: {}", client.getRemoteSocketAddress(), e.toString());
+            }
+        }
+        finally {
+            clients.remove(client);
+        }
+    }
+
+    private void handle(String line, PrintWriter out) {
+        String[] fields = line.split("\t");
+        JobRequest request;
+
+        try {
+            if (fields.length < 2) {
+                throw new IllegalArgumentException("expected <job name>\\t<priority>[\\t<key=value>...]");
+            }
+
+            Properties properties = new Properties();
+            for (int i = 2; i < fields.length; i++) {
+                int equals = fields[i].indexOf('=');
+
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("parameter without key=value: " + fields[i]);
+                }
+                properties.setProperty(fields[i].substring(0, equals).trim(), fields[i].substring(equals + 1));
+            }
+            JobParameters parameters = parametersConverter.getJobParameters(properties);
+
+            request = launchService.submit(fields[0].trim(), parameters, Integer.parseInt(fields[1].trim()));
+        }
+        catch (Exception e) {
+            reply(out, "REJECTED\t" + e.getMessage());
+            return;
+        }
+
+        reply(out, "QUEUED\t" + request.getId());
+
+        request.getExecution().whenComplete((execution, failure) -> reply(out, done(request, execution, failure)));
+    }
+
+    private static String done(JobRequest request, JobExecution execution, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        String status = execution != null ? execution.getExitStatus().getExitCode() : "FAILED\t" + cause;
+
+        return "DONE\t" + request.getId() + "\t" + status
+                + "\twait=" + request.getQueueWait().toMillis() + "ms"
+                + "\trun=" + request.getRunTime().toMillis() + "ms";
+    }
+
+    private static void reply(PrintWriter out, String message) {
+        synchronized (out) {
+            out.println(message);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.batch.core.converter.JobParametersConverter;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.autoconfigure.batch.JobLauncherApplicationRunner;
+import org.springframework.util.Assert;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * JobLauncherApplicationRunner building only the jobs it runs.
+ * <p>
+ * Spring Boot's runner is given every Job bean of the context, so that each of them, with all its steps,
+ * is built at startup even when spring.batch.job.names selects a single one. This runner looks the jobs up
+ * by name in a {@link LazyJobLocator} when it runs: with lazy initialization, the beans of the other jobs
+ * are never created. Without spring.batch.job.names, every job is run, as Spring Boot does.
+ */
+public class LazyJobLauncherApplicationRunner extends JobLauncherApplicationRunner {
+
+    private static Logger logger = LoggerFactory.getLogger(LazyJobLauncherApplicationRunner.class);
+
+    private final LazyJobLocator jobLocator;
+
+    private JobParametersConverter converter = new DefaultJobParametersConverter();
+
+    private String jobNames;
+
+    /**
+     * @param jobLauncher   launcher of the jobs
+     * @param jobExplorer   explorer used to restart or increment the jobs
+     * @param jobRepository repository of the jobs
+     * @param jobLocator    jobs of the context, by name
+     */
+    public LazyJobLauncherApplicationRunner(JobLauncher jobLauncher, JobExplorer jobExplorer,
+                                            JobRepository jobRepository, LazyJobLocator jobLocator) {
+        super(jobLauncher, jobExplorer, jobRepository);
+
+        Assert.notNull(jobLocator, "jobLocator is required");
+
+        this.jobLocator = jobLocator;
+    }
+
+    /**
+     * Not autowired: the jobs are looked up by name when the runner runs
+     */
+    @Override
+    public void setJobs(Collection<Job> jobs) {
+    }
+
+    @Override
+    public void setJobNames(String jobNames) {
+        super.setJobNames(jobNames);
+
+        this.jobNames = jobNames;
+    }
+
+    @Override
+    public void setJobParametersConverter(JobParametersConverter converter) {
+        super.setJobParametersConverter(converter);
+
+        this.converter = converter;
+    }
+
+    @Override
+    protected void launchJobFromProperties(Properties properties) throws JobExecutionException {
+        JobParameters jobParameters = converter.getJobParameters(properties);
+
+        // A job may be selected by its bean name and by an alias, it is run once
+        Set<Job> jobs = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (String name : selectedJobNames()) {
+            Job job = jobLocator.getJob(name);
+
+            if (jobs.add(job)) {
+                execute(job, jobParameters);
+            }
+        }
+    }
+
+    /**
+     * @return names of the jobs to run, spring.batch.job.names patterns matched against the known names
+     */
+    private Collection<String> selectedJobNames() {
+        Collection<String> known = jobLocator.getJobNames();
+
+        if (!StringUtils.hasText(jobNames)) {
+            return known;
+        }
+
+        String[] patterns = StringUtils.commaDelimitedListToStringArray(jobNames);
+        Set<String> selected = new LinkedHashSet<>();
+
+        for (String token : patterns) {
+            String pattern = token.trim();
+
+            if (known.contains(pattern)) {
+                selected.add(pattern);
+            }
+            else {
+                known.stream()
+                        .filter(name -> PatternMatchUtils.simpleMatch(pattern, name))
+                        .forEach(selected::add);
+            }
+        }
+
+        if (selected.isEmpty()) {
+            logger.warn("No job matching {}, known jobs: {}", jobNames, known);
+        }
+
+        return selected;
+    }
+}
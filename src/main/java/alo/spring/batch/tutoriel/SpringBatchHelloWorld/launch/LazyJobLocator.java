@@ -0,0 +1,62 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.configuration.ListableJobLocator;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Jobs of the context looked up by bean name or alias, without building the other jobs.
+ * <p>
+ * The names come from the bean definitions: listing them creates no bean. A job, and the steps
+ * it refers to, is only built when it is asked for. Giving the job bean its job name as alias
+ * makes it available under both names.
+ */
+public class LazyJobLocator implements ListableJobLocator {
+
+    private final ListableBeanFactory beanFactory;
+
+    /**
+     * @param beanFactory factory holding the job definitions
+     */
+    public LazyJobLocator(ListableBeanFactory beanFactory) {
+        Assert.notNull(beanFactory, "beanFactory is required");
+
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * @return bean names and aliases of the jobs
+     */
+    @Override
+    public Collection<String> getJobNames() {
+        Set<String> names = new LinkedHashSet<>();
+
+        for (String beanName : beanFactory.getBeanNamesForType(Job.class, true, false)) {
+            names.add(beanName);
+            names.addAll(Arrays.asList(beanFactory.getAliases(beanName)));
+        }
+
+        return names;
+    }
+
+    /**
+     * @param name bean name or alias of the job
+     * @return job, built on the first call
+     * @throws NoSuchJobException if no job bean has this name
+     */
+    @Override
+    public Job getJob(String name) throws NoSuchJobException {
+        if (name == null || !beanFactory.containsBean(name) || !beanFactory.isTypeMatch(name, Job.class)) {
+            throw new NoSuchJobException("No job named " + name + ", known jobs: " + getJobNames());
+        }
+
+        return beanFactory.getBean(name, Job.class);
+    }
+}
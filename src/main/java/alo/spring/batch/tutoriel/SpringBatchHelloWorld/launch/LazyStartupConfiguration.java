@@ -0,0 +1,63 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.SocketChunkWorker;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.batch.JobLauncherApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.AbstractDataSourceInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Startup building only the selected job, enabled by spring.main.lazy-initialization (profile "lazy"):
+ * <pre>
+ * java -jar SpringBatchHelloWorld.jar --spring.profiles.active=lazy \
+ *      --spring.batch.job.names=jobReadFile inputFile=file:/data/in.csv outputFile=file:/data/out.csv
+ * </pre>
+ * Every bean is created on first use, the {@link LazyJobLauncherApplicationRunner} replaces the runner
+ * of Spring Boot so that the job is only looked up by name when it is run. The servers and the schema
+ * initializers stay eager, nothing else would start them.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+public class LazyStartupConfiguration {
+
+    /**
+     * Runner of the jobs selected by spring.batch.job.names, every job when it is empty
+     *
+     * @param beanFactory factory holding the job definitions
+     * @return JobLauncherApplicationRunner
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.batch.job", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public JobLauncherApplicationRunner jobLauncherApplicationRunner(JobLauncher jobLauncher, JobExplorer jobExplorer,
+                                                                     JobRepository jobRepository,
+                                                                     ListableBeanFactory beanFactory,
+                                                                     @Value("${spring.batch.job.names:}") String jobNames) {
+        LazyJobLauncherApplicationRunner runner = new LazyJobLauncherApplicationRunner(jobLauncher, jobExplorer,
+                jobRepository, new LazyJobLocator(beanFactory));
+
+        if (StringUtils.hasText(jobNames)) {
+            runner.setJobNames(jobNames);
+        }
+
+        return runner;
+    }
+
+    /**
+     * Servers and schema initializers working when their bean is created, left eager
+     *
+     * @return LazyInitializationExcludeFilter
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(JobRequestServer.class, SocketChunkWorker.class,
+                AbstractDataSourceInitializer.class);
+    }
+}
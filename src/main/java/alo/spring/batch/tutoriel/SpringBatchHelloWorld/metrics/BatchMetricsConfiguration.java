@@ -0,0 +1,158 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal.EventJournal;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal.EventJournalListener;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Attach the metrics listeners to every job and step built through the JobBuilderFactory
+ * and StepBuilderFactory, and export the metrics in the Prometheus format.
+ * <p>
+ * The Prometheus registry is added to the global registry, so the metrics already recorded
+ * by Spring Batch (spring.batch.*) are exported as well.
+ * <p>
+ * The job, step and chunk events are journaled in batch.journal.file, unless batch.journal.enabled is false.
+ */
+@Configuration
+public class BatchMetricsConfiguration {
+
+    @Value("${batch.metrics.file:./logs/batch-metrics.prom}")
+    private String metricsFile;
+
+    @Value("${batch.metrics.port:0}")
+    private int metricsPort;
+
+    @Value("${batch.journal.file:./logs/batch-events.journal}")
+    private String journalFile;
+
+    @Value("${batch.journal.capacity:8192}")
+    private int journalCapacity;
+
+    @Value("${batch.journal.drain-interval:100}")
+    private long journalDrainInterval;
+
+    /**
+     * Registry exported in the Prometheus format
+     *
+     * @return PrometheusMeterRegistry
+     */
+    @Bean(destroyMethod = "close")
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+        Metrics.addRegistry(registry);
+
+        return registry;
+    }
+
+    /**
+     * Listener recording the job, step and chunk metrics
+     *
+     * @return BatchMetricsListener
+     */
+    @Bean
+    public BatchMetricsListener batchMetricsListener() {
+        return new BatchMetricsListener(Metrics.globalRegistry);
+    }
+
+    /**
+     * Listener recording the time to the first item
+     *
+     * @return FirstItemListener
+     */
+    @Bean
+    public FirstItemListener firstItemListener() {
+        return new FirstItemListener(Metrics.globalRegistry);
+    }
+
+    /**
+     * Dump of the metrics in batch.metrics.file and endpoint on batch.metrics.port
+     *
+     * @return PrometheusExporter
+     */
+    @Bean
+    public PrometheusExporter prometheusExporter() {
+        PrometheusExporter exporter = new PrometheusExporter(prometheusMeterRegistry());
+
+        exporter.setFile(metricsFile);
+        exporter.setPort(metricsPort);
+
+        return exporter;
+    }
+
+    /**
+     * Journal of the job, step and chunk events, drained to batch.journal.file
+     *
+     * @return EventJournal
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "batch.journal.enabled", havingValue = "true", matchIfMissing = true)
+    public EventJournal eventJournal() {
+        return new EventJournal(new File(journalFile), journalCapacity, journalDrainInterval);
+    }
+
+    /**
+     * Listener journaling the job, step and chunk events
+     *
+     * @param eventJournal journal of the events
+     * @return EventJournalListener
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.journal.enabled", havingValue = "true", matchIfMissing = true)
+    public EventJournalListener eventJournalListener(EventJournal eventJournal) {
+        return new EventJournalListener(eventJournal);
+    }
+
+    /**
+     * JobBuilderFactory used by every job
+     *
+     * @param jobRepository        job repository
+     * @param eventJournalListener journal listener, if the journal is enabled
+     * @return JobBuilderFactory
+     */
+    @Bean
+    @Primary
+    public JobBuilderFactory instrumentedJobBuilderFactory(JobRepository jobRepository,
+                                                           ObjectProvider<EventJournalListener> eventJournalListener) {
+        List<JobExecutionListener> listeners = new ArrayList<>();
+        listeners.add(batchMetricsListener());
+        listeners.add(prometheusExporter());
+        eventJournalListener.ifAvailable(listeners::add);
+
+        return new InstrumentedJobBuilderFactory(jobRepository, listeners);
+    }
+
+    /**
+     * StepBuilderFactory used by every step
+     *
+     * @param jobRepository      job repository
+     * @param transactionManager   transaction manager
+     * @param eventJournalListener journal listener, if the journal is enabled
+     * @return StepBuilderFactory
+     */
+    @Bean
+    @Primary
+    public StepBuilderFactory instrumentedStepBuilderFactory(JobRepository jobRepository,
+                                                             PlatformTransactionManager transactionManager,
+                                                             ObjectProvider<EventJournalListener> eventJournalListener) {
+        return new InstrumentedStepBuilderFactory(jobRepository, transactionManager, batchMetricsListener(),
+                firstItemListener(), eventJournalListener.getIfAvailable());
+    }
+}
@@ -0,0 +1,202 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record job, step and chunk metrics:
+ * <ul>
+ *     <li>batch.job.duration: timer by job and status</li>
+ *     <li>batch.step.duration: timer by job, step and status</li>
+ *     <li>batch.step.items: counter by job, step and type (read, write, skip), updated after each chunk</li>
+ *     <li>batch.chunk.duration: histogram of the chunk latency, commit included</li>
+ *     <li>batch.chunk.throughput: distribution of the items written per second by each chunk</li>
+ * </ul>
+ * The same listener may be shared by every job and step, including partitions running in parallel.
+ */
+public class BatchMetricsListener implements JobExecutionListener, StepExecutionListener, ChunkListener {
+
+    private static String JOB_DURATION = "batch.job.duration";
+    private static String STEP_DURATION = "batch.step.duration";
+    private static String STEP_ITEMS = "batch.step.items";
+    private static String CHUNK_DURATION = "batch.chunk.duration";
+    private static String CHUNK_THROUGHPUT = "batch.chunk.throughput";
+
+    private static final String CHUNK_START_KEY = BatchMetricsListener.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+
+    private final Map<Long, Timer.Sample> jobSamples = new ConcurrentHashMap<>();
+
+    private final Map<Long, Timer.Sample> stepSamples = new ConcurrentHashMap<>();
+
+    /**
+     * Counts already published for each running step execution: read, write, skip
+     */
+    private final Map<Long, long[]> publishedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry registry receiving the metrics
+     */
+    public BatchMetricsListener(MeterRegistry registry) {
+        Assert.notNull(registry, "registry is required");
+
+        this.registry = registry;
+    }
+
+    /* ********************************************
+       JOB
+       ******************************************** */
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        jobSamples.put(jobExecution.getId(), Timer.start(registry));
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        Timer.Sample sample = jobSamples.remove(jobExecution.getId());
+
+        if (sample != null) {
+            sample.stop(Timer.builder(JOB_DURATION)
+                    .description("Duration of the jobs")
+                    .tags(Tags.of("job.name", jobExecution.getJobInstance().getJobName(),
+                            "status", jobExecution.getStatus().name()))
+                    .register(registry));
+        }
+    }
+
+    /* ********************************************
+       STEP
+       ******************************************** */
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        stepSamples.put(stepExecution.getId(), Timer.start(registry));
+        publishedCounts.put(stepExecution.getId(), new long[3]);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        publishCounts(stepExecution);
+        publishedCounts.remove(stepExecution.getId());
+
+        Timer.Sample sample = stepSamples.remove(stepExecution.getId());
+
+        if (sample != null) {
+            sample.stop(Timer.builder(STEP_DURATION)
+                    .description("Duration of the steps")
+                    .tags(stepTags(stepExecution).and("status", stepExecution.getStatus().name()))
+                    .register(registry));
+        }
+
+        return null;
+    }
+
+    /* ********************************************
+       CHUNK
+       ******************************************** */
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        context.setAttribute(CHUNK_START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        recordChunk(context, "COMPLETED");
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        recordChunk(context, "FAILED");
+    }
+
+    private void recordChunk(ChunkContext context, String status) {
+        Object start = context.getAttribute(CHUNK_START_KEY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        context.removeAttribute(CHUNK_START_KEY);
+
+        long latency = System.nanoTime() - (Long) start;
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        Tags tags = stepTags(stepExecution);
+
+        Timer.builder(CHUNK_DURATION)
+                .description("Latency of the chunks, commit included")
+                .tags(tags.and("status", status))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(latency, TimeUnit.NANOSECONDS);
+
+        long written = publishCounts(stepExecution);
+
+        if (written > 0 && latency > 0) {
+            DistributionSummary.builder(CHUNK_THROUGHPUT)
+                    .description("Items written per second by the chunks")
+                    .baseUnit("items/s")
+                    .tags(tags)
+                    .register(registry)
+                    .record(written * (double) TimeUnit.SECONDS.toNanos(1) / latency);
+        }
+    }
+
+    /**
+     * Increment the item counters with what happened since the last publication
+     *
+     * @return number of items written since the last publication
+     */
+    private long publishCounts(StepExecution stepExecution) {
+        long[] published = publishedCounts.get(stepExecution.getId());
+        if (published == null) {
+            return 0;
+        }
+
+        long[] current = {
+                stepExecution.getReadCount(),
+                stepExecution.getWriteCount(),
+                stepExecution.getSkipCount()};
+
+        String[] types = {"read", "write", "skip"};
+        Tags tags = stepTags(stepExecution);
+
+        for (int i = 0; i < current.length; i++) {
+            long delta = current[i] - published[i];
+
+            if (delta > 0) {
+                registry.counter(STEP_ITEMS, tags.and("type", types[i])).increment(delta);
+            }
+        }
+
+        long written = current[1] - published[1];
+        System.arraycopy(current, 0, published, 0, current.length);
+
+        return written;
+    }
+
+    /**
+     * Partitions of a step are named "step:partition", they are all tagged with the step name
+     */
+    private static Tags stepTags(StepExecution stepExecution) {
+        String stepName = stepExecution.getStepName();
+        int partitionSeparator = stepName.indexOf(':');
+
+        return Tags.of("job.name", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                "step.name", partitionSeparator > 0 ? stepName.substring(0, partitionSeparator) : stepName);
+    }
+}
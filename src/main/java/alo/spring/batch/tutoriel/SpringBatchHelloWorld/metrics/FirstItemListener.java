@@ -0,0 +1,64 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.listener.ChunkListenerSupport;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.util.Assert;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record batch.startup.first.item, the time between the start of the JVM and the first chunk of the first
+ * chunk oriented step: the reader is open, its first item is the next thing read.
+ * <p>
+ * Recorded once per JVM, it measures what the startup costs before any item is processed.
+ */
+public class FirstItemListener extends ChunkListenerSupport {
+
+    private static Logger logger = LoggerFactory.getLogger(FirstItemListener.class);
+
+    private static String FIRST_ITEM = "batch.startup.first.item";
+
+    private final MeterRegistry registry;
+
+    private final AtomicLong firstItemUptime = new AtomicLong(-1);
+
+    /**
+     * @param registry registry receiving the metric
+     */
+    public FirstItemListener(MeterRegistry registry) {
+        Assert.notNull(registry, "registry is required");
+
+        this.registry = registry;
+    }
+
+    /**
+     * @return milliseconds between the start of the JVM and the first item, -1 before it
+     */
+    public long getFirstItemUptime() {
+        return firstItemUptime.get();
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        if (firstItemUptime.get() >= 0) {
+            return;
+        }
+
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        if (firstItemUptime.compareAndSet(-1, uptime)) {
+            TimeGauge.builder(FIRST_ITEM, firstItemUptime, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                    .description("Time between the start of the JVM and the first item read")
+                    .register(registry);
+
+            logger.info("First item read {} ms after the start of the JVM, in step {}", uptime,
+                    context.getStepContext().getStepName());
+        }
+    }
+}
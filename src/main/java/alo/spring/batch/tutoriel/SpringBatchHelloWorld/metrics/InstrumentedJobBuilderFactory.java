@@ -0,0 +1,37 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.List;
+
+/**
+ * JobBuilderFactory adding the given listeners to every job it builds
+ */
+public class InstrumentedJobBuilderFactory extends JobBuilderFactory {
+
+    private final List<JobExecutionListener> listeners;
+
+    /**
+     * @param jobRepository repository of the jobs
+     * @param listeners     listeners added to every job
+     */
+    public InstrumentedJobBuilderFactory(JobRepository jobRepository, List<JobExecutionListener> listeners) {
+        super(jobRepository);
+
+        this.listeners = listeners;
+    }
+
+    @Override
+    public JobBuilder get(String name) {
+        JobBuilder builder = super.get(name);
+
+        for (JobExecutionListener listener : listeners) {
+            builder.listener(listener);
+        }
+
+        return builder;
+    }
+}
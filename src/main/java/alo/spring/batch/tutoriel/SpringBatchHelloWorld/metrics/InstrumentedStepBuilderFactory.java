@@ -0,0 +1,126 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal.EventJournalListener;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.builder.TaskletStepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * StepBuilderFactory adding a listener to every step it builds,
+ * as a chunk listener too for tasklet and chunk oriented steps.
+ * The first item listener is only added to the chunk oriented steps.
+ * The journal listener, when given, is added like the listener.
+ */
+public class InstrumentedStepBuilderFactory extends StepBuilderFactory {
+
+    private final JobRepository jobRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final BatchMetricsListener listener;
+
+    private final FirstItemListener firstItemListener;
+
+    private final EventJournalListener journalListener;
+
+    /**
+     * @param jobRepository      repository of the steps
+     * @param transactionManager transaction manager of the steps
+     * @param listener           listener added to every step
+     * @param firstItemListener  listener added to the chunk oriented steps, may be null
+     * @param journalListener    listener added to every step, may be null
+     */
+    public InstrumentedStepBuilderFactory(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                                          BatchMetricsListener listener, FirstItemListener firstItemListener,
+                                          EventJournalListener journalListener) {
+        super(jobRepository, transactionManager);
+
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.listener = listener;
+        this.firstItemListener = firstItemListener;
+        this.journalListener = journalListener;
+    }
+
+    @Override
+    public StepBuilder get(String name) {
+        InstrumentedStepBuilder builder = new InstrumentedStepBuilder(name, listener, firstItemListener,
+                journalListener);
+
+        builder.repository(jobRepository);
+        builder.transactionManager(transactionManager);
+        builder.listener((StepExecutionListener) listener);
+        if (journalListener != null) {
+            builder.listener((StepExecutionListener) journalListener);
+        }
+
+        return builder;
+    }
+
+    /**
+     * StepBuilder registering the chunk listener on tasklet and chunk oriented steps
+     */
+    private static class InstrumentedStepBuilder extends StepBuilder {
+
+        private final ChunkListener chunkListener;
+
+        private final ChunkListener firstItemListener;
+
+        private final ChunkListener journalListener;
+
+        InstrumentedStepBuilder(String name, ChunkListener chunkListener, ChunkListener firstItemListener,
+                                ChunkListener journalListener) {
+            super(name);
+
+            this.chunkListener = chunkListener;
+            this.firstItemListener = firstItemListener;
+            this.journalListener = journalListener;
+        }
+
+        @Override
+        public TaskletStepBuilder tasklet(Tasklet tasklet) {
+            TaskletStepBuilder builder = super.tasklet(tasklet);
+            builder.listener(chunkListener);
+            if (journalListener != null) {
+                builder.listener(journalListener);
+            }
+
+            return builder;
+        }
+
+        @Override
+        public <I, O> SimpleStepBuilder<I, O> chunk(int chunkSize) {
+            SimpleStepBuilder<I, O> builder = super.chunk(chunkSize);
+            builder.listener(chunkListener);
+            if (firstItemListener != null) {
+                builder.listener(firstItemListener);
+            }
+            if (journalListener != null) {
+                builder.listener(journalListener);
+            }
+
+            return builder;
+        }
+
+        @Override
+        public <I, O> SimpleStepBuilder<I, O> chunk(CompletionPolicy completionPolicy) {
+            SimpleStepBuilder<I, O> builder = super.chunk(completionPolicy);
+            builder.listener(chunkListener);
+            if (firstItemListener != null) {
+                builder.listener(firstItemListener);
+            }
+            if (journalListener != null) {
+                builder.listener(journalListener);
+            }
+
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Expose the metrics in the Prometheus text format:
+ * <ul>
+ *     <li>dumped to a file after each job and when the application stops, if a file is set</li>
+ *     <li>served on http://localhost:port/metrics, if a port is set</li>
+ * </ul>
+ */
+public class PrometheusExporter implements JobExecutionListener, InitializingBean, DisposableBean {
+
+    private static Logger logger = LoggerFactory.getLogger(PrometheusExporter.class);
+
+    private static String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrometheusMeterRegistry registry;
+
+    private String file;
+
+    private int port;
+
+    private HttpServer server;
+
+    /**
+     * @param registry registry to be exported
+     */
+    public PrometheusExporter(PrometheusMeterRegistry registry) {
+        Assert.notNull(registry, "registry is required");
+
+        this.registry = registry;
+    }
+
+    /**
+     * @param file path of the dump, none if empty
+     */
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    /**
+     * @param port local port of the endpoint, none if 0
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (port <= 0) {
+            return;
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        logger.info("Metrics served on http://localhost:{}/metrics", port);
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        dump();
+    }
+
+    @Override
+    public void destroy() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        dump();
+    }
+
+    /**
+     * Replace the dump file with the current metrics
+     */
+    public void dump() {
+        if (!StringUtils.hasText(file)) {
+            return;
+        }
+
+        try {
+            Path target = Paths.get(file).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.write(tmp, registry.scrape().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            logger.warn("Unable to dump the metrics to {}", file, e);
+        }
+    }
+}
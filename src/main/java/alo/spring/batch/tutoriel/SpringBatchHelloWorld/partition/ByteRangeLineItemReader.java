@@ -0,0 +1,239 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineOffsetIndex;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read the lines of a file contained in the byte range [start, end).
+ * <p>
+ * The range is expected to be aligned on line boundaries, see {@link LineAlignedFilePartitioner}.
+ * <p>
+ * The byte offset of the next line is saved in the ExecutionContext, so that a restart seeks
+ * straight to it instead of reading again the lines already processed. A context saved without
+ * offset is resumed from the closest line of the {@link LineOffsetIndex}, when one is set.
+ */
+public class ByteRangeLineItemReader extends AbstractItemCountingItemStreamItemReader<String> {
+
+    private static final String OFFSET_KEY = "offset";
+
+    private static int BUFFER_SIZE = 64 * 1024;
+
+    private final Resource resource;
+
+    private final long start;
+
+    private final long rangeEnd;
+
+    private long end;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private File lineIndexFile;
+
+    private int lineIndexInterval;
+
+    private LineOffsetIndex lineIndex;
+
+    private FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private long position;
+
+    private long restartOffset = -1;
+
+    private byte[] line = new byte[256];
+
+    /**
+     * @param resource file to be read entirely
+     */
+    public ByteRangeLineItemReader(Resource resource) {
+        this(resource, 0, -1);
+    }
+
+    /**
+     * @param resource file to be read
+     * @param start    offset of the first byte of the range
+     * @param end      offset following the last byte of the range, -1 for the end of the file
+     */
+    public ByteRangeLineItemReader(Resource resource, long start, long end) {
+        Assert.notNull(resource, "resource is required");
+        Assert.isTrue(start >= 0 && (end < 0 || start <= end), "invalid range [" + start + ", " + end + ")");
+
+        this.resource = resource;
+        this.start = start;
+        this.rangeEnd = end;
+
+        setName(ClassUtils.getShortName(ByteRangeLineItemReader.class));
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Keep the offset of every interval-th line in indexFile, only when reading from the start of the file
+     *
+     * @param indexFile file holding the index
+     * @param interval  number of lines between two entries
+     */
+    public void setLineIndex(File indexFile, int interval) {
+        this.lineIndexFile = indexFile;
+        this.lineIndexInterval = interval;
+    }
+
+    /**
+     * @return byte offset of the next line to be read
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String offsetKey = getExecutionContextKey(OFFSET_KEY);
+
+        restartOffset = (isSaveState() && executionContext.containsKey(offsetKey))
+                ? executionContext.getLong(offsetKey)
+                : -1;
+
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        }
+        if (lineIndex != null) {
+            lineIndex.save();
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        File file = resource.getFile();
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        end = rangeEnd < 0 ? channel.size() : rangeEnd;
+
+        if (lineIndexFile != null && start == 0) {
+            lineIndex = new LineOffsetIndex(lineIndexFile, file, lineIndexInterval);
+            lineIndex.load();
+        }
+
+        seek(start);
+    }
+
+    /**
+     * Move to the line following the last one processed before the restart
+     */
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (restartOffset >= 0) {
+            if (restartOffset < start || restartOffset > end) {
+                throw new ItemStreamException("Unable to restart, offset " + restartOffset + " is out of ["
+                        + start + ", " + end + ") in " + resource.getDescription());
+            }
+            seek(restartOffset);
+            return;
+        }
+
+        if (lineIndex != null) {
+            long line = lineIndex.floorLine(itemIndex);
+            seek(lineIndex.floorOffset(itemIndex));
+
+            for (long skipped = line; skipped < itemIndex; skipped++) {
+                readLine();
+            }
+            return;
+        }
+
+        super.jumpToItem(itemIndex);
+    }
+
+    @Override
+    protected String doRead() throws Exception {
+        if (lineIndex != null) {
+            lineIndex.record(getCurrentItemCount() - 1, position);
+        }
+
+        return readLine();
+    }
+
+    private String readLine() throws IOException {
+        if (position >= end) {
+            return null;
+        }
+
+        int length = 0;
+
+        while (position < end) {
+            if (!buffer.hasRemaining() && !fill()) {
+                // File shorter than expected
+                position = end;
+                break;
+            }
+
+            byte b = buffer.get();
+            position++;
+
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+
+        return new String(line, 0, length, charset);
+    }
+
+    private void seek(long offset) throws IOException {
+        channel.position(offset);
+
+        buffer.clear().flip();
+        position = offset;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+
+        return read > 0;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (lineIndex != null) {
+            lineIndex.save();
+            lineIndex = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.JdbcBatchLineItemWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Split the keys of a table of lines (LINE_NUMBER, LINE) into ranges of the same width, from its first to its last key,
+ * so that each partition reads its own range with a keyset reader.
+ * <p>
+ * The ranges are (fromKey, toKey]: an empty table gives a single empty partition, and the output file is still created.
+ */
+public class KeyRangePartitioner implements Partitioner {
+
+    private static Logger logger = LoggerFactory.getLogger(KeyRangePartitioner.class);
+
+    public static final String FROM_KEY = "partition.fromKey";
+    public static final String TO_KEY = "partition.toKey";
+
+    private static String PARTITION_NAME = "range%04d";
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private final String outputFile;
+
+    private int partitions;
+
+    /**
+     * @param dataSource database of the table
+     * @param table      table to be read
+     * @param outputFile final output, the partitions write next to it
+     */
+    public KeyRangePartitioner(DataSource dataSource, String table, Resource outputFile) {
+        Assert.notNull(dataSource, "dataSource is required");
+        JdbcBatchLineItemWriter.checkTableName(table);
+        Assert.notNull(outputFile, "outputFile is required");
+
+        this.dataSource = dataSource;
+        this.table = table;
+        this.outputFile = LineAlignedFilePartitioner.outputPath(outputFile);
+    }
+
+    /**
+     * @param partitions number of partitions, overrides the grid size when positive
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        long[] bounds = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT MIN(LINE_NUMBER), MAX(LINE_NUMBER), COUNT(*) FROM " + table,
+                (resultSet, row) -> new long[]{resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)});
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+
+        if (bounds[2] == 0) {
+            result.put(String.format(PARTITION_NAME, 0), partitionContext(0, 0, 0));
+        }
+        else {
+            long first = bounds[0] - 1;
+            long width = bounds[1] - first;
+            int count = (int) Math.max(1, Math.min(partitions > 0 ? partitions : gridSize, width));
+
+            long step = width / count;
+            long remainder = width % count;
+            long from = first;
+
+            for (int index = 0; index < count; index++) {
+                long to = from + step + (index < remainder ? 1 : 0);
+
+                result.put(String.format(PARTITION_NAME, index), partitionContext(index, from, to));
+                from = to;
+            }
+        }
+
+        LineAlignedFilePartitioner.deleteStalePartOutputs(outputFile, result.size());
+
+        logger.info("{} split into {} key range(s)", table, result.size());
+
+        return result;
+    }
+
+    private ExecutionContext partitionContext(int index, long fromKey, long toKey) {
+        ExecutionContext context = new ExecutionContext();
+
+        context.putInt(LineAlignedFilePartitioner.INDEX_KEY, index);
+        context.putLong(FROM_KEY, fromKey);
+        context.putLong(TO_KEY, toKey);
+        context.putString(LineAlignedFilePartitioner.OUTPUT_FILE_KEY,
+                new File(LineAlignedFilePartitioner.partOutputFile(outputFile, index)).getAbsolutePath());
+
+        return context;
+    }
+}
@@ -0,0 +1,172 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Split a file into byte ranges whose boundaries always fall right after a line feed,
+ * so that every line belongs to exactly one partition.
+ */
+public class LineAlignedFilePartitioner implements Partitioner {
+
+    private static Logger logger = LoggerFactory.getLogger(LineAlignedFilePartitioner.class);
+
+    public static final String START_KEY = "partition.start";
+    public static final String END_KEY = "partition.end";
+    public static final String INDEX_KEY = "partition.index";
+    public static final String OUTPUT_FILE_KEY = "partition.outputFile";
+
+    private static String PARTITION_NAME = "partition%04d";
+    private static String PART_FILE_SUFFIX = ".part%04d";
+
+    private final Resource inputFile;
+
+    private final String outputFile;
+
+    private int partitions;
+
+    /**
+     * @param inputFile  file to be split
+     * @param outputFile path of the final output, used to name each partition's own output
+     */
+    public LineAlignedFilePartitioner(Resource inputFile, Resource outputFile) {
+        Assert.notNull(inputFile, "inputFile is required");
+        Assert.notNull(outputFile, "outputFile is required");
+
+        this.inputFile = inputFile;
+        this.outputFile = outputPath(outputFile);
+    }
+
+    /**
+     * Force the number of partitions, overriding the grid size given by the step
+     *
+     * @param partitions number of partitions, ignored if not strictly positive
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Compute the byte ranges
+     *
+     * @param gridSize number of partitions wanted when none has been forced
+     * @return one execution context per non empty range, in input order
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int count = Math.max(1, partitions > 0 ? partitions : gridSize);
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+
+        try (RandomAccessFile file = new RandomAccessFile(inputFile.getFile(), "r")) {
+            long length = file.length();
+            long sliceSize = Math.max(1, length / count);
+
+            long start = 0;
+            int index = 0;
+
+            while (start < length) {
+                long end = (index == count - 1) ? length : alignOnNextLine(file, start + sliceSize, length);
+
+                result.put(String.format(PARTITION_NAME, index), partitionContext(index, start, end));
+
+                start = end;
+                index++;
+            }
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to partition " + inputFile.getDescription(), e);
+        }
+
+        deleteStalePartOutputs(outputFile, result.size());
+
+        logger.info("{} split into {} partition(s)", inputFile.getFilename(), result.size());
+
+        return result;
+    }
+
+    /**
+     * Name of the output written by a given partition
+     *
+     * @param outputFile final output path
+     * @param index      partition index
+     * @return path of the partition output
+     */
+    public static String partOutputFile(String outputFile, int index) {
+        return outputFile + String.format(PART_FILE_SUFFIX, index);
+    }
+
+    /**
+     * @return absolute path of a file resource
+     */
+    public static String outputPath(Resource resource) {
+        try {
+            return resource.getFile().getAbsolutePath();
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(resource.getDescription() + " is not a file", e);
+        }
+    }
+
+    /**
+     * Remove outputs left by a previous run that had more partitions
+     */
+    static void deleteStalePartOutputs(String outputFile, int from) {
+        File stale;
+
+        for (int index = from; (stale = new File(partOutputFile(outputFile, index))).exists(); index++) {
+            if (!stale.delete()) {
+                logger.warn("Unable to delete stale partition output {}", stale);
+            }
+        }
+    }
+
+    private ExecutionContext partitionContext(int index, long start, long end) {
+        ExecutionContext context = new ExecutionContext();
+
+        context.putInt(INDEX_KEY, index);
+        context.putLong(START_KEY, start);
+        context.putLong(END_KEY, end);
+        context.putString(OUTPUT_FILE_KEY, new File(partOutputFile(outputFile, index)).getAbsolutePath());
+
+        return context;
+    }
+
+    /**
+     * @return position of the first byte following the next line feed found from position, or length
+     */
+    private static long alignOnNextLine(RandomAccessFile file, long position, long length) throws IOException {
+        if (position >= length) {
+            return length;
+        }
+
+        // The byte before position may already be a line feed
+        file.seek(position - 1);
+
+        byte[] buffer = new byte[8192];
+        long offset = position - 1;
+        int read;
+
+        while ((read = file.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+
+        return length;
+    }
+}
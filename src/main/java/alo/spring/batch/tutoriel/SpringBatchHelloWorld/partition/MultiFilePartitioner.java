@@ -0,0 +1,222 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressionCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One partition per file matching a pattern, so that each file is read by its own step execution
+ * and restarted from its own progress.
+ * <p>
+ * The pattern is either a directory, whose regular files are taken, or an Ant-style pattern such as
+ * file:/data/shards/*.csv.gz. The files are sorted by path: partition i always reads the i-th file.
+ * <p>
+ * A digest of the paths is recorded in the context of the partition step, saved before the partitions start:
+ * a restart fails if the matching files have changed, as the partitions would no longer match the same files.
+ * <p>
+ * The partitions write either next to the merged output, to be joined by {@link PartitionOutputAggregator},
+ * or one output per input file in the output directory, named after the input file.
+ */
+public class MultiFilePartitioner implements Partitioner {
+
+    private static Logger logger = LoggerFactory.getLogger(MultiFilePartitioner.class);
+
+    public static final String INPUT_FILE_KEY = "partition.inputFile";
+
+    public static final String OUTPUT_PER_FILE = "perFile";
+
+    private static final String FILES_KEY = "partition.files";
+
+    private static String PARTITION_NAME = "file%05d";
+
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    private final String inputFiles;
+
+    private final String outputFile;
+
+    private boolean outputPerFile;
+
+    private CompressionCodec outputCodec = CompressionCodec.NONE;
+
+    private StepExecution stepExecution;
+
+    private JobRepository jobRepository;
+
+    /**
+     * @param inputFiles directory or pattern of the files to be read
+     * @param outputFile merged output, or output directory when there is one output per file
+     */
+    public MultiFilePartitioner(String inputFiles, Resource outputFile) {
+        Assert.hasText(inputFiles, "inputFiles is required");
+        Assert.notNull(outputFile, "outputFile is required");
+
+        this.inputFiles = inputFiles;
+        this.outputFile = LineAlignedFilePartitioner.outputPath(outputFile);
+    }
+
+    /**
+     * @param outputPerFile true to write one output per input file, in the output directory
+     */
+    public void setOutputPerFile(boolean outputPerFile) {
+        this.outputPerFile = outputPerFile;
+    }
+
+    /**
+     * @param outputCodec compression of the outputs written per file, giving their extension
+     */
+    public void setOutputCodec(CompressionCodec outputCodec) {
+        this.outputCodec = outputCodec;
+    }
+
+    /**
+     * @param stepExecution execution of the partition step, whose context records the files
+     */
+    public void setStepExecution(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+    }
+
+    /**
+     * @param jobRepository repository saving the files recorded before the partitions start, at the end
+     *                      of the step otherwise
+     */
+    public void setJobRepository(JobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    /**
+     * @param gridSize ignored, there is one partition per file
+     * @return one execution context per file, sorted by path
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<File> files = resolve();
+        checkFiles(files);
+
+        if (outputPerFile) {
+            try {
+                Files.createDirectories(new File(outputFile).toPath());
+            }
+            catch (IOException e) {
+                throw new ItemStreamException("Unable to create the output directory " + outputFile, e);
+            }
+        }
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+
+        for (int index = 0; index < files.size(); index++) {
+            result.put(String.format(PARTITION_NAME, index), partitionContext(index, files.get(index)));
+        }
+
+        if (!outputPerFile) {
+            LineAlignedFilePartitioner.deleteStalePartOutputs(outputFile, result.size());
+        }
+
+        logger.info("{} file(s) matching {}", result.size(), inputFiles);
+
+        return result;
+    }
+
+    /**
+     * @return regular files of the directory or matching the pattern, sorted by path
+     */
+    private List<File> resolve() {
+        List<File> files = new ArrayList<>();
+
+        try {
+            Resource[] resources = resolver.getResources(inputFiles);
+
+            for (Resource resource : resources) {
+                File file = resource.getFile();
+
+                if (file.isDirectory()) {
+                    File[] children = file.listFiles(File::isFile);
+
+                    if (children != null) {
+                        files.addAll(Arrays.asList(children));
+                    }
+                }
+                else if (file.isFile()) {
+                    files.add(file);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to list " + inputFiles, e);
+        }
+
+        if (files.isEmpty()) {
+            throw new ItemStreamException("No file matching " + inputFiles);
+        }
+
+        return files.stream()
+                .map(File::getAbsoluteFile)
+                .distinct()
+                .sorted(Comparator.comparing(File::getPath))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Record the files of a first execution, compare them with the recorded ones on restart
+     */
+    private void checkFiles(List<File> files) {
+        if (stepExecution == null) {
+            return;
+        }
+
+        String digest = DigestUtils.md5DigestAsHex(files.stream()
+                .map(File::getPath)
+                .collect(Collectors.joining("\n"))
+                .getBytes(StandardCharsets.UTF_8));
+        ExecutionContext context = stepExecution.getExecutionContext();
+
+        if (context.containsKey(FILES_KEY)) {
+            if (!digest.equals(context.getString(FILES_KEY))) {
+                throw new ItemStreamException("Unable to restart, the files matching " + inputFiles
+                        + " have changed since the first execution (" + files.size() + " now)");
+            }
+            return;
+        }
+
+        context.putString(FILES_KEY, digest);
+        if (jobRepository != null) {
+            jobRepository.updateExecutionContext(stepExecution);
+        }
+    }
+
+    private ExecutionContext partitionContext(int index, File file) {
+        ExecutionContext context = new ExecutionContext();
+
+        context.putInt(LineAlignedFilePartitioner.INDEX_KEY, index);
+        context.putString(INPUT_FILE_KEY, file.getPath());
+        context.putLong(LineAlignedFilePartitioner.START_KEY, 0);
+        context.putLong(LineAlignedFilePartitioner.END_KEY, file.length());
+        context.putString(LineAlignedFilePartitioner.OUTPUT_FILE_KEY, outputPerFile
+                ? new File(outputFile, outputCodec.withExtension(CompressionCodec.withoutExtension(file.getName()))).getPath()
+                : new File(LineAlignedFilePartitioner.partOutputFile(outputFile, index)).getAbsolutePath());
+
+        return context;
+    }
+}
@@ -0,0 +1,136 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Join the outputs written by the partitions of a {@link LineAlignedFilePartitioner} or a {@link KeyRangePartitioner}
+ * into the final output file, in input order.
+ * <p>
+ * The partition outputs are found next to the final output, named by
+ * {@link LineAlignedFilePartitioner#partOutputFile(String, int)}, so that outputs of partitions
+ * completed before a restart are joined as well. The outputs of other parts, such as the workers of
+ * remote chunking, are joined the same way once their suffix is set.
+ */
+public class PartitionOutputAggregator implements Tasklet {
+
+    private static Logger logger = LoggerFactory.getLogger(PartitionOutputAggregator.class);
+
+    private final String outputFile;
+
+    private String partSuffix = ".part";
+
+    private boolean deletePartOutputs = true;
+
+    /**
+     * @param outputFile final output path
+     */
+    public PartitionOutputAggregator(Resource outputFile) {
+        Assert.notNull(outputFile, "outputFile is required");
+
+        this.outputFile = LineAlignedFilePartitioner.outputPath(outputFile);
+    }
+
+    /**
+     * @param partSuffix suffix added to the final output path before the part index, ".part" by default
+     */
+    public void setPartSuffix(String partSuffix) {
+        Assert.hasLength(partSuffix, "partSuffix is required");
+
+        this.partSuffix = partSuffix;
+    }
+
+    public void setDeletePartOutputs(boolean deletePartOutputs) {
+        this.deletePartOutputs = deletePartOutputs;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        List<Path> parts = partOutputs();
+
+        Path target = new File(outputFile).toPath();
+
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            for (Path part : parts) {
+                if (Files.exists(part)) {
+                    transfer(part, out);
+                }
+            }
+            out.force(true);
+        }
+
+        if (deletePartOutputs) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        logger.info("{} part output(s) joined into {}", parts.size(), outputFile);
+
+        return RepeatStatus.FINISHED;
+    }
+
+    private static void transfer(Path part, FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = 0;
+
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * @return outputs written next to the final output by the parts, sorted by part index, the index
+     * being compared as a number as it is wider than its zero padding beyond 9999 parts
+     */
+    private List<Path> partOutputs() throws IOException {
+        Path target = new File(outputFile).getAbsoluteFile().toPath();
+        String prefix = target.getFileName().toString() + partSuffix;
+
+        try (Stream<Path> siblings = Files.list(target.getParent())) {
+            return siblings
+                    .filter(path -> isPartOutput(path.getFileName().toString(), prefix))
+                    .sorted(Comparator.comparing(path -> partIndex(path, prefix)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static BigInteger partIndex(Path part, String prefix) {
+        return new BigInteger(part.getFileName().toString().substring(prefix.length()));
+    }
+
+    private static boolean isPartOutput(String fileName, String prefix) {
+        if (!fileName.startsWith(prefix) || fileName.length() == prefix.length()) {
+            return false;
+        }
+
+        for (int i = prefix.length(); i < fileName.length(); i++) {
+            if (!Character.isDigit(fileName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressionCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Choose between the single-threaded, the partitioned and the remote chunking processing of a file
+ * according to the job parameter "processingMode".
+ * <p>
+ * A compressed input cannot be split into byte ranges, it is processed by a single thread instead of partitioned.
+ * The files given by the job parameter "inputFiles" are always processed as one partition per file.
+ * The single-threaded processing of an uncompressed file with readerType "slice" goes through off-heap line slices.
+ * With writerType "jdbc", the file is loaded into a table by a single thread, whatever the processingMode.
+ * With readerType "csv", the lines are mapped to records by a single thread, whatever the processingMode.
+ */
+public class ProcessingModeDecider implements JobExecutionDecider {
+
+    private static Logger logger = LoggerFactory.getLogger(ProcessingModeDecider.class);
+
+    public static final String MODE_KEY = "processingMode";
+
+    public static final String INPUT_FILES_KEY = "inputFiles";
+
+    public static final String READER_TYPE_KEY = "readerType";
+
+    public static final String SLICE_READER = "slice";
+
+    public static final String CSV_READER = "csv";
+
+    public static final String WRITER_TYPE_KEY = "writerType";
+
+    public static final String JDBC_WRITER = "jdbc";
+
+    public static final String MULTI_FILE = "MULTI_FILE";
+    public static final String PARTITIONED = "PARTITIONED";
+    public static final String REMOTE = "REMOTE";
+    public static final String SINGLE = "SINGLE";
+    public static final String SLICED = "SLICED";
+    public static final String TABLE = "TABLE";
+    public static final String CSV = "CSV";
+
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    @Override
+    public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
+        String mode = jobExecution.getJobParameters().getString(MODE_KEY);
+
+        FlowExecutionStatus status;
+
+        if (jobExecution.getJobParameters().getString(INPUT_FILES_KEY) != null) {
+            status = new FlowExecutionStatus(MULTI_FILE);
+        }
+        else if (JDBC_WRITER.equalsIgnoreCase(jobExecution.getJobParameters().getString(WRITER_TYPE_KEY))) {
+            if (PARTITIONED.equalsIgnoreCase(mode) || REMOTE.equalsIgnoreCase(mode)) {
+                logger.warn("Output table, {} processing not possible", mode);
+            }
+            status = new FlowExecutionStatus(TABLE);
+        }
+        else if (CSV_READER.equalsIgnoreCase(jobExecution.getJobParameters().getString(READER_TYPE_KEY))) {
+            if (PARTITIONED.equalsIgnoreCase(mode) || REMOTE.equalsIgnoreCase(mode)) {
+                logger.warn("Csv records, {} processing not possible", mode);
+            }
+            status = new FlowExecutionStatus(CSV);
+        }
+        else if (PARTITIONED.equalsIgnoreCase(mode)) {
+            if (isCompressedInput(jobExecution)) {
+                logger.warn("Compressed input file, partitioned processing not possible");
+                status = new FlowExecutionStatus(SINGLE);
+            }
+            else {
+                status = new FlowExecutionStatus(PARTITIONED);
+            }
+        }
+        else if (REMOTE.equalsIgnoreCase(mode)) {
+            status = new FlowExecutionStatus(REMOTE);
+        }
+        else if (SLICE_READER.equalsIgnoreCase(jobExecution.getJobParameters().getString(READER_TYPE_KEY))
+                && !isCompressedInput(jobExecution)) {
+            status = new FlowExecutionStatus(SLICED);
+        }
+        else {
+            status = new FlowExecutionStatus(SINGLE);
+        }
+
+        logger.info("Processing mode: {}", status.getName());
+
+        return status;
+    }
+
+    private boolean isCompressedInput(JobExecution jobExecution) {
+        String inputFile = jobExecution.getJobParameters().getString("inputFile");
+
+        return inputFile != null && CompressionCodec.forReading(
+                jobExecution.getJobParameters().getString("inputCompression"),
+                resourceLoader.getResource(inputFile)) != CompressionCodec.NONE;
+    }
+}
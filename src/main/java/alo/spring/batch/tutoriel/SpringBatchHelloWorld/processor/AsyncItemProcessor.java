@@ -0,0 +1,146 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Run the delegate processor of each item on a task executor and hand over its future to the writer,
+ * see {@link AsyncItemWriter}, so that the items of a chunk are processed concurrently.
+ * <p>
+ * At most maxInFlight items are processed at the same time, beyond that the reading thread waits.
+ * With a concurrency of 1 the delegate runs directly in the step thread.
+ * <p>
+ * A delegate listening to the step or to the reads is called back through this processor, which the step
+ * builder registers as a listener.
+ */
+public class AsyncItemProcessor<I, O> implements ItemProcessor<I, Future<O>>, ItemReadListener<I>,
+        StepExecutionListener {
+
+    private final ItemProcessor<I, O> delegate;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    private final int concurrency;
+
+    private final Semaphore inFlight;
+
+    /**
+     * @param delegate     processor of a single item
+     * @param taskExecutor executor running the delegate
+     * @param concurrency  number of threads of the executor, 1 to process in the step thread
+     * @param maxInFlight  maximum number of items submitted and not processed yet
+     */
+    public AsyncItemProcessor(ItemProcessor<I, O> delegate, AsyncTaskExecutor taskExecutor,
+                              int concurrency, int maxInFlight) {
+        Assert.notNull(delegate, "delegate is required");
+        Assert.notNull(taskExecutor, "taskExecutor is required");
+        Assert.isTrue(concurrency > 0 && maxInFlight > 0, "concurrency and maxInFlight must be positive");
+
+        this.delegate = delegate;
+        this.taskExecutor = taskExecutor;
+        this.concurrency = concurrency;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public Future<O> process(I item) throws Exception {
+        if (concurrency == 1) {
+            return processInline(item);
+        }
+
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        StepExecution stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+
+        // Back-pressure: wait for a slot before submitting
+        inFlight.acquire();
+
+        try {
+            return taskExecutor.submit(() -> {
+                // Step scoped beans used by the delegate need the step context
+                if (stepExecution != null) {
+                    StepSynchronizationManager.register(stepExecution);
+                }
+                try {
+                    return delegate.process(item);
+                }
+                finally {
+                    if (stepExecution != null) {
+                        StepSynchronizationManager.close();
+                    }
+                    inFlight.release();
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private Future<O> processInline(I item) {
+        CompletableFuture<O> future = new CompletableFuture<>();
+
+        try {
+            future.complete(delegate.process(item));
+        }
+        catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /* ********************************************
+       LISTENERS OF THE DELEGATE
+       ******************************************** */
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (delegate instanceof StepExecutionListener) {
+            ((StepExecutionListener) delegate).beforeStep(stepExecution);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (delegate instanceof StepExecutionListener) {
+            return ((StepExecutionListener) delegate).afterStep(stepExecution);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void beforeRead() {
+        if (delegate instanceof ItemReadListener) {
+            ((ItemReadListener<I>) delegate).beforeRead();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterRead(I item) {
+        if (delegate instanceof ItemReadListener) {
+            ((ItemReadListener<I>) delegate).afterRead(item);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onReadError(Exception ex) {
+        if (delegate instanceof ItemReadListener) {
+            ((ItemReadListener<I>) delegate).onReadError(ex);
+        }
+    }
+}
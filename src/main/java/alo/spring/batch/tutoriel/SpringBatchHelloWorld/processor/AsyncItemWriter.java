@@ -0,0 +1,82 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Wait for the futures of the chunk produced by an {@link AsyncItemProcessor}, in input order,
+ * and write their results with the delegate. Items processed to null are filtered out.
+ * <p>
+ * The exception thrown by the processing of an item is thrown again as is, so that skip and retry
+ * apply as if the item had been processed synchronously.
+ */
+public class AsyncItemWriter<T> implements ItemStreamWriter<Future<T>> {
+
+    private final ItemWriter<T> delegate;
+
+    /**
+     * @param delegate writer of the processed items
+     */
+    public AsyncItemWriter(ItemWriter<T> delegate) {
+        Assert.notNull(delegate, "delegate is required");
+
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(List<? extends Future<T>> futures) throws Exception {
+        List<T> items = new ArrayList<>(futures.size());
+
+        for (Future<T> future : futures) {
+            T item;
+
+            try {
+                item = future.get();
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+
+            if (item != null) {
+                items.add(item);
+            }
+        }
+
+        delegate.write(items);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import org.springframework.util.Assert;
+
+/**
+ * Map of long keys with open addressing: the keys are kept in a long[] and the values in a parallel array,
+ * so that a reference table of millions of rows takes three arrays instead of as many boxed keys and entries.
+ * <p>
+ * Filled by a single thread, then read by any number of threads once published.
+ */
+public class LongKeyMap<V> {
+
+    private static float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private boolean[] used;
+
+    private int size;
+
+    /**
+     * @param expectedSize number of keys expected, the arrays grow beyond it
+     */
+    public LongKeyMap(int expectedSize) {
+        Assert.isTrue(expectedSize >= 0, "expected size must not be negative");
+
+        allocate(capacity(expectedSize));
+    }
+
+    /**
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return value of the key, null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if the key is present
+     */
+    public boolean containsKey(long key) {
+        int mask = keys.length - 1;
+
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Add or replace the value of a key
+     */
+    public void put(long key, V value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(capacity);
+        size = 0;
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                @SuppressWarnings("unchecked")
+                V value = (V) oldValues[slot];
+                put(oldKeys[slot], value);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int capacity(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max(2, (long) Math.ceil(expectedSize / LOAD_FACTOR)) * 2 - 1);
+
+        Assert.isTrue(capacity <= 1 << 30, "too many keys: " + expectedSize);
+
+        return (int) capacity;
+    }
+
+    /**
+     * Spread the keys, the ids of a reference table being usually consecutive
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "LongKeyMap[size=" + size + ", capacity=" + keys.length + "]";
+    }
+}
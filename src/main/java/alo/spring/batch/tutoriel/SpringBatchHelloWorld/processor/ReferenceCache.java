@@ -0,0 +1,169 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import org.springframework.util.Assert;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of reference values by long key, bounded in size and in age.
+ * <p>
+ * Beyond maxSize entries the least recently used one is evicted; an entry older than the time to live is
+ * evicted when it is next looked up. The hits, misses and evictions are counted.
+ */
+public class ReferenceCache<V> {
+
+    private final int maxSize;
+
+    private final long timeToLive;
+
+    private final LinkedHashMap<Long, CachedValue<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize    number of entries kept
+     * @param timeToLive age of an entry in milliseconds beyond which it is evicted, 0 for no limit
+     */
+    public ReferenceCache(int maxSize, long timeToLive) {
+        Assert.isTrue(maxSize > 0, "max size must be positive");
+        Assert.isTrue(timeToLive >= 0, "time to live must not be negative");
+
+        this.maxSize = maxSize;
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.entries = new LinkedHashMap<Long, CachedValue<V>>(Math.min(maxSize, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedValue<V>> eldest) {
+                if (size() > ReferenceCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up a key, counting a hit or a miss
+     *
+     * @return cached value, null if absent or expired
+     */
+    public V get(long key) {
+        V value = peek(key);
+
+        if (value != null) {
+            hits.increment();
+        }
+        else {
+            misses.increment();
+        }
+
+        return value;
+    }
+
+    /**
+     * Look up a key without counting it
+     *
+     * @return cached value, null if absent or expired
+     */
+    public synchronized V peek(long key) {
+        CachedValue<V> entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (timeToLive > 0 && System.nanoTime() - entry.loaded > timeToLive) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    /**
+     * @param value value of the key, not null
+     */
+    public synchronized void put(long key, V value) {
+        Assert.notNull(value, "value is required");
+
+        entries.put(key, new CachedValue<>(value, System.nanoTime()));
+    }
+
+    /**
+     * Add the values of several keys in one go
+     */
+    public synchronized void putAll(Map<Long, V> values) {
+        long now = System.nanoTime();
+
+        for (Map.Entry<Long, V> value : values.entrySet()) {
+            entries.put(value.getKey(), new CachedValue<>(value.getValue(), now));
+        }
+    }
+
+    /**
+     * Evict all the expired entries, including those no longer looked up
+     *
+     * @return number of entries evicted
+     */
+    public synchronized int evictExpired() {
+        if (timeToLive == 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        int evicted = 0;
+
+        for (Iterator<CachedValue<V>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            if (now - iterator.next().loaded > timeToLive) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        evictions.add(evicted);
+
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceCache[size=" + size() + ", hits=" + hits.sum() + ", misses=" + misses.sum()
+                + ", evictions=" + evictions.sum() + "]";
+    }
+
+    private static class CachedValue<V> {
+
+        private final V value;
+
+        private final long loaded;
+
+        private CachedValue(V value, long loaded) {
+            this.value = value;
+            this.loaded = loaded;
+        }
+    }
+}
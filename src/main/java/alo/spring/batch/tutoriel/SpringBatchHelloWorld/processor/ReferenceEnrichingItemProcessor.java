@@ -0,0 +1,369 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc.JdbcBatchLineItemWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enrich each line with the value of its key in a reference table: the value is appended as a last field,
+ * empty when the key is not in the table or the line has no numeric key.
+ * <p>
+ * The values are kept in a {@link ReferenceCache} bounded in size and age. As the lines of a chunk are all read
+ * before the first one is processed, the keys read and not cached are collected, then resolved together by the
+ * first miss of the chunk with "SELECT key, value FROM table WHERE key IN (...)", in queries of at most
+ * maxKeysPerQuery keys: a chunk takes a query or so instead of one per line. It must be registered as a read
+ * listener of the step, which the step builder does for a processor or an {@link AsyncItemProcessor} on it,
+ * and a remote ChunkHandler does for the chunks it receives.
+ * <p>
+ * With preload, the whole table is loaded in a {@link LongKeyMap} when a step starts, or a ChunkHandler is opened,
+ * and the database is no longer queried. It is released when the steps and handlers using it have ended.
+ * <p>
+ * The hits, misses and evictions are published by {@link #bindTo(MeterRegistry)} as batch.enrich.cache.*.
+ */
+public class ReferenceEnrichingItemProcessor implements ItemProcessor<String, String>, ItemReadListener<String>,
+        StepExecutionListener, MeterBinder {
+
+    private static Logger logger = LoggerFactory.getLogger(ReferenceEnrichingItemProcessor.class);
+
+    private static String NO_VALUE = "";
+
+    private static int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static int DEFAULT_MAX_KEYS_PER_QUERY = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String selectQuery;
+
+    private final String table;
+
+    private final String keyColumn;
+
+    private int keyField;
+
+    private char delimiter = ',';
+
+    private int maxKeysPerQuery = DEFAULT_MAX_KEYS_PER_QUERY;
+
+    private boolean preload;
+
+    private ReferenceCache<String> cache = new ReferenceCache<>(DEFAULT_CACHE_SIZE, 0);
+
+    /**
+     * Keys read and neither cached nor resolved yet
+     */
+    private final Set<Long> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder preloadHits = new LongAdder();
+
+    private final LongAdder queries = new LongAdder();
+
+    private volatile LongKeyMap<String> preloaded;
+
+    private int runningSteps;
+
+    /**
+     * @param dataSource  database of the reference table
+     * @param table       reference table
+     * @param keyColumn   numeric key column of the table
+     * @param valueColumn column appended to the lines
+     */
+    public ReferenceEnrichingItemProcessor(DataSource dataSource, String table, String keyColumn, String valueColumn) {
+        Assert.notNull(dataSource, "dataSource is required");
+        JdbcBatchLineItemWriter.checkTableName(table);
+        JdbcBatchLineItemWriter.checkTableName(keyColumn);
+        JdbcBatchLineItemWriter.checkTableName(valueColumn);
+
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.selectQuery = "SELECT " + keyColumn + ", " + valueColumn + " FROM " + table;
+    }
+
+    /**
+     * @param keyField index of the field of the line holding the key, from 0
+     */
+    public void setKeyField(int keyField) {
+        Assert.isTrue(keyField >= 0, "key field must not be negative");
+
+        this.keyField = keyField;
+    }
+
+    /**
+     * @param delimiter delimiter of the fields of the line
+     */
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @param maxSize    number of values cached
+     * @param timeToLive age in milliseconds beyond which a value is queried again, 0 for no limit
+     */
+    public void setCache(int maxSize, long timeToLive) {
+        this.cache = new ReferenceCache<>(maxSize, timeToLive);
+    }
+
+    /**
+     * @param maxKeysPerQuery keys of an IN list, the databases limiting its length or the size of a statement
+     */
+    public void setMaxKeysPerQuery(int maxKeysPerQuery) {
+        Assert.isTrue(maxKeysPerQuery > 0, "max keys per query must be positive");
+
+        this.maxKeysPerQuery = maxKeysPerQuery;
+    }
+
+    /**
+     * @param preload true to load the whole table when a step starts, instead of querying the keys read
+     */
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    /* ********************************************
+       PROCESSING
+       ******************************************** */
+
+    @Override
+    public void beforeRead() {
+    }
+
+    @Override
+    public void afterRead(String item) {
+        if (preloaded != null) {
+            return;
+        }
+
+        long key = key(item);
+
+        if (key != Long.MIN_VALUE && cache.peek(key) == null) {
+            pendingKeys.add(key);
+        }
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+    }
+
+    @Override
+    public String process(String item) {
+        long key = key(item);
+
+        if (key == Long.MIN_VALUE) {
+            return item + delimiter;
+        }
+
+        return item + delimiter + value(key);
+    }
+
+    private String value(long key) {
+        LongKeyMap<String> map = preloaded;
+
+        if (map != null) {
+            preloadHits.increment();
+
+            String value = map.get(key);
+            return value != null ? value : NO_VALUE;
+        }
+
+        String value = cache.get(key);
+
+        return value != null ? value : resolve(key);
+    }
+
+    /**
+     * Query the key and the other keys pending, the threads missing meanwhile wait for the result
+     *
+     * @return value of the key
+     */
+    private synchronized String resolve(long key) {
+        String value = cache.peek(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        List<Long> keys = new ArrayList<>();
+        keys.add(key);
+
+        for (Iterator<Long> iterator = pendingKeys.iterator(); iterator.hasNext(); ) {
+            Long pending = iterator.next();
+            iterator.remove();
+
+            if (pending != key && cache.peek(pending) == null) {
+                keys.add(pending);
+            }
+        }
+
+        Map<Long, String> values = query(keys);
+        cache.putAll(values);
+
+        return values.get(key);
+    }
+
+    /**
+     * @return value of each key, NO_VALUE for those not in the table
+     */
+    private Map<Long, String> query(List<Long> keys) {
+        Map<Long, String> values = new HashMap<>(keys.size() * 2);
+
+        for (int from = 0; from < keys.size(); from += maxKeysPerQuery) {
+            List<Long> group = keys.subList(from, Math.min(keys.size(), from + maxKeysPerQuery));
+            String sql = selectQuery + " WHERE " + keyColumn + " IN ("
+                    + String.join(", ", Collections.nCopies(group.size(), "?")) + ")";
+
+            jdbcTemplate.query(sql, rs -> {
+                values.put(rs.getLong(1), valueOf(rs.getString(2)));
+            }, group.toArray());
+            queries.increment();
+        }
+
+        for (Long key : keys) {
+            values.putIfAbsent(key, NO_VALUE);
+        }
+
+        return values;
+    }
+
+    private static String valueOf(String value) {
+        return value != null ? value : NO_VALUE;
+    }
+
+    /**
+     * @return key of the line, Long.MIN_VALUE if the line has no such field or it is not a number
+     */
+    private long key(String line) {
+        int start = 0;
+
+        for (int field = 0; field < keyField; field++) {
+            start = line.indexOf(delimiter, start) + 1;
+
+            if (start == 0) {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        int end = line.indexOf(delimiter, start);
+        if (end < 0) {
+            end = line.length();
+        }
+
+        try {
+            return Long.parseLong(line, start, end, 10);
+        }
+        catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /* ********************************************
+       STEP
+       ******************************************** */
+
+    @Override
+    public synchronized void beforeStep(StepExecution stepExecution) {
+        // Partitions running in parallel share the values loaded by the first one
+        if (runningSteps++ > 0) {
+            return;
+        }
+
+        cache.evictExpired();
+
+        if (preload) {
+            long start = System.nanoTime();
+            LongKeyMap<String> map = new LongKeyMap<>(1024);
+
+            jdbcTemplate.query(selectQuery, rs -> {
+                map.put(rs.getLong(1), valueOf(rs.getString(2)));
+            });
+            queries.increment();
+            preloaded = map;
+
+            logger.info("{} reference values of {} preloaded in {} ms", map.size(), table,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        if (--runningSteps == 0) {
+            preloaded = null;
+            pendingKeys.clear();
+        }
+
+        logger.info("Reference values of {}: {} hits, {} misses, {} evictions, {} queries", table,
+                getHitCount(), getMissCount(), getEvictionCount(), getQueryCount());
+
+        return null;
+    }
+
+    /* ********************************************
+       STATISTICS
+       ******************************************** */
+
+    public long getHitCount() {
+        return cache.getHitCount() + preloadHits.sum();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * @return number of queries of the reference table, preload included
+     */
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("batch.enrich.cache.requests", this, ReferenceEnrichingItemProcessor::getHitCount)
+                .description("Reference values found in the cache or the preloaded table")
+                .tags("table", table, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("batch.enrich.cache.requests", this, ReferenceEnrichingItemProcessor::getMissCount)
+                .description("Reference values not cached")
+                .tags("table", table, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("batch.enrich.cache.evictions", this, ReferenceEnrichingItemProcessor::getEvictionCount)
+                .description("Reference values evicted from the cache, by size or age")
+                .tags("table", table)
+                .register(registry);
+        FunctionCounter.builder("batch.enrich.queries", this, ReferenceEnrichingItemProcessor::getQueryCount)
+                .description("Queries of the reference table")
+                .tags("table", table)
+                .register(registry);
+        Gauge.builder("batch.enrich.cache.size", this, processor -> processor.cache.size())
+                .description("Reference values cached")
+                .tags("table", table)
+                .register(registry);
+    }
+}
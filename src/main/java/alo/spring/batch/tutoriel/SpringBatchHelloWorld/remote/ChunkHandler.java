@@ -0,0 +1,131 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker side: process and write the chunks received from the manager.
+ * <p>
+ * Chunks are handled one at a time, the writer is updated after each of them so that what has been
+ * acknowledged has been handed to its resource, and is on disk when the writer syncs at each update. Its state can be saved with the context of a step
+ * and given back when the handler is opened again. A processor listening to the reads is given the items of
+ * the chunk before processing them, as the step would; one listening to the step is told when the handler is
+ * opened and closed, as at the start and the end of a step, so that it can load or release what it shares
+ * between chunks.
+ */
+public class ChunkHandler<I, O> {
+
+    private static Logger logger = LoggerFactory.getLogger(ChunkHandler.class);
+
+    private final ItemProcessor<I, O> processor;
+
+    private final ItemStreamWriter<O> writer;
+
+    private ExecutionContext executionContext = new ExecutionContext();
+
+    /**
+     * Execution given to a processor listening to the step, while the handler is open
+     */
+    private StepExecution stepExecution;
+
+    /**
+     * Copy of the state of the writer after the last chunk handled, read without waiting for the current one
+     */
+    private volatile ExecutionContext handled = new ExecutionContext();
+
+    /**
+     * @param processor processor of each item
+     * @param writer    writer of the processed items
+     */
+    public ChunkHandler(ItemProcessor<I, O> processor, ItemStreamWriter<O> writer) {
+        Assert.notNull(processor, "processor is required");
+        Assert.notNull(writer, "writer is required");
+
+        this.processor = processor;
+        this.writer = writer;
+    }
+
+    public void open() {
+        open(new ExecutionContext());
+    }
+
+    /**
+     * @param executionContext saved state of the writer, empty for a new output
+     */
+    public synchronized void open(ExecutionContext executionContext) {
+        if (processor instanceof StepExecutionListener && stepExecution == null) {
+            stepExecution = new StepExecution(ClassUtils.getShortName(ChunkHandler.class), new JobExecution(0L));
+            ((StepExecutionListener) processor).beforeStep(stepExecution);
+        }
+
+        writer.open(new ExecutionContext(executionContext));
+
+        this.executionContext = new ExecutionContext();
+        this.handled = new ExecutionContext();
+    }
+
+    /**
+     * @param executionContext context receiving the state of the writer after the last chunk handled
+     */
+    public void update(ExecutionContext executionContext) {
+        handled.entrySet().forEach(entry -> executionContext.put(entry.getKey(), entry.getValue()));
+    }
+
+    public synchronized void close() {
+        try {
+            writer.close();
+        }
+        finally {
+            if (stepExecution != null) {
+                ((StepExecutionListener) processor).afterStep(stepExecution);
+                stepExecution = null;
+            }
+        }
+    }
+
+    /**
+     * @param request chunk to be handled
+     * @return acknowledgement, failed if an item could not be processed or written
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized ChunkResponse handle(ChunkRequest<I> request) {
+        try {
+            if (processor instanceof ItemReadListener) {
+                request.getItems().forEach(((ItemReadListener<I>) processor)::afterRead);
+            }
+
+            List<O> items = new ArrayList<>(request.getItems().size());
+
+            for (I item : request.getItems()) {
+                O processed = processor.process(item);
+
+                if (processed != null) {
+                    items.add(processed);
+                }
+            }
+
+            writer.write(items);
+            writer.update(executionContext);
+            handled = new ExecutionContext(executionContext);
+
+            return ChunkResponse.success(request, items.size());
+        }
+        catch (Exception e) {
+            logger.warn("Unable to handle {}", request, e);
+
+            return ChunkResponse.failure(request, e.toString());
+        }
+    }
+}
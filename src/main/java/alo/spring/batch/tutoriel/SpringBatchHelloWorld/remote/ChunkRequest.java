@@ -0,0 +1,53 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Chunk of items sent by the manager to a worker
+ */
+public class ChunkRequest<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+
+    private final int attempt;
+
+    private final List<T> items;
+
+    /**
+     * @param sequence identifier of the chunk within the step execution
+     * @param attempt  0 for the first sending, then incremented on each retry
+     * @param items    items of the chunk
+     */
+    public ChunkRequest(long sequence, int attempt, List<T> items) {
+        this.sequence = sequence;
+        this.attempt = attempt;
+        this.items = items;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the same chunk, for its next attempt
+     */
+    public ChunkRequest<T> retry() {
+        return new ChunkRequest<>(sequence, attempt + 1, items);
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkRequest[sequence=" + sequence + ", attempt=" + attempt + ", items=" + items.size() + "]";
+    }
+}
@@ -0,0 +1,63 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import java.io.Serializable;
+
+/**
+ * Acknowledgement of a chunk, sent back by the worker once the chunk has been written
+ */
+public class ChunkResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+
+    private final int attempt;
+
+    private final boolean successful;
+
+    private final int writeCount;
+
+    private final String message;
+
+    private ChunkResponse(long sequence, int attempt, boolean successful, int writeCount, String message) {
+        this.sequence = sequence;
+        this.attempt = attempt;
+        this.successful = successful;
+        this.writeCount = writeCount;
+        this.message = message;
+    }
+
+    public static ChunkResponse success(ChunkRequest<?> request, int writeCount) {
+        return new ChunkResponse(request.getSequence(), request.getAttempt(), true, writeCount, null);
+    }
+
+    public static ChunkResponse failure(ChunkRequest<?> request, String message) {
+        return new ChunkResponse(request.getSequence(), request.getAttempt(), false, 0, message);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public int getWriteCount() {
+        return writeCount;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkResponse[sequence=" + sequence + ", attempt=" + attempt + ", successful=" + successful
+                + (successful ? ", writeCount=" + writeCount : ", message=" + message) + "]";
+    }
+}
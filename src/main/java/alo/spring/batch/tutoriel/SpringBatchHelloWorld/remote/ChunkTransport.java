@@ -0,0 +1,59 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager side channel carrying the chunks to the workers and their acknowledgements back.
+ * <p>
+ * Delivery is not guaranteed: a chunk or its acknowledgement may be lost, the manager sends it again
+ * after a timeout, see {@link RemoteChunkItemWriter}.
+ */
+public interface ChunkTransport<T> {
+
+    /**
+     * Connect to the workers
+     *
+     * @throws IOException if no worker can be reached
+     */
+    void open() throws IOException;
+
+    /**
+     * Connect to the workers, restoring their state when they restart with the step
+     *
+     * @param executionContext context of the step
+     * @throws IOException if no worker can be reached
+     */
+    default void open(ExecutionContext executionContext) throws IOException {
+        open();
+    }
+
+    /**
+     * @param request chunk to be sent to one of the workers
+     * @throws IOException if no worker can receive it
+     */
+    void send(ChunkRequest<T> request) throws IOException;
+
+    /**
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return next acknowledgement, null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    ChunkResponse receive(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Save the state of the workers that restart with the step, nothing for remote workers
+     *
+     * @param executionContext context of the step, about to be committed
+     */
+    default void update(ExecutionContext executionContext) {
+    }
+
+    /**
+     * Disconnect from the workers
+     */
+    void close();
+}
@@ -0,0 +1,113 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport whose workers are threads of the current JVM, one per handler.
+ * <p>
+ * The workers restart with the step: the state of their writers is saved with the context of the step.
+ */
+public class InMemoryChunkTransport<T> implements ChunkTransport<T> {
+
+    private static long POLL_INTERVAL = 100;
+
+    private final List<ChunkHandler<T, ?>> handlers;
+
+    private final BlockingQueue<ChunkRequest<T>> requests = new LinkedBlockingQueue<>();
+
+    private final BlockingQueue<ChunkResponse> responses = new LinkedBlockingQueue<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean stopped;
+
+    /**
+     * @param handlers one handler per worker
+     */
+    public InMemoryChunkTransport(List<ChunkHandler<T, ?>> handlers) {
+        Assert.notEmpty(handlers, "at least one handler is required");
+
+        this.handlers = handlers;
+    }
+
+    @Override
+    public void open() {
+        open(new ExecutionContext());
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chunk-worker-");
+        threadFactory.setDaemon(true);
+        stopped = false;
+
+        for (ChunkHandler<T, ?> handler : handlers) {
+            handler.open(executionContext);
+
+            // Stopped by a flag rather than interrupted, an interrupt would close the file channel of its writer
+            Thread worker = threadFactory.newThread(() -> {
+                try {
+                    while (!stopped) {
+                        ChunkRequest<T> request = requests.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+
+                        if (request != null) {
+                            responses.add(handler.handle(request));
+                        }
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void send(ChunkRequest<T> request) throws IOException {
+        requests.add(request);
+    }
+
+    @Override
+    public ChunkResponse receive(long timeout, TimeUnit unit) throws InterruptedException {
+        return responses.poll(timeout, unit);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        for (ChunkHandler<T, ?> handler : handlers) {
+            handler.update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        requests.clear();
+        responses.clear();
+
+        for (ChunkHandler<T, ?> handler : handlers) {
+            handler.close();
+        }
+    }
+}
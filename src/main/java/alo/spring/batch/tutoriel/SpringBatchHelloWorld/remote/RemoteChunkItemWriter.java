@@ -0,0 +1,376 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.WriteFailedException;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager side of remote chunking: each chunk read by the step is sent to the workers through
+ * a {@link ChunkTransport} instead of being written locally.
+ * <p>
+ * Flow control: at most maxInFlight chunks may wait for their acknowledgement, the step blocks
+ * when the window is full. A chunk not acknowledged within ackTimeout, or reported as failed by
+ * a worker, is sent again up to maxRetries times before the step fails.
+ * <p>
+ * The remaining acknowledgements are awaited when the step ends. A chunk committed by the manager
+ * may still be unacknowledged when the job fails: the state of the reader is saved as it was before the
+ * oldest unacknowledged chunk was read, so that the reader starts again from there on restart. Only the
+ * ranges of the items acknowledged since then are saved along, not the items: they are not sent again,
+ * whatever the size of the chunks read on restart. The reader must be opened and updated before this writer,
+ * as when both are registered by the step builder.
+ * Delivery is at least once: a chunk written but not yet acknowledged is sent again.
+ */
+public class RemoteChunkItemWriter<T> extends ItemStreamSupport implements ItemWriter<T>, StepExecutionListener {
+
+    private static Logger logger = LoggerFactory.getLogger(RemoteChunkItemWriter.class);
+
+    private static final String SENT_KEY = "sent";
+    private static final String ACKNOWLEDGED_KEY = "acknowledged";
+    private static final String PENDING_KEY = "pending";
+    private static final String RESUME_KEY = "resume";
+    private static final String ACKNOWLEDGED_ITEMS_KEY = "acknowledged.items";
+
+    private static long POLL_INTERVAL = 100;
+
+    private final ChunkTransport<T> transport;
+
+    private final ItemStream reader;
+
+    private int maxInFlight = 4;
+
+    private long ackTimeout = 30000;
+
+    private int maxRetries = 3;
+
+    private final Map<Long, Pending<T>> pending = new LinkedHashMap<>();
+
+    /**
+     * State of the reader, by index of the next item to be read
+     */
+    private final TreeMap<Long, ExecutionContext> checkpoints = new TreeMap<>();
+
+    /**
+     * Acknowledged items beyond the last checkpoint kept, first index to end index, exclusive
+     */
+    private final TreeMap<Long, Long> acknowledgedItems = new TreeMap<>();
+
+    private long sequence;
+
+    /**
+     * Index of the next item to be written
+     */
+    private long written;
+
+    private long acknowledged;
+
+    private long retried;
+
+    /**
+     * @param transport channel to the workers
+     * @param reader    reader of the step, whose state is saved with the oldest unacknowledged chunk
+     */
+    public RemoteChunkItemWriter(ChunkTransport<T> transport, ItemStream reader) {
+        Assert.notNull(transport, "transport is required");
+        Assert.notNull(reader, "reader is required");
+
+        this.transport = transport;
+        this.reader = reader;
+
+        setName(ClassUtils.getShortName(RemoteChunkItemWriter.class));
+    }
+
+    /**
+     * @param maxInFlight chunks sent and not yet acknowledged before the step blocks
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @param ackTimeout milliseconds to wait for an acknowledgement before sending the chunk again
+     */
+    public void setAckTimeout(long ackTimeout) {
+        Assert.isTrue(ackTimeout > 0, "ackTimeout must be positive");
+
+        this.ackTimeout = ackTimeout;
+    }
+
+    /**
+     * @param maxRetries number of times a chunk is sent again before giving up
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        pending.clear();
+        sequence = executionContext.getLong(getExecutionContextKey(SENT_KEY), 0);
+        written = executionContext.getLong(getExecutionContextKey(RESUME_KEY), 0);
+        acknowledged = 0;
+        retried = 0;
+
+        restoreAcknowledgedItems(executionContext);
+        checkpoints.clear();
+        checkpoints.put(written, readerState());
+
+        String unacknowledged = executionContext.getString(getExecutionContextKey(PENDING_KEY), "");
+        if (!unacknowledged.isEmpty()) {
+            logger.info("Chunk(s) {} not acknowledged, reading again from item {}", unacknowledged, written);
+        }
+
+        try {
+            transport.open(executionContext);
+        }
+        catch (IOException e) {
+            throw new ItemStreamException("Unable to reach the workers", e);
+        }
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        while (pending.size() >= maxInFlight) {
+            await();
+        }
+
+        ChunkResponse response;
+        while ((response = transport.receive(0, TimeUnit.MILLISECONDS)) != null) {
+            acknowledge(response);
+        }
+
+        long first = written;
+        written += items.size();
+
+        List<T> unacknowledged = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (!isAcknowledged(first + i)) {
+                unacknowledged.add(items.get(i));
+            }
+        }
+
+        if (!unacknowledged.isEmpty()) {
+            send(new ChunkRequest<>(sequence++, 0, unacknowledged), first, written);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        checkpoints.put(written, readerState());
+
+        long oldest = written;
+        for (Pending<T> chunk : pending.values()) {
+            oldest = Math.min(oldest, chunk.first);
+        }
+        long resume = checkpoints.floorKey(oldest);
+        checkpoints.headMap(resume).clear();
+        acknowledgedItems.entrySet().removeIf(range -> range.getValue() <= resume);
+
+        // The reader starts again from the oldest unacknowledged chunk
+        if (resume < written) {
+            checkpoints.get(resume).entrySet().forEach(entry -> executionContext.put(entry.getKey(), entry.getValue()));
+        }
+
+        List<Long> sequences = new ArrayList<>(pending.keySet());
+        executionContext.putLong(getExecutionContextKey(SENT_KEY), sequence);
+        executionContext.putLong(getExecutionContextKey(ACKNOWLEDGED_KEY), acknowledged);
+        executionContext.putString(getExecutionContextKey(PENDING_KEY), StringUtils.collectionToCommaDelimitedString(sequences));
+        executionContext.putLong(getExecutionContextKey(RESUME_KEY), resume);
+        saveAcknowledgedItems(executionContext);
+        transport.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+
+        transport.close();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    /**
+     * Wait for the acknowledgement of every chunk sent
+     *
+     * @return FAILED if some chunks could not be delivered
+     */
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        try {
+            while (!pending.isEmpty()) {
+                await();
+            }
+        }
+        catch (Exception e) {
+            logger.error("{} chunk(s) not acknowledged", pending.size(), e);
+
+            stepExecution.setStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+
+            return ExitStatus.FAILED;
+        }
+        finally {
+            logger.info("{} chunk(s) acknowledged, {} retried", acknowledged, retried);
+        }
+
+        return null;
+    }
+
+    private ExecutionContext readerState() {
+        ExecutionContext state = new ExecutionContext();
+        reader.update(state);
+
+        return state;
+    }
+
+    private boolean isAcknowledged(long item) {
+        Map.Entry<Long, Long> range = acknowledgedItems.floorEntry(item);
+
+        return range != null && item < range.getValue();
+    }
+
+    /**
+     * Add the range of items of an acknowledged chunk, merged with the ranges it overlaps
+     */
+    private void addAcknowledgedItems(long first, long end) {
+        Map.Entry<Long, Long> previous = acknowledgedItems.floorEntry(first);
+        if (previous != null && previous.getValue() >= first) {
+            first = previous.getKey();
+            end = Math.max(end, previous.getValue());
+        }
+
+        Map.Entry<Long, Long> next;
+        while ((next = acknowledgedItems.ceilingEntry(first)) != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            acknowledgedItems.remove(next.getKey());
+        }
+
+        acknowledgedItems.put(first, end);
+    }
+
+    /**
+     * Save the acknowledged ranges as "first-end" pairs, a few numbers whatever the size of the chunks
+     */
+    private void saveAcknowledgedItems(ExecutionContext executionContext) {
+        List<String> ranges = new ArrayList<>(acknowledgedItems.size());
+        acknowledgedItems.forEach((first, end) -> ranges.add(first + "-" + end));
+
+        executionContext.putString(getExecutionContextKey(ACKNOWLEDGED_ITEMS_KEY),
+                StringUtils.collectionToCommaDelimitedString(ranges));
+    }
+
+    private void restoreAcknowledgedItems(ExecutionContext executionContext) {
+        acknowledgedItems.clear();
+
+        for (String range : StringUtils.commaDelimitedListToStringArray(
+                executionContext.getString(getExecutionContextKey(ACKNOWLEDGED_ITEMS_KEY), ""))) {
+            int dash = range.indexOf('-');
+            addAcknowledgedItems(Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1)));
+        }
+    }
+
+    private void send(ChunkRequest<T> request, long first, long end) throws IOException {
+        transport.send(request);
+        pending.put(request.getSequence(), new Pending<>(request, first, end, System.nanoTime()));
+    }
+
+    private void await() throws Exception {
+        ChunkResponse response = transport.receive(Math.min(POLL_INTERVAL, ackTimeout), TimeUnit.MILLISECONDS);
+
+        if (response != null) {
+            acknowledge(response);
+        }
+
+        long now = System.nanoTime();
+        for (Pending<T> chunk : new ArrayList<>(pending.values())) {
+            if (TimeUnit.NANOSECONDS.toMillis(now - chunk.sentAt) >= ackTimeout) {
+                retry(chunk, "no acknowledgement within " + ackTimeout + " ms");
+            }
+        }
+    }
+
+    private void acknowledge(ChunkResponse response) throws Exception {
+        Pending<T> chunk = pending.get(response.getSequence());
+
+        if (chunk == null) {
+            // Late acknowledgement of a chunk sent twice
+            logger.debug("Ignoring {}", response);
+            return;
+        }
+
+        if (response.isSuccessful()) {
+            pending.remove(response.getSequence());
+            addAcknowledgedItems(chunk.first, chunk.end);
+            acknowledged++;
+        }
+        else if (response.getAttempt() == chunk.request.getAttempt()) {
+            retry(chunk, response.getMessage());
+        }
+    }
+
+    private void retry(Pending<T> chunk, String reason) throws Exception {
+        ChunkRequest<T> request = chunk.request;
+
+        if (request.getAttempt() >= maxRetries) {
+            throw new WriteFailedException("Chunk " + request.getSequence() + " failed after "
+                    + (request.getAttempt() + 1) + " attempt(s): " + reason);
+        }
+
+        logger.warn("Sending chunk {} again: {}", request.getSequence(), reason);
+        retried++;
+
+        send(request.retry(), chunk.first, chunk.end);
+    }
+
+    private static class Pending<T> {
+
+        private final ChunkRequest<T> request;
+
+        /**
+         * Index of the first item of the chunk, and of the item following its last one
+         */
+        private final long first;
+
+        private final long end;
+
+        private final long sentAt;
+
+        private Pending(ChunkRequest<T> request, long first, long end, long sentAt) {
+            this.request = request;
+            this.first = first;
+            this.end = end;
+            this.sentAt = sentAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.ChannelLineItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Turn the application into a remote chunking worker when batch.remote.worker.port is set.
+ * <p>
+ * The worker processes the chunks received with lineProcessor and appends them to the output named by the
+ * manager, outputFile.workerNNNN on a file system shared with it, or to batch.remote.worker.output when the
+ * manager names none. It is meant to be started with spring.batch.job.enabled=false:
+ * <pre>
+ * java -jar SpringBatchHelloWorld.jar --spring.batch.job.enabled=false \
+ *      --batch.remote.worker.port=9501 --batch.remote.worker.output=/tmp/worker1.csv
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty("batch.remote.worker.port")
+public class RemoteChunkWorkerConfiguration {
+
+    @Value("${batch.remote.worker.port}")
+    private int workerPort;
+
+    @Value("${batch.remote.worker.output:./logs/worker-${batch.remote.worker.port}.out}")
+    private String workerOutput;
+
+    /**
+     * Worker listening on batch.remote.worker.port
+     *
+     * @param lineProcessor processor of each line
+     * @return SocketChunkWorker
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SocketChunkWorker<String> socketChunkWorker(
+            @Qualifier("lineProcessor") ItemProcessor<String, String> lineProcessor) {
+
+        SocketChunkWorker<String> worker = new SocketChunkWorker<>(workerPort,
+                new ChunkHandler<>(lineProcessor, writer(workerOutput)));
+        worker.setOutputHandlers(output -> new ChunkHandler<>(lineProcessor, writer(output)));
+
+        return worker;
+    }
+
+    private ChannelLineItemWriter<String> writer(String output) {
+        ChannelLineItemWriter<String> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        // Synced at the end of each chunk, before it is acknowledged: the manager forgets the acknowledged chunks
+        writer.setSyncBytes(1);
+        // A worker or a manager started again keeps what was written before
+        writer.setAppendAllowed(true);
+
+        return writer;
+    }
+}
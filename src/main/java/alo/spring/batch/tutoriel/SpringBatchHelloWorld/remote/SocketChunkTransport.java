@@ -0,0 +1,224 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport sending the chunks over TCP to {@link SocketChunkWorker}s, in round robin.
+ * <p>
+ * A worker whose connection breaks is left aside; the chunks it had not acknowledged are sent
+ * again to the remaining workers once their acknowledgement timeout has elapsed.
+ * <p>
+ * Each worker may be told on connection the output to append its chunks to, so that the manager can join
+ * them afterwards through a shared file system. The outputs left by a former execution are deleted when
+ * the step starts, kept when it restarts.
+ */
+public class SocketChunkTransport<T> implements ChunkTransport<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(SocketChunkTransport.class);
+
+    private static int CONNECT_TIMEOUT = 5000;
+
+    private static final String OUTPUTS_KEY = ClassUtils.getShortName(SocketChunkTransport.class) + ".outputs";
+
+    private final List<InetSocketAddress> workers;
+
+    private List<String> workerOutputs;
+
+    private final BlockingQueue<ChunkResponse> responses = new LinkedBlockingQueue<>();
+
+    private final List<Connection> connections = new ArrayList<>();
+
+    private int next;
+
+    /**
+     * @param workers addresses of the workers
+     */
+    public SocketChunkTransport(List<InetSocketAddress> workers) {
+        Assert.notEmpty(workers, "at least one worker is required");
+
+        this.workers = workers;
+    }
+
+    /**
+     * @param workers comma separated list of host:port
+     * @return addresses of the workers
+     */
+    public static List<InetSocketAddress> parseAddresses(String workers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+
+        for (String worker : workers.split(",")) {
+            String address = worker.trim();
+            if (address.isEmpty()) {
+                continue;
+            }
+
+            int colon = address.lastIndexOf(':');
+            Assert.isTrue(colon > 0, "worker address must be host:port, got " + address);
+
+            addresses.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+
+        return addresses;
+    }
+
+    /**
+     * @param workerOutputs path of the output of each worker, in the order of the workers
+     */
+    public void setWorkerOutputs(List<String> workerOutputs) {
+        Assert.isTrue(workerOutputs.size() == workers.size(), "one output per worker is required");
+
+        this.workerOutputs = workerOutputs;
+    }
+
+    @Override
+    public void open() throws IOException {
+        open(new ExecutionContext());
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws IOException {
+        if (workerOutputs != null && !executionContext.containsKey(OUTPUTS_KEY)) {
+            for (String output : workerOutputs) {
+                Files.deleteIfExists(Paths.get(output));
+            }
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chunk-ack-");
+        threadFactory.setDaemon(true);
+
+        for (int i = 0; i < workers.size(); i++) {
+            InetSocketAddress worker = workers.get(i);
+            try {
+                Connection connection = new Connection(worker, workerOutputs != null ? workerOutputs.get(i) : null);
+                connections.add(connection);
+                threadFactory.newThread(connection::receive).start();
+            }
+            catch (IOException e) {
+                logger.warn("Unable to connect to worker {}: {}", worker, e.toString());
+            }
+        }
+
+        if (connections.isEmpty()) {
+            throw new IOException("No worker reachable among " + workers);
+        }
+        logger.info("Connected to {} worker(s) out of {}", connections.size(), workers.size());
+    }
+
+    @Override
+    public synchronized void send(ChunkRequest<T> request) throws IOException {
+        while (!connections.isEmpty()) {
+            next = next % connections.size();
+            Connection connection = connections.get(next++);
+
+            try {
+                connection.send(request);
+                return;
+            }
+            catch (IOException e) {
+                logger.warn("Worker {} lost: {}", connection.address, e.toString());
+                connections.remove(connection);
+                connection.close();
+            }
+        }
+
+        throw new IOException("No worker left to send " + request);
+    }
+
+    @Override
+    public ChunkResponse receive(long timeout, TimeUnit unit) throws InterruptedException {
+        return responses.poll(timeout, unit);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (workerOutputs != null) {
+            executionContext.putString(OUTPUTS_KEY, StringUtils.collectionToCommaDelimitedString(workerOutputs));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+    }
+
+    private class Connection {
+
+        private final InetSocketAddress address;
+
+        private final Socket socket;
+
+        private final ObjectOutputStream out;
+
+        /**
+         * @param output output the worker appends the chunks to, null for its own
+         */
+        private Connection(InetSocketAddress address, String output) throws IOException {
+            this.address = address;
+
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address, CONNECT_TIMEOUT);
+
+            out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeObject(output);
+            out.flush();
+        }
+
+        private void send(ChunkRequest<T> request) throws IOException {
+            out.writeObject(request);
+            // Do not keep references to the items sent
+            out.reset();
+            out.flush();
+        }
+
+        private void receive() {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                while (true) {
+                    responses.add((ChunkResponse) in.readObject());
+                }
+            }
+            catch (EOFException e) {
+                logger.debug("Worker {} closed the connection", address);
+            }
+            catch (IOException | ClassNotFoundException e) {
+                if (!socket.isClosed()) {
+                    logger.warn("Worker {} lost: {}", address, e.toString());
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            }
+            catch (IOException e) {
+                logger.debug("Unable to close connection to {}", address, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Worker listening for the chunks sent by a {@link SocketChunkTransport} and handling them
+ * with a {@link ChunkHandler}.
+ * <p>
+ * The handler is opened when the worker starts and closed when it stops, so that its output
+ * gathers the chunks of every manager connected in between. A manager naming the output of the worker on
+ * connection is served by a handler of its own instead, opened for this output and closed on disconnection.
+ */
+public class SocketChunkWorker<T> {
+
+    private static Logger logger = LoggerFactory.getLogger(SocketChunkWorker.class);
+
+    private final int port;
+
+    private final ChunkHandler<T, ?> handler;
+
+    private Function<String, ChunkHandler<T, ?>> outputHandlers;
+
+    private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket server;
+
+    /**
+     * @param port    port to listen to, 0 for any free port
+     * @param handler handler of the chunks
+     */
+    public SocketChunkWorker(int port, ChunkHandler<T, ?> handler) {
+        Assert.notNull(handler, "handler is required");
+
+        this.port = port;
+        this.handler = handler;
+    }
+
+    /**
+     * @param outputHandlers creator of the handler writing to the output named by a manager
+     */
+    public void setOutputHandlers(Function<String, ChunkHandler<T, ?>> outputHandlers) {
+        this.outputHandlers = outputHandlers;
+    }
+
+    public void setBindAddress(InetAddress bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    /**
+     * @return port listened to, once started
+     */
+    public int getPort() {
+        return server != null ? server.getLocalPort() : port;
+    }
+
+    public synchronized void start() throws IOException {
+        handler.open();
+
+        server = new ServerSocket(port, 50, bindAddress);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chunk-worker-" + getPort() + "-");
+        threadFactory.newThread(this::accept).start();
+
+        logger.info("Chunk worker listening on {}:{}", bindAddress.getHostAddress(), getPort());
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        try {
+            server.close();
+        }
+        catch (IOException e) {
+            logger.debug("Unable to close server socket", e);
+        }
+        for (Socket client : clients) {
+            try {
+                client.close();
+            }
+            catch (IOException e) {
+                logger.debug("Unable to close client socket", e);
+            }
+        }
+        server = null;
+
+        handler.close();
+    }
+
+    private void accept() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chunk-client-");
+        threadFactory.setDaemon(true);
+
+        ServerSocket listening = server;
+
+        while (!listening.isClosed()) {
+            try {
+                Socket client = listening.accept();
+                client.setTcpNoDelay(true);
+                clients.add(client);
+                threadFactory.newThread(() -> serve(client)).start();
+            }
+            catch (IOException e) {
+                if (!listening.isClosed()) {
+                    logger.warn("Unable to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        logger.info("Manager connected from {}", client.getRemoteSocketAddress());
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(client.getOutputStream()))) {
+            out.flush();
+
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(client.getInputStream()))) {
+                String output = (String) in.readObject();
+
+                if (output == null || outputHandlers == null) {
+                    serve(in, out, handler);
+                }
+                else {
+                    logger.info("Writing the chunks of {} to {}", client.getRemoteSocketAddress(), output);
+
+                    ChunkHandler<T, ?> outputHandler = outputHandlers.apply(output);
+                    outputHandler.open();
+                    try {
+                        serve(in, out, outputHandler);
+                    }
+                    finally {
+                        outputHandler.close();
+                    }
+                }
+            }
+        }
+        catch (EOFException e) {
+            logger.info("Manager {} disconnected", client.getRemoteSocketAddress());
+        }
+        catch (IOException | ClassNotFoundException e) {
+            if (!client.isClosed()) {
+                logger.warn("Connection with {} lost: {}", client.getRemoteSocketAddress(), e.toString());
+            }
+        }
+        finally {
+            clients.remove(client);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void serve(ObjectInputStream in, ObjectOutputStream out, ChunkHandler<T, ?> handler)
+            throws IOException, ClassNotFoundException {
+
+        while (true) {
+            ChunkRequest<T> request = (ChunkRequest<T>) in.readObject();
+
+            out.writeObject(handler.handle(request));
+            out.reset();
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.autoconfigure.batch.BasicBatchConfigurer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Batch configurer of Spring Boot creating the job repository with a {@link BatchingJobRepositoryFactoryBean},
+ * the job repository and the job explorer sharing the same execution context serializer
+ */
+public class BatchingBatchConfigurer extends BasicBatchConfigurer {
+
+    private final BatchProperties properties;
+
+    private final DataSource dataSource;
+
+    private final int checkpointChunks;
+
+    private final long checkpointInterval;
+
+    private final ExecutionContextSerializer serializer;
+
+    /**
+     * @param properties                    Spring Batch properties
+     * @param dataSource                    datasource of the metadata
+     * @param transactionManagerCustomizers customizers of the transaction manager
+     * @param checkpointChunks              chunks committed between two writes of the step state
+     * @param checkpointInterval            maximum milliseconds between two writes of the step state
+     * @param serializer                    serializer of the execution contexts
+     */
+    public BatchingBatchConfigurer(BatchProperties properties, DataSource dataSource,
+                                   TransactionManagerCustomizers transactionManagerCustomizers,
+                                   int checkpointChunks, long checkpointInterval,
+                                   ExecutionContextSerializer serializer) {
+        super(properties, dataSource, transactionManagerCustomizers);
+
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.checkpointChunks = checkpointChunks;
+        this.checkpointInterval = checkpointInterval;
+        this.serializer = serializer;
+    }
+
+    @Override
+    protected JobRepository createJobRepository() throws Exception {
+        BatchingJobRepositoryFactoryBean factory = new BatchingJobRepositoryFactoryBean();
+
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(getTransactionManager());
+        factory.setCheckpointChunks(checkpointChunks);
+        factory.setCheckpointInterval(checkpointInterval);
+        factory.setSerializer(serializer);
+
+        String isolationLevel = determineIsolationLevel();
+        if (isolationLevel != null) {
+            factory.setIsolationLevelForCreate(isolationLevel);
+        }
+        if (StringUtils.hasText(properties.getTablePrefix())) {
+            factory.setTablePrefix(properties.getTablePrefix());
+        }
+
+        factory.afterPropertiesSet();
+
+        return factory.getObject();
+    }
+
+    @Override
+    protected JobExplorer createJobExplorer() throws Exception {
+        JobExplorerFactoryBean factory = new JobExplorerFactoryBean();
+
+        factory.setDataSource(dataSource);
+        factory.setSerializer(serializer);
+
+        if (StringUtils.hasText(properties.getTablePrefix())) {
+            factory.setTablePrefix(properties.getTablePrefix());
+        }
+
+        factory.afterPropertiesSet();
+
+        return factory.getObject();
+    }
+}
@@ -0,0 +1,60 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.dao.ExecutionContextDao;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+
+/**
+ * JDBC job repository skipping the unchanged execution contexts and writing the state of the
+ * running steps at checkpoints only, see {@link ChangeDetectingExecutionContextDao}
+ * and {@link CheckpointingJobRepository}
+ */
+public class BatchingJobRepositoryFactoryBean extends JobRepositoryFactoryBean {
+
+    private ExecutionContextSerializer serializer;
+
+    private int checkpointChunks = 1;
+
+    private long checkpointInterval = 0;
+
+    @Override
+    public void setSerializer(ExecutionContextSerializer serializer) {
+        super.setSerializer(serializer);
+
+        this.serializer = serializer;
+    }
+
+    public void setCheckpointChunks(int checkpointChunks) {
+        this.checkpointChunks = checkpointChunks;
+    }
+
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (serializer == null) {
+            setSerializer(new Jackson2ExecutionContextStringSerializer());
+        }
+
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    protected ExecutionContextDao createExecutionContextDao() throws Exception {
+        return new ChangeDetectingExecutionContextDao(super.createExecutionContextDao(), serializer);
+    }
+
+    @Override
+    public JobRepository getObject() throws Exception {
+        CheckpointingJobRepository repository = new CheckpointingJobRepository(super.getObject());
+
+        repository.setCheckpointChunks(checkpointChunks);
+        repository.setCheckpointInterval(checkpointInterval);
+
+        return repository;
+    }
+}
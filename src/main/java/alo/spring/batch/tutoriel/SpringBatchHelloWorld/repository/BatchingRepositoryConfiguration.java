@@ -0,0 +1,71 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Replace the default job repository when batch.repository.batched is true
+ * or batch.repository.serializer is binary.
+ * <p>
+ * When batched, the state of a running step is written every batch.repository.checkpoint-chunks chunks
+ * or every batch.repository.checkpoint-interval milliseconds, otherwise at every chunk as usual.
+ * In both cases unchanged contexts are not written again.
+ * <p>
+ * Not used when batch.repository.type is memory, see {@link InMemoryRepositoryConfiguration}.
+ */
+@Configuration
+@ConditionalOnExpression("(${batch.repository.batched:false} or '${batch.repository.serializer:json}' == 'binary')"
+        + " and '${batch.repository.type:jdbc}' != 'memory'")
+public class BatchingRepositoryConfiguration {
+
+    private static final String BINARY_SERIALIZER = "binary";
+
+    @Value("${batch.repository.batched:false}")
+    private boolean batched;
+
+    @Value("${batch.repository.checkpoint-chunks:10}")
+    private int checkpointChunks;
+
+    @Value("${batch.repository.checkpoint-interval:1000}")
+    private long checkpointInterval;
+
+    @Value("${batch.repository.serializer:json}")
+    private String serializer;
+
+    /**
+     * Serializer of the execution contexts, set by batch.repository.serializer
+     *
+     * @return ExecutionContextSerializer
+     */
+    @Bean
+    public ExecutionContextSerializer executionContextSerializer() {
+        return BINARY_SERIALIZER.equalsIgnoreCase(serializer)
+                ? new BinaryExecutionContextSerializer()
+                : new Jackson2ExecutionContextStringSerializer();
+    }
+
+    /**
+     * Batch configurer creating the batching job repository
+     *
+     * @param properties                    Spring Batch properties
+     * @param dataSource                    datasource of the metadata
+     * @param transactionManagerCustomizers customizers of the transaction manager
+     * @return BatchConfigurer
+     */
+    @Bean
+    public BatchConfigurer batchingBatchConfigurer(BatchProperties properties, DataSource dataSource,
+                                                   ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        return new BatchingBatchConfigurer(properties, dataSource, transactionManagerCustomizers.getIfAvailable(),
+                batched ? checkpointChunks : 1, batched ? checkpointInterval : 0, executionContextSerializer());
+    }
+}
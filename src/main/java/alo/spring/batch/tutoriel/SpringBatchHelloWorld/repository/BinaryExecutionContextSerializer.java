@@ -0,0 +1,418 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution context serializer writing a compact binary format:
+ * <pre>
+ * magic (2 bytes) | entry count (varint) | entries
+ * entry: key length (varint) | key (UTF-8) | type tag (1 byte) | value
+ * </pre>
+ * Integers and longs are zigzag varints, dates are epoch values, strings are UTF-8 prefixed by their
+ * length, and the other values fall back to Java serialization.
+ * <p>
+ * The encoding of the entries holding an immutable value (strings, numbers, booleans, local dates)
+ * is kept per key, so an entry whose value did not change since the previous serialization is copied
+ * instead of being encoded again.
+ * <p>
+ * Contexts stored as JSON by {@link Jackson2ExecutionContextStringSerializer} are still read, and written
+ * back in the binary format on their next update. The binary format contains NUL characters once
+ * stored as text by the JDBC DAO: fine with H2 and MySQL, not with PostgreSQL.
+ */
+public class BinaryExecutionContextSerializer implements ExecutionContextSerializer {
+
+    private static final byte MAGIC_0 = (byte) 0xB1;
+    private static final byte MAGIC_1 = (byte) 0x01;
+
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte DATE = 7;
+    private static final byte LOCAL_DATE = 8;
+    private static final byte LOCAL_DATE_TIME = 9;
+    private static final byte INSTANT = 10;
+    private static final byte SHORT = 11;
+    private static final byte BYTE = 12;
+    private static final byte SERIALIZED = 127;
+
+    private static int MAX_CACHED_KEYS = 1024;
+
+    private final ExecutionContextSerializer jsonSerializer;
+
+    private final Map<String, EncodedEntry> encodedEntries = new ConcurrentHashMap<>();
+
+    private final AtomicLong reusedEntries = new AtomicLong();
+
+    public BinaryExecutionContextSerializer() {
+        this(new Jackson2ExecutionContextStringSerializer());
+    }
+
+    /**
+     * @param jsonSerializer serializer of the contexts stored before the binary format was used
+     */
+    public BinaryExecutionContextSerializer(ExecutionContextSerializer jsonSerializer) {
+        Assert.notNull(jsonSerializer, "jsonSerializer is required");
+
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    /**
+     * @return number of entries copied from a previous serialization
+     */
+    public long getReusedEntries() {
+        return reusedEntries.get();
+    }
+
+    @Override
+    public void serialize(Map<String, Object> context, OutputStream outputStream) throws IOException {
+        Assert.notNull(context, "context is required");
+
+        Output out = new Output(256);
+
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeVarLong(context.size());
+
+        for (Map.Entry<String, Object> entry : context.entrySet()) {
+            out.write(encodedEntry(entry.getKey(), entry.getValue()));
+        }
+
+        outputStream.write(out.bytes, 0, out.length);
+    }
+
+    @Override
+    public Map<String, Object> deserialize(InputStream inputStream) throws IOException {
+        byte[] bytes = inputStream.readAllBytes();
+
+        if (bytes.length < 2 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            // Stored before the binary format was used
+            return jsonSerializer.deserialize(new ByteArrayInputStream(bytes));
+        }
+
+        Input in = new Input(bytes, 2);
+
+        int size = (int) in.readVarLong();
+        Map<String, Object> context = new HashMap<>(Math.max(16, size * 2));
+
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            context.put(key, readValue(in));
+        }
+
+        return context;
+    }
+
+    /**
+     * @return encoding of the entry, reused when its value has not changed
+     */
+    private byte[] encodedEntry(String key, Object value) throws IOException {
+        EncodedEntry cached = encodedEntries.get(key);
+
+        if (cached != null && (cached.value == value || cached.value.equals(value))) {
+            reusedEntries.incrementAndGet();
+            return cached.bytes;
+        }
+
+        Output out = new Output(key.length() + 16);
+
+        out.writeString(key);
+        writeValue(out, value);
+
+        byte[] bytes = out.toByteArray();
+
+        if (isImmutable(value) && (cached != null || encodedEntries.size() < MAX_CACHED_KEYS)) {
+            encodedEntries.put(key, new EncodedEntry(value, bytes));
+        }
+
+        return bytes;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof Float || value instanceof Boolean
+                || value instanceof Short || value instanceof Byte
+                || value instanceof LocalDate || value instanceof LocalDateTime || value instanceof Instant;
+    }
+
+    private static void writeValue(Output out, Object value) throws IOException {
+        Class<?> type = value.getClass();
+
+        if (type == String.class) {
+            out.writeByte(STRING);
+            out.writeString((String) value);
+        }
+        else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            out.writeVarLong(zigzag((Integer) value));
+        }
+        else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeVarLong(zigzag((Long) value));
+        }
+        else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeFixedLong(Double.doubleToRawLongBits((Double) value));
+        }
+        else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeVarLong(Float.floatToRawIntBits((Float) value) & 0xFFFFFFFFL);
+        }
+        else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeByte((Boolean) value ? 1 : 0);
+        }
+        else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeVarLong(zigzag((Short) value));
+        }
+        else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        }
+        else if (type == Date.class) {
+            out.writeByte(DATE);
+            out.writeVarLong(zigzag(((Date) value).getTime()));
+        }
+        else if (type == LocalDate.class) {
+            out.writeByte(LOCAL_DATE);
+            out.writeVarLong(zigzag(((LocalDate) value).toEpochDay()));
+        }
+        else if (type == LocalDateTime.class) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(LOCAL_DATE_TIME);
+            out.writeVarLong(zigzag(dateTime.toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarLong(dateTime.getNano());
+        }
+        else if (type == Instant.class) {
+            Instant instant = (Instant) value;
+            out.writeByte(INSTANT);
+            out.writeVarLong(zigzag(instant.getEpochSecond()));
+            out.writeVarLong(instant.getNano());
+        }
+        else {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+                objectOut.writeObject(value);
+            }
+
+            out.writeByte(SERIALIZED);
+            out.writeVarLong(serialized.size());
+            out.write(serialized.toByteArray());
+        }
+    }
+
+    private static Object readValue(Input in) throws IOException {
+        byte tag = in.readByte();
+
+        switch (tag) {
+            case STRING:
+                return in.readString();
+            case INTEGER:
+                return (int) unzigzag(in.readVarLong());
+            case LONG:
+                return unzigzag(in.readVarLong());
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readFixedLong());
+            case FLOAT:
+                return Float.intBitsToFloat((int) in.readVarLong());
+            case BOOLEAN:
+                return in.readByte() != 0;
+            case SHORT:
+                return (short) unzigzag(in.readVarLong());
+            case BYTE:
+                return in.readByte();
+            case DATE:
+                return new Date(unzigzag(in.readVarLong()));
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(unzigzag(in.readVarLong()));
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.ofEpochSecond(unzigzag(in.readVarLong()), (int) in.readVarLong(), ZoneOffset.UTC);
+            case INSTANT:
+                return Instant.ofEpochSecond(unzigzag(in.readVarLong()), in.readVarLong());
+            case SERIALIZED:
+                int length = (int) in.readVarLong();
+
+                try (ObjectInputStream objectIn = new ObjectInputStream(in.stream(length))) {
+                    return objectIn.readObject();
+                }
+                catch (ClassNotFoundException e) {
+                    throw new IOException("Unable to deserialize a context value", e);
+                }
+            default:
+                throw new IOException("Unknown type tag " + tag);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable byte array
+     */
+    private static class Output {
+
+        private byte[] bytes;
+
+        private int length;
+
+        private Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void write(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeFixedLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarLong(utf8.length);
+            write(utf8);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Cursor over a byte array
+     */
+    private static class Input {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private void require(int count) throws EOFException {
+            if (position + count > bytes.length) {
+                throw new EOFException("Truncated execution context");
+            }
+        }
+
+        private byte readByte() throws EOFException {
+            require(1);
+            return bytes[position++];
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("Malformed varint in execution context");
+        }
+
+        private long readFixedLong() throws EOFException {
+            require(8);
+
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int length = (int) readVarLong();
+            require(length);
+
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+
+            return value;
+        }
+
+        private InputStream stream(int length) throws EOFException {
+            require(length);
+
+            InputStream stream = new ByteArrayInputStream(bytes, position, length);
+            position += length;
+
+            return stream;
+        }
+    }
+
+    private static class EncodedEntry {
+
+        private final Object value;
+
+        private final byte[] bytes;
+
+        private EncodedEntry(Object value, byte[] bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
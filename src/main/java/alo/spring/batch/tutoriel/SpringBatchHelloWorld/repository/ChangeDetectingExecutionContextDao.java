@@ -0,0 +1,189 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.ExecutionContextDao;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution context DAO skipping the update of a context whose serialized form is the one already stored.
+ * <p>
+ * The serialized form of each running execution is kept once its transaction has been committed,
+ * so that a rolled back update is never taken for a stored one. It is forgotten when the execution ends.
+ */
+public class ChangeDetectingExecutionContextDao implements ExecutionContextDao {
+
+    private static Logger logger = LoggerFactory.getLogger(ChangeDetectingExecutionContextDao.class);
+
+    private final ExecutionContextDao delegate;
+
+    private final ExecutionContextSerializer serializer;
+
+    private final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * @param delegate   DAO writing the contexts
+     * @param serializer serializer used by the delegate
+     */
+    public ChangeDetectingExecutionContextDao(ExecutionContextDao delegate, ExecutionContextSerializer serializer) {
+        Assert.notNull(delegate, "delegate is required");
+        Assert.notNull(serializer, "serializer is required");
+
+        this.delegate = delegate;
+        this.serializer = serializer;
+    }
+
+    /**
+     * @return number of updates skipped
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    @Override
+    public ExecutionContext getExecutionContext(JobExecution jobExecution) {
+        return delegate.getExecutionContext(jobExecution);
+    }
+
+    @Override
+    public ExecutionContext getExecutionContext(StepExecution stepExecution) {
+        return delegate.getExecutionContext(stepExecution);
+    }
+
+    @Override
+    public void saveExecutionContext(JobExecution jobExecution) {
+        delegate.saveExecutionContext(jobExecution);
+
+        stored(key(jobExecution), serialize(jobExecution.getExecutionContext()), jobExecution.isRunning());
+    }
+
+    @Override
+    public void saveExecutionContext(StepExecution stepExecution) {
+        delegate.saveExecutionContext(stepExecution);
+
+        stored(key(stepExecution), serialize(stepExecution.getExecutionContext()), stepExecution.getStatus().isRunning());
+    }
+
+    @Override
+    public void saveExecutionContexts(Collection<StepExecution> stepExecutions) {
+        delegate.saveExecutionContexts(stepExecutions);
+
+        for (StepExecution stepExecution : stepExecutions) {
+            stored(key(stepExecution), serialize(stepExecution.getExecutionContext()), stepExecution.getStatus().isRunning());
+        }
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        String key = key(jobExecution);
+        byte[] serialized = serialize(jobExecution.getExecutionContext());
+
+        if (unchanged(key, serialized)) {
+            forgetIfEnded(key, jobExecution.isRunning());
+            return;
+        }
+
+        delegate.updateExecutionContext(jobExecution);
+        stored(key, serialized, jobExecution.isRunning());
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        String key = key(stepExecution);
+        byte[] serialized = serialize(stepExecution.getExecutionContext());
+
+        if (unchanged(key, serialized)) {
+            forgetIfEnded(key, stepExecution.getStatus().isRunning());
+            return;
+        }
+
+        delegate.updateExecutionContext(stepExecution);
+        stored(key, serialized, stepExecution.getStatus().isRunning());
+    }
+
+    private boolean unchanged(String key, byte[] serialized) {
+        if (Arrays.equals(stored.get(key), serialized)) {
+            skipped.incrementAndGet();
+            logger.trace("{}: context unchanged", key);
+
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Keep the serialized form once it is known to be in the database
+     */
+    private void stored(String key, byte[] serialized, boolean running) {
+        if (!running) {
+            forgetIfEnded(key, false);
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stored.put(key, serialized);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    stored.put(key, serialized);
+                }
+                else {
+                    stored.remove(key);
+                }
+            }
+        });
+    }
+
+    private void forgetIfEnded(String key, boolean running) {
+        if (!running) {
+            stored.remove(key);
+        }
+    }
+
+    private byte[] serialize(ExecutionContext context) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+
+        try {
+            Map<String, Object> entries = new HashMap<>();
+            for (Map.Entry<String, Object> entry : context.entrySet()) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+
+            serializer.serialize(entries, out);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize the execution context", e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static String key(JobExecution jobExecution) {
+        return "job:" + jobExecution.getId();
+    }
+
+    private static String key(StepExecution stepExecution) {
+        return "step:" + stepExecution.getId();
+    }
+}
@@ -0,0 +1,209 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job repository writing the state of a running step once every checkpointChunks chunks,
+ * or once checkpointInterval has elapsed, instead of at every chunk commit.
+ * <p>
+ * The step execution and its context are written together, in the transaction of the chunk that
+ * reaches the checkpoint. The updates made outside of a chunk transaction, when the step starts,
+ * fails or ends, are always written with the latest state, so a failed step restarts exactly where
+ * it stopped. After a crash the step restarts from the last checkpoint, which is safe with writers
+ * going back to the saved offset on restart (the file writers of this application), not with
+ * writers committing their items in the same transaction.
+ * <p>
+ * A step whose context holds {@link #EVERY_COMMIT_KEY} is therefore written at every commit: its writer
+ * commits in the chunk transaction, or it deletes what an older checkpoint would need to restart.
+ * <p>
+ * Stop requests are noticed at the checkpoints only.
+ */
+public class CheckpointingJobRepository implements JobRepository {
+
+    private static Logger logger = LoggerFactory.getLogger(CheckpointingJobRepository.class);
+
+    /**
+     * Key set in the context of a step by a stream whose state must be written at every commit
+     */
+    public static final String EVERY_COMMIT_KEY = "repository.every-commit";
+
+    private final JobRepository delegate;
+
+    private int checkpointChunks = 1;
+
+    private long checkpointInterval = 0;
+
+    private final Map<Long, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate repository writing the metadata
+     */
+    public CheckpointingJobRepository(JobRepository delegate) {
+        Assert.notNull(delegate, "delegate is required");
+
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param checkpointChunks chunks committed between two writes of the step state, 1 to write it at every chunk
+     */
+    public void setCheckpointChunks(int checkpointChunks) {
+        Assert.isTrue(checkpointChunks > 0, "checkpointChunks must be positive");
+
+        this.checkpointChunks = checkpointChunks;
+    }
+
+    /**
+     * @param checkpointInterval maximum milliseconds between two writes of the step state, 0 for no limit
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        if (deferrable(stepExecution)) {
+            checkpoint(stepExecution).contextPending = true;
+            return;
+        }
+
+        delegate.updateExecutionContext(stepExecution);
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (!deferrable(stepExecution)) {
+            Checkpoint checkpoint = checkpoints.remove(stepExecution.getId());
+
+            if (checkpoint != null && checkpoint.contextPending) {
+                delegate.updateExecutionContext(stepExecution);
+            }
+            delegate.update(stepExecution);
+
+            return;
+        }
+
+        Checkpoint checkpoint = checkpoint(stepExecution);
+
+        if (++checkpoint.chunks < checkpointChunks && !intervalElapsed(checkpoint)) {
+            return;
+        }
+
+        if (checkpoint.contextPending) {
+            delegate.updateExecutionContext(stepExecution);
+        }
+        delegate.update(stepExecution);
+
+        logger.trace("Step execution {} checkpointed after {} chunk(s)", stepExecution.getId(), checkpoint.chunks);
+
+        checkpoint.reset();
+    }
+
+    /**
+     * @return whether the update comes from the commit of a chunk of a running step
+     */
+    private static boolean deferrable(StepExecution stepExecution) {
+        return stepExecution.getId() != null
+                && stepExecution.getStatus() == BatchStatus.STARTED
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !stepExecution.getExecutionContext().containsKey(EVERY_COMMIT_KEY);
+    }
+
+    private Checkpoint checkpoint(StepExecution stepExecution) {
+        return checkpoints.computeIfAbsent(stepExecution.getId(), id -> new Checkpoint());
+    }
+
+    private boolean intervalElapsed(Checkpoint checkpoint) {
+        return checkpointInterval > 0
+                && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkpoint.since) >= checkpointInterval;
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters,
+                                           String jobConfigurationLocation) {
+        return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    private static class Checkpoint {
+
+        private int chunks;
+
+        private boolean contextPending;
+
+        private long since = System.nanoTime();
+
+        private void reset() {
+            chunks = 0;
+            contextPending = false;
+            since = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.autoconfigure.batch.BasicBatchConfigurer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+
+import javax.sql.DataSource;
+
+/**
+ * Batch configurer of Spring Boot creating the job repository and explorer with an
+ * {@link InMemoryJobRepositoryFactoryBean}. The steps keep the transaction manager of the datasource,
+ * for the items they write to it.
+ */
+public class InMemoryBatchConfigurer extends BasicBatchConfigurer {
+
+    private final InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+
+    /**
+     * @param properties                    Spring Batch properties
+     * @param dataSource                    datasource of the steps
+     * @param transactionManagerCustomizers customizers of the transaction manager
+     * @param snapshotWriter                writer of the ended executions to the datasource, may be null
+     * @param retainedInstances             ended job instances kept in memory, 0 to keep them all
+     */
+    public InMemoryBatchConfigurer(BatchProperties properties, DataSource dataSource,
+                                   TransactionManagerCustomizers transactionManagerCustomizers,
+                                   JobSnapshotWriter snapshotWriter, int retainedInstances) {
+        super(properties, dataSource, transactionManagerCustomizers);
+
+        factory.setSnapshotWriter(snapshotWriter);
+        factory.setRetainedInstances(retainedInstances);
+    }
+
+    @Override
+    protected JobRepository createJobRepository() {
+        return factory.getObject();
+    }
+
+    @Override
+    protected JobExplorer createJobExplorer() {
+        return factory.getJobExplorer();
+    }
+}
@@ -0,0 +1,79 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.dao.ExecutionContextDao;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Execution contexts kept in concurrent maps.
+ * <p>
+ * The entries are copied, not their values: the values put in the contexts are expected not to change
+ * once put, as is the case of the positions and counts saved by the readers and writers.
+ */
+class InMemoryExecutionContextDao implements ExecutionContextDao {
+
+    private final Map<Long, ExecutionContext> jobExecutionContexts = new ConcurrentHashMap<>();
+
+    private final Map<Long, ExecutionContext> stepExecutionContexts = new ConcurrentHashMap<>();
+
+    @Override
+    public ExecutionContext getExecutionContext(JobExecution jobExecution) {
+        return copy(jobExecutionContexts.get(jobExecution.getId()));
+    }
+
+    @Override
+    public ExecutionContext getExecutionContext(StepExecution stepExecution) {
+        return copy(stepExecutionContexts.get(stepExecution.getId()));
+    }
+
+    @Override
+    public void saveExecutionContext(JobExecution jobExecution) {
+        updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public void saveExecutionContext(StepExecution stepExecution) {
+        updateExecutionContext(stepExecution);
+    }
+
+    @Override
+    public void saveExecutionContexts(Collection<StepExecution> stepExecutions) {
+        Assert.notNull(stepExecutions, "Attempt to save an null collection of step executions");
+
+        for (StepExecution stepExecution : stepExecutions) {
+            updateExecutionContext(stepExecution);
+        }
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        Assert.notNull(jobExecution.getId(), "ExecutionId must not be null.");
+
+        jobExecutionContexts.put(jobExecution.getId(), copy(jobExecution.getExecutionContext()));
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        Assert.notNull(stepExecution.getId(), "ExecutionId must not be null.");
+
+        stepExecutionContexts.put(stepExecution.getId(), copy(stepExecution.getExecutionContext()));
+    }
+
+    /**
+     * Remove the contexts of a job execution and of its step executions
+     */
+    void removeExecutionContexts(Long jobExecutionId, Collection<Long> stepExecutionIds) {
+        jobExecutionContexts.remove(jobExecutionId);
+        stepExecutionIds.forEach(stepExecutionContexts::remove);
+    }
+
+    private static ExecutionContext copy(ExecutionContext context) {
+        return context == null ? new ExecutionContext() : new ExecutionContext(context);
+    }
+}
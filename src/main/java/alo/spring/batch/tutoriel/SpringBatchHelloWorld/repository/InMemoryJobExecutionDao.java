@@ -0,0 +1,172 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.repository.dao.JobExecutionDao;
+import org.springframework.batch.core.repository.dao.NoSuchObjectException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Job executions kept in concurrent maps.
+ * <p>
+ * A copy of each execution is stored when it is saved or updated and a copy is returned when it is read,
+ * as if it were written to a database: the version of the execution is checked on update.
+ */
+class InMemoryJobExecutionDao implements JobExecutionDao {
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<Long, JobExecution> executionsById = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the executions of each instance, the latest first
+     */
+    private final Map<Long, Deque<Long>> executionIdsByInstance = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveJobExecution(JobExecution jobExecution) {
+        validate(jobExecution);
+
+        jobExecution.incrementVersion();
+        jobExecution.setId(ids.incrementAndGet());
+
+        executionsById.put(jobExecution.getId(), copy(jobExecution));
+        executionIdsByInstance.computeIfAbsent(jobExecution.getJobId(), id -> new ConcurrentLinkedDeque<>())
+                .addFirst(jobExecution.getId());
+    }
+
+    @Override
+    public void updateJobExecution(JobExecution jobExecution) {
+        validate(jobExecution);
+        Assert.notNull(jobExecution.getId(), "JobExecution ID cannot be null. JobExecution must be saved before it can be updated");
+        Assert.notNull(jobExecution.getVersion(), "JobExecution version cannot be null. JobExecution must be saved before it can be updated");
+
+        executionsById.compute(jobExecution.getId(), (id, stored) -> {
+            if (stored == null) {
+                throw new NoSuchObjectException("Invalid JobExecution, ID " + id + " not found.");
+            }
+            if (!stored.getVersion().equals(jobExecution.getVersion())) {
+                throw new OptimisticLockingFailureException("Attempt to update job execution id=" + id
+                        + " with wrong version (" + jobExecution.getVersion() + "), where current version is "
+                        + stored.getVersion());
+            }
+
+            jobExecution.incrementVersion();
+
+            return copy(jobExecution);
+        });
+    }
+
+    @Override
+    public List<JobExecution> findJobExecutions(JobInstance jobInstance) {
+        Deque<Long> executionIds = executionIdsByInstance.get(jobInstance.getId());
+
+        if (executionIds == null) {
+            return Collections.emptyList();
+        }
+
+        return executionIds.stream().map(this::getJobExecution).collect(Collectors.toList());
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(JobInstance jobInstance) {
+        Deque<Long> executionIds = executionIdsByInstance.get(jobInstance.getId());
+        Long lastId = executionIds == null ? null : executionIds.peekFirst();
+
+        return lastId == null ? null : getJobExecution(lastId);
+    }
+
+    @Override
+    public Set<JobExecution> findRunningJobExecutions(String jobName) {
+        return executionsById.values().stream()
+                .filter(execution -> execution.isRunning() && jobName.equals(execution.getJobInstance().getJobName()))
+                .map(InMemoryJobExecutionDao::copy)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public JobExecution getJobExecution(Long executionId) {
+        JobExecution stored = executionsById.get(executionId);
+
+        return stored == null ? null : copy(stored);
+    }
+
+    @Override
+    public void synchronizeStatus(JobExecution jobExecution) {
+        JobExecution stored = executionsById.get(jobExecution.getId());
+
+        if (stored != null && !stored.getVersion().equals(jobExecution.getVersion())) {
+            jobExecution.upgradeStatus(stored.getStatus());
+            jobExecution.setVersion(stored.getVersion());
+        }
+    }
+
+    /**
+     * @return ids of the executions of an instance, the latest first
+     */
+    List<Long> getJobExecutionIds(Long jobInstanceId) {
+        Deque<Long> executionIds = executionIdsByInstance.get(jobInstanceId);
+
+        return executionIds == null ? Collections.emptyList() : List.copyOf(executionIds);
+    }
+
+    /**
+     * Remove the executions of an instance
+     *
+     * @return ids of the executions removed
+     */
+    List<Long> removeJobExecutions(Long jobInstanceId) {
+        Deque<Long> executionIds = executionIdsByInstance.remove(jobInstanceId);
+
+        if (executionIds == null) {
+            return Collections.emptyList();
+        }
+
+        executionIds.forEach(executionsById::remove);
+
+        return List.copyOf(executionIds);
+    }
+
+    private static void validate(JobExecution jobExecution) {
+        Assert.notNull(jobExecution, "jobExecution cannot be null");
+        Assert.notNull(jobExecution.getJobId(), "JobExecution Job-Id cannot be null.");
+        Assert.notNull(jobExecution.getStatus(), "JobExecution status cannot be null.");
+        Assert.notNull(jobExecution.getCreateTime(), "JobExecution create time cannot be null");
+    }
+
+    /**
+     * @return copy of the execution, without its step executions and execution context
+     */
+    private static JobExecution copy(JobExecution source) {
+        JobExecution copy = new JobExecution(source.getJobInstance(), source.getId(), source.getJobParameters(),
+                source.getJobConfigurationName());
+
+        copy.setVersion(source.getVersion());
+        copyState(source, copy);
+
+        return copy;
+    }
+
+    /**
+     * Copy what the JDBC repository stores of an execution, other than its id, version, instance and parameters
+     */
+    static void copyState(JobExecution source, JobExecution target) {
+        target.setStatus(source.getStatus());
+        target.setCreateTime(source.getCreateTime());
+        target.setStartTime(source.getStartTime());
+        target.setEndTime(source.getEndTime());
+        target.setLastUpdated(source.getLastUpdated());
+        target.setExitStatus(source.getExitStatus());
+    }
+}
@@ -0,0 +1,158 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.DefaultJobKeyGenerator;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobKeyGenerator;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.batch.core.repository.dao.JobInstanceDao;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Job instances kept in concurrent maps, the latest instance of each job first
+ */
+class InMemoryJobInstanceDao implements JobInstanceDao {
+
+    private final JobKeyGenerator<JobParameters> jobKeyGenerator = new DefaultJobKeyGenerator();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<String, JobInstance> instancesByKey = new ConcurrentHashMap<>();
+
+    private final Map<Long, String> keysById = new ConcurrentHashMap<>();
+
+    private final Map<Long, JobInstance> instancesById = new ConcurrentHashMap<>();
+
+    private final Map<String, Deque<JobInstance>> instancesByName = new ConcurrentHashMap<>();
+
+    private final InMemoryJobExecutionDao jobExecutionDao;
+
+    /**
+     * @param jobExecutionDao executions, to find the instance of an execution
+     */
+    InMemoryJobInstanceDao(InMemoryJobExecutionDao jobExecutionDao) {
+        this.jobExecutionDao = jobExecutionDao;
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        Assert.notNull(jobName, "Job name must not be null.");
+        Assert.notNull(jobParameters, "JobParameters must not be null.");
+
+        JobInstance instance = new JobInstance(ids.incrementAndGet(), jobName);
+        instance.incrementVersion();
+
+        String key = key(jobName, jobParameters);
+        if (instancesByKey.putIfAbsent(key, instance) != null) {
+            throw new IllegalStateException("JobInstance must not already exist");
+        }
+        keysById.put(instance.getId(), key);
+        instancesById.put(instance.getId(), instance);
+        instancesByName.computeIfAbsent(jobName, name -> new ConcurrentLinkedDeque<>()).addFirst(instance);
+
+        return instance;
+    }
+
+    @Override
+    public JobInstance getJobInstance(String jobName, JobParameters jobParameters) {
+        return instancesByKey.get(key(jobName, jobParameters));
+    }
+
+    @Override
+    public JobInstance getJobInstance(Long instanceId) {
+        return instancesById.get(instanceId);
+    }
+
+    @Override
+    public JobInstance getJobInstance(JobExecution jobExecution) {
+        JobExecution stored = jobExecutionDao.getJobExecution(jobExecution.getId());
+
+        return stored == null ? null : stored.getJobInstance();
+    }
+
+    @Override
+    public List<JobInstance> getJobInstances(String jobName, int start, int count) {
+        return page(instances(jobName), start, count);
+    }
+
+    @Override
+    public JobInstance getLastJobInstance(String jobName) {
+        return instances(jobName).findFirst().orElse(null);
+    }
+
+    @Override
+    public List<String> getJobNames() {
+        return instancesByName.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * @param jobName job name, where * matches any characters
+     */
+    @Override
+    public List<JobInstance> findJobInstancesByName(String jobName, int start, int count) {
+        if (!jobName.contains("*")) {
+            return getJobInstances(jobName, start, count);
+        }
+
+        Pattern pattern = Pattern.compile(Stream.of(jobName.split("\\*", -1))
+                .map(Pattern::quote)
+                .collect(Collectors.joining(".*")));
+
+        return page(instancesById.values().stream()
+                .filter(instance -> pattern.matcher(instance.getJobName()).matches())
+                .sorted((instance, other) -> Long.compare(other.getId(), instance.getId())), start, count);
+    }
+
+    @Override
+    public int getJobInstanceCount(String jobName) throws NoSuchJobException {
+        Deque<JobInstance> instances = instancesByName.get(jobName);
+
+        if (instances == null) {
+            throw new NoSuchJobException("No job instances were found for job name " + jobName);
+        }
+
+        return instances.size();
+    }
+
+    /**
+     * Forget an instance, once its executions have been removed
+     */
+    void removeJobInstance(JobInstance jobInstance) {
+        String key = keysById.remove(jobInstance.getId());
+        if (key != null) {
+            instancesByKey.remove(key);
+        }
+        instancesById.remove(jobInstance.getId());
+
+        Deque<JobInstance> instances = instancesByName.get(jobInstance.getJobName());
+        if (instances != null) {
+            instances.removeIf(instance -> instance.getId().equals(jobInstance.getId()));
+        }
+    }
+
+    private Stream<JobInstance> instances(String jobName) {
+        Deque<JobInstance> instances = instancesByName.get(jobName);
+
+        return instances == null ? Stream.empty() : instances.stream();
+    }
+
+    private static List<JobInstance> page(Stream<JobInstance> instances, int start, int count) {
+        return instances.skip(start).limit(count).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private String key(String jobName, JobParameters jobParameters) {
+        return jobName + '\0' + jobKeyGenerator.generateKey(jobParameters);
+    }
+}
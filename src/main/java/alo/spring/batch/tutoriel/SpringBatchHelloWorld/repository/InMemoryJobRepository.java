@@ -0,0 +1,157 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.batch.core.repository.support.SimpleJobRepository;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Job repository on the in-memory DAOs.
+ * <p>
+ * The executions of a job are created one at a time, what the isolation level of the JDBC repository ensures,
+ * so that parallel launches of the same instance give a single execution. An execution still STARTING counts
+ * as running too, while the default repository only considers the executions whose start time is set.
+ * Once ended, each job execution is given to the snapshot writer, if any.
+ * <p>
+ * Only the last retainedInstances ended job instances are kept, with their executions and contexts: the older
+ * ones are forgotten, they can no longer be restarted and their parameters can be launched again.
+ */
+public class InMemoryJobRepository extends SimpleJobRepository {
+
+    private static final Set<BatchStatus> RUNNING = EnumSet.of(
+            BatchStatus.STARTING, BatchStatus.STARTED, BatchStatus.STOPPING);
+
+    private final Map<String, Object> jobLocks = new ConcurrentHashMap<>();
+
+    private final InMemoryJobInstanceDao jobInstanceDao;
+
+    private final InMemoryJobExecutionDao jobExecutionDao;
+
+    private final InMemoryStepExecutionDao stepExecutionDao;
+
+    private final InMemoryExecutionContextDao executionContextDao;
+
+    private final JobSnapshotWriter snapshotWriter;
+
+    private final int retainedInstances;
+
+    /**
+     * Instances whose executions have all ended, the oldest ended first
+     */
+    private final Map<Long, JobInstance> endedInstances = new LinkedHashMap<>();
+
+    /**
+     * @param retainedInstances ended job instances kept, 0 to keep them all
+     */
+    InMemoryJobRepository(InMemoryJobInstanceDao jobInstanceDao, InMemoryJobExecutionDao jobExecutionDao,
+                          InMemoryStepExecutionDao stepExecutionDao, InMemoryExecutionContextDao executionContextDao,
+                          JobSnapshotWriter snapshotWriter, int retainedInstances) {
+        super(jobInstanceDao, jobExecutionDao, stepExecutionDao, executionContextDao);
+
+        this.jobInstanceDao = jobInstanceDao;
+        this.jobExecutionDao = jobExecutionDao;
+        this.stepExecutionDao = stepExecutionDao;
+        this.executionContextDao = executionContextDao;
+        this.snapshotWriter = snapshotWriter;
+        this.retainedInstances = retainedInstances;
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        synchronized (jobLocks.computeIfAbsent(jobName, name -> new Object())) {
+            JobInstance jobInstance = jobInstanceDao.getJobInstance(jobName, jobParameters);
+
+            if (jobInstance != null && isRunning(jobInstance)) {
+                throw new JobExecutionAlreadyRunningException("A job execution for this job is already running: "
+                        + jobInstance);
+            }
+
+            JobExecution jobExecution = super.createJobExecution(jobName, jobParameters);
+
+            // Restarted, no longer to be evicted
+            synchronized (endedInstances) {
+                endedInstances.remove(jobExecution.getJobId());
+            }
+
+            return jobExecution;
+        }
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        super.update(jobExecution);
+
+        // Ended, or failed before being started
+        if (jobExecution.getEndTime() != null
+                || jobExecution.getStartTime() == null && jobExecution.getStatus().isUnsuccessful()) {
+            if (snapshotWriter != null) {
+                snapshotWriter.write(jobExecution);
+            }
+            retain(jobExecution.getJobInstance());
+        }
+    }
+
+    /**
+     * Record an ended instance and evict the oldest ones beyond retainedInstances
+     */
+    private void retain(JobInstance jobInstance) {
+        if (retainedInstances <= 0) {
+            return;
+        }
+
+        List<JobInstance> evicted = new ArrayList<>();
+
+        synchronized (endedInstances) {
+            endedInstances.remove(jobInstance.getId());
+            endedInstances.put(jobInstance.getId(), jobInstance);
+
+            Iterator<JobInstance> oldest = endedInstances.values().iterator();
+            while (endedInstances.size() > retainedInstances) {
+                evicted.add(oldest.next());
+                oldest.remove();
+            }
+        }
+
+        evicted.forEach(this::evict);
+    }
+
+    /**
+     * Remove an instance, its executions and their contexts, unless it has been restarted meanwhile
+     */
+    private void evict(JobInstance jobInstance) {
+        synchronized (jobLocks.computeIfAbsent(jobInstance.getJobName(), name -> new Object())) {
+            if (isRunning(jobInstance)) {
+                return;
+            }
+
+            for (Long jobExecutionId : jobExecutionDao.removeJobExecutions(jobInstance.getId())) {
+                executionContextDao.removeExecutionContexts(jobExecutionId,
+                        stepExecutionDao.removeStepExecutions(jobExecutionId));
+            }
+            jobInstanceDao.removeJobInstance(jobInstance);
+        }
+    }
+
+    private boolean isRunning(JobInstance jobInstance) {
+        for (JobExecution execution : jobExecutionDao.findJobExecutions(jobInstance)) {
+            if (execution.getEndTime() == null && RUNNING.contains(execution.getStatus())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.SimpleJobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.FactoryBean;
+
+/**
+ * In-memory job repository, and the job explorer reading the same executions.
+ * <p>
+ * Nothing is written to the database on the way of the jobs: the executions are only known to the JVM running
+ * them, so a failed job can only be restarted by the same JVM. When a {@link JobSnapshotWriter} is given, the
+ * ended executions are copied to the tables of the JDBC repository in the background, to keep their history.
+ * Only the last retainedInstances ended job instances are kept in memory.
+ */
+public class InMemoryJobRepositoryFactoryBean implements FactoryBean<JobRepository> {
+
+    private final InMemoryJobExecutionDao jobExecutionDao = new InMemoryJobExecutionDao();
+
+    private final InMemoryJobInstanceDao jobInstanceDao = new InMemoryJobInstanceDao(jobExecutionDao);
+
+    private final InMemoryStepExecutionDao stepExecutionDao = new InMemoryStepExecutionDao(jobExecutionDao);
+
+    private final InMemoryExecutionContextDao executionContextDao = new InMemoryExecutionContextDao();
+
+    private static int DEFAULT_RETAINED_INSTANCES = 1000;
+
+    private JobSnapshotWriter snapshotWriter;
+
+    private int retainedInstances = DEFAULT_RETAINED_INSTANCES;
+
+    private JobRepository jobRepository;
+
+    public void setSnapshotWriter(JobSnapshotWriter snapshotWriter) {
+        this.snapshotWriter = snapshotWriter;
+    }
+
+    /**
+     * @param retainedInstances ended job instances kept with their executions, 0 to keep them all
+     */
+    public void setRetainedInstances(int retainedInstances) {
+        this.retainedInstances = retainedInstances;
+    }
+
+    @Override
+    public synchronized JobRepository getObject() {
+        if (jobRepository == null) {
+            jobRepository = new InMemoryJobRepository(jobInstanceDao, jobExecutionDao, stepExecutionDao,
+                    executionContextDao, snapshotWriter, retainedInstances);
+        }
+
+        return jobRepository;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return JobRepository.class;
+    }
+
+    /**
+     * @return job explorer of the executions of the repository
+     */
+    public JobExplorer getJobExplorer() {
+        return new SimpleJobExplorer(jobInstanceDao, jobExecutionDao, stepExecutionDao, executionContextDao);
+    }
+}
@@ -0,0 +1,70 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Keep the job executions in memory when batch.repository.type is memory.
+ * <p>
+ * Unless batch.repository.write-behind is false, the ended executions are copied to the tables of the datasource
+ * in the background, batch.repository.serializer giving the format of their contexts. Only the last
+ * batch.repository.retained-instances ended job instances are kept in memory.
+ */
+@Configuration
+@ConditionalOnProperty(name = "batch.repository.type", havingValue = "memory")
+public class InMemoryRepositoryConfiguration {
+
+    private static final String BINARY_SERIALIZER = "binary";
+
+    @Value("${batch.repository.serializer:json}")
+    private String serializer;
+
+    @Value("${batch.repository.write-behind-queue:1000}")
+    private int writeBehindQueue;
+
+    @Value("${batch.repository.retained-instances:1000}")
+    private int retainedInstances;
+
+    /**
+     * Writer of the ended executions to the tables of the datasource
+     *
+     * @param properties Spring Batch properties
+     * @param dataSource datasource of the tables
+     * @return JobSnapshotWriter
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "batch.repository.write-behind", havingValue = "true", matchIfMissing = true)
+    public JobSnapshotWriter jobSnapshotWriter(BatchProperties properties, DataSource dataSource) throws Exception {
+        return new JobSnapshotWriter(dataSource,
+                BINARY_SERIALIZER.equalsIgnoreCase(serializer)
+                        ? new BinaryExecutionContextSerializer()
+                        : new Jackson2ExecutionContextStringSerializer(),
+                properties.getTablePrefix(), writeBehindQueue);
+    }
+
+    /**
+     * Batch configurer creating the in-memory job repository
+     *
+     * @param properties                    Spring Batch properties
+     * @param dataSource                    datasource of the steps
+     * @param transactionManagerCustomizers customizers of the transaction manager
+     * @param jobSnapshotWriter             writer of the ended executions, if write-behind is enabled
+     * @return BatchConfigurer
+     */
+    @Bean
+    public BatchConfigurer inMemoryBatchConfigurer(BatchProperties properties, DataSource dataSource,
+                                                   ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers,
+                                                   ObjectProvider<JobSnapshotWriter> jobSnapshotWriter) {
+        return new InMemoryBatchConfigurer(properties, dataSource, transactionManagerCustomizers.getIfAvailable(),
+                jobSnapshotWriter.getIfAvailable(), retainedInstances);
+    }
+}
@@ -0,0 +1,203 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.dao.NoSuchObjectException;
+import org.springframework.batch.core.repository.dao.StepExecutionDao;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Step executions kept in concurrent maps, stored and returned as copies like the job executions
+ * of {@link InMemoryJobExecutionDao}
+ */
+class InMemoryStepExecutionDao implements StepExecutionDao {
+
+    private static final Comparator<StepExecution> LATEST_LAST = Comparator
+            .comparing(StepExecution::getStartTime)
+            .thenComparing(StepExecution::getId);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<Long, StepExecution> stepExecutionsById = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the step executions of each job execution, in the order they were saved
+     */
+    private final Map<Long, Queue<Long>> stepExecutionIdsByJobExecution = new ConcurrentHashMap<>();
+
+    private final InMemoryJobExecutionDao jobExecutionDao;
+
+    /**
+     * @param jobExecutionDao executions, to find the step executions of an instance
+     */
+    InMemoryStepExecutionDao(InMemoryJobExecutionDao jobExecutionDao) {
+        this.jobExecutionDao = jobExecutionDao;
+    }
+
+    @Override
+    public void saveStepExecution(StepExecution stepExecution) {
+        validate(stepExecution);
+        Assert.isNull(stepExecution.getId(), "to-be-saved (not updated) StepExecution can't already have an id assigned");
+        Assert.isNull(stepExecution.getVersion(), "to-be-saved (not updated) StepExecution can't already have a version assigned");
+
+        stepExecution.incrementVersion();
+        stepExecution.setId(ids.incrementAndGet());
+
+        stepExecutionsById.put(stepExecution.getId(), copy(stepExecution));
+        stepExecutionIdsByJobExecution.computeIfAbsent(stepExecution.getJobExecutionId(),
+                id -> new ConcurrentLinkedQueue<>()).add(stepExecution.getId());
+    }
+
+    @Override
+    public void saveStepExecutions(Collection<StepExecution> stepExecutions) {
+        Assert.notNull(stepExecutions, "Attempt to save a null collection of step executions");
+
+        for (StepExecution stepExecution : stepExecutions) {
+            saveStepExecution(stepExecution);
+        }
+    }
+
+    @Override
+    public void updateStepExecution(StepExecution stepExecution) {
+        validate(stepExecution);
+        Assert.notNull(stepExecution.getId(), "StepExecution Id cannot be null. StepExecution must saved before it can be updated.");
+
+        stepExecutionsById.compute(stepExecution.getId(), (id, stored) -> {
+            if (stored == null) {
+                throw new NoSuchObjectException("Invalid StepExecution, ID " + id + " not found.");
+            }
+            if (!stored.getVersion().equals(stepExecution.getVersion())) {
+                throw new OptimisticLockingFailureException("Attempt to update step execution id=" + id
+                        + " with wrong version (" + stepExecution.getVersion() + "), where current version is "
+                        + stored.getVersion());
+            }
+
+            stepExecution.incrementVersion();
+
+            return copy(stepExecution);
+        });
+    }
+
+    @Override
+    public StepExecution getStepExecution(JobExecution jobExecution, Long stepExecutionId) {
+        StepExecution stored = stepExecutionsById.get(stepExecutionId);
+
+        if (stored == null || !stored.getJobExecutionId().equals(jobExecution.getId())) {
+            return null;
+        }
+
+        return copy(stored, jobExecution);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        StepExecution last = stepExecutions(jobInstance, stepName).max(LATEST_LAST).orElse(null);
+
+        if (last == null) {
+            return null;
+        }
+
+        return copy(last, jobExecutionDao.getJobExecution(last.getJobExecutionId()));
+    }
+
+    @Override
+    public void addStepExecutions(JobExecution jobExecution) {
+        Queue<Long> stepExecutionIds = stepExecutionIdsByJobExecution.get(jobExecution.getId());
+
+        if (stepExecutionIds != null) {
+            for (Long id : stepExecutionIds) {
+                // The copy adds itself to the job execution
+                copy(stepExecutionsById.get(id), jobExecution);
+            }
+        }
+    }
+
+    @Override
+    public int countStepExecutions(JobInstance jobInstance, String stepName) {
+        return (int) stepExecutions(jobInstance, stepName).count();
+    }
+
+    /**
+     * Remove the step executions of a job execution
+     *
+     * @return ids of the step executions removed
+     */
+    List<Long> removeStepExecutions(Long jobExecutionId) {
+        Queue<Long> stepExecutionIds = stepExecutionIdsByJobExecution.remove(jobExecutionId);
+
+        if (stepExecutionIds == null) {
+            return Collections.emptyList();
+        }
+
+        stepExecutionIds.forEach(stepExecutionsById::remove);
+
+        return List.copyOf(stepExecutionIds);
+    }
+
+    private Stream<StepExecution> stepExecutions(JobInstance jobInstance, String stepName) {
+        return jobExecutionDao.getJobExecutionIds(jobInstance.getId()).stream()
+                .map(stepExecutionIdsByJobExecution::get)
+                .filter(ids -> ids != null)
+                .flatMap(Collection::stream)
+                .map(stepExecutionsById::get)
+                .filter(stepExecution -> stepName.equals(stepExecution.getStepName()));
+    }
+
+    private static void validate(StepExecution stepExecution) {
+        Assert.notNull(stepExecution, "stepExecution is required");
+        Assert.notNull(stepExecution.getStepName(), "StepExecution step name cannot be null.");
+        Assert.notNull(stepExecution.getStartTime(), "StepExecution start time cannot be null.");
+        Assert.notNull(stepExecution.getStatus(), "StepExecution status cannot be null.");
+    }
+
+    /**
+     * @return copy stored, attached to a job execution holding only its id
+     */
+    private static StepExecution copy(StepExecution source) {
+        return copy(source, new JobExecution(source.getJobExecutionId()));
+    }
+
+    /**
+     * @return copy of the step execution, without its execution context, added to the job execution
+     */
+    private static StepExecution copy(StepExecution source, JobExecution jobExecution) {
+        StepExecution copy = new StepExecution(source.getStepName(), jobExecution, source.getId());
+
+        copy.setVersion(source.getVersion());
+        copyState(source, copy);
+
+        return copy;
+    }
+
+    /**
+     * Copy what the JDBC repository stores of a step execution, other than its id, version, name and job execution
+     */
+    static void copyState(StepExecution source, StepExecution target) {
+        target.setStatus(source.getStatus());
+        target.setStartTime(source.getStartTime());
+        target.setEndTime(source.getEndTime());
+        target.setLastUpdated(source.getLastUpdated());
+        target.setExitStatus(source.getExitStatus());
+        target.setReadCount(source.getReadCount());
+        target.setWriteCount(source.getWriteCount());
+        target.setFilterCount(source.getFilterCount());
+        target.setCommitCount(source.getCommitCount());
+        target.setRollbackCount(source.getRollbackCount());
+        target.setReadSkipCount(source.getReadSkipCount());
+        target.setProcessSkipCount(source.getProcessSkipCount());
+        target.setWriteSkipCount(source.getWriteSkipCount());
+    }
+}
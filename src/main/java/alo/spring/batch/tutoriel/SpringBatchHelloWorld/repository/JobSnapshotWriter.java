@@ -0,0 +1,293 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.batch.core.repository.dao.ExecutionContextDao;
+import org.springframework.batch.core.repository.dao.JobExecutionDao;
+import org.springframework.batch.core.repository.dao.JobInstanceDao;
+import org.springframework.batch.core.repository.dao.StepExecutionDao;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copy the ended job executions of the in-memory repository to the tables of the JDBC repository,
+ * from a background thread.
+ * <p>
+ * A snapshot of the execution, its steps and their contexts is taken by the thread ending the job and queued;
+ * the queued snapshots are written together, in one transaction, each of them within a savepoint so that a
+ * snapshot failing to be written is rolled back and counted alone. The executions get new ids in the tables, the
+ * job instance being the one already stored for the same job and identifying parameters, if any. When the queue
+ * is full, the snapshot is dropped and counted rather than holding the job.
+ */
+public class JobSnapshotWriter implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(JobSnapshotWriter.class);
+
+    private static int MAX_SNAPSHOTS_PER_TRANSACTION = 100;
+
+    private static int EXIT_MESSAGE_LENGTH = AbstractJdbcBatchMetadataDao.DEFAULT_EXIT_MESSAGE_LENGTH;
+
+    private final JobInstanceDao jobInstanceDao;
+
+    private final JobExecutionDao jobExecutionDao;
+
+    private final StepExecutionDao stepExecutionDao;
+
+    private final ExecutionContextDao executionContextDao;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate savepointTemplate;
+
+    private final BlockingQueue<JobExecution> snapshots;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param dataSource    datasource of the JDBC repository tables
+     * @param serializer    serializer of the execution contexts
+     * @param tablePrefix   prefix of the tables, BATCH_ when null
+     * @param queueCapacity snapshots waiting to be written
+     */
+    public JobSnapshotWriter(DataSource dataSource, ExecutionContextSerializer serializer, String tablePrefix,
+                             int queueCapacity) throws Exception {
+        Assert.notNull(dataSource, "dataSource is required");
+        Assert.isTrue(queueCapacity > 0, "queue capacity must be positive");
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        JdbcDaoFactory factory = new JdbcDaoFactory();
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(transactionManager);
+        if (serializer != null) {
+            factory.setSerializer(serializer);
+        }
+        if (StringUtils.hasText(tablePrefix)) {
+            factory.setTablePrefix(tablePrefix);
+        }
+        factory.afterPropertiesSet();
+
+        this.jobInstanceDao = factory.createJobInstanceDao();
+        this.jobExecutionDao = factory.createJobExecutionDao();
+        this.stepExecutionDao = factory.createStepExecutionDao();
+        this.executionContextDao = factory.createExecutionContextDao();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.snapshots = new ArrayBlockingQueue<>(queueCapacity);
+
+        writer = new Thread(this::writeLoop, "job-snapshot-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return number of snapshots dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of snapshots that failed to be written
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Queue a snapshot of a job execution, its steps and their contexts
+     *
+     * @param jobExecution job execution of the in-memory repository
+     */
+    public void write(JobExecution jobExecution) {
+        if (closed) {
+            logger.warn("Snapshot of the job execution {} not written, the writer is closed", jobExecution.getId());
+            return;
+        }
+
+        if (!snapshots.offer(snapshot(jobExecution))) {
+            dropped.increment();
+            logger.warn("Snapshot of the job execution {} dropped, {} snapshots are waiting to be written",
+                    jobExecution.getId(), snapshots.size());
+        }
+    }
+
+    /**
+     * @return copy of the execution and its steps, without ids, sharing the in-memory job instance
+     */
+    private static JobExecution snapshot(JobExecution source) {
+        JobExecution snapshot = new JobExecution(source.getJobInstance(), source.getJobParameters(),
+                source.getJobConfigurationName());
+        InMemoryJobExecutionDao.copyState(source, snapshot);
+        snapshot.setExitStatus(truncate(snapshot.getExitStatus()));
+        snapshot.setExecutionContext(new ExecutionContext(source.getExecutionContext()));
+
+        List<StepExecution> steps = new ArrayList<>();
+        for (StepExecution step : source.getStepExecutions()) {
+            StepExecution copy = new StepExecution(step.getStepName(), snapshot);
+            InMemoryStepExecutionDao.copyState(step, copy);
+            copy.setExitStatus(truncate(copy.getExitStatus()));
+            copy.setExecutionContext(new ExecutionContext(step.getExecutionContext()));
+            steps.add(copy);
+        }
+        snapshot.addStepExecutions(steps);
+
+        return snapshot;
+    }
+
+    /**
+     * @return exit status whose description fits in the tables, the stack trace of a failure being usually longer
+     */
+    private static ExitStatus truncate(ExitStatus exitStatus) {
+        String description = exitStatus.getExitDescription();
+
+        if (description == null || description.length() <= EXIT_MESSAGE_LENGTH) {
+            return exitStatus;
+        }
+
+        return new ExitStatus(exitStatus.getExitCode(), description.substring(0, EXIT_MESSAGE_LENGTH));
+    }
+
+    private void writeLoop() {
+        List<JobExecution> batch = new ArrayList<>();
+
+        while (!closed || !snapshots.isEmpty()) {
+            try {
+                JobExecution first = snapshots.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                snapshots.drainTo(batch, MAX_SNAPSHOTS_PER_TRANSACTION - 1);
+
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(this::storeInSavepoint));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (RuntimeException e) {
+                logger.error("Unable to write the snapshots of {} job execution(s)", batch.size(), e);
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void storeInSavepoint(JobExecution snapshot) {
+        try {
+            savepointTemplate.executeWithoutResult(status -> store(snapshot));
+        }
+        catch (RuntimeException e) {
+            failed.increment();
+            logger.error("Unable to write the snapshot of a job execution of {}",
+                    snapshot.getJobInstance().getJobName(), e);
+        }
+    }
+
+    private void store(JobExecution snapshot) {
+        JobInstance memoryInstance = snapshot.getJobInstance();
+        snapshot.setJobInstance(jobInstance(memoryInstance.getJobName(), snapshot));
+
+        jobExecutionDao.saveJobExecution(snapshot);
+        executionContextDao.saveExecutionContext(snapshot);
+
+        stepExecutionDao.saveStepExecutions(snapshot.getStepExecutions());
+        executionContextDao.saveExecutionContexts(snapshot.getStepExecutions());
+    }
+
+    private JobInstance jobInstance(String jobName, JobExecution snapshot) {
+        JobInstance instance = jobInstanceDao.getJobInstance(jobName, snapshot.getJobParameters());
+
+        if (instance == null) {
+            try {
+                instance = jobInstanceDao.createJobInstance(jobName, snapshot.getJobParameters());
+            }
+            catch (DuplicateKeyException e) {
+                // Written meanwhile by another JVM
+                instance = jobInstanceDao.getJobInstance(jobName, snapshot.getJobParameters());
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Write the snapshots queued and stop the background thread, waiting for it 30 seconds at most
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!snapshots.isEmpty()) {
+            logger.warn("{} job execution snapshot(s) not written", snapshots.size());
+        }
+        if (dropped.sum() > 0) {
+            logger.warn("{} job execution snapshot(s) dropped", dropped.sum());
+        }
+        if (failed.sum() > 0) {
+            logger.warn("{} job execution snapshot(s) failed to be written", failed.sum());
+        }
+    }
+
+    /**
+     * The DAOs of the JDBC repository, created as for the repository
+     */
+    private static class JdbcDaoFactory extends JobRepositoryFactoryBean {
+
+        @Override
+        protected JobInstanceDao createJobInstanceDao() throws Exception {
+            return super.createJobInstanceDao();
+        }
+
+        @Override
+        protected JobExecutionDao createJobExecutionDao() throws Exception {
+            return super.createJobExecutionDao();
+        }
+
+        @Override
+        protected StepExecutionDao createStepExecutionDao() throws Exception {
+            return super.createStepExecutionDao();
+        }
+
+        @Override
+        protected ExecutionContextDao createExecutionContextDao() throws Exception {
+            return super.createExecutionContextDao();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.LineAlignedFilePartitioner;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.CheckpointingJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sort a file of lines by a {@link SortKey}, in place, whatever its size compared to the heap.
+ * <p>
+ * The first execution reads the file into runs of at most memoryBudget / (parallelism + 1) bytes, sorts them and
+ * writes them to files of the run directory; the runs are sorted and written in parallel by the task executor
+ * while the next one is read. Each following execution merges up to mergeFanIn consecutive runs into one, and
+ * the last one merges the remaining runs into the file. The runs are always kept in input order and merged
+ * in that order, so lines of equal keys stay in input order.
+ * <p>
+ * The list of runs is saved in the step ExecutionContext after each execution: a restart resumes the merge from
+ * the runs of the last execution committed, the files left by an interrupted merge being deleted. An interrupted
+ * run generation starts over, the file being replaced only by the final merge. As the merged runs are deleted,
+ * a {@link CheckpointingJobRepository} is asked to write the context after each execution.
+ * <p>
+ * Lines are read and written as ISO-8859-1, which gives back the bytes of any encoding unchanged.
+ */
+public class ExternalSortTasklet implements Tasklet {
+
+    private static Logger logger = LoggerFactory.getLogger(ExternalSortTasklet.class);
+
+    private static final String RUNS_KEY = "sort.runs";
+    private static final String POSITION_KEY = "sort.position";
+    private static final String NEXT_RUN_KEY = "sort.next-run";
+    private static final String SORTED_KEY = "sort.sorted";
+
+    private static Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    private static String LINE_SEPARATOR = System.lineSeparator();
+
+    private static int MIN_BUFFER_SIZE = 8 * 1024;
+    private static int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path file;
+
+    private final SortKey sortKey;
+
+    private final Comparator<KeyedLine> order;
+
+    private long memoryBudget = 64 * 1024 * 1024;
+
+    private int mergeFanIn = 64;
+
+    private int parallelism = 1;
+
+    private Executor taskExecutor = Runnable::run;
+
+    private File tempDirectory;
+
+    /**
+     * @param file    file to be sorted
+     * @param sortKey key of the lines
+     */
+    public ExternalSortTasklet(Resource file, SortKey sortKey) {
+        Assert.notNull(file, "file is required");
+        Assert.notNull(sortKey, "sortKey is required");
+
+        this.file = new File(LineAlignedFilePartitioner.outputPath(file)).getAbsoluteFile().toPath();
+        this.sortKey = sortKey;
+        this.order = sortKey.order();
+    }
+
+    /**
+     * @param memoryBudget heap in bytes taken by the lines being sorted, or by the buffers of a merge
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        Assert.isTrue(memoryBudget > 0, "memory budget must be positive");
+
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @param mergeFanIn runs merged at the same time, at least 2
+     */
+    public void setMergeFanIn(int mergeFanIn) {
+        Assert.isTrue(mergeFanIn > 1, "merge fan-in must be at least 2");
+
+        this.mergeFanIn = mergeFanIn;
+    }
+
+    /**
+     * @param taskExecutor executor sorting and writing the runs
+     * @param parallelism  runs sorted at the same time, the threads of the executor
+     */
+    public void setTaskExecutor(Executor taskExecutor, int parallelism) {
+        Assert.notNull(taskExecutor, "taskExecutor is required");
+        Assert.isTrue(parallelism > 0, "parallelism must be positive");
+
+        this.taskExecutor = taskExecutor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param tempDirectory directory of the run directory, the directory of the file when null
+     */
+    public void setTempDirectory(File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * @return directory of the runs, named after the file so that a restart finds it
+     */
+    Path runDirectory() {
+        Path parent = tempDirectory != null ? tempDirectory.getAbsoluteFile().toPath() : file.getParent();
+
+        return parent.resolve(file.getFileName() + ".runs");
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        Path runDirectory = runDirectory();
+
+        context.putString(CheckpointingJobRepository.EVERY_COMMIT_KEY, "true");
+
+        if (context.containsKey(SORTED_KEY)) {
+            deleteRuns(runDirectory, Set.of());
+            Files.deleteIfExists(runDirectory);
+
+            return RepeatStatus.FINISHED;
+        }
+
+        Files.createDirectories(runDirectory);
+
+        if (!context.containsKey(RUNS_KEY)) {
+            deleteRuns(runDirectory, Set.of());
+            generateRuns(runDirectory, context);
+
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        List<String> runs = runs(context);
+        deleteRuns(runDirectory, new HashSet<>(runs));
+
+        if (runs.size() <= mergeFanIn) {
+            Path sorted = file.resolveSibling(file.getFileName() + ".sorted");
+            long lines = merge(runDirectory, runs, sorted);
+            Files.move(sorted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            contribution.incrementWriteCount((int) lines);
+            context.putString(SORTED_KEY, "true");
+
+            logger.info("{} line(s) of {} sorted by {}", lines, file, sortKey);
+
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        // One group of consecutive runs at a time, a pass ending when its last group is merged
+        int position = context.getInt(POSITION_KEY, 0);
+        if (position >= runs.size()) {
+            position = 0;
+        }
+
+        List<String> group = runs.subList(position, Math.min(runs.size(), position + mergeFanIn));
+
+        if (group.size() > 1) {
+            String run = nextRun(context);
+            merge(runDirectory, group, runDirectory.resolve(run));
+
+            logger.debug("{} runs merged into {}", group.size(), run);
+
+            group.clear();
+            group.add(run);
+        }
+
+        context.putString(RUNS_KEY, String.join(",", runs));
+        context.putInt(POSITION_KEY, position + 1);
+
+        return RepeatStatus.CONTINUABLE;
+    }
+
+    /* ********************************************
+       RUN GENERATION
+       ******************************************** */
+
+    private void generateRuns(Path runDirectory, ExecutionContext context) throws Exception {
+        long start = System.nanoTime();
+        long runBudget = Math.max(1, memoryBudget / (parallelism + 1));
+
+        // Bound the runs held in memory: the one being read and those being sorted
+        Semaphore slots = new Semaphore(parallelism);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<String> runs = new ArrayList<>();
+        long lines = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), CHARSET),
+                MAX_BUFFER_SIZE)) {
+
+            List<KeyedLine> run = new ArrayList<>();
+            long runSize = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                KeyedLine keyed = sortKey.keyed(line);
+                run.add(keyed);
+                runSize += keyed.estimatedSize();
+                lines++;
+
+                if (runSize >= runBudget) {
+                    writes.add(sortAndWrite(run, runDirectory, nextRun(context), runs, slots));
+                    run = new ArrayList<>();
+                    runSize = 0;
+                }
+            }
+
+            if (!run.isEmpty()) {
+                writes.add(sortAndWrite(run, runDirectory, nextRun(context), runs, slots));
+            }
+        }
+        catch (Exception e) {
+            // No run may still be written when the restart cleans the run directory
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).exceptionally(failure -> null).join();
+            throw e;
+        }
+
+        await(writes);
+
+        context.putString(RUNS_KEY, String.join(",", runs));
+        context.putInt(POSITION_KEY, 0);
+
+        logger.info("{} line(s) of {} sorted into {} run(s) in {} ms", lines, file, runs.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private CompletableFuture<Void> sortAndWrite(List<KeyedLine> run, Path runDirectory, String name,
+                                                 List<String> runs, Semaphore slots) throws InterruptedException {
+        runs.add(name);
+        slots.acquire();
+
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    run.sort(order);
+                    write(run, runDirectory.resolve(name));
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                finally {
+                    slots.release();
+                }
+            }, taskExecutor);
+        }
+        catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private static void await(List<CompletableFuture<Void>> writes) throws Exception {
+        try {
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static void write(List<KeyedLine> run, Path target) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(target.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, CHARSET), MAX_BUFFER_SIZE)) {
+
+            for (KeyedLine line : run) {
+                writer.write(line.line);
+                writer.write(LINE_SEPARATOR);
+            }
+
+            writer.flush();
+            // The run must survive a crash once it is listed in the committed context
+            out.getChannel().force(false);
+        }
+    }
+
+    /* ********************************************
+       MERGE
+       ******************************************** */
+
+    /**
+     * k-way merge of runs, in the order of their keys then of the runs
+     *
+     * @return number of lines merged
+     */
+    private long merge(Path runDirectory, List<String> runs, Path target) throws IOException {
+        int bufferSize = (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, memoryBudget / (runs.size() + 1)));
+        Comparator<RunCursor> cursorOrder = Comparator.<RunCursor, KeyedLine>comparing(cursor -> cursor.current, order)
+                .thenComparingInt(cursor -> cursor.index);
+
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(1, runs.size()), cursorOrder);
+        List<RunCursor> cursors = new ArrayList<>(runs.size());
+        long lines = 0;
+
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunCursor cursor = new RunCursor(i, runDirectory.resolve(runs.get(i)), bufferSize);
+                cursors.add(cursor);
+
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+
+            try (FileOutputStream out = new FileOutputStream(target.toFile());
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(out, CHARSET), bufferSize)) {
+
+                while (!queue.isEmpty()) {
+                    RunCursor cursor = queue.poll();
+                    writer.write(cursor.current.line);
+                    writer.write(LINE_SEPARATOR);
+                    lines++;
+
+                    if (cursor.advance()) {
+                        queue.add(cursor);
+                    }
+                }
+
+                writer.flush();
+                out.getChannel().force(false);
+            }
+        }
+        finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+
+        return lines;
+    }
+
+    private class RunCursor {
+
+        private final int index;
+
+        private final BufferedReader reader;
+
+        private KeyedLine current;
+
+        private RunCursor(int index, Path run, int bufferSize) throws IOException {
+            this.index = index;
+            this.reader = new BufferedReader(new InputStreamReader(Files.newInputStream(run), CHARSET), bufferSize);
+        }
+
+        private boolean advance() throws IOException {
+            String line = reader.readLine();
+            current = line != null ? sortKey.keyed(line) : null;
+
+            return current != null;
+        }
+
+        private void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /* ********************************************
+       RUN FILES
+       ******************************************** */
+
+    private static List<String> runs(ExecutionContext context) {
+        String runs = context.getString(RUNS_KEY);
+
+        return StringUtils.hasLength(runs) ? new ArrayList<>(Arrays.asList(runs.split(","))) : new ArrayList<>();
+    }
+
+    private static String nextRun(ExecutionContext context) {
+        int next = context.getInt(NEXT_RUN_KEY, 0);
+        context.putInt(NEXT_RUN_KEY, next + 1);
+
+        return String.format("run%06d", next);
+    }
+
+    /**
+     * Delete the files of the run directory other than the runs given: runs already merged, or left by
+     * an execution that was not committed
+     */
+    private static void deleteRuns(Path runDirectory, Set<String> kept) throws IOException {
+        if (!Files.isDirectory(runDirectory)) {
+            return;
+        }
+
+        List<Path> deleted;
+        try (Stream<Path> files = Files.list(runDirectory)) {
+            deleted = files.filter(path -> !kept.contains(path.getFileName().toString())).collect(Collectors.toList());
+        }
+
+        for (Path path : deleted) {
+            Files.delete(path);
+        }
+    }
+}
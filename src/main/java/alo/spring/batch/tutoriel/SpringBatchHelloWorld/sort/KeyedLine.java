@@ -0,0 +1,31 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort;
+
+/**
+ * Line with its key, extracted once rather than at each comparison
+ */
+final class KeyedLine {
+
+    /**
+     * Object headers, fields and references of a line and its key, beyond their chars (one byte each in ISO-8859-1)
+     */
+    private static int OVERHEAD = 128;
+
+    final String line;
+
+    final long number;
+
+    final String text;
+
+    KeyedLine(String line, long number, String text) {
+        this.line = line;
+        this.number = number;
+        this.text = text;
+    }
+
+    /**
+     * @return approximate heap taken by the line
+     */
+    long estimatedSize() {
+        return OVERHEAD + line.length() + (text != null && text != line ? text.length() : 0);
+    }
+}
@@ -0,0 +1,114 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort;
+
+import org.springframework.util.Assert;
+
+import java.util.Comparator;
+
+/**
+ * Key of the lines to be sorted: a field of the line, or the whole line, compared as text or as a number.
+ * <p>
+ * Text keys are compared char by char, which is byte order for the lines read as ISO-8859-1. A numeric key that
+ * is missing or not a number sorts after all the numbers.
+ */
+public class SortKey {
+
+    public static final String WHOLE_LINE = "line";
+
+    public static final String NUMERIC = "numeric";
+
+    public static final String TEXT = "text";
+
+    private static final Comparator<KeyedLine> NUMERIC_ORDER = Comparator.comparingLong(line -> line.number);
+
+    private static final Comparator<KeyedLine> TEXT_ORDER = Comparator.comparing(line -> line.text);
+
+    private final int field;
+
+    private final char delimiter;
+
+    private final boolean numeric;
+
+    /**
+     * @param field     index of the field, from 0, -1 for the whole line
+     * @param delimiter delimiter of the fields
+     * @param numeric   true to compare the keys as long numbers
+     */
+    public SortKey(int field, char delimiter, boolean numeric) {
+        Assert.isTrue(field >= -1, "invalid field: " + field);
+
+        this.field = field;
+        this.delimiter = delimiter;
+        this.numeric = numeric;
+    }
+
+    /**
+     * @param key       "line", or the index of the field from 0
+     * @param type      "numeric" or "text", text when null
+     * @param delimiter delimiter of the fields
+     *
+     * @return key of the job parameters sortKey and sortType
+     */
+    public static SortKey of(String key, String type, char delimiter) {
+        Assert.hasText(key, "sort key is required");
+        Assert.isTrue(type == null || NUMERIC.equalsIgnoreCase(type) || TEXT.equalsIgnoreCase(type),
+                "invalid sort type: " + type);
+
+        int field;
+        if (WHOLE_LINE.equalsIgnoreCase(key)) {
+            field = -1;
+        }
+        else {
+            try {
+                field = Integer.parseInt(key);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid sort key: " + key);
+            }
+            Assert.isTrue(field >= 0, "invalid sort key: " + key);
+        }
+
+        return new SortKey(field, delimiter, NUMERIC.equalsIgnoreCase(type));
+    }
+
+    Comparator<KeyedLine> order() {
+        return numeric ? NUMERIC_ORDER : TEXT_ORDER;
+    }
+
+    KeyedLine keyed(String line) {
+        if (field < 0) {
+            return numeric ? new KeyedLine(line, number(line, 0, line.length()), null) : new KeyedLine(line, 0, line);
+        }
+
+        int start = 0;
+        for (int i = 0; i < field && start >= 0; i++) {
+            start = line.indexOf(delimiter, start);
+            start = start < 0 ? -1 : start + 1;
+        }
+
+        if (start < 0) {
+            return numeric ? new KeyedLine(line, Long.MAX_VALUE, null) : new KeyedLine(line, 0, "");
+        }
+
+        int end = line.indexOf(delimiter, start);
+        if (end < 0) {
+            end = line.length();
+        }
+
+        return numeric ? new KeyedLine(line, number(line, start, end), null)
+                : new KeyedLine(line, 0, line.substring(start, end));
+    }
+
+    private static long number(String line, int start, int end) {
+        try {
+            return Long.parseLong(line, start, end, 10);
+        }
+        catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (field < 0 ? WHOLE_LINE : "field " + field) + (numeric ? ", numeric" : ", text");
+    }
+}
@@ -0,0 +1,45 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.chunk;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveCompletionPolicyTests {
+
+    @Test
+    void fastChunksGrowUpToMaxSizeAndSurviveRestart() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        // Chunks run far below the 10s target: the size doubles after each full chunk
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(10, 100, 10_000);
+        policy.beforeStep(stepExecution);
+
+        for (int chunk = 0; chunk < 6; chunk++) {
+            runFullChunk(policy);
+        }
+        policy.afterStep(stepExecution);
+
+        assertEquals(100, policy.getSize());
+        assertEquals(100, stepExecution.getExecutionContext().getInt(AdaptiveCompletionPolicy.SIZE_KEY));
+
+        AdaptiveCompletionPolicy restarted = new AdaptiveCompletionPolicy(10, 100, 10_000);
+        restarted.beforeStep(stepExecution);
+
+        assertEquals(100, restarted.getSize());
+    }
+
+    private static void runFullChunk(AdaptiveCompletionPolicy policy) {
+        RepeatContext context = policy.start(null);
+
+        for (int item = 1; item <= policy.getSize(); item++) {
+            assertFalse(policy.isComplete(context));
+            policy.update(context);
+        }
+        assertTrue(policy.isComplete(context));
+    }
+}
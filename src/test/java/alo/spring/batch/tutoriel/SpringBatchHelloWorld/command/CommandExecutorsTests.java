@@ -0,0 +1,68 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandExecutorsTests {
+
+    @Test
+    void tasksWaitingAtShutdownAreStillRun() throws Exception {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        CommandExecutors.BoundedExecutorService executor = new CommandExecutors.BoundedExecutorService(delegate, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+
+        executor.execute(() -> {
+            awaitQuietly(release);
+            ran.add(0);
+        });
+        Future<?> waiting = executor.submit(() -> ran.add(1));
+
+        executor.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> ran.add(2)));
+        assertTrue(executor.isShutdown());
+
+        release.countDown();
+        waiting.get(5, TimeUnit.SECONDS);
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1), ran);
+    }
+
+    @Test
+    void shutdownNowReturnsTheWaitingTasks() throws Exception {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        CommandExecutors.BoundedExecutorService executor = new CommandExecutors.BoundedExecutorService(delegate, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> awaitQuietly(release));
+        Runnable waiting = () -> { };
+        executor.execute(waiting);
+
+        List<Runnable> notStarted = executor.shutdownNow();
+
+        assertTrue(notStarted.contains(waiting));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.command;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.tasklet.SystemCommandException;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessTaskletTests {
+
+    private final ExecutorService executor = CommandExecutors.bounded(4, "test-command-");
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    void exitCodeIsMappedOnceTheProcessEnds() throws Exception {
+        ProcessTasklet tasklet = tasklet("sh", "-c", "echo out; echo err >&2; exit 3");
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+
+        assertEquals(ExitStatus.FAILED.getExitCode(), contribution.getExitStatus().getExitCode());
+    }
+
+    @Test
+    void processIsDestroyedAfterTheTimeout() {
+        ProcessTasklet tasklet = tasklet("sleep", "5");
+        tasklet.setTimeout(200);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        long start = System.currentTimeMillis();
+        assertThrows(SystemCommandException.class, () ->
+                tasklet.execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution))));
+        assertTrue(System.currentTimeMillis() - start < 4000);
+    }
+
+    @Test
+    void fullErrorPipeDoesNotWaitForAnotherTask() throws Exception {
+        ExecutorService single = CommandExecutors.bounded(1, "test-single-");
+        // 100 KB on stderr, more than a pipe holds
+        ProcessTasklet tasklet = tasklet("sh", "-c", "yes $(printf '%099d') | head -n 1000 >&2; echo out");
+        tasklet.setExecutor(single);
+        tasklet.setTimeout(5000);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        try {
+            tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+        }
+        finally {
+            single.shutdown();
+        }
+
+        assertEquals(ExitStatus.COMPLETED.getExitCode(), contribution.getExitStatus().getExitCode());
+    }
+
+    @Test
+    void outputHeldByAChildProcessDoesNotKeepTheExecutorSlot() throws Exception {
+        ExecutorService single = CommandExecutors.bounded(1, "test-single-");
+
+        try {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 2; i++) {
+                // The background sleep inherits the output and keeps it open after the end of sh
+                ProcessTasklet tasklet = tasklet("sh", "-c", "sleep 3 & echo out");
+                tasklet.setExecutor(single);
+                tasklet.setOutputTimeout(200);
+
+                StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+                StepContribution contribution = stepExecution.createStepContribution();
+                tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+
+                assertEquals(ExitStatus.COMPLETED.getExitCode(), contribution.getExitStatus().getExitCode());
+            }
+            assertTrue(System.currentTimeMillis() - start < 2500);
+        }
+        finally {
+            single.shutdown();
+        }
+    }
+
+    private ProcessTasklet tasklet(String... command) {
+        ProcessTasklet tasklet = new ProcessTasklet();
+
+        tasklet.setCommand(command);
+        tasklet.setExecutor(executor);
+        tasklet.afterPropertiesSet();
+
+        return tasklet;
+    }
+}
@@ -0,0 +1,145 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.LineSliceItemReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.FileSystemResource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordMapperTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void columnsAreMappedToTypedProperties() throws Exception {
+        CsvRecordMapper<Payment> mapper = CsvRecordMapper.of(Payment.class, "id,,label,amount,quantity,paid,discount");
+
+        Payment payment = mapper.mapLine("7,ignored,\"Coffee, large\",3.20,2,true,", 1);
+
+        assertEquals(7L, payment.getId());
+        assertEquals("Coffee, large", payment.getLabel());
+        assertEquals(new BigDecimal("3.20"), payment.getAmount());
+        assertEquals(2, payment.getQuantity());
+        assertTrue(payment.isPaid());
+        assertNull(payment.getDiscount());
+    }
+
+    @Test
+    void invalidColumnGivesTheLineNumber() {
+        CsvRecordMapper<Payment> mapper = CsvRecordMapper.of(Payment.class, "id");
+
+        FlatFileParseException exception = assertThrows(FlatFileParseException.class, () -> mapper.mapLine("x7", 12));
+
+        assertEquals(12, exception.getLineNumber());
+        assertThrows(IllegalArgumentException.class, () -> CsvRecordMapper.of(Payment.class, "id,unknown"));
+    }
+
+    @Test
+    void recordsAreReadFromOffHeapSlicesAfterTheHeader() throws Exception {
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, Arrays.asList("id,customer,comment,amount", "1,Zoë,\"a, b\",10", "2,Ana,c,20", "3,Li,d,30"),
+                StandardCharsets.UTF_8);
+
+        ExecutionContext context = new ExecutionContext();
+
+        CsvItemReader<CustomerRecord> reader = reader(input);
+        reader.open(context);
+        assertEquals("1,Zoë,10", reader.read().toString());
+        reader.update(context);
+        reader.close();
+
+        CsvItemReader<CustomerRecord> restarted = reader(input);
+        restarted.open(context);
+        assertEquals("2,Ana,20", restarted.read().toString());
+        assertEquals(30L, restarted.read().getAmount());
+        assertNull(restarted.read());
+        restarted.close();
+    }
+
+    private static CsvItemReader<CustomerRecord> reader(Path input) {
+        LineSliceItemReader lines = new LineSliceItemReader(new FileSystemResource(input));
+        lines.setSegmentSize(16);
+
+        CsvItemReader<CustomerRecord> reader = new CsvItemReader<>(lines,
+                CsvRecordMapper.of(CustomerRecord.class, "id,customer,,amount"));
+        reader.setLinesToSkip(1);
+
+        return reader;
+    }
+
+    public static class Payment {
+
+        private long id;
+
+        private String label;
+
+        private BigDecimal amount;
+
+        private int quantity;
+
+        private boolean paid;
+
+        private Double discount = 0.5;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public Double getDiscount() {
+            return discount;
+        }
+
+        public void setDiscount(Double discount) {
+            this.discount = discount;
+        }
+    }
+}
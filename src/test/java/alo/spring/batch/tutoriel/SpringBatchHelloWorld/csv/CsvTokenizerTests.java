@@ -0,0 +1,46 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.csv;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvTokenizerTests {
+
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
+
+    @Test
+    void quotedFieldsKeepDelimitersAndUnescapeQuotes() {
+        assertEquals(5, tokenizer.tokenize("12,\"Smith, \"\"Jr\"\"\",,\"\",-42", 0));
+
+        assertEquals(12L, tokenizer.getLong(0));
+        assertEquals("Smith, \"Jr\"", tokenizer.getString(1));
+        assertTrue(tokenizer.isEmpty(2));
+        assertTrue(tokenizer.isEmpty(3));
+        assertEquals(-42, tokenizer.getInt(4));
+    }
+
+    @Test
+    void lineIsNotReadPastTheFieldsNeeded() {
+        tokenizer.setDelimiter(';');
+
+        // The third field is never reached, its unterminated quote goes unnoticed
+        assertEquals(2, tokenizer.tokenize("a;b;\"c", 2));
+        assertEquals("b", tokenizer.getString(1));
+
+        assertThrows(IllegalArgumentException.class, () -> tokenizer.tokenize("a;b;\"c", 0));
+    }
+
+    @Test
+    void trailingDelimiterGivesAnEmptyLastField() {
+        assertEquals(3, tokenizer.tokenize("yes,0,", 0));
+
+        assertTrue(tokenizer.getBoolean(0));
+        assertFalse(tokenizer.getBoolean(1));
+        assertTrue(tokenizer.isEmpty(2));
+        assertThrows(IncorrectTokenCountException.class, () -> tokenizer.getString(3));
+    }
+}
@@ -0,0 +1,105 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelLineItemWriterTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void writesCommittedChunksWithGatheringWrites() throws Exception {
+        Path output = tmp.resolve("output.csv");
+
+        ChannelLineItemWriter<String> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        writer.setLineSeparator("\n");
+        writer.setBuffers(8, 2);
+
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        writer.write(Arrays.asList("a line longer than the buffers", "b"));
+        writer.update(context);
+        writer.write(Arrays.asList("c"));
+        writer.update(context);
+        writer.close();
+
+        assertEquals(Arrays.asList("a line longer than the buffers", "b", "c"),
+                Files.readAllLines(output, StandardCharsets.UTF_8));
+        assertEquals(Files.size(output), context.getLong("ChannelLineItemWriter.offset"));
+    }
+
+    @Test
+    void everyChunkWrittenIsSyncedWithOneSyncByte() throws Exception {
+        ChannelLineItemWriter<String> writer = new ChannelLineItemWriter<>(new FileSystemResource(tmp.resolve("output.csv")));
+        writer.setSyncBytes(1);
+
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        writer.write(Arrays.asList("a", "b"));
+        writer.update(context);
+        assertEquals(1, writer.getSyncCount());
+
+        writer.update(context);
+        assertEquals(1, writer.getSyncCount());
+
+        writer.write(Arrays.asList("c"));
+        writer.update(context);
+        assertEquals(2, writer.getSyncCount());
+        writer.close();
+    }
+
+    @Test
+    void linesOfAnyLengthAreEncodedThroughTheReusedBuffer() throws Exception {
+        Path output = tmp.resolve("output.csv");
+        String longLine = "é€".repeat(3000);
+
+        ChannelLineItemWriter<String> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        writer.setLineSeparator("\r\n");
+        writer.setBuffers(1000, 3);
+
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        writer.write(Arrays.asList("short", longLine, "é", longLine.substring(1)));
+        writer.update(context);
+        writer.close();
+
+        assertEquals(Arrays.asList("short", longLine, "é", longLine.substring(1)),
+                Files.readAllLines(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void restartTruncatesToSavedOffset() throws Exception {
+        Path output = tmp.resolve("output.csv");
+
+        ChannelLineItemWriter<String> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        writer.setLineSeparator("\n");
+        writer.setBuffers(4, 1);
+
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        writer.write(Arrays.asList("committed"));
+        writer.update(context);
+        // Failing chunk: partly written because the buffer is full, never committed
+        writer.write(Arrays.asList("rolled back"));
+        writer.close();
+
+        ChannelLineItemWriter<String> restarted = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        restarted.setLineSeparator("\n");
+        restarted.open(context);
+        restarted.write(Arrays.asList("again"));
+        restarted.update(context);
+        restarted.close();
+
+        assertEquals(Arrays.asList("committed", "again"), Files.readAllLines(output, StandardCharsets.UTF_8));
+    }
+}
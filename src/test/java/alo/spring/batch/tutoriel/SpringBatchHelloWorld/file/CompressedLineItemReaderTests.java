@@ -0,0 +1,57 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompressedLineItemReaderTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void restartSkipsToTheSavedOffset() throws Exception {
+        Path input = tmp.resolve("input.csv.gz");
+        try (OutputStream out = CompressionCodec.GZIP.compress(Files.newOutputStream(input), 512, -1)) {
+            for (int i = 0; i < 1000; i++) {
+                out.write(("line " + i + "\r\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        FileSystemResource resource = new FileSystemResource(input);
+        assertEquals(CompressionCodec.GZIP, CompressionCodec.forReading(null, resource));
+
+        CompressedLineItemReader reader = new CompressedLineItemReader(resource, CompressionCodec.GZIP);
+        reader.setBuffers(64, 2);
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+        for (int i = 0; i < 500; i++) {
+            reader.read();
+        }
+        reader.update(context);
+        reader.close();
+
+        CompressedLineItemReader restarted = new CompressedLineItemReader(resource, CompressionCodec.GZIP);
+        restarted.setBuffers(64, 2);
+        restarted.open(context);
+        List<String> lines = new ArrayList<>();
+        for (String line; (line = restarted.read()) != null; ) {
+            lines.add(line);
+        }
+        restarted.close();
+
+        assertEquals(500, lines.size());
+        assertEquals("line 500", lines.get(0));
+        assertEquals("line 999", lines.get(499));
+    }
+}
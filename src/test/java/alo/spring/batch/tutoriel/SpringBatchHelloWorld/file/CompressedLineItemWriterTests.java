@@ -0,0 +1,67 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompressedLineItemWriterTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void restartAppendsAMemberAfterTheSavedOffset() throws Exception {
+        for (CompressionCodec codec : Arrays.asList(CompressionCodec.GZIP, CompressionCodec.ZSTD)) {
+            Path output = tmp.resolve("output." + codec);
+
+            CompressedLineItemWriter<String> writer = writer(output, codec);
+            ExecutionContext context = new ExecutionContext();
+            writer.open(context);
+            writer.write(Arrays.asList("a line longer than the blocks", "b"));
+            writer.update(context);
+            writer.write(Arrays.asList("c"));
+            writer.update(context);
+            // Failing chunk: partly compressed because the blocks are full, never committed
+            writer.write(Arrays.asList("rolled back", "rolled back"));
+            writer.close();
+
+            assertEquals(Files.size(output), context.getLong("CompressedLineItemWriter.offset"));
+
+            CompressedLineItemWriter<String> restarted = writer(output, codec);
+            restarted.open(context);
+            restarted.write(Arrays.asList("again"));
+            restarted.update(context);
+            restarted.close();
+
+            assertEquals(Arrays.asList("a line longer than the blocks", "b", "c", "again"), decompress(output, codec));
+            assertEquals(codec.name(), context.getString("CompressedLineItemWriter.codec"));
+        }
+    }
+
+    private static CompressedLineItemWriter<String> writer(Path output, CompressionCodec codec) {
+        CompressedLineItemWriter<String> writer = new CompressedLineItemWriter<>(new FileSystemResource(output), codec);
+        writer.setLineSeparator("\n");
+        writer.setBuffers(8, 2);
+
+        return writer;
+    }
+
+    private static List<String> decompress(Path file, CompressionCodec codec) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                codec.decompress(Files.newInputStream(file), 8192), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
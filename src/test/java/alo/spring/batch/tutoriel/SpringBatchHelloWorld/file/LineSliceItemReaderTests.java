@@ -0,0 +1,92 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineSliceItemReaderTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void slicesAreCopiedByTheWriterAndRecycledAfterEachChunk() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add("line " + i + (i % 9 == 0 ? " with more text crossing the segments" : ""));
+        }
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        Path output = tmp.resolve("output.csv");
+
+        LineSliceItemReader reader = new LineSliceItemReader(new FileSystemResource(input));
+        reader.setSegmentSize(48);
+        ChannelLineItemWriter<LineSlice> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        writer.setLineSeparator("\n");
+        writer.setBuffers(16, 2);
+
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+        writer.open(context);
+
+        int allocatedAfterFirstChunks = 0;
+        for (int chunk = 0; ; chunk++) {
+            List<LineSlice> items = new ArrayList<>();
+            for (LineSlice slice; items.size() < 10 && (slice = reader.read()) != null; ) {
+                items.add(slice);
+            }
+            if (items.isEmpty()) {
+                break;
+            }
+
+            writer.write(items);
+            writer.update(context);
+            reader.update(context);
+
+            if (chunk == 10) {
+                allocatedAfterFirstChunks = reader.getAllocatedSegments();
+            }
+        }
+        int allocated = reader.getAllocatedSegments();
+
+        reader.close();
+        writer.close();
+
+        assertEquals(lines, Files.readAllLines(output, StandardCharsets.UTF_8));
+        assertEquals(allocatedAfterFirstChunks, allocated);
+        assertEquals(Files.size(input), context.getLong("LineSliceItemReader.offset"));
+    }
+
+    @Test
+    void restartSeeksToTheSavedOffset() throws Exception {
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, "first\r\nsecond\r\nthird".getBytes(StandardCharsets.UTF_8));
+
+        LineSliceItemReader reader = new LineSliceItemReader(new FileSystemResource(input));
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+        assertEquals("first", reader.read().toString());
+        reader.update(context);
+        reader.close();
+
+        LineSliceItemReader restarted = new LineSliceItemReader(new FileSystemResource(input));
+        restarted.open(context);
+        LineSlice second = restarted.read();
+
+        assertEquals(6, second.length());
+        assertEquals('s', second.charAt(0));
+        assertEquals("second", second.toString());
+        assertEquals("third", restarted.read().toString());
+        assertEquals(null, restarted.read());
+        restarted.close();
+    }
+}
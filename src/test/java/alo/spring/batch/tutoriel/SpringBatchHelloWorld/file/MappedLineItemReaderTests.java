@@ -0,0 +1,66 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedLineItemReaderTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void readsLinesAcrossRegions() throws Exception {
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, "first\r\nsecond line longer than a region\n\nlast".getBytes(StandardCharsets.UTF_8));
+
+        MappedLineItemReader reader = new MappedLineItemReader(new FileSystemResource(input));
+        reader.setRegionSize(8);
+        reader.open(new ExecutionContext());
+
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.read()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+
+        assertEquals(Arrays.asList("first", "second line longer than a region", "", "last"), lines);
+    }
+
+    @Test
+    void restartsFromSavedByteOffset() throws Exception {
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, Arrays.asList("a", "é", "c", "d"), StandardCharsets.UTF_8);
+
+        ExecutionContext context = new ExecutionContext();
+
+        MappedLineItemReader reader = new MappedLineItemReader(new FileSystemResource(input));
+        reader.open(context);
+        reader.read();
+        reader.read();
+        reader.update(context);
+        reader.close();
+
+        assertEquals(5L, context.getLong("MappedLineItemReader.offset"));
+
+        MappedLineItemReader restarted = new MappedLineItemReader(new FileSystemResource(input));
+        restarted.open(context);
+
+        assertEquals("c", restarted.read());
+        assertEquals("d", restarted.read());
+        assertNull(restarted.read());
+        restarted.close();
+    }
+}
@@ -0,0 +1,81 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.flow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelFlowBuilderTests {
+
+    private final Set<String> executed = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void failedGroupMakesTheSplitFailed() throws Exception {
+        ResourcelessTransactionManager transactionManager = new ResourcelessTransactionManager();
+        JobRepository jobRepository = new MapJobRepositoryFactoryBean(transactionManager).getObject();
+        StepBuilderFactory steps = new StepBuilderFactory(jobRepository, transactionManager);
+
+        Flow flow = new ParallelFlowBuilder("Parallel", new SimpleAsyncTaskExecutor())
+                .group(step(steps, "a", false), step(steps, "b", false))
+                .group(step(steps, "c", true), step(steps, "d", false))
+                .build();
+
+        Step onFailure = step(steps, "onFailure", false);
+
+        Job job = new JobBuilderFactory(jobRepository)
+                .get("job")
+                .start(flow).on("FAILED").to(onFailure)
+                .from(flow).on("*").end()
+                .end()
+                .build();
+
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        JobExecution execution = launcher.run(job, new JobParameters());
+
+        Set<String> stepNames = new TreeSet<>();
+        for (StepExecution stepExecution : execution.getStepExecutions()) {
+            stepNames.add(stepExecution.getStepName());
+        }
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertTrue(executed.containsAll(Arrays.asList("a", "b", "onFailure")));
+        assertFalse(stepNames.contains("d"));
+    }
+
+    private Step step(StepBuilderFactory steps, String name, boolean fail) {
+        return steps.get(name)
+                .tasklet((contribution, chunkContext) -> {
+                    if (fail) {
+                        throw new IllegalStateException(name + " failed");
+                    }
+                    executed.add(name);
+
+                    return RepeatStatus.FINISHED;
+                })
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JdbcBatchLineItemWriterTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    private final TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(database));
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void rolledBackChunkIsWrittenAgainOnRestart() {
+        ExecutionContext context = new ExecutionContext();
+        JdbcBatchLineItemWriter<String> writer = writer(false);
+        writer.open(context);
+
+        chunk(writer, context, lines(0, 250));
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            write(writer, lines(250, 500));
+            throw new IllegalStateException("chunk failure");
+        }));
+        writer.close();
+
+        JdbcBatchLineItemWriter<String> restarted = writer(false);
+        restarted.open(context);
+        chunk(restarted, context, lines(250, 320));
+        restarted.close();
+
+        assertEquals(lines(0, 320), table("LINES"));
+        assertEquals(320L, jdbcTemplate.queryForObject("SELECT MAX(LINE_NUMBER) FROM LINES", Long.class));
+    }
+
+    @Test
+    void rowsCommittedAfterTheSavedContextAreDeletedOnRestart() {
+        ExecutionContext context = new ExecutionContext();
+        JdbcBatchLineItemWriter<String> writer = writer(false);
+        writer.open(context);
+
+        chunk(writer, context, lines(0, 250));
+        ExecutionContext saved = new ExecutionContext(context);
+        // Committed, but its context not written before the failure
+        chunk(writer, context, lines(250, 500));
+        writer.close();
+
+        JdbcBatchLineItemWriter<String> restarted = writer(false);
+        restarted.open(saved);
+        chunk(restarted, saved, lines(250, 500));
+        restarted.close();
+
+        assertEquals(lines(0, 500), table("LINES"));
+    }
+
+    @Test
+    void stagingTableIsMergedAtTheEnd() throws Exception {
+        jdbcTemplate.execute(JdbcBatchLineItemWriter.createTableStatement("LINES", 100));
+        jdbcTemplate.update("INSERT INTO LINES VALUES (1, 'old 1'), (500, 'old 500')");
+
+        ExecutionContext context = new ExecutionContext();
+        JdbcBatchLineItemWriter<String> writer = writer(true);
+        writer.open(context);
+        chunk(writer, context, lines(0, 130));
+        writer.close();
+
+        assertEquals("old 1", jdbcTemplate.queryForObject("SELECT LINE FROM LINES WHERE LINE_NUMBER = 1", String.class));
+
+        StepContribution contribution = MetaDataInstanceFactory.createStepExecution().createStepContribution();
+        transaction.executeWithoutResult(status -> {
+            try {
+                new StagingTableMerger(database, "LINES").execute(contribution, null);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(130, contribution.getWriteCount());
+        // Line 500 was past the end of the file loaded
+        assertEquals(lines(0, 130), table("LINES"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINES_STAGE", Integer.class));
+    }
+
+    @Test
+    void tableNameMustBeAnIdentifier() {
+        assertThrows(IllegalArgumentException.class, () -> new JdbcBatchLineItemWriter<>(database, "LINES; DROP TABLE X"));
+    }
+
+    private JdbcBatchLineItemWriter<String> writer(boolean staging) {
+        JdbcBatchLineItemWriter<String> writer = new JdbcBatchLineItemWriter<>(database, "LINES");
+        writer.setRowsPerStatement(100);
+        writer.setLineLength(100);
+        writer.setStaging(staging);
+
+        return writer;
+    }
+
+    /**
+     * Write and update in a transaction, as a chunk does
+     */
+    private void chunk(JdbcBatchLineItemWriter<String> writer, ExecutionContext context, List<String> items) {
+        transaction.executeWithoutResult(status -> {
+            write(writer, items);
+            writer.update(context);
+        });
+    }
+
+    private static void write(JdbcBatchLineItemWriter<String> writer, List<String> items) {
+        try {
+            writer.write(items);
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> table(String table) {
+        return jdbcTemplate.queryForList("SELECT LINE FROM " + table + " ORDER BY LINE_NUMBER", String.class);
+    }
+
+    private static List<String> lines(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "line " + i).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeysetLineItemReaderTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @BeforeEach
+    void createTable() {
+        jdbcTemplate.execute(JdbcBatchLineItemWriter.createTableStatement("LINES", 100));
+
+        // Keys with gaps, not in insertion order
+        for (int key = 300; key > 0; key -= 3) {
+            jdbcTemplate.update("INSERT INTO LINES VALUES (?, ?)", key, "line " + key);
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void rangeIsReadInKeyOrderByPages() throws Exception {
+        KeysetLineItemReader reader = new KeysetLineItemReader(database, "LINES", 30, 150);
+        reader.setPageSize(7);
+        reader.open(new ExecutionContext());
+
+        List<String> lines = readAll(reader);
+        long pages = reader.getPageCount();
+        reader.close();
+
+        List<String> expected = new ArrayList<>();
+        for (int key = 33; key <= 150; key += 3) {
+            expected.add("line " + key);
+        }
+
+        assertEquals(expected, lines);
+        // 40 lines: 5 full pages and a last one of 5 lines, no query for the end of the range
+        assertEquals(6, pages);
+    }
+
+    @Test
+    void restartSeeksAfterTheLastKeySaved() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+
+        KeysetLineItemReader reader = new KeysetLineItemReader(database, "LINES");
+        reader.setPageSize(4);
+        reader.open(context);
+        for (int i = 0; i < 10; i++) {
+            reader.read();
+        }
+        reader.update(context);
+        reader.read();
+        reader.close();
+
+        KeysetLineItemReader restarted = new KeysetLineItemReader(database, "LINES");
+        restarted.setPageSize(4);
+        restarted.open(context);
+
+        assertEquals("line 33", restarted.read());
+        assertEquals(1, restarted.getPageCount());
+        assertEquals(100, 10 + 1 + readAll(restarted).size());
+        restarted.close();
+    }
+
+    private static List<String> readAll(KeysetLineItemReader reader) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String line;
+
+        while ((line = reader.read()) != null) {
+            lines.add(line);
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,143 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventJournalTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void listenerEventsAreRenderedAsText() throws Exception {
+        File file = tmp.resolve("events.journal").toFile();
+
+        EventJournal journal = new EventJournal(file);
+        EventJournalListener listener = new EventJournalListener(journal);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createJobExecution("job", 1L, 7L)
+                .createStepExecution("step:partition0001");
+        stepExecution.setId(3L);
+        listener.beforeJob(stepExecution.getJobExecution());
+        listener.beforeStep(stepExecution);
+
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        listener.beforeChunk(chunkContext);
+        stepExecution.setReadCount(10);
+        stepExecution.setWriteCount(9);
+        listener.afterChunk(chunkContext);
+
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+        stepExecution.getJobExecution().setStatus(BatchStatus.COMPLETED);
+        listener.afterJob(stepExecution.getJobExecution());
+        journal.close();
+
+        List<String> lines = render(file);
+
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).endsWith("] JOB_START job job=7 status=STARTING"), lines.get(0));
+        assertTrue(lines.get(2).contains("] CHUNK step:partition0001 job=7 step=3 status=STARTING read=10 write=9 "),
+                lines.get(2));
+        assertTrue(lines.get(3).endsWith("STEP_END step:partition0001 job=7 step=3 status=COMPLETED read=10 write=9 skip=0"),
+                lines.get(3));
+        assertTrue(lines.get(4).contains("[" + Thread.currentThread().getName() + "] JOB_END job job=7 status=COMPLETED"),
+                lines.get(4));
+    }
+
+    @Test
+    void eventsOfConcurrentThreadsAreAllJournaledAndAppended() throws Exception {
+        File file = tmp.resolve("events.journal").toFile();
+        int threadCount = 4;
+        int eventCount = 10_000;
+
+        for (int run = 0; run < 2; run++) {
+            EventJournal journal = new EventJournal(file, 1024, 1);
+            List<Thread> threads = new ArrayList<>();
+
+            for (int t = 0; t < threadCount; t++) {
+                String stepName = "step" + t;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < eventCount; i++) {
+                        while (!journal.append(EventJournal.CHUNK, 0, stepName, 1, 2, i, i, 0)) {
+                            Thread.yield();
+                        }
+                    }
+                }, "writer-" + t);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            journal.close();
+        }
+
+        List<String> lines = render(file);
+
+        assertEquals(2 * threadCount * eventCount,
+                lines.stream().filter(line -> line.contains(" CHUNK ")).count());
+        // Each thread's events are journaled in the order they were written
+        for (int t = 0; t < threadCount; t++) {
+            String prefix = "[writer-" + t + "] CHUNK step" + t + " ";
+            List<String> events = lines.stream().filter(line -> line.contains(prefix)).collect(Collectors.toList());
+
+            assertEquals(2 * eventCount, events.size());
+            assertTrue(events.get(eventCount - 1).contains(" read=" + (eventCount - 1) + " "));
+            assertTrue(events.get(eventCount).contains(" read=0 "));
+        }
+    }
+
+    @Test
+    void eventsAreDroppedAndCountedWhenTheRingIsFull() throws Exception {
+        File file = tmp.resolve("events.journal").toFile();
+        int eventCount = 100;
+
+        EventJournal journal = new EventJournal(file, 4, 60_000);
+        int appended = 0;
+        for (int i = 0; i < eventCount; i++) {
+            appended += journal.append(EventJournal.JOB_START, 0, "job", i, 0, 0, 0, 0) ? 1 : 0;
+        }
+        journal.close();
+
+        List<String> lines = render(file);
+
+        assertEquals(eventCount - appended, journal.getDroppedCount());
+        assertTrue(journal.getDroppedCount() > 0);
+        assertEquals(appended, lines.stream().filter(line -> line.contains(" JOB_START ")).count());
+        // The drops may be reported in several records, the last one holding the total
+        List<String> reports = lines.stream().filter(line -> line.contains(" DROPPED ")).collect(Collectors.toList());
+        assertEquals(journal.getDroppedCount(), reports.stream()
+                .mapToLong(line -> Long.parseLong(line.substring(line.indexOf("dropped=") + 8, line.indexOf(" total="))))
+                .sum());
+        assertTrue(reports.get(reports.size() - 1).endsWith(" total=" + journal.getDroppedCount()));
+    }
+
+    private static List<String> render(File file) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+            new EventJournalReader().render(file, print);
+        }
+
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8).split(System.lineSeparator()));
+    }
+}
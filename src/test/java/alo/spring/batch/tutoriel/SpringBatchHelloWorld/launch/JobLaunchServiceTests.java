@@ -0,0 +1,143 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobLaunchServiceTests {
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    private final List<String> ended = new CopyOnWriteArrayList<>();
+
+    private final Semaphore starts = new Semaphore(0);
+
+    private final Map<String, CountDownLatch> releases = new ConcurrentHashMap<>();
+
+    /**
+     * Launcher recording the value of the "name" parameter, then waiting for the test to release this job
+     */
+    private final JobLauncher launcher = (job, parameters) -> {
+        String name = parameters.getString("name");
+        started.add(name);
+        starts.release();
+        try {
+            latch(name).await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ended.add(name);
+        JobExecution execution = MetaDataInstanceFactory.createJobExecution(job.getName(), 1L, 1L, parameters);
+        execution.setStatus(BatchStatus.COMPLETED);
+        return execution;
+    };
+
+    @Test
+    void jobLimitLetsOtherJobsGoFirst() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JobLaunchService service = new JobLaunchService(
+                Arrays.asList(new SimpleJob("A"), new SimpleJob("B")), launcher, registry, 4);
+
+        JobRequest a1 = service.submit("A", parameters("a1"), 0);
+        JobRequest a2 = service.submit("A", parameters("a2"), 0);
+        JobRequest b1 = service.submit("B", parameters("b1"), 0);
+
+        awaitStarts(2);
+        // a1 and b1 run on two workers, they may start in either order
+        assertEquals(new HashSet<>(Arrays.asList("a1", "b1")), new HashSet<>(started));
+        assertEquals(1, service.queueSize());
+        assertEquals(1, service.runningCount("A"));
+
+        // The end of b1 frees a worker, but A is still at its limit
+        release("b1");
+        assertEquals(BatchStatus.COMPLETED, b1.getExecution().get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, service.queueSize());
+
+        release("a1");
+        awaitStarts(1);
+        assertEquals("a2", started.get(2));
+        assertEquals(Arrays.asList("b1", "a1"), ended);
+
+        release("a2");
+        for (JobRequest request : Arrays.asList(a1, a2)) {
+            assertEquals(BatchStatus.COMPLETED, request.getExecution().get(10, TimeUnit.SECONDS).getStatus());
+        }
+        service.shutdown();
+
+        assertEquals(2, registry.get("batch.launcher.queue.wait").tag("job", "A").timer().count());
+        assertEquals(1, registry.get("batch.launcher.run").tag("job", "B").tag("status", "COMPLETED").timer().count());
+    }
+
+    @Test
+    void higherPriorityStartsFirst() throws Exception {
+        JobLaunchService service = new JobLaunchService(
+                Collections.singletonList(new SimpleJob("A")), launcher, new SimpleMeterRegistry(), 1);
+        service.setJobLimits(Collections.singletonMap("A", 3));
+
+        service.submit("A", parameters("running"), 0);
+        awaitStarts(1);
+        service.submit("A", parameters("low"), 1);
+        service.submit("A", parameters("high"), 9);
+        JobRequest last = service.submit("A", parameters("low again"), 1);
+
+        release("running", "low", "high", "low again");
+        last.getExecution().get(10, TimeUnit.SECONDS);
+        service.shutdown();
+
+        assertEquals(Arrays.asList("running", "high", "low", "low again"), started);
+    }
+
+    @Test
+    void invalidParametersAreRejectedWhenSubmitted() {
+        SimpleJob job = new SimpleJob("A");
+        job.setJobParametersValidator(new DefaultJobParametersValidator(new String[]{"name", "outputFile"}, new String[0]));
+        JobLaunchService service = new JobLaunchService(
+                Collections.singletonList(job), launcher, new SimpleMeterRegistry(), 1);
+
+        assertThrows(JobParametersInvalidException.class, () -> service.submit("A", parameters("a1"), 0));
+        assertEquals(0, service.queueSize());
+        assertTrue(started.isEmpty());
+    }
+
+    private static JobParameters parameters(String name) {
+        return new JobParametersBuilder().addString("name", name).toJobParameters();
+    }
+
+    private CountDownLatch latch(String name) {
+        return releases.computeIfAbsent(name, key -> new CountDownLatch(1));
+    }
+
+    private void release(String... names) {
+        for (String name : names) {
+            latch(name).countDown();
+        }
+    }
+
+    private void awaitStarts(int count) throws InterruptedException {
+        assertTrue(starts.tryAcquire(count, 10, TimeUnit.SECONDS), "jobs started: " + started);
+    }
+}
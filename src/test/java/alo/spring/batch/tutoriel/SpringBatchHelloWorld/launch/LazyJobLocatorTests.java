@@ -0,0 +1,93 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.launch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersIncrementer;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyJobLocatorTests {
+
+    private final List<String> built = new ArrayList<>();
+
+    @Test
+    void onlyTheJobAskedForIsBuilt() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        register(beanFactory, "jobReadFile", "Job Processing file");
+        register(beanFactory, "jobWithSystemCommand", "Job with System call");
+        beanFactory.registerAlias("jobReadFile", "Job Processing file");
+
+        LazyJobLocator locator = new LazyJobLocator(beanFactory);
+
+        assertTrue(locator.getJobNames().containsAll(
+                Arrays.asList("jobReadFile", "Job Processing file", "jobWithSystemCommand")));
+        assertTrue(built.isEmpty(), "listing the names builds no job");
+
+        Job job = locator.getJob("Job Processing file");
+
+        assertEquals("Job Processing file", job.getName());
+        assertSame(job, locator.getJob("jobReadFile"));
+        assertEquals(Arrays.asList("Job Processing file"), built);
+
+        assertThrows(NoSuchJobException.class, () -> locator.getJob("unknown"));
+    }
+
+    private void register(DefaultListableBeanFactory beanFactory, String beanName, String jobName) {
+        beanFactory.registerBeanDefinition(beanName, BeanDefinitionBuilder
+                .genericBeanDefinition(Job.class, () -> {
+                    built.add(jobName);
+                    return new NamedJob(jobName);
+                })
+                .setLazyInit(true)
+                .getBeanDefinition());
+    }
+
+    /**
+     * Job doing nothing, only its name matters
+     */
+    private static class NamedJob implements Job {
+
+        private final String name;
+
+        NamedJob(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isRestartable() {
+            return false;
+        }
+
+        @Override
+        public void execute(JobExecution execution) {
+        }
+
+        @Override
+        public JobParametersIncrementer getJobParametersIncrementer() {
+            return null;
+        }
+
+        @Override
+        public JobParametersValidator getJobParametersValidator() {
+            return new DefaultJobParametersValidator();
+        }
+    }
+}
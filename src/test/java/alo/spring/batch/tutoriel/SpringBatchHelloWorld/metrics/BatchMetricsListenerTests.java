@@ -0,0 +1,46 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchMetricsListenerTests {
+
+    @Test
+    void chunksPublishItemCountsAndLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BatchMetricsListener listener = new BatchMetricsListener(registry);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createJobExecution("job", 1L, 1L)
+                .createStepExecution("step:partition0001");
+        stepExecution.setId(1L);
+        listener.beforeJob(stepExecution.getJobExecution());
+        listener.beforeStep(stepExecution);
+
+        for (int chunk = 0; chunk < 3; chunk++) {
+            ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+            listener.beforeChunk(chunkContext);
+            stepExecution.setReadCount(stepExecution.getReadCount() + 10);
+            stepExecution.setWriteCount(stepExecution.getWriteCount() + 10);
+            listener.afterChunk(chunkContext);
+        }
+
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+        stepExecution.getJobExecution().setStatus(BatchStatus.COMPLETED);
+        listener.afterJob(stepExecution.getJobExecution());
+
+        assertEquals(30, registry.get("batch.step.items").tags("step.name", "step", "type", "write").counter().count());
+        assertEquals(3, registry.get("batch.chunk.duration").tags("step.name", "step").timer().count());
+        assertEquals(3, registry.get("batch.chunk.throughput").summary().count());
+        assertEquals(1, registry.get("batch.step.duration").tags("status", "COMPLETED").timer().count());
+        assertEquals(1, registry.get("batch.job.duration").tags("job.name", "job").timer().count());
+    }
+}
@@ -0,0 +1,113 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangeLineItemReaderTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void restartSeeksToTheSavedOffset() throws Exception {
+        Path input = input(10);
+
+        ByteRangeLineItemReader reader = new ByteRangeLineItemReader(new FileSystemResource(input));
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+        for (int i = 0; i < 4; i++) {
+            reader.read();
+        }
+        reader.update(context);
+        reader.close();
+
+        // Re-reading the lines already processed would now miscount them
+        removeLineFeeds(input, 0, 2);
+
+        ByteRangeLineItemReader restarted = new ByteRangeLineItemReader(new FileSystemResource(input));
+        restarted.open(context);
+
+        assertEquals("line 4", restarted.read());
+        restarted.close();
+    }
+
+    @Test
+    void contextWithoutOffsetIsResumedFromTheLineIndex() throws Exception {
+        Path input = input(10);
+        File index = tmp.resolve("input.csv.lineidx").toFile();
+
+        ByteRangeLineItemReader reader = new ByteRangeLineItemReader(new FileSystemResource(input));
+        reader.setLineIndex(index, 3);
+        reader.open(new ExecutionContext());
+        List<String> lines = new ArrayList<>();
+        for (String line; (line = reader.read()) != null; ) {
+            lines.add(line);
+        }
+        reader.close();
+
+        assertEquals(10, lines.size());
+        assertTrue(index.exists());
+
+        // Only the line count, as saved by a FlatFileItemReader
+        ExecutionContext context = new ExecutionContext();
+        context.putInt("ByteRangeLineItemReader.read.count", 7);
+
+        // Lines before the indexed line 6 are not read again
+        removeLineFeeds(input, 0, 5);
+
+        ByteRangeLineItemReader restarted = new ByteRangeLineItemReader(new FileSystemResource(input));
+        restarted.setLineIndex(index, 3);
+        restarted.open(context);
+
+        assertEquals("line 7", restarted.read());
+        restarted.close();
+    }
+
+    private Path input(int count) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("line " + i);
+        }
+
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        return input;
+    }
+
+    /**
+     * Replace the line feeds ending the lines [from, to] by spaces, keeping the size and the modification date
+     */
+    private static void removeLineFeeds(Path file, int from, int to) throws Exception {
+        long lastModified = file.toFile().lastModified();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            int line = 0;
+            for (long offset = 0; offset < raf.length() && line <= to; offset++) {
+                raf.seek(offset);
+                if (raf.read() == '\n') {
+                    if (line >= from) {
+                        raf.seek(offset);
+                        raf.write(' ');
+                    }
+                    line++;
+                }
+            }
+        }
+
+        file.toFile().setLastModified(lastModified);
+    }
+}
@@ -0,0 +1,78 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class KeyRangePartitionerTests {
+
+    @TempDir
+    Path tmp;
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void rangesCoverTheKeysWithoutOverlap() throws Exception {
+        jdbcTemplate.execute("CREATE TABLE LINES (LINE_NUMBER BIGINT NOT NULL PRIMARY KEY, LINE VARCHAR(100))");
+        for (int key = 11; key <= 20; key++) {
+            jdbcTemplate.update("INSERT INTO LINES VALUES (?, ?)", key, "line " + key);
+        }
+
+        Path output = tmp.resolve("output.csv");
+        Files.write(partOutput(output, 3), Arrays.asList("stale"));
+
+        Map<String, ExecutionContext> partitions =
+                new KeyRangePartitioner(database, "LINES", new FileSystemResource(output)).partition(3);
+
+        List<String> ranges = new ArrayList<>();
+        partitions.values().forEach(context -> ranges.add(
+                context.getLong(KeyRangePartitioner.FROM_KEY) + "-" + context.getLong(KeyRangePartitioner.TO_KEY)));
+
+        assertEquals(Arrays.asList("10-14", "14-17", "17-20"), ranges);
+        assertEquals(LineAlignedFilePartitioner.partOutputFile(output.toString(), 2),
+                partitions.get("range0002").getString(LineAlignedFilePartitioner.OUTPUT_FILE_KEY));
+        assertFalse(Files.exists(partOutput(output, 3)));
+    }
+
+    @Test
+    void emptyTableGivesASingleEmptyRange() {
+        jdbcTemplate.execute("CREATE TABLE LINES (LINE_NUMBER BIGINT NOT NULL PRIMARY KEY, LINE VARCHAR(100))");
+
+        Map<String, ExecutionContext> partitions =
+                new KeyRangePartitioner(database, "LINES", new FileSystemResource(tmp.resolve("output.csv"))).partition(4);
+
+        assertEquals(1, partitions.size());
+        assertEquals(0, partitions.get("range0000").getLong(KeyRangePartitioner.TO_KEY));
+    }
+
+    private static Path partOutput(Path output, int index) {
+        return Paths.get(LineAlignedFilePartitioner.partOutputFile(output.toString(), index));
+    }
+}
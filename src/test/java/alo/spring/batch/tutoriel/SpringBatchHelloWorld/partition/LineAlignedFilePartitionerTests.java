@@ -0,0 +1,88 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineAlignedFilePartitionerTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void partitionsReadBackEveryLineOnce() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("line " + i + (i % 7 == 0 ? " with some more text" : ""));
+        }
+
+        Path input = tmp.resolve("input.csv");
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        LineAlignedFilePartitioner partitioner =
+                new LineAlignedFilePartitioner(new FileSystemResource(input), new FileSystemResource(tmp.resolve("output.csv")));
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(7);
+
+        assertEquals(7, partitions.size());
+
+        List<String> read = new ArrayList<>();
+        long expectedStart = 0;
+
+        for (ExecutionContext context : partitions.values()) {
+            assertEquals(expectedStart, context.getLong(LineAlignedFilePartitioner.START_KEY));
+            expectedStart = context.getLong(LineAlignedFilePartitioner.END_KEY);
+
+            ByteRangeLineItemReader reader = new ByteRangeLineItemReader(new FileSystemResource(input),
+                    context.getLong(LineAlignedFilePartitioner.START_KEY),
+                    context.getLong(LineAlignedFilePartitioner.END_KEY));
+
+            reader.open(new ExecutionContext());
+            String line;
+            while ((line = reader.read()) != null) {
+                read.add(line);
+            }
+            reader.close();
+        }
+
+        assertEquals(Files.size(input), expectedStart);
+        assertEquals(lines, read);
+    }
+
+    @Test
+    void partOutputsAreJoinedInPartitionIndexOrder() throws Exception {
+        String output = tmp.resolve("output.csv").toString();
+        // Indexes wider than the zero padding sort before the narrower ones by name
+        for (int index : new int[]{9998, 9999, 10000, 10001}) {
+            Files.write(Path.of(LineAlignedFilePartitioner.partOutputFile(output, index)),
+                    List.of("part " + index), StandardCharsets.UTF_8);
+        }
+
+        new PartitionOutputAggregator(new FileSystemResource(output)).execute(null, null);
+
+        assertEquals(List.of("part 9998", "part 9999", "part 10000", "part 10001"),
+                Files.readAllLines(Path.of(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void forcedPartitionCountWinsOverGridSize() throws Exception {
+        Path input = tmp.resolve("small.csv");
+        Files.write(input, "a\nb\nc\nd\n".getBytes(StandardCharsets.UTF_8));
+
+        LineAlignedFilePartitioner partitioner =
+                new LineAlignedFilePartitioner(new FileSystemResource(input), new FileSystemResource(tmp.resolve("output.csv")));
+        partitioner.setPartitions(2);
+
+        assertEquals(2, partitioner.partition(16).size());
+    }
+}
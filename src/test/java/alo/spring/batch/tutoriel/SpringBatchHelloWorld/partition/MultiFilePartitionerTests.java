@@ -0,0 +1,97 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.CompressionCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiFilePartitionerTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void onePartitionPerMatchingFileSortedByPath() throws Exception {
+        Path shards = Files.createDirectory(tmp.resolve("shards"));
+        Files.write(shards.resolve("b.csv"), Arrays.asList("b1", "b2"));
+        Files.write(shards.resolve("a.csv"), Arrays.asList("a1"));
+        Files.write(shards.resolve("c.txt"), Arrays.asList("c1"));
+
+        Path output = tmp.resolve("output.csv");
+
+        MultiFilePartitioner partitioner = new MultiFilePartitioner("file:" + shards + "/*.csv", new FileSystemResource(output));
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+
+        assertEquals(Arrays.asList("file00000", "file00001"), new ArrayList<>(partitions.keySet()));
+
+        ExecutionContext second = partitions.get("file00001");
+        assertEquals(shards.resolve("b.csv").toString(), second.getString(MultiFilePartitioner.INPUT_FILE_KEY));
+        assertEquals(Files.size(shards.resolve("b.csv")), second.getLong(LineAlignedFilePartitioner.END_KEY));
+        assertEquals(LineAlignedFilePartitioner.partOutputFile(output.toString(), 1),
+                second.getString(LineAlignedFilePartitioner.OUTPUT_FILE_KEY));
+    }
+
+    @Test
+    void restartFailsWhenTheFilesHaveChanged() throws Exception {
+        Path shards = Files.createDirectory(tmp.resolve("shards"));
+        Files.write(shards.resolve("a.csv"), Arrays.asList("a1"));
+        Files.write(shards.resolve("c.csv"), Arrays.asList("c1"));
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        partitioner(shards, stepExecution).partition(1);
+
+        // Same files: the restart goes on
+        StepExecution restart = MetaDataInstanceFactory.createStepExecution();
+        restart.setExecutionContext(new ExecutionContext(stepExecution.getExecutionContext()));
+        assertEquals(2, partitioner(shards, restart).partition(1).size());
+
+        // A new file would take the index of c.csv
+        Files.write(shards.resolve("b.csv"), Arrays.asList("b1"));
+        assertThrows(ItemStreamException.class, () -> partitioner(shards, restart).partition(1));
+    }
+
+    @Test
+    void directoryGivesOneOutputPerFile() throws Exception {
+        Path shards = Files.createDirectory(tmp.resolve("shards"));
+        Files.write(shards.resolve("a.csv.gz"), new byte[]{0x1f, (byte) 0x8b});
+        Files.write(shards.resolve("b.csv"), Arrays.asList("b1"));
+
+        Path outputs = tmp.resolve("outputs");
+
+        MultiFilePartitioner partitioner = new MultiFilePartitioner("file:" + shards, new FileSystemResource(outputs));
+        partitioner.setOutputPerFile(true);
+        partitioner.setOutputCodec(CompressionCodec.ZSTD);
+
+        List<String> outputFiles = new ArrayList<>();
+        for (ExecutionContext context : partitioner.partition(1).values()) {
+            outputFiles.add(context.getString(LineAlignedFilePartitioner.OUTPUT_FILE_KEY));
+        }
+
+        assertEquals(Arrays.asList(outputs.resolve("a.csv.zst").toString(), outputs.resolve("b.csv.zst").toString()),
+                outputFiles);
+        assertTrue(Files.isDirectory(outputs));
+    }
+
+    private MultiFilePartitioner partitioner(Path shards, StepExecution stepExecution) {
+        MultiFilePartitioner partitioner = new MultiFilePartitioner("file:" + shards + "/*.csv",
+                new FileSystemResource(tmp.resolve("output.csv")));
+        partitioner.setStepExecution(stepExecution);
+
+        return partitioner;
+    }
+}
@@ -0,0 +1,64 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.support.ListItemWriter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncItemProcessorTests {
+
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @BeforeEach
+    void startExecutor() {
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(4);
+        taskExecutor.initialize();
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void keepsInputOrderAndFiltersNullResults() throws Exception {
+        AsyncItemProcessor<Integer, String> processor = new AsyncItemProcessor<>(item -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            return item % 3 == 0 ? null : "item" + item;
+        }, taskExecutor, 4, 2);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            futures.add(processor.process(i));
+        }
+
+        ListItemWriter<String> delegate = new ListItemWriter<>();
+        new AsyncItemWriter<>(delegate).write(futures);
+
+        assertEquals(Arrays.asList("item1", "item2", "item4", "item5", "item7", "item8", "item10"),
+                delegate.getWrittenItems());
+    }
+
+    @Test
+    void processingExceptionIsThrownByTheWriter() throws Exception {
+        AsyncItemProcessor<Integer, String> processor = new AsyncItemProcessor<>(item -> {
+            throw new IllegalArgumentException("bad item " + item);
+        }, taskExecutor, 4, 4);
+
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(processor.process(1));
+
+        assertThrows(IllegalArgumentException.class, () -> new AsyncItemWriter<>(new ListItemWriter<String>()).write(futures));
+    }
+}
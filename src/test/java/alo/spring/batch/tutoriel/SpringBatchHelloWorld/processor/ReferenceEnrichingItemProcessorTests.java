@@ -0,0 +1,240 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.processor;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.ChunkHandler;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote.ChunkRequest;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository.InMemoryJobRepositoryFactoryBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.item.support.ListItemWriter;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReferenceEnrichingItemProcessorTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+
+    @BeforeEach
+    void createReferenceTable() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE REFERENCE (ID BIGINT PRIMARY KEY, NAME VARCHAR(20))");
+
+        // Keys 0 to 48, even only
+        for (int key = 0; key < 50; key += 2) {
+            jdbcTemplate.update("INSERT INTO REFERENCE VALUES (?, ?)", key, "name" + key);
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void missesOfAChunkAreResolvedByOneQuery() throws Exception {
+        ReferenceEnrichingItemProcessor processor = new ReferenceEnrichingItemProcessor(database, "REFERENCE",
+                "ID", "NAME");
+        processor.setKeyField(1);
+
+        List<String> lines = run(processor);
+
+        assertEquals(expected(), lines);
+        // 10 chunks of 10 lines, the keys of the last 5 chunks being those of the first 5:
+        // the first line of each of the first 5 chunks misses and its query resolves the other lines
+        assertEquals(5, processor.getQueryCount());
+        assertEquals(5, processor.getMissCount());
+        assertEquals(95, processor.getHitCount());
+    }
+
+    @Test
+    void inListsAreLimitedToMaxKeysPerQuery() throws Exception {
+        ReferenceEnrichingItemProcessor processor = new ReferenceEnrichingItemProcessor(database, "REFERENCE",
+                "ID", "NAME");
+        processor.setKeyField(1);
+        processor.setMaxKeysPerQuery(4);
+
+        assertEquals(expected(), run(processor));
+        assertEquals(5 * 3, processor.getQueryCount());
+    }
+
+    @Test
+    void preloadedTableIsNotQueriedAgain() throws Exception {
+        ReferenceEnrichingItemProcessor processor = new ReferenceEnrichingItemProcessor(database, "REFERENCE",
+                "ID", "NAME");
+        processor.setKeyField(1);
+        processor.setPreload(true);
+
+        assertEquals(expected(), run(processor));
+        assertEquals(1, processor.getQueryCount());
+        assertEquals(100, processor.getHitCount());
+        assertEquals(0, processor.getMissCount());
+    }
+
+    @Test
+    void remoteWorkerResolvesTheMissesOfAChunkTogetherAndUsesThePreload() {
+        ReferenceEnrichingItemProcessor processor = new ReferenceEnrichingItemProcessor(database, "REFERENCE",
+                "ID", "NAME");
+        processor.setKeyField(1);
+        List<String> written = new ArrayList<>();
+        ChunkHandler<String, String> handler = new ChunkHandler<>(processor, new ListStreamWriter(written));
+
+        handler.open();
+        for (int chunk = 0; chunk < 10; chunk++) {
+            handler.handle(new ChunkRequest<>(chunk, 0, lines(chunk * 10, 10)));
+        }
+        handler.close();
+
+        assertEquals(expected(), written);
+        assertEquals(5, processor.getQueryCount());
+
+        ReferenceEnrichingItemProcessor preloading = new ReferenceEnrichingItemProcessor(database, "REFERENCE",
+                "ID", "NAME");
+        preloading.setKeyField(1);
+        preloading.setPreload(true);
+        written.clear();
+        handler = new ChunkHandler<>(preloading, new ListStreamWriter(written));
+
+        handler.open();
+        handler.handle(new ChunkRequest<>(0, 0, lines(0, 100)));
+        handler.close();
+
+        assertEquals(expected(), written);
+        assertEquals(1, preloading.getQueryCount());
+        assertEquals(100, preloading.getHitCount());
+    }
+
+    @Test
+    void cacheEvictsTheLeastRecentlyUsedAndTheExpiredValues() throws Exception {
+        ReferenceCache<String> cache = new ReferenceCache<>(2, 0);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+
+        assertEquals("one", cache.peek(1));
+        assertNull(cache.peek(2));
+        assertEquals(1, cache.getEvictionCount());
+
+        ReferenceCache<String> expiring = new ReferenceCache<>(10, 1);
+        expiring.put(1, "one");
+        expiring.put(2, "two");
+        Thread.sleep(5);
+
+        assertNull(expiring.get(1));
+        assertEquals(1, expiring.evictExpired());
+        assertEquals(0, expiring.size());
+        assertEquals(2, expiring.getEvictionCount());
+        assertEquals(1, expiring.getMissCount());
+    }
+
+    @Test
+    void longKeyMapGrowsBeyondItsExpectedSize() {
+        LongKeyMap<String> map = new LongKeyMap<>(2);
+
+        for (long key = -500; key < 500; key++) {
+            map.put(key * 1024, "v" + key);
+        }
+        map.put(0, "zero");
+
+        assertEquals(1000, map.size());
+        assertEquals("v-500", map.get(-500 * 1024));
+        assertEquals("zero", map.get(0));
+        assertNull(map.get(1));
+    }
+
+    /**
+     * @return lines "line,key" from the line first, the keys going from 0 to 49
+     */
+    private static List<String> lines(int first, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            lines.add("line" + i + "," + (i % 50));
+        }
+
+        return lines;
+    }
+
+    /**
+     * @return lines "line,key" for the keys 0 to 49, twice, enriched with their name
+     */
+    private static List<String> expected() {
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            int key = i % 50;
+            lines.add("line" + i + "," + key + "," + (key % 2 == 0 ? "name" + key : ""));
+        }
+
+        return lines;
+    }
+
+    /**
+     * Run a step reading 100 lines "line,key" in chunks of 10, the processor being run by an AsyncItemProcessor
+     */
+    private static List<String> run(ReferenceEnrichingItemProcessor processor) throws Exception {
+        List<String> lines = lines(0, 100);
+
+        JobRepository jobRepository = new InMemoryJobRepositoryFactoryBean().getObject();
+        ListItemWriter<String> writer = new ListItemWriter<>();
+
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        JobExecution execution = launcher.run(new JobBuilderFactory(jobRepository)
+                        .get("job")
+                        .start(new StepBuilderFactory(jobRepository, new ResourcelessTransactionManager())
+                                .get("step")
+                                .<String, Future<String>>chunk(10)
+                                .reader(new ListItemReader<>(lines))
+                                .processor(new AsyncItemProcessor<>(processor,
+                                        new TaskExecutorAdapter(new SyncTaskExecutor()), 1, 1))
+                                .writer(new AsyncItemWriter<>(writer))
+                                .build())
+                        .build(),
+                new JobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+
+        return new ArrayList<>(writer.getWrittenItems());
+    }
+
+    private static class ListStreamWriter extends ItemStreamSupport implements ItemStreamWriter<String> {
+
+        private final List<String> written;
+
+        ListStreamWriter(List<String> written) {
+            this.written = written;
+        }
+
+        @Override
+        public void write(List<? extends String> items) {
+            written.addAll(items);
+        }
+    }
+}
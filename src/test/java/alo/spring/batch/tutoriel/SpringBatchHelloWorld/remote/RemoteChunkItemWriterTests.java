@@ -0,0 +1,402 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.remote;
+
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.file.ChannelLineItemWriter;
+import alo.spring.batch.tutoriel.SpringBatchHelloWorld.partition.PartitionOutputAggregator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.support.PassThroughItemProcessor;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RemoteChunkItemWriterTests {
+
+    @Test
+    void socketWorkersReceiveEveryChunk() throws Exception {
+        ListWriter first = new ListWriter();
+        ListWriter second = new ListWriter();
+        SocketChunkWorker<Integer> firstWorker = new SocketChunkWorker<>(0, new ChunkHandler<>(new PassThroughItemProcessor<>(), first));
+        SocketChunkWorker<Integer> secondWorker = new SocketChunkWorker<>(0, new ChunkHandler<>(new PassThroughItemProcessor<>(), second));
+        firstWorker.start();
+        secondWorker.start();
+
+        try {
+            CountingReader reader = new CountingReader();
+            RemoteChunkItemWriter<Integer> writer = new RemoteChunkItemWriter<>(new SocketChunkTransport<>(Arrays.asList(
+                    new InetSocketAddress("localhost", firstWorker.getPort()),
+                    new InetSocketAddress("localhost", secondWorker.getPort()))), reader);
+            writer.setMaxInFlight(2);
+
+            assertNull(run(writer, reader, 20, 10));
+        }
+        finally {
+            firstWorker.stop();
+            secondWorker.stop();
+        }
+
+        List<Integer> items = new ArrayList<>(first.items);
+        items.addAll(second.items);
+        Collections.sort(items);
+
+        assertEquals(range(200), items);
+        assertEquals(100, first.items.size());
+    }
+
+    @Test
+    void socketWorkersWriteTheOutputsNamedByTheManager(@TempDir Path directory) throws Exception {
+        Path output = directory.resolve("out.csv");
+        List<SocketChunkWorker<Integer>> workers = new ArrayList<>();
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        List<String> workerOutputs = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            SocketChunkWorker<Integer> worker = new SocketChunkWorker<>(0, new ChunkHandler<>(new PassThroughItemProcessor<>(), new ListWriter()));
+            worker.setOutputHandlers(path -> new ChunkHandler<>(new PassThroughItemProcessor<>(),
+                    new ChannelLineItemWriter<>(new FileSystemResource(path))));
+            worker.start();
+
+            workers.add(worker);
+            addresses.add(new InetSocketAddress("localhost", worker.getPort()));
+            workerOutputs.add(output + String.format(".worker%04d", i));
+        }
+        // Left by a former execution
+        Files.write(Paths.get(workerOutputs.get(1)), Collections.singletonList("stale"));
+
+        try {
+            SocketChunkTransport<Integer> transport = new SocketChunkTransport<>(addresses);
+            transport.setWorkerOutputs(workerOutputs);
+
+            CountingReader reader = new CountingReader();
+            assertNull(run(new RemoteChunkItemWriter<>(transport, reader), reader, 20, 10));
+        }
+        finally {
+            workers.forEach(SocketChunkWorker::stop);
+        }
+
+        PartitionOutputAggregator aggregator = new PartitionOutputAggregator(new FileSystemResource(output.toFile()));
+        aggregator.setPartSuffix(".worker");
+        aggregator.execute(null, null);
+
+        List<Integer> items = Files.readAllLines(output).stream()
+                .map(Integer::valueOf).sorted().collect(Collectors.toList());
+        assertEquals(range(200), items);
+        assertFalse(Files.exists(Paths.get(workerOutputs.get(0))));
+    }
+
+    @Test
+    void lostChunkIsSentAgain() throws Exception {
+        CountingReader reader = new CountingReader();
+        ListWriter output = new ListWriter();
+        InMemoryChunkTransport<Integer> transport = new InMemoryChunkTransport<>(
+                Collections.singletonList(new ChunkHandler<>(new PassThroughItemProcessor<>(), output)));
+
+        RemoteChunkItemWriter<Integer> writer = new RemoteChunkItemWriter<>(new ChunkTransport<Integer>() {
+            @Override
+            public void open() throws IOException {
+                transport.open();
+            }
+
+            @Override
+            public void send(ChunkRequest<Integer> request) throws IOException {
+                // The first sending of chunk 3 is lost
+                if (request.getSequence() != 3 || request.getAttempt() > 0) {
+                    transport.send(request);
+                }
+            }
+
+            @Override
+            public ChunkResponse receive(long timeout, TimeUnit unit) throws InterruptedException {
+                return transport.receive(timeout, unit);
+            }
+
+            @Override
+            public void close() {
+                transport.close();
+            }
+        }, reader);
+        writer.setAckTimeout(200);
+
+        assertNull(run(writer, reader, 10, 5));
+
+        List<Integer> items = new ArrayList<>(output.items);
+        Collections.sort(items);
+        assertEquals(range(50), items);
+    }
+
+    @Test
+    void unacknowledgedChunksAreReadAgainOnRestart() throws Exception {
+        // No worker behind the first execution: its chunks are committed but never acknowledged
+        CountingReader reader = new CountingReader();
+        RemoteChunkItemWriter<Integer> failing = new RemoteChunkItemWriter<>(new RecordingTransport(request -> false), reader);
+        ExecutionContext executionContext = new ExecutionContext();
+        open(failing, reader, executionContext);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            write(failing, reader, executionContext, chunk * 5, (chunk + 1) * 5);
+        }
+        failing.close();
+
+        // The reader starts again from the first chunk, the items are not kept
+        assertEquals(0, executionContext.getInt("reader.count"));
+        assertEquals("0,1,2", executionContext.getString("RemoteChunkItemWriter.pending"));
+
+        CountingReader restartedReader = new CountingReader();
+        ListWriter output = new ListWriter();
+        RemoteChunkItemWriter<Integer> writer = new RemoteChunkItemWriter<>(new InMemoryChunkTransport<>(
+                Collections.singletonList(new ChunkHandler<>(new PassThroughItemProcessor<>(), output))), restartedReader);
+        open(writer, restartedReader, executionContext);
+        try {
+            for (int first = restartedReader.count; first < 20; first += 5) {
+                write(writer, restartedReader, executionContext, first, first + 5);
+            }
+
+            assertNull(writer.afterStep(MetaDataInstanceFactory.createStepExecution()));
+        }
+        finally {
+            writer.close();
+        }
+
+        List<Integer> items = new ArrayList<>(output.items);
+        Collections.sort(items);
+        assertEquals(range(20), items);
+    }
+
+    @Test
+    void restartSkipsTheItemsAcknowledgedAfterTheOldestUnacknowledgedChunk() throws Exception {
+        // Chunk 1 is lost, the acknowledgement of chunk 3 is not received before the failure
+        CountingReader reader = new CountingReader();
+        RecordingTransport lossy = new RecordingTransport(request -> request.getSequence() != 1);
+        RemoteChunkItemWriter<Integer> failing = new RemoteChunkItemWriter<>(lossy, reader);
+        ExecutionContext executionContext = new ExecutionContext();
+        open(failing, reader, executionContext);
+        for (int chunk = 0; chunk < 4; chunk++) {
+            write(failing, reader, executionContext, chunk * 5, (chunk + 1) * 5);
+        }
+        failing.close();
+
+        assertEquals(5, executionContext.getInt("reader.count"));
+
+        // Read again from item 5 by chunks of another size
+        CountingReader restartedReader = new CountingReader();
+        RecordingTransport transport = new RecordingTransport(request -> true);
+        RemoteChunkItemWriter<Integer> writer = new RemoteChunkItemWriter<>(transport, restartedReader);
+        open(writer, restartedReader, executionContext);
+        try {
+            for (int first = restartedReader.count; first < 20; first += 7) {
+                write(writer, restartedReader, executionContext, first, Math.min(first + 7, 20));
+            }
+
+            assertNull(writer.afterStep(MetaDataInstanceFactory.createStepExecution()));
+        }
+        finally {
+            writer.close();
+        }
+
+        // Chunk 2 is not sent again, chunk 3 is as its acknowledgement was not saved
+        assertEquals(Arrays.asList(5, 6, 7, 8, 9, 15, 16, 17, 18, 19), transport.items);
+
+        List<Integer> items = new ArrayList<>(lossy.items);
+        items.addAll(transport.items);
+        assertEquals(range(20), items.stream().distinct().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void localWorkerOutputIsKeptOnRestart(@TempDir Path directory) throws Exception {
+        Path output = directory.resolve("out.worker0000");
+        ExecutionContext executionContext = new ExecutionContext();
+
+        CountingReader reader = new CountingReader();
+        RemoteChunkItemWriter<Integer> first = localWriter(output, reader);
+        open(first, reader, executionContext);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            write(first, reader, executionContext, chunk * 5, (chunk + 1) * 5);
+        }
+        // The job fails without waiting for the last acknowledgements
+        first.close();
+
+        CountingReader restartedReader = new CountingReader();
+        RemoteChunkItemWriter<Integer> restarted = localWriter(output, restartedReader);
+        open(restarted, restartedReader, executionContext);
+        try {
+            for (int item = restartedReader.count; item < 20; item += 5) {
+                write(restarted, restartedReader, executionContext, item, item + 5);
+            }
+
+            assertNull(restarted.afterStep(MetaDataInstanceFactory.createStepExecution()));
+        }
+        finally {
+            restarted.close();
+        }
+
+        // Chunks written but not yet acknowledged may have been written again
+        List<Integer> items = Files.readAllLines(output).stream()
+                .map(Integer::valueOf).distinct().sorted().collect(Collectors.toList());
+        assertEquals(range(20), items);
+    }
+
+    @Test
+    void chunkFailingOnEveryAttemptFailsTheStep() throws Exception {
+        InMemoryChunkTransport<Integer> transport = new InMemoryChunkTransport<>(Collections.singletonList(
+                new ChunkHandler<Integer, Integer>(item -> {
+                    if (item == 7) {
+                        throw new IllegalStateException("bad item " + item);
+                    }
+                    return item;
+                }, new ListWriter())));
+
+        CountingReader reader = new CountingReader();
+        RemoteChunkItemWriter<Integer> writer = new RemoteChunkItemWriter<>(transport, reader);
+        writer.setMaxRetries(2);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ExitStatus exitStatus = run(writer, reader, stepExecution, 4, 5);
+
+        assertEquals(ExitStatus.FAILED, exitStatus);
+        assertEquals(BatchStatus.FAILED, stepExecution.getStatus());
+    }
+
+    private static ExitStatus run(RemoteChunkItemWriter<Integer> writer, CountingReader reader,
+                                  int chunks, int chunkSize) throws Exception {
+        return run(writer, reader, MetaDataInstanceFactory.createStepExecution(), chunks, chunkSize);
+    }
+
+    private static ExitStatus run(RemoteChunkItemWriter<Integer> writer, CountingReader reader, StepExecution stepExecution,
+                                  int chunks, int chunkSize) throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+
+        open(writer, reader, executionContext);
+        try {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                write(writer, reader, executionContext, chunk * chunkSize, (chunk + 1) * chunkSize);
+            }
+            return writer.afterStep(stepExecution);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Open the reader then the writer, as the step does
+     */
+    private static void open(RemoteChunkItemWriter<Integer> writer, CountingReader reader, ExecutionContext executionContext) {
+        reader.open(executionContext);
+        writer.open(executionContext);
+    }
+
+    /**
+     * Write the chunk of the items from first to end, exclusive, then update the reader and the writer, as the step does
+     */
+    private static void write(RemoteChunkItemWriter<Integer> writer, CountingReader reader, ExecutionContext executionContext,
+                              int first, int end) throws Exception {
+        writer.write(IntStream.range(first, end).boxed().collect(Collectors.toList()));
+        reader.count = end;
+        reader.update(executionContext);
+        writer.update(executionContext);
+    }
+
+    private static RemoteChunkItemWriter<Integer> localWriter(Path output, CountingReader reader) {
+        ChannelLineItemWriter<Integer> writer = new ChannelLineItemWriter<>(new FileSystemResource(output));
+        writer.setName("worker0");
+
+        return new RemoteChunkItemWriter<>(new InMemoryChunkTransport<>(
+                Collections.singletonList(new ChunkHandler<>(new PassThroughItemProcessor<>(), writer))), reader);
+    }
+
+    private static List<Integer> range(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * State of a reader: the number of items read
+     */
+    private static class CountingReader extends ItemStreamSupport {
+
+        private int count;
+
+        private CountingReader() {
+            setName("reader");
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            count = executionContext.getInt(getExecutionContextKey("count"), 0);
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+            executionContext.putInt(getExecutionContextKey("count"), count);
+        }
+    }
+
+    /**
+     * Transport acknowledging at once the chunks it delivers, and keeping their items
+     */
+    private static class RecordingTransport implements ChunkTransport<Integer> {
+
+        private final Predicate<ChunkRequest<Integer>> delivered;
+
+        private final List<Integer> items = new ArrayList<>();
+
+        private final Queue<ChunkResponse> responses = new ArrayDeque<>();
+
+        private RecordingTransport(Predicate<ChunkRequest<Integer>> delivered) {
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void send(ChunkRequest<Integer> request) {
+            if (delivered.test(request)) {
+                items.addAll(request.getItems());
+                responses.add(ChunkResponse.success(request, request.getItems().size()));
+            }
+        }
+
+        @Override
+        public ChunkResponse receive(long timeout, TimeUnit unit) {
+            return responses.poll();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class ListWriter extends ItemStreamSupport implements ItemStreamWriter<Integer> {
+
+        private final List<Integer> items = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void write(List<? extends Integer> items) {
+            this.items.addAll(items);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryExecutionContextSerializerTests {
+
+    private final BinaryExecutionContextSerializer serializer = new BinaryExecutionContextSerializer();
+
+    @Test
+    void valuesKeepTheirType() throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("string", "héllo");
+        context.put("int", -42);
+        context.put("long", Long.MAX_VALUE);
+        context.put("double", 0.25d);
+        context.put("boolean", true);
+        context.put("date", new Date(1600000000123L));
+        context.put("localDate", LocalDate.of(2020, 12, 31));
+        context.put("localDateTime", LocalDateTime.of(2020, 12, 31, 23, 59, 58, 123456789));
+        context.put("instant", Instant.ofEpochSecond(-5, 7));
+        context.put("other", new BigDecimal("12.50"));
+
+        assertEquals(context, deserialize(serialize(context)));
+    }
+
+    @Test
+    void contextsStoredAsJsonAreRead() throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("reader.read.count", 50);
+        context.put("batch.taskletType", "org.springframework.batch.core.step.item.ChunkOrientedTasklet");
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        new Jackson2ExecutionContextStringSerializer().serialize(context, json);
+
+        assertEquals(context, deserialize(json.toByteArray()));
+    }
+
+    @Test
+    void unchangedEntriesAreReusedAndFormatIsSmallerThanJson() throws IOException {
+        Map<String, Object> context = new HashMap<>();
+        context.put("batch.stepType", "org.springframework.batch.core.step.tasklet.TaskletStep");
+        context.put("reader.read.count", 10);
+
+        byte[] first = serialize(context);
+        context.put("reader.read.count", 20);
+        byte[] second = serialize(context);
+
+        assertEquals(1, serializer.getReusedEntries());
+        assertEquals(20, deserialize(second).get("reader.read.count"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        new Jackson2ExecutionContextStringSerializer().serialize(context, json);
+        assertTrue(second.length < json.size(), second.length + " >= " + json.size());
+
+        // Round trip through the ISO-8859-1 string the JDBC DAO stores
+        String stored = new String(first, StandardCharsets.ISO_8859_1);
+        assertEquals(10, deserialize(stored.getBytes(StandardCharsets.ISO_8859_1)).get("reader.read.count"));
+    }
+
+    private byte[] serialize(Map<String, Object> context) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(context, out);
+
+        return out.toByteArray();
+    }
+
+    private Map<String, Object> deserialize(byte[] bytes) throws IOException {
+        return serializer.deserialize(new ByteArrayInputStream(bytes));
+    }
+}
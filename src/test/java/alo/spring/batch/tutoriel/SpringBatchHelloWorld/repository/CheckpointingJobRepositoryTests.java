@@ -0,0 +1,187 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CheckpointingJobRepositoryTests {
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DataSourceTransactionManager transactionManager;
+
+    private JobRepository jobRepository;
+
+    private boolean everyCommit;
+
+    @BeforeEach
+    void createRepository() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionManager = new DataSourceTransactionManager(database);
+
+        BatchingJobRepositoryFactoryBean factory = new BatchingJobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(transactionManager);
+        factory.setCheckpointChunks(4);
+        factory.afterPropertiesSet();
+
+        jobRepository = factory.getObject();
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        database.shutdown();
+    }
+
+    @Test
+    void stepStateIsWrittenAtCheckpointsOnly() throws Exception {
+        List<Integer> storedCommits = new ArrayList<>();
+
+        JobExecution execution = run(-1, storedCommits(storedCommits));
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertEquals(List.of(0, 0, 0, 4, 4, 4, 4, 8, 8, 8, 8), storedCommits);
+        assertEquals(11, storedCommits.size());
+
+        StepExecution stored = storedStepExecution(execution);
+        assertEquals(100, stored.getReadCount());
+        assertEquals(BatchStatus.COMPLETED, stored.getStatus());
+    }
+
+    @Test
+    void stepAskingForEveryCommitIsNotDeferred() throws Exception {
+        List<Integer> storedCommits = new ArrayList<>();
+        everyCommit = true;
+
+        JobExecution execution = run(-1, storedCommits(storedCommits));
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), storedCommits);
+    }
+
+    @Test
+    void failedStepStoresItsLatestState() throws Exception {
+        JobExecution execution = run(55, null);
+
+        assertEquals(BatchStatus.FAILED, execution.getStatus());
+
+        StepExecution stored = storedStepExecution(execution);
+        assertEquals(50, stored.getExecutionContext().getInt("reader.read.count"));
+    }
+
+    /**
+     * Run a step reading 100 items in chunks of 10
+     *
+     * @param failAt index of the item failing, -1 for none
+     */
+    private JobExecution run(int failAt, ChunkListener listener) throws Exception {
+        StepBuilderFactory steps = new StepBuilderFactory(jobRepository, transactionManager);
+
+        AbstractItemCountingItemStreamItemReader<Integer> reader = new AbstractItemCountingItemStreamItemReader<Integer>() {
+            private int next;
+
+            @Override
+            protected Integer doRead() {
+                if (next == failAt) {
+                    throw new IllegalStateException("item " + next);
+                }
+                return next < 100 ? next++ : null;
+            }
+
+            @Override
+            public void open(ExecutionContext executionContext) {
+                super.open(executionContext);
+
+                if (everyCommit) {
+                    executionContext.putString(CheckpointingJobRepository.EVERY_COMMIT_KEY, "true");
+                }
+            }
+
+            @Override
+            protected void doOpen() {
+                next = 0;
+            }
+
+            @Override
+            protected void doClose() {
+            }
+        };
+        reader.setName("reader");
+
+        SimpleStepBuilder<Integer, Integer> step = steps.get("step")
+                .<Integer, Integer>chunk(10)
+                .reader(reader)
+                .writer(items -> { });
+        if (listener != null) {
+            step.listener(listener);
+        }
+
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        return launcher.run(new JobBuilderFactory(jobRepository)
+                        .get("job")
+                        .start(step.build())
+                        .build(),
+                new JobParametersBuilder().addLong("failAt", (long) failAt).toJobParameters());
+    }
+
+    /**
+     * @return listener adding the commit count stored after each chunk
+     */
+    private ChunkListener storedCommits(List<Integer> storedCommits) {
+        return new ChunkListener() {
+            @Override
+            public void beforeChunk(ChunkContext context) {
+            }
+
+            @Override
+            public void afterChunk(ChunkContext context) {
+                storedCommits.add(jdbcTemplate.queryForObject(
+                        "SELECT COMMIT_COUNT FROM BATCH_STEP_EXECUTION WHERE STEP_EXECUTION_ID = ?",
+                        Integer.class, context.getStepContext().getStepExecution().getId()));
+            }
+
+            @Override
+            public void afterChunkError(ChunkContext context) {
+            }
+        };
+    }
+
+    private StepExecution storedStepExecution(JobExecution execution) {
+        StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+
+        return jobRepository.getLastStepExecution(execution.getJobInstance(), stepExecution.getStepName());
+    }
+}
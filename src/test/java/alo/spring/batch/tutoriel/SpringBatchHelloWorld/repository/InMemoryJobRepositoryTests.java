@@ -0,0 +1,273 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryJobRepositoryTests {
+
+    private static final int LAUNCHES = 8;
+
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    @Test
+    void parallelLaunchesOfAnInstanceGiveASingleExecution() throws Exception {
+        InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+        JobRepository jobRepository = factory.getObject();
+        Job job = taskletJob(jobRepository);
+
+        List<Object> sameInstance = launchInParallel(jobRepository, job,
+                launch -> new JobParametersBuilder().addString("instance", "same").toJobParameters());
+        List<Object> distinctInstances = launchInParallel(jobRepository, job,
+                launch -> new JobParametersBuilder().addLong("launch", (long) launch).toJobParameters());
+
+        assertEquals(1, sameInstance.stream().filter(result -> result instanceof JobExecution).count());
+        assertTrue(sameInstance.stream().allMatch(result -> result instanceof JobExecution
+                || result instanceof JobExecutionAlreadyRunningException
+                || result instanceof JobInstanceAlreadyCompleteException), sameInstance::toString);
+        assertTrue(distinctInstances.stream().allMatch(result -> result instanceof JobExecution
+                && ((JobExecution) result).getStatus() == BatchStatus.COMPLETED), distinctInstances::toString);
+
+        JobExplorer explorer = factory.getJobExplorer();
+        assertEquals(1 + LAUNCHES, explorer.getJobInstanceCount("job"));
+        assertEquals(1, explorer.getJobExecutions(explorer.getJobInstances("job", LAUNCHES, 1).get(0)).size());
+        assertTrue(explorer.findRunningJobExecutions("job").isEmpty());
+    }
+
+    @Test
+    void failedJobIsRestartedFromItsContext() throws Exception {
+        JobRepository jobRepository = new InMemoryJobRepositoryFactoryBean().getObject();
+
+        failing.set(true);
+        JobExecution failed = run(jobRepository);
+        failing.set(false);
+        JobExecution restarted = run(jobRepository);
+
+        assertEquals(BatchStatus.FAILED, failed.getStatus());
+        assertEquals(BatchStatus.COMPLETED, restarted.getStatus());
+        assertEquals(failed.getJobInstance(), restarted.getJobInstance());
+        // Read from item 50, saved by the last chunk committed before the failure
+        assertEquals(50, restarted.getStepExecutions().iterator().next().getReadCount());
+        assertEquals(2, jobRepository.getStepExecutionCount(restarted.getJobInstance(), "step"));
+    }
+
+    @Test
+    void onlyTheLastEndedInstancesAreRetained() throws Exception {
+        InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+        factory.setRetainedInstances(2);
+        JobRepository jobRepository = factory.getObject();
+        Job job = taskletJob(jobRepository);
+
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+        List<JobExecution> executions = new ArrayList<>();
+        for (long launch = 0; launch < 4; launch++) {
+            executions.add(launcher.run(job, new JobParametersBuilder().addLong("launch", launch).toJobParameters()));
+        }
+
+        JobExplorer explorer = factory.getJobExplorer();
+        assertEquals(2, explorer.getJobInstanceCount("job"));
+        assertNull(explorer.getJobExecution(executions.get(0).getId()));
+        assertNull(explorer.getStepExecution(executions.get(1).getId(),
+                executions.get(1).getStepExecutions().iterator().next().getId()));
+        assertEquals(BatchStatus.COMPLETED, explorer.getJobExecution(executions.get(3).getId()).getStatus());
+
+        // Forgotten, so launched again rather than already complete
+        JobExecution again = launcher.run(job, new JobParametersBuilder().addLong("launch", 0L).toJobParameters());
+        assertEquals(BatchStatus.COMPLETED, again.getStatus());
+        assertEquals(2, explorer.getJobInstanceCount("job"));
+    }
+
+    @Test
+    void endedExecutionsAreWrittenBehindToTheTables() throws Exception {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .build();
+        try {
+            JobSnapshotWriter writer = new JobSnapshotWriter(database, null, null, 10);
+            InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+            factory.setSnapshotWriter(writer);
+            JobRepository jobRepository = factory.getObject();
+
+            failing.set(true);
+            run(jobRepository);
+            failing.set(false);
+            run(jobRepository);
+            writer.close();
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_JOB_INSTANCE", Integer.class));
+            assertEquals(List.of("FAILED", "COMPLETED"), jdbcTemplate.queryForList(
+                    "SELECT STATUS FROM BATCH_JOB_EXECUTION ORDER BY JOB_EXECUTION_ID", String.class));
+            assertEquals(List.of(55, 50), jdbcTemplate.queryForList(
+                    "SELECT READ_COUNT FROM BATCH_STEP_EXECUTION ORDER BY STEP_EXECUTION_ID", Integer.class));
+            assertTrue(jdbcTemplate.queryForObject("SELECT SHORT_CONTEXT FROM BATCH_STEP_EXECUTION_CONTEXT"
+                    + " ORDER BY STEP_EXECUTION_ID LIMIT 1", String.class).contains("reader.read.count"));
+            assertEquals(0, writer.getDroppedCount());
+        }
+        finally {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    void snapshotFailingToBeWrittenIsRolledBackAlone() throws Exception {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .build();
+        try {
+            JobSnapshotWriter writer = new JobSnapshotWriter(database, null, null, 10);
+            InMemoryJobRepositoryFactoryBean factory = new InMemoryJobRepositoryFactoryBean();
+            factory.setSnapshotWriter(writer);
+            JobRepository jobRepository = factory.getObject();
+            Job job = taskletJob(jobRepository);
+
+            SimpleJobLauncher launcher = new SimpleJobLauncher();
+            launcher.setJobRepository(jobRepository);
+            launcher.afterPropertiesSet();
+            // A parameter longer than the column STRING_VAL fails the second snapshot
+            for (String value : List.of("first", "x".repeat(300), "third")) {
+                launcher.run(job, new JobParametersBuilder().addString("value", value).toJobParameters());
+            }
+            writer.close();
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            assertEquals(List.of("first", "third"), jdbcTemplate.queryForList(
+                    "SELECT STRING_VAL FROM BATCH_JOB_EXECUTION_PARAMS ORDER BY JOB_EXECUTION_ID", String.class));
+            assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_STEP_EXECUTION", Integer.class));
+            assertEquals(1, writer.getFailedCount());
+        }
+        finally {
+            database.shutdown();
+        }
+    }
+
+    private static List<Object> launchInParallel(JobRepository jobRepository, Job job,
+                                                 java.util.function.IntFunction<JobParameters> parameters)
+            throws Exception {
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(LAUNCHES);
+        try {
+            List<Future<Object>> launches = new ArrayList<>();
+            for (int launch = 0; launch < LAUNCHES; launch++) {
+                JobParameters jobParameters = parameters.apply(launch);
+                launches.add(executor.submit((Callable<Object>) () -> {
+                    try {
+                        return launcher.run(job, jobParameters);
+                    }
+                    catch (Exception e) {
+                        return e;
+                    }
+                }));
+            }
+
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> launch : launches) {
+                results.add(launch.get());
+            }
+            return results;
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Job taskletJob(JobRepository jobRepository) {
+        return new JobBuilderFactory(jobRepository)
+                .get("job")
+                .start(new StepBuilderFactory(jobRepository, new ResourcelessTransactionManager())
+                        .get("step")
+                        .tasklet((contribution, chunkContext) -> {
+                            Thread.sleep(20);
+                            return RepeatStatus.FINISHED;
+                        })
+                        .build())
+                .build();
+    }
+
+    /**
+     * Run a job reading 100 items in chunks of 10, failing at item 55 while failing is set
+     */
+    private JobExecution run(JobRepository jobRepository) throws Exception {
+        AbstractItemCountingItemStreamItemReader<Integer> reader = new AbstractItemCountingItemStreamItemReader<Integer>() {
+            private int next;
+
+            @Override
+            protected Integer doRead() {
+                if (next == 55 && failing.get()) {
+                    throw new IllegalStateException("item " + next);
+                }
+                return next < 100 ? next++ : null;
+            }
+
+            @Override
+            protected void doOpen() {
+                next = 0;
+            }
+
+            @Override
+            protected void doClose() {
+            }
+        };
+        reader.setName("reader");
+
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        JobExecution execution = launcher.run(new JobBuilderFactory(jobRepository)
+                        .get("job")
+                        .start(new StepBuilderFactory(jobRepository, new ResourcelessTransactionManager())
+                                .get("step")
+                                .<Integer, Integer>chunk(10)
+                                .reader(reader)
+                                .writer(items -> { })
+                                .build())
+                        .build(),
+                new JobParameters());
+
+        StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+        assertEquals(stepExecution.getReadCount(),
+                jobRepository.getLastStepExecution(execution.getJobInstance(), "step").getReadCount());
+
+        return execution;
+    }
+}
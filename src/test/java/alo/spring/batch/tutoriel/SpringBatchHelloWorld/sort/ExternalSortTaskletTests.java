@@ -0,0 +1,143 @@
+package alo.spring.batch.tutoriel.SpringBatchHelloWorld.sort;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExternalSortTaskletTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    void largeFileIsSortedStablyThroughSeveralMergePasses() throws Exception {
+        Path file = directory.resolve("out.csv");
+        List<String> lines = lines(20_000);
+        Files.write(file, lines, StandardCharsets.ISO_8859_1);
+
+        ExternalSortTasklet tasklet = tasklet(file, SortKey.of("1", "numeric", ','));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        int executions = runToEnd(tasklet, stepExecution);
+
+        assertEquals(sorted(lines), Files.readAllLines(file, StandardCharsets.ISO_8859_1));
+        assertEquals(20_000, stepExecution.getWriteCount());
+        // Runs generated, merged in more than one pass, then the final merge and the cleanup
+        assertTrue(executions > 4, "executions: " + executions);
+        assertFalse(Files.exists(tasklet.runDirectory()));
+    }
+
+    @Test
+    void restartResumesTheMergeFromTheSavedRuns() throws Exception {
+        Path file = directory.resolve("out.csv");
+        List<String> lines = lines(20_000);
+        Files.write(file, lines, StandardCharsets.ISO_8859_1);
+
+        ExternalSortTasklet tasklet = tasklet(file, SortKey.of("1", "numeric", ','));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        // Runs generated and a first group merged, then the context committed
+        tasklet.execute(stepExecution.createStepContribution(), chunkContext);
+        tasklet.execute(stepExecution.createStepContribution(), chunkContext);
+        ExecutionContext committed = new ExecutionContext(stepExecution.getExecutionContext());
+
+        // A second merge interrupted: its context is lost, its output is left half written
+        tasklet.execute(stepExecution.createStepContribution(), chunkContext);
+        Files.write(tasklet.runDirectory().resolve("run999999"), List.of("partial"));
+
+        StepExecution restart = MetaDataInstanceFactory.createStepExecution();
+        restart.setExecutionContext(committed);
+        runToEnd(tasklet(file, SortKey.of("1", "numeric", ',')), restart);
+
+        assertEquals(sorted(lines), Files.readAllLines(file, StandardCharsets.ISO_8859_1));
+        assertFalse(Files.exists(tasklet.runDirectory()));
+    }
+
+    @Test
+    void textKeysAreComparedByteByByte() throws Exception {
+        Path file = directory.resolve("out.csv");
+        Files.write(file, List.of("b,é", "a,z", "c,", "d", "e,Z"), StandardCharsets.ISO_8859_1);
+
+        runToEnd(tasklet(file, SortKey.of("1", null, ',')), MetaDataInstanceFactory.createStepExecution());
+
+        assertEquals(List.of("c,", "d", "e,Z", "a,z", "b,é"), Files.readAllLines(file, StandardCharsets.ISO_8859_1));
+    }
+
+    private ExternalSortTasklet tasklet(Path file, SortKey sortKey) {
+        ExternalSortTasklet tasklet = new ExternalSortTasklet(new FileSystemResource(file), sortKey);
+        // Runs of about 1000 lines, merged 3 at a time
+        tasklet.setMemoryBudget(5 * 1000 * (128 + 20));
+        tasklet.setMergeFanIn(3);
+        tasklet.setTaskExecutor(executor, 4);
+        tasklet.setTempDirectory(directory.resolve("tmp").toFile());
+
+        return tasklet;
+    }
+
+    private static int runToEnd(ExternalSortTasklet tasklet, StepExecution stepExecution) throws Exception {
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        int executions = 0;
+        RepeatStatus status;
+
+        do {
+            StepContribution contribution = stepExecution.createStepContribution();
+            status = tasklet.execute(contribution, chunkContext);
+            stepExecution.apply(contribution);
+            executions++;
+        }
+        while (status.isContinuable());
+
+        return executions;
+    }
+
+    /**
+     * @return lines "line,key" with keys from 0 to 99, so that many lines have the same key
+     */
+    private static List<String> lines(int count) {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            lines.add("line" + i + "," + random.nextInt(100));
+        }
+
+        return lines;
+    }
+
+    private static List<String> sorted(List<String> lines) {
+        List<String> sorted = new ArrayList<>(lines);
+        sorted.sort(Comparator.comparingInt(line -> Integer.parseInt(line.substring(line.indexOf(',') + 1))));
+
+        return sorted;
+    }
+}